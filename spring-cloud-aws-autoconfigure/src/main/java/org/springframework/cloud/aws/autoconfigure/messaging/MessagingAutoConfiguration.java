@@ -16,11 +16,22 @@
 
 package org.springframework.cloud.aws.autoconfigure.messaging;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.aws.messaging.config.SimpleMessageListenerContainerFactory;
 import org.springframework.cloud.aws.messaging.config.annotation.EnableSns;
 import org.springframework.cloud.aws.messaging.config.annotation.EnableSqs;
+import org.springframework.cloud.aws.messaging.listener.BackOffPolicy;
+import org.springframework.cloud.aws.messaging.listener.MessageListenerMetrics;
+import org.springframework.cloud.aws.messaging.listener.MicrometerMessageListenerMetrics;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -33,6 +44,8 @@ import org.springframework.context.annotation.Configuration;
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnProperty(name = "cloud.aws.messaging.enabled", havingValue = "true",
 		matchIfMissing = true)
+@AutoConfigureAfter(
+		name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 public class MessagingAutoConfiguration {
 
 	/**
@@ -41,9 +54,53 @@ public class MessagingAutoConfiguration {
 	@ConditionalOnMissingBean(
 			type = "org.springframework.cloud.aws.messaging.listener.SimpleMessageListenerContainer")
 	@EnableSqs
+	@EnableConfigurationProperties(SqsListenerProperties.class)
 	@Configuration(proxyBeanMethods = false)
 	public static class SqsAutoConfiguration {
 
+		@Bean
+		@ConditionalOnMissingBean
+		public SimpleMessageListenerContainerFactory simpleMessageListenerContainerFactory(
+				SqsListenerProperties properties,
+				ObjectProvider<BackOffPolicy> backOffPolicy) {
+			SimpleMessageListenerContainerFactory factory = new SimpleMessageListenerContainerFactory();
+			factory.setVirtualThreads(properties.getVirtualThreads());
+			factory.setMaxInflightMessagesPerQueue(
+					properties.getMaxInflightMessagesPerQueue());
+			factory.setMaxNumberOfMessages(properties.getMaxNumberOfMessages());
+			factory.setVisibilityTimeout(properties.getVisibilityTimeout());
+			factory.setWaitTimeOut(properties.getWaitTimeout());
+			factory.setAttributeNames(properties.getAttributeNames());
+			factory.setMessageAttributeNames(properties.getMessageAttributeNames());
+			factory.setBackOffTime(properties.getBackOffTime());
+			factory.setQueueStopTimeout(properties.getQueueStopTimeout());
+			factory.setBatchDeleteEnabled(properties.getBatchDeleteEnabled());
+			factory.setBatchDeleteMaxDelay(properties.getBatchDeleteMaxDelay());
+			factory.setVisibilityHeartbeatEnabled(
+					properties.getVisibilityHeartbeatEnabled());
+			factory.setMaxVisibilityExtension(properties.getMaxVisibilityExtension());
+			factory.setMaxPollersPerQueue(properties.getMaxPollersPerQueue());
+			factory.setBackOffPolicy(backOffPolicy.getIfUnique());
+			return factory;
+		}
+
+	}
+
+	/**
+	 * Auto configuration for recording the SQS listener metrics with Micrometer.
+	 */
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+	@ConditionalOnBean(type = "io.micrometer.core.instrument.MeterRegistry")
+	@Configuration(proxyBeanMethods = false)
+	public static class SqsMetricsAutoConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public MessageListenerMetrics messageListenerMetrics(
+				MeterRegistry meterRegistry) {
+			return new MicrometerMessageListenerMetrics(meterRegistry);
+		}
+
 	}
 
 	/**
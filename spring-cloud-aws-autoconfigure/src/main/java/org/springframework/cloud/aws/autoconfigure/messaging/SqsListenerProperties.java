@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.autoconfigure.messaging;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties related to the SQS message listener container. Unset properties keep the
+ * defaults of the
+ * {@link org.springframework.cloud.aws.messaging.listener.SimpleMessageListenerContainer}.
+ *
+ * @author agent
+ * @since 3.0
+ */
+@ConfigurationProperties(prefix = "cloud.aws.sqs.listener")
+public class SqsListenerProperties {
+
+	/**
+	 * Whether the polling threads and the message executions run on virtual threads.
+	 * Requires Java 21 or later.
+	 */
+	private Boolean virtualThreads;
+
+	/**
+	 * Maximum number of messages received per queue that may be in execution at the same
+	 * time. Enables the pipelined polling mode.
+	 */
+	private Integer maxInflightMessagesPerQueue;
+
+	/**
+	 * Maximum number of messages that are received with one poll, between 1 and 10.
+	 */
+	private Integer maxNumberOfMessages;
+
+	/**
+	 * Duration in seconds during which received messages are hidden from subsequent
+	 * receive requests.
+	 */
+	private Integer visibilityTimeout;
+
+	/**
+	 * Duration in seconds a receive call waits for messages to arrive, between 1 and 20.
+	 */
+	private Integer waitTimeout;
+
+	/**
+	 * Names of the system attributes requested with the received messages, for example
+	 * ApproximateReceiveCount. Defaults to all attributes.
+	 */
+	private List<String> attributeNames;
+
+	/**
+	 * Names of the message attributes requested with the received messages. Defaults to
+	 * all message attributes.
+	 */
+	private List<String> messageAttributeNames;
+
+	/**
+	 * Number of milliseconds a polling thread waits before trying to recover from an
+	 * error.
+	 */
+	private Long backOffTime;
+
+	/**
+	 * Number of milliseconds the container waits for a queue to stop.
+	 */
+	private Long queueStopTimeout;
+
+	/**
+	 * Whether deletions of executed messages are aggregated into batch requests.
+	 */
+	private Boolean batchDeleteEnabled;
+
+	/**
+	 * Maximum number of milliseconds a deletion is buffered before a batch that is not
+	 * full is sent.
+	 */
+	private Long batchDeleteMaxDelay;
+
+	/**
+	 * Whether the visibility of messages in execution is extended automatically.
+	 * Requires the visibility timeout to be set.
+	 */
+	private Boolean visibilityHeartbeatEnabled;
+
+	/**
+	 * Maximum number of seconds the visibility of a message is extended automatically in
+	 * total.
+	 */
+	private Integer maxVisibilityExtension;
+
+	/**
+	 * Maximum number of threads polling a queue at the same time. Enables the adaptive
+	 * polling, which adds polling threads while receives return full batches.
+	 */
+	private Integer maxPollersPerQueue;
+
+	public Boolean getVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	public void setVirtualThreads(Boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public Integer getMaxInflightMessagesPerQueue() {
+		return this.maxInflightMessagesPerQueue;
+	}
+
+	public void setMaxInflightMessagesPerQueue(Integer maxInflightMessagesPerQueue) {
+		this.maxInflightMessagesPerQueue = maxInflightMessagesPerQueue;
+	}
+
+	public Integer getMaxNumberOfMessages() {
+		return this.maxNumberOfMessages;
+	}
+
+	public void setMaxNumberOfMessages(Integer maxNumberOfMessages) {
+		this.maxNumberOfMessages = maxNumberOfMessages;
+	}
+
+	public Integer getVisibilityTimeout() {
+		return this.visibilityTimeout;
+	}
+
+	public void setVisibilityTimeout(Integer visibilityTimeout) {
+		this.visibilityTimeout = visibilityTimeout;
+	}
+
+	public Integer getWaitTimeout() {
+		return this.waitTimeout;
+	}
+
+	public void setWaitTimeout(Integer waitTimeout) {
+		this.waitTimeout = waitTimeout;
+	}
+
+	public List<String> getAttributeNames() {
+		return this.attributeNames;
+	}
+
+	public void setAttributeNames(List<String> attributeNames) {
+		this.attributeNames = attributeNames;
+	}
+
+	public List<String> getMessageAttributeNames() {
+		return this.messageAttributeNames;
+	}
+
+	public void setMessageAttributeNames(List<String> messageAttributeNames) {
+		this.messageAttributeNames = messageAttributeNames;
+	}
+
+	public Long getBackOffTime() {
+		return this.backOffTime;
+	}
+
+	public void setBackOffTime(Long backOffTime) {
+		this.backOffTime = backOffTime;
+	}
+
+	public Long getQueueStopTimeout() {
+		return this.queueStopTimeout;
+	}
+
+	public void setQueueStopTimeout(Long queueStopTimeout) {
+		this.queueStopTimeout = queueStopTimeout;
+	}
+
+	public Boolean getBatchDeleteEnabled() {
+		return this.batchDeleteEnabled;
+	}
+
+	public void setBatchDeleteEnabled(Boolean batchDeleteEnabled) {
+		this.batchDeleteEnabled = batchDeleteEnabled;
+	}
+
+	public Long getBatchDeleteMaxDelay() {
+		return this.batchDeleteMaxDelay;
+	}
+
+	public void setBatchDeleteMaxDelay(Long batchDeleteMaxDelay) {
+		this.batchDeleteMaxDelay = batchDeleteMaxDelay;
+	}
+
+	public Boolean getVisibilityHeartbeatEnabled() {
+		return this.visibilityHeartbeatEnabled;
+	}
+
+	public void setVisibilityHeartbeatEnabled(Boolean visibilityHeartbeatEnabled) {
+		this.visibilityHeartbeatEnabled = visibilityHeartbeatEnabled;
+	}
+
+	public Integer getMaxVisibilityExtension() {
+		return this.maxVisibilityExtension;
+	}
+
+	public void setMaxVisibilityExtension(Integer maxVisibilityExtension) {
+		this.maxVisibilityExtension = maxVisibilityExtension;
+	}
+
+	public Integer getMaxPollersPerQueue() {
+		return this.maxPollersPerQueue;
+	}
+
+	public void setMaxPollersPerQueue(Integer maxPollersPerQueue) {
+		this.maxPollersPerQueue = maxPollersPerQueue;
+	}
+
+}
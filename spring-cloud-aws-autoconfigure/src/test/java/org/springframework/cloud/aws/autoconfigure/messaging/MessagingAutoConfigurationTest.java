@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.autoconfigure.messaging;
+
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.aws.messaging.config.SimpleMessageListenerContainerFactory;
+import org.springframework.cloud.aws.messaging.listener.BackOffPolicy;
+import org.springframework.cloud.aws.messaging.listener.MessageListenerMetrics;
+import org.springframework.cloud.aws.messaging.listener.MicrometerMessageListenerMetrics;
+import org.springframework.cloud.aws.messaging.listener.SimpleMessageListenerContainer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MessagingAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(MessagingAutoConfiguration.class))
+			.withUserConfiguration(MockAmazonClientConfiguration.class);
+
+	@Test
+	void simpleMessageListenerContainer_withoutListenerProperties_keepsContainerDefaults() {
+		this.contextRunner.run(context -> {
+			SimpleMessageListenerContainer container = context
+					.getBean(SimpleMessageListenerContainer.class);
+			assertThat(container.isVirtualThreads()).isFalse();
+			assertThat(container.getMaxInflightMessagesPerQueue()).isNull();
+			assertThat(container.getBackOffTime()).isEqualTo(10000);
+		});
+	}
+
+	@Test
+	void simpleMessageListenerContainer_withListenerProperties_configuresContainer() {
+		this.contextRunner
+				.withPropertyValues(
+						"cloud.aws.sqs.listener.max-inflight-messages-per-queue:100",
+						"cloud.aws.sqs.listener.back-off-time:500",
+						"cloud.aws.sqs.listener.batch-delete-enabled:true",
+						"cloud.aws.sqs.listener.max-pollers-per-queue:4")
+				.run(context -> {
+					SimpleMessageListenerContainer container = context
+							.getBean(SimpleMessageListenerContainer.class);
+					assertThat(container.getMaxInflightMessagesPerQueue())
+							.isEqualTo(100);
+					assertThat(container.getBackOffTime()).isEqualTo(500);
+					assertThat(container.isBatchDeleteEnabled()).isTrue();
+					assertThat(container.getMaxPollersPerQueue()).isEqualTo(4);
+				});
+	}
+
+	@Test
+	void simpleMessageListenerContainer_withBackOffPolicyBean_configuresContainer() {
+		BackOffPolicy backOffPolicy = (attempt, exception) -> 42;
+		this.contextRunner.withBean(BackOffPolicy.class, () -> backOffPolicy)
+				.run(context -> {
+					SimpleMessageListenerContainer container = context
+							.getBean(SimpleMessageListenerContainer.class);
+					assertThat(container.getBackOffPolicy()).isSameAs(backOffPolicy);
+				});
+	}
+
+	@Test
+	void simpleMessageListenerContainer_withMeterRegistryBean_recordsMetrics() {
+		this.contextRunner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+				.run(context -> {
+					MessageListenerMetrics metrics = context
+							.getBean(MessageListenerMetrics.class);
+					SimpleMessageListenerContainerFactory factory = context
+							.getBean(SimpleMessageListenerContainerFactory.class);
+					assertThat(metrics)
+							.isInstanceOf(MicrometerMessageListenerMetrics.class);
+					assertThat(factory.getMessageListenerMetrics()).isSameAs(metrics);
+				});
+	}
+
+	@Test
+	void simpleMessageListenerContainer_withoutMeterRegistryBean_recordsNoMetrics() {
+		this.contextRunner.run(context -> assertThat(context)
+				.doesNotHaveBean(MessageListenerMetrics.class));
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class MockAmazonClientConfiguration {
+
+		@Bean
+		AmazonSQSAsync amazonSQS() {
+			return mock(AmazonSQSAsync.class);
+		}
+
+		@Bean
+		AmazonSNS amazonSNS() {
+			return mock(AmazonSNS.class);
+		}
+
+	}
+
+}
@@ -26,9 +26,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cloud.aws.core.env.ResourceIdResolver;
 import org.springframework.cloud.aws.messaging.core.QueueMessagingTemplate;
+import org.springframework.cloud.aws.messaging.listener.MessageListenerMetrics;
 import org.springframework.cloud.aws.messaging.listener.QueueMessageHandler;
 import org.springframework.cloud.aws.messaging.listener.SendToHandlerMethodReturnValueHandler;
 import org.springframework.cloud.aws.messaging.listener.SqsMessageDeletionPolicy;
+import org.springframework.cloud.aws.messaging.support.converter.CachingMappingJackson2MessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.CompressingMessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.PayloadCompression;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.core.DestinationResolvingMessageSendingOperations;
@@ -62,6 +66,10 @@ public class QueueMessageHandlerFactory {
 
 	private ObjectMapper objectMapper;
 
+	private MessageListenerMetrics messageListenerMetrics;
+
+	private PayloadCompression payloadCompression;
+
 	public void setArgumentResolvers(
 			List<HandlerMethodArgumentResolver> argumentResolvers) {
 		this.argumentResolvers = argumentResolvers;
@@ -151,11 +159,41 @@ public class QueueMessageHandlerFactory {
 		this.objectMapper = objectMapper;
 	}
 
+	public MessageListenerMetrics getMessageListenerMetrics() {
+		return this.messageListenerMetrics;
+	}
+
+	/**
+	 * Configures the {@link MessageListenerMetrics} notified about every invocation of a
+	 * listener method.
+	 * @param messageListenerMetrics - the metrics to record, can be null
+	 * @see QueueMessageHandler#setMessageListenerMetrics(MessageListenerMetrics)
+	 */
+	public void setMessageListenerMetrics(MessageListenerMetrics messageListenerMetrics) {
+		this.messageListenerMetrics = messageListenerMetrics;
+	}
+
+	public PayloadCompression getPayloadCompression() {
+		return this.payloadCompression;
+	}
+
+	/**
+	 * Enables the decompression of received payloads that have been compressed by a
+	 * {@link CompressingMessageConverter}.
+	 * @param payloadCompression - the compression algorithm, can be null
+	 * @see QueueMessageHandler#setPayloadCompression(PayloadCompression)
+	 */
+	public void setPayloadCompression(PayloadCompression payloadCompression) {
+		this.payloadCompression = payloadCompression;
+	}
+
 	public QueueMessageHandler createQueueMessageHandler() {
+		// Shared by the handler and the template, so that both use the same caches
+		MappingJackson2MessageConverter defaultMessageConverter = getDefaultMappingJackson2MessageConverter(
+				this.objectMapper);
 		QueueMessageHandler queueMessageHandler = new QueueMessageHandler(
-				CollectionUtils.isEmpty(this.messageConverters) ? Arrays.asList(
-						getDefaultMappingJackson2MessageConverter(this.objectMapper))
-						: this.messageConverters,
+				CollectionUtils.isEmpty(this.messageConverters)
+						? Arrays.asList(defaultMessageConverter) : this.messageConverters,
 				this.sqsMessageDeletionPolicy);
 
 		if (!CollectionUtils.isEmpty(this.argumentResolvers)) {
@@ -175,20 +213,26 @@ public class QueueMessageHandlerFactory {
 		else {
 			sendToHandlerMethodReturnValueHandler = new SendToHandlerMethodReturnValueHandler(
 					getDefaultSendToQueueMessagingTemplate(this.amazonSqs,
-							this.resourceIdResolver));
+							this.resourceIdResolver, defaultMessageConverter));
 
 		}
 		sendToHandlerMethodReturnValueHandler.setBeanFactory(this.beanFactory);
 		queueMessageHandler.getCustomReturnValueHandlers()
 				.add(sendToHandlerMethodReturnValueHandler);
 
+		if (this.messageListenerMetrics != null) {
+			queueMessageHandler.setMessageListenerMetrics(this.messageListenerMetrics);
+		}
+		queueMessageHandler.setPayloadCompression(this.payloadCompression);
+
 		return queueMessageHandler;
 	}
 
 	private QueueMessagingTemplate getDefaultSendToQueueMessagingTemplate(
-			AmazonSQSAsync amazonSqs, ResourceIdResolver resourceIdResolver) {
+			AmazonSQSAsync amazonSqs, ResourceIdResolver resourceIdResolver,
+			MappingJackson2MessageConverter messageConverter) {
 		return new QueueMessagingTemplate(amazonSqs, resourceIdResolver,
-				getDefaultMappingJackson2MessageConverter(this.objectMapper));
+				messageConverter);
 	}
 
 	public List<MessageConverter> getMessageConverters() {
@@ -207,8 +251,7 @@ public class QueueMessageHandlerFactory {
 
 	private MappingJackson2MessageConverter getDefaultMappingJackson2MessageConverter(
 			ObjectMapper objectMapper) {
-		MappingJackson2MessageConverter jacksonMessageConverter = new MappingJackson2MessageConverter();
-		jacksonMessageConverter.setSerializedPayloadClass(String.class);
+		MappingJackson2MessageConverter jacksonMessageConverter = new CachingMappingJackson2MessageConverter();
 		jacksonMessageConverter.setStrictContentTypeMatch(true);
 
 		if (objectMapper != null) {
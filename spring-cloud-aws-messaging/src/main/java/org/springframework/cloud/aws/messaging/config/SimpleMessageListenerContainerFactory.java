@@ -16,12 +16,18 @@
 
 package org.springframework.cloud.aws.messaging.config;
 
+import java.util.List;
+
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
 
 import org.springframework.cloud.aws.core.env.ResourceIdResolver;
+import org.springframework.cloud.aws.messaging.core.LargePayloadStore;
+import org.springframework.cloud.aws.messaging.listener.BackOffPolicy;
+import org.springframework.cloud.aws.messaging.listener.MessageListenerMetrics;
 import org.springframework.cloud.aws.messaging.listener.QueueMessageHandler;
 import org.springframework.cloud.aws.messaging.listener.SimpleMessageListenerContainer;
+import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.messaging.core.DestinationResolver;
@@ -42,6 +48,10 @@ public class SimpleMessageListenerContainerFactory {
 
 	private Integer waitTimeOut;
 
+	private List<String> attributeNames;
+
+	private List<String> messageAttributeNames;
+
 	private Long queueStopTimeout;
 
 	private boolean autoStartup = true;
@@ -56,6 +66,26 @@ public class SimpleMessageListenerContainerFactory {
 
 	private Long backOffTime;
 
+	private Integer maxInflightMessagesPerQueue;
+
+	private Boolean batchDeleteEnabled;
+
+	private Long batchDeleteMaxDelay;
+
+	private Boolean virtualThreads;
+
+	private Boolean visibilityHeartbeatEnabled;
+
+	private Integer maxVisibilityExtension;
+
+	private Integer maxPollersPerQueue;
+
+	private LargePayloadStore largePayloadStore;
+
+	private BackOffPolicy backOffPolicy;
+
+	private MessageListenerMetrics messageListenerMetrics;
+
 	/**
 	 * Configures the {@link TaskExecutor} which is used to poll messages and execute them
 	 * by calling the handler methods. If no {@link TaskExecutor} is set, a default one is
@@ -71,7 +101,8 @@ public class SimpleMessageListenerContainerFactory {
 	 * Configure the maximum number of messages that should be retrieved during one poll
 	 * to the Amazon SQS system. This number must be a positive, non-zero number that has
 	 * a maximum number of 10. Values higher then 10 are currently not supported by the
-	 * queueing system.
+	 * queueing system. Listener methods can override it with
+	 * {@link SqsListener#maxMessagesPerPoll()}.
 	 * @param maxNumberOfMessages the maximum number of messages (between 1-10)
 	 */
 	public void setMaxNumberOfMessages(Integer maxNumberOfMessages) {
@@ -80,7 +111,8 @@ public class SimpleMessageListenerContainerFactory {
 
 	/**
 	 * Configures the duration (in seconds) that the received messages are hidden from
-	 * subsequent poll requests after being retrieved from the system.
+	 * subsequent poll requests after being retrieved from the system. Listener methods
+	 * can override it with {@link SqsListener#visibilityTimeout()}.
 	 * @param visibilityTimeout the visibility timeout in seconds
 	 */
 	public void setVisibilityTimeout(Integer visibilityTimeout) {
@@ -93,12 +125,41 @@ public class SimpleMessageListenerContainerFactory {
 	 * poll request to the system significantly. The value should be between 1 and 20. For
 	 * more information read the <a href=
 	 * "https://docs.aws.amazon.com/AWSSimpleQueueService/latest/SQSDeveloperGuide/sqs-long-polling.html">documentation</a>.
+	 * Listener methods can override it with {@link SqsListener#waitTimeSeconds()}.
 	 * @param waitTimeOut - the wait time out in seconds
 	 */
 	public void setWaitTimeOut(Integer waitTimeOut) {
 		this.waitTimeOut = waitTimeOut;
 	}
 
+	public List<String> getAttributeNames() {
+		return this.attributeNames;
+	}
+
+	/**
+	 * Configures the system attributes that are requested with the received messages.
+	 * Listener methods can override it with {@link SqsListener#attributeNames()}.
+	 * @param attributeNames the names of the system attributes to receive
+	 * @see SimpleMessageListenerContainer#setAttributeNames(List)
+	 */
+	public void setAttributeNames(List<String> attributeNames) {
+		this.attributeNames = attributeNames;
+	}
+
+	public List<String> getMessageAttributeNames() {
+		return this.messageAttributeNames;
+	}
+
+	/**
+	 * Configures the message attributes that are requested with the received messages.
+	 * Listener methods can override it with {@link SqsListener#messageAttributeNames()}.
+	 * @param messageAttributeNames the names of the message attributes to receive
+	 * @see SimpleMessageListenerContainer#setMessageAttributeNames(List)
+	 */
+	public void setMessageAttributeNames(List<String> messageAttributeNames) {
+		this.messageAttributeNames = messageAttributeNames;
+	}
+
 	/**
 	 * Configures the queue stop timeout that waits for a queue to stop before
 	 * interrupting the running thread.
@@ -179,16 +240,16 @@ public class SimpleMessageListenerContainerFactory {
 	}
 
 	/**
-	 * @return The number of milliseconds the polling thread must wait before trying to
-	 * recover when an error occurs (e.g. connection timeout)
+	 * @return The maximum number of milliseconds the polling thread must wait before
+	 * trying to recover when an error occurs (e.g. connection timeout)
 	 */
 	public Long getBackOffTime() {
 		return this.backOffTime;
 	}
 
 	/**
-	 * The number of milliseconds the polling thread must wait before trying to recover
-	 * when an error occurs (e.g. connection timeout). Default value is 10000
+	 * The maximum number of milliseconds the polling thread must wait before trying to
+	 * recover when an error occurs (e.g. connection timeout). Default value is 10000
 	 * milliseconds.
 	 * @param backOffTime in milliseconds
 	 */
@@ -196,6 +257,151 @@ public class SimpleMessageListenerContainerFactory {
 		this.backOffTime = backOffTime;
 	}
 
+	public BackOffPolicy getBackOffPolicy() {
+		return this.backOffPolicy;
+	}
+
+	/**
+	 * Configures how long the polling thread waits before polling again after a receive
+	 * request failed. By default an exponential back off with full jitter is used.
+	 * @param backOffPolicy the back off policy
+	 * @see SimpleMessageListenerContainer#setBackOffPolicy(BackOffPolicy)
+	 */
+	public void setBackOffPolicy(BackOffPolicy backOffPolicy) {
+		this.backOffPolicy = backOffPolicy;
+	}
+
+	public MessageListenerMetrics getMessageListenerMetrics() {
+		return this.messageListenerMetrics;
+	}
+
+	/**
+	 * Configures the {@link MessageListenerMetrics} notified about the receive requests,
+	 * the execution and the deletion of messages of the container.
+	 * @param messageListenerMetrics the metrics to record
+	 * @see SimpleMessageListenerContainer#setMessageListenerMetrics(MessageListenerMetrics)
+	 */
+	public void setMessageListenerMetrics(MessageListenerMetrics messageListenerMetrics) {
+		this.messageListenerMetrics = messageListenerMetrics;
+	}
+
+	public Integer getMaxInflightMessagesPerQueue() {
+		return this.maxInflightMessagesPerQueue;
+	}
+
+	/**
+	 * Enables the pipelined polling mode in which the container keeps polling a queue
+	 * while fewer than {@code maxInflightMessagesPerQueue} messages of this queue are
+	 * executing, instead of waiting for each batch to complete. Listener methods can
+	 * override it with {@link SqsListener#concurrency()}.
+	 * @param maxInflightMessagesPerQueue the maximum number of in-flight messages per
+	 * queue, must not be lower than the maximum number of messages per poll
+	 * @see SimpleMessageListenerContainer#setMaxInflightMessagesPerQueue(Integer)
+	 */
+	public void setMaxInflightMessagesPerQueue(Integer maxInflightMessagesPerQueue) {
+		this.maxInflightMessagesPerQueue = maxInflightMessagesPerQueue;
+	}
+
+	public Boolean getBatchDeleteEnabled() {
+		return this.batchDeleteEnabled;
+	}
+
+	/**
+	 * Configures if the messages deleted by the container are aggregated into
+	 * {@code DeleteMessageBatch} requests of up to 10 messages per queue instead of one
+	 * {@code DeleteMessage} request per message.
+	 * @param batchDeleteEnabled {@code true} to aggregate deletions into batches
+	 * @see SimpleMessageListenerContainer#setBatchDeleteEnabled(boolean)
+	 */
+	public void setBatchDeleteEnabled(Boolean batchDeleteEnabled) {
+		this.batchDeleteEnabled = batchDeleteEnabled;
+	}
+
+	public Long getBatchDeleteMaxDelay() {
+		return this.batchDeleteMaxDelay;
+	}
+
+	/**
+	 * The maximum number of milliseconds a deletion is buffered before a batch that is
+	 * not full is sent. Default value is 100 milliseconds.
+	 * @param batchDeleteMaxDelay in milliseconds
+	 */
+	public void setBatchDeleteMaxDelay(Long batchDeleteMaxDelay) {
+		this.batchDeleteMaxDelay = batchDeleteMaxDelay;
+	}
+
+	public Boolean getVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Configures the default task executor of the container to run the polling threads
+	 * and the message executions on virtual threads. Requires Java 21 or later and is
+	 * ignored if a task executor is configured.
+	 * @param virtualThreads {@code true} to use virtual threads
+	 * @see SimpleMessageListenerContainer#setVirtualThreads(boolean)
+	 */
+	public void setVirtualThreads(Boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public Boolean getVisibilityHeartbeatEnabled() {
+		return this.visibilityHeartbeatEnabled;
+	}
+
+	/**
+	 * Configures if the container extends the visibility of messages in execution
+	 * automatically. Requires a visibility timeout to be configured.
+	 * @param visibilityHeartbeatEnabled {@code true} to extend the visibility
+	 * automatically
+	 * @see SimpleMessageListenerContainer#setVisibilityHeartbeatEnabled(boolean)
+	 */
+	public void setVisibilityHeartbeatEnabled(Boolean visibilityHeartbeatEnabled) {
+		this.visibilityHeartbeatEnabled = visibilityHeartbeatEnabled;
+	}
+
+	public Integer getMaxVisibilityExtension() {
+		return this.maxVisibilityExtension;
+	}
+
+	/**
+	 * Configures the maximum number of seconds the visibility of a message is extended
+	 * automatically in total. Default value is 43200 seconds (12 hours).
+	 * @param maxVisibilityExtension in seconds
+	 */
+	public void setMaxVisibilityExtension(Integer maxVisibilityExtension) {
+		this.maxVisibilityExtension = maxVisibilityExtension;
+	}
+
+	public Integer getMaxPollersPerQueue() {
+		return this.maxPollersPerQueue;
+	}
+
+	/**
+	 * Configures the maximum number of threads polling a queue at the same time. When
+	 * set, additional polling threads are started while receive requests return the
+	 * maximum number of messages and stopped again when they return no message.
+	 * @param maxPollersPerQueue the maximum number of polling threads per queue
+	 * @see SimpleMessageListenerContainer#setMaxPollersPerQueue(Integer)
+	 */
+	public void setMaxPollersPerQueue(Integer maxPollersPerQueue) {
+		this.maxPollersPerQueue = maxPollersPerQueue;
+	}
+
+	public LargePayloadStore getLargePayloadStore() {
+		return this.largePayloadStore;
+	}
+
+	/**
+	 * Configures the store resolving the payloads that have been stored in S3 by the
+	 * sender.
+	 * @param largePayloadStore the store for large payloads
+	 * @see SimpleMessageListenerContainer#setLargePayloadStore(LargePayloadStore)
+	 */
+	public void setLargePayloadStore(LargePayloadStore largePayloadStore) {
+		this.largePayloadStore = largePayloadStore;
+	}
+
 	public SimpleMessageListenerContainer createSimpleMessageListenerContainer() {
 		Assert.notNull(this.amazonSqs, "amazonSqs must not be null");
 
@@ -216,6 +422,13 @@ public class SimpleMessageListenerContainerFactory {
 		if (this.waitTimeOut != null) {
 			simpleMessageListenerContainer.setWaitTimeOut(this.waitTimeOut);
 		}
+		if (this.attributeNames != null) {
+			simpleMessageListenerContainer.setAttributeNames(this.attributeNames);
+		}
+		if (this.messageAttributeNames != null) {
+			simpleMessageListenerContainer
+					.setMessageAttributeNames(this.messageAttributeNames);
+		}
 		if (this.queueStopTimeout != null) {
 			simpleMessageListenerContainer.setQueueStopTimeout(this.queueStopTimeout);
 		}
@@ -229,6 +442,42 @@ public class SimpleMessageListenerContainerFactory {
 		if (this.backOffTime != null) {
 			simpleMessageListenerContainer.setBackOffTime(this.backOffTime);
 		}
+		if (this.maxInflightMessagesPerQueue != null) {
+			simpleMessageListenerContainer
+					.setMaxInflightMessagesPerQueue(this.maxInflightMessagesPerQueue);
+		}
+		if (this.batchDeleteEnabled != null) {
+			simpleMessageListenerContainer
+					.setBatchDeleteEnabled(this.batchDeleteEnabled);
+		}
+		if (this.batchDeleteMaxDelay != null) {
+			simpleMessageListenerContainer
+					.setBatchDeleteMaxDelay(this.batchDeleteMaxDelay);
+		}
+		if (this.virtualThreads != null) {
+			simpleMessageListenerContainer.setVirtualThreads(this.virtualThreads);
+		}
+		if (this.visibilityHeartbeatEnabled != null) {
+			simpleMessageListenerContainer
+					.setVisibilityHeartbeatEnabled(this.visibilityHeartbeatEnabled);
+		}
+		if (this.maxVisibilityExtension != null) {
+			simpleMessageListenerContainer
+					.setMaxVisibilityExtension(this.maxVisibilityExtension);
+		}
+		if (this.maxPollersPerQueue != null) {
+			simpleMessageListenerContainer.setMaxPollersPerQueue(this.maxPollersPerQueue);
+		}
+		if (this.largePayloadStore != null) {
+			simpleMessageListenerContainer.setLargePayloadStore(this.largePayloadStore);
+		}
+		if (this.backOffPolicy != null) {
+			simpleMessageListenerContainer.setBackOffPolicy(this.backOffPolicy);
+		}
+		if (this.messageListenerMetrics != null) {
+			simpleMessageListenerContainer
+					.setMessageListenerMetrics(this.messageListenerMetrics);
+		}
 
 		return simpleMessageListenerContainer;
 	}
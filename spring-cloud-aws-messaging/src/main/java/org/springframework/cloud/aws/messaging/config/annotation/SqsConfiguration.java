@@ -27,6 +27,7 @@ import org.springframework.cloud.aws.context.config.annotation.ContextDefaultCon
 import org.springframework.cloud.aws.core.env.ResourceIdResolver;
 import org.springframework.cloud.aws.messaging.config.QueueMessageHandlerFactory;
 import org.springframework.cloud.aws.messaging.config.SimpleMessageListenerContainerFactory;
+import org.springframework.cloud.aws.messaging.listener.MessageListenerMetrics;
 import org.springframework.cloud.aws.messaging.listener.QueueMessageHandler;
 import org.springframework.cloud.aws.messaging.listener.SimpleMessageListenerContainer;
 import org.springframework.context.annotation.Bean;
@@ -57,13 +58,16 @@ public class SqsConfiguration {
 
 	private final ObjectMapper objectMapper;
 
+	private final MessageListenerMetrics messageListenerMetrics;
+
 	public SqsConfiguration(
 			ObjectProvider<SimpleMessageListenerContainerFactory> simpleMessageListenerContainerFactory,
 			ObjectProvider<QueueMessageHandlerFactory> queueMessageHandlerFactory,
 			BeanFactory beanFactory,
 			ObjectProvider<ResourceIdResolver> resourceIdResolver,
 			ObjectProvider<MappingJackson2MessageConverter> mappingJackson2MessageConverter,
-			ObjectProvider<ObjectMapper> objectMapper) {
+			ObjectProvider<ObjectMapper> objectMapper,
+			ObjectProvider<MessageListenerMetrics> messageListenerMetrics) {
 		this.simpleMessageListenerContainerFactory = simpleMessageListenerContainerFactory
 				.getIfAvailable(SimpleMessageListenerContainerFactory::new);
 		this.queueMessageHandlerFactory = queueMessageHandlerFactory
@@ -73,6 +77,7 @@ public class SqsConfiguration {
 		this.mappingJackson2MessageConverter = mappingJackson2MessageConverter
 				.getIfAvailable();
 		this.objectMapper = objectMapper.getIfAvailable();
+		this.messageListenerMetrics = messageListenerMetrics.getIfUnique();
 	}
 
 	@Bean
@@ -86,6 +91,11 @@ public class SqsConfiguration {
 			this.simpleMessageListenerContainerFactory
 					.setResourceIdResolver(this.resourceIdResolver);
 		}
+		if (this.simpleMessageListenerContainerFactory.getMessageListenerMetrics() == null
+				&& this.messageListenerMetrics != null) {
+			this.simpleMessageListenerContainerFactory
+					.setMessageListenerMetrics(this.messageListenerMetrics);
+		}
 
 		SimpleMessageListenerContainer simpleMessageListenerContainer = this.simpleMessageListenerContainerFactory
 				.createSimpleMessageListenerContainer();
@@ -117,6 +127,11 @@ public class SqsConfiguration {
 
 		this.queueMessageHandlerFactory.setBeanFactory(this.beanFactory);
 		this.queueMessageHandlerFactory.setObjectMapper(this.objectMapper);
+		if (this.queueMessageHandlerFactory.getMessageListenerMetrics() == null
+				&& this.messageListenerMetrics != null) {
+			this.queueMessageHandlerFactory
+					.setMessageListenerMetrics(this.messageListenerMetrics);
+		}
 
 		return this.queueMessageHandlerFactory.createQueueMessageHandler();
 	}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.AbstractMessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * Applies the interceptors of a channel to a message that is sent without blocking the
+ * calling thread, like {@link AbstractMessageChannel#send(Message)} does for messages
+ * that are sent synchronously. {@link ChannelInterceptor#postSend} and
+ * {@link ChannelInterceptor#afterSendCompletion} are invoked once the send request has
+ * been completed, on the thread that completed it.
+ *
+ * @author agent
+ * @since 3.0
+ */
+final class AsyncSendInterceptorChain {
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(AsyncSendInterceptorChain.class);
+
+	private final AbstractMessageChannel channel;
+
+	private final List<ChannelInterceptor> interceptors;
+
+	private int sendInterceptorIndex = -1;
+
+	AsyncSendInterceptorChain(AbstractMessageChannel channel) {
+		this.channel = channel;
+		this.interceptors = channel.getInterceptors();
+	}
+
+	/**
+	 * Sends the message returned by the interceptors.
+	 * @param message the message to send
+	 * @param sender sends the intercepted message without blocking
+	 * @param <T> the type of the send result
+	 * @return a future completed with the result of the sender, with {@code null} if an
+	 * interceptor precluded the send or exceptionally with a
+	 * {@link MessageDeliveryException}
+	 */
+	<T> CompletableFuture<T> send(Message<?> message,
+			Function<Message<?>, CompletableFuture<T>> sender) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Message<?> messageToSend = message;
+		CompletableFuture<T> sendFuture;
+		try {
+			messageToSend = applyPreSend(message);
+			if (messageToSend == null) {
+				future.complete(null);
+				return future;
+			}
+			sendFuture = sender.apply(messageToSend);
+		}
+		catch (RuntimeException e) {
+			MessageDeliveryException exception = toDeliveryException(messageToSend, e);
+			triggerAfterSendCompletion(messageToSend, false, exception);
+			future.completeExceptionally(exception);
+			return future;
+		}
+
+		Message<?> sentMessage = messageToSend;
+		sendFuture.whenComplete((result, throwable) -> {
+			if (throwable != null) {
+				MessageDeliveryException exception = toDeliveryException(sentMessage,
+						throwable);
+				triggerAfterSendCompletion(sentMessage, false, exception);
+				future.completeExceptionally(exception);
+				return;
+			}
+
+			try {
+				applyPostSend(sentMessage);
+			}
+			catch (RuntimeException e) {
+				triggerAfterSendCompletion(sentMessage, true, e);
+				future.completeExceptionally(toDeliveryException(sentMessage, e));
+				return;
+			}
+			triggerAfterSendCompletion(sentMessage, true, null);
+			future.complete(result);
+		});
+		return future;
+	}
+
+	private Message<?> applyPreSend(Message<?> message) {
+		Message<?> messageToUse = message;
+		for (ChannelInterceptor interceptor : this.interceptors) {
+			Message<?> resolvedMessage = interceptor.preSend(messageToUse, this.channel);
+			if (resolvedMessage == null) {
+				logger.debug("{} returned null from preSend, i.e. precluding the send.",
+						interceptor.getClass().getSimpleName());
+				triggerAfterSendCompletion(messageToUse, false, null);
+				return null;
+			}
+			messageToUse = resolvedMessage;
+			this.sendInterceptorIndex++;
+		}
+		return messageToUse;
+	}
+
+	private void applyPostSend(Message<?> message) {
+		for (ChannelInterceptor interceptor : this.interceptors) {
+			interceptor.postSend(message, this.channel, true);
+		}
+	}
+
+	private void triggerAfterSendCompletion(Message<?> message, boolean sent,
+			Exception exception) {
+		for (int i = this.sendInterceptorIndex; i >= 0; i--) {
+			ChannelInterceptor interceptor = this.interceptors.get(i);
+			try {
+				interceptor.afterSendCompletion(message, this.channel, sent, exception);
+			}
+			catch (Throwable ex) {
+				logger.error("Exception from afterSendCompletion in {}", interceptor,
+						ex);
+			}
+		}
+	}
+
+	private static MessageDeliveryException toDeliveryException(Message<?> message,
+			Throwable throwable) {
+		Throwable cause = throwable instanceof CompletionException
+				&& throwable.getCause() != null ? throwable.getCause() : throwable;
+		if (cause instanceof MessageDeliveryException) {
+			return (MessageDeliveryException) cause;
+		}
+		return new MessageDeliveryException(message, cause.getMessage(), cause);
+	}
+
+}
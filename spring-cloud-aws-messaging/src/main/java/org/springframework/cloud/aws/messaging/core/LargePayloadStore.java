@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.cloud.aws.core.io.s3.SimpleStorageResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Stores message payloads that exceed the size limit of SQS and SNS (256 KB) in an S3
+ * bucket and sends a pointer to the stored object instead (claim-check pattern). The
+ * pointer messages are compatible with the Amazon SQS Extended Client Library: the body
+ * contains the bucket and the key of the object and the {@value #PAYLOAD_SIZE_ATTRIBUTE}
+ * message attribute contains the size of the original payload.
+ * <p>
+ * On the receiving side the stored payload is exposed as a lazy {@link Resource} in the
+ * {@value #PAYLOAD_HEADER} header, so that listener methods declaring an
+ * {@link InputStream} or {@link Resource} payload stream the object without
+ * materializing it. The object is deleted once the message has been deleted.
+ * </p>
+ * <p>
+ * The threshold only applies to the payload. Message attributes count towards the SQS
+ * limit as well, the threshold must therefore be lowered if large attributes are sent.
+ * </p>
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class LargePayloadStore {
+
+	/**
+	 * Name of the message attribute marking a pointer message, containing the size of
+	 * the stored payload in bytes.
+	 */
+	public static final String PAYLOAD_SIZE_ATTRIBUTE = "ExtendedPayloadSize";
+
+	/**
+	 * Name of the header containing the stored payload of a received pointer message as
+	 * a {@link Resource}.
+	 */
+	public static final String PAYLOAD_HEADER = "LargePayload";
+
+	/**
+	 * Default threshold in bytes above which payloads are stored in S3.
+	 */
+	public static final int DEFAULT_THRESHOLD = 256 * 1024;
+
+	private static final String POINTER_TYPE = "software.amazon.payloadoffloading.PayloadS3Pointer";
+
+	private static final String BUCKET_NAME_FIELD = "s3BucketName";
+
+	private static final String KEY_FIELD = "s3Key";
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final AmazonS3 amazonS3;
+
+	private final String bucketName;
+
+	private int threshold = DEFAULT_THRESHOLD;
+
+	private String keyPrefix = "";
+
+	private Executor storeExecutor = new SimpleAsyncTaskExecutor("LargePayloadStore-");
+
+	public LargePayloadStore(AmazonS3 amazonS3, String bucketName) {
+		Assert.notNull(amazonS3, "amazonS3 must not be null");
+		Assert.hasText(bucketName, "bucketName must not be empty");
+		this.amazonS3 = amazonS3;
+		this.bucketName = bucketName;
+	}
+
+	/**
+	 * Checks if the message attributes of a received message mark a pointer message.
+	 * @param messageAttributes the message attributes of the received message
+	 * @return {@code true} if the body of the message is a pointer to a stored payload
+	 */
+	public static boolean isPointer(Map<String, ?> messageAttributes) {
+		return messageAttributes.containsKey(PAYLOAD_SIZE_ATTRIBUTE);
+	}
+
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * The size in bytes (UTF-8 encoded) above which payloads are stored in S3. Default
+	 * is 256 KB.
+	 * @param threshold the threshold in bytes
+	 */
+	public void setThreshold(int threshold) {
+		Assert.isTrue(threshold >= 0, "threshold must not be negative");
+		this.threshold = threshold;
+	}
+
+	public String getKeyPrefix() {
+		return this.keyPrefix;
+	}
+
+	/**
+	 * The prefix of the keys of the stored objects, e.g. {@code "messages/"}. Default is
+	 * no prefix.
+	 * @param keyPrefix the key prefix
+	 */
+	public void setKeyPrefix(String keyPrefix) {
+		Assert.notNull(keyPrefix, "keyPrefix must not be null");
+		this.keyPrefix = keyPrefix;
+	}
+
+	/**
+	 * The executor that stores the payloads of messages which are sent without blocking
+	 * the calling thread (see {@link #storeAsync(String)}). Default is a
+	 * {@link SimpleAsyncTaskExecutor}, which starts a thread per stored payload; a pooled
+	 * executor should be configured if many large payloads are sent asynchronously.
+	 * @param storeExecutor the executor for asynchronous uploads
+	 */
+	public void setStoreExecutor(Executor storeExecutor) {
+		Assert.notNull(storeExecutor, "storeExecutor must not be null");
+		this.storeExecutor = storeExecutor;
+	}
+
+	/**
+	 * @param payload the payload to send
+	 * @return the size of the payload in bytes if it must be stored in S3, otherwise
+	 * {@code -1}
+	 */
+	public int getStoredSize(String payload) {
+		return exceedsUtf8Length(payload, this.threshold) ? utf8Length(payload) : -1;
+	}
+
+	/**
+	 * Stores the payload in S3.
+	 * @param payload the payload to store
+	 * @return the body of the pointer message
+	 */
+	public String store(String payload) {
+		byte[] content = payload.getBytes(StandardCharsets.UTF_8);
+		ObjectMetadata objectMetadata = new ObjectMetadata();
+		objectMetadata.setContentLength(content.length);
+		String key = this.keyPrefix + UUID.randomUUID();
+		this.amazonS3.putObject(this.bucketName, key, new ByteArrayInputStream(content),
+				objectMetadata);
+
+		ArrayNode pointer = OBJECT_MAPPER.createArrayNode().add(POINTER_TYPE);
+		pointer.addObject().put(BUCKET_NAME_FIELD, this.bucketName).put(KEY_FIELD, key);
+		return pointer.toString();
+	}
+
+	/**
+	 * Stores the payload in S3 with the store executor, without blocking the calling
+	 * thread.
+	 * @param payload the payload to store
+	 * @return a future completed with the body of the pointer message
+	 * @see #setStoreExecutor(Executor)
+	 */
+	public CompletableFuture<String> storeAsync(String payload) {
+		return CompletableFuture.supplyAsync(() -> store(payload), this.storeExecutor);
+	}
+
+	/**
+	 * Returns the stored payload of a pointer message. The object is not downloaded
+	 * before the content of the resource is read.
+	 * @param pointer the body of the pointer message
+	 * @return the stored payload
+	 */
+	public Resource getPayload(String pointer) {
+		ObjectNode location = parsePointer(pointer);
+		return new SimpleStorageResource(this.amazonS3,
+				location.get(BUCKET_NAME_FIELD).asText(),
+				location.get(KEY_FIELD).asText(), new SyncTaskExecutor());
+	}
+
+	/**
+	 * Reads the stored payload of a pointer message into a String.
+	 * @param pointer the body of the pointer message
+	 * @return the stored payload
+	 */
+	public String readPayload(String pointer) {
+		return read(getPayload(pointer));
+	}
+
+	/**
+	 * Deletes the stored payload of a pointer message.
+	 * @param pointer the body of the pointer message
+	 */
+	public void delete(String pointer) {
+		ObjectNode location = parsePointer(pointer);
+		this.amazonS3.deleteObject(location.get(BUCKET_NAME_FIELD).asText(),
+				location.get(KEY_FIELD).asText());
+	}
+
+	/**
+	 * Reads a stored payload into a String.
+	 * @param payload the stored payload
+	 * @return the content of the payload
+	 */
+	public static String read(Resource payload) {
+		try (InputStream inputStream = payload.getInputStream()) {
+			return StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			throw new MessagingException(
+					"Error reading the payload from " + payload.getDescription(), e);
+		}
+	}
+
+	private static ObjectNode parsePointer(String pointer) {
+		JsonNode node;
+		try {
+			node = OBJECT_MAPPER.readTree(pointer);
+		}
+		catch (IOException e) {
+			throw new MessagingException("Invalid payload pointer: " + pointer, e);
+		}
+		// Older versions of the extended client send the location without type
+		JsonNode location = node.isArray() ? node.get(1) : node;
+		if (!(location instanceof ObjectNode) || !location.has(BUCKET_NAME_FIELD)
+				|| !location.has(KEY_FIELD)) {
+			throw new MessagingException("Invalid payload pointer: " + pointer);
+		}
+		return (ObjectNode) location;
+	}
+
+	/**
+	 * Checks if the UTF-8 encoding of the value is longer than the given number of
+	 * bytes, without encoding the value.
+	 * @param value the value to check
+	 * @param maxLength the maximum number of bytes
+	 * @return {@code true} if the encoded value has more than {@code maxLength} bytes
+	 */
+	public static boolean exceedsUtf8Length(String value, int maxLength) {
+		// A char is encoded with at most 3 bytes, short values need not be counted
+		if ((long) value.length() * 3 <= maxLength) {
+			return false;
+		}
+		return utf8Length(value, maxLength) > maxLength;
+	}
+
+	static int utf8Length(String value) {
+		return utf8Length(value, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Counts the UTF-8 encoded length of the value, stopping as soon as it exceeds the
+	 * limit.
+	 */
+	private static int utf8Length(String value, int limit) {
+		int length = 0;
+		for (int i = 0; i < value.length() && length <= limit; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				length++;
+			}
+			else if (c < 0x800) {
+				length += 2;
+			}
+			else if (Character.isHighSurrogate(c)) {
+				length += 4;
+				i++;
+			}
+			else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeType;
+
+/**
+ * {@link SqsMessageHeaders} view backed directly by the attribute maps of a received
+ * SQS {@link Message}. Headers that are looked up by name are resolved from the
+ * underlying maps without copying them. The complete header map, including the
+ * conversion of {@code MimeType} and {@code Number} message attributes, is only
+ * materialized once all headers are accessed (e.g. by iterating over them) or a header
+ * that requires a conversion is looked up. Message attributes take precedence over
+ * message system attributes, which take precedence over the additional headers.
+ *
+ * @author agent
+ * @since 3.0
+ */
+final class LazySqsMessageHeaders extends SqsMessageHeaders {
+
+	private static final String MESSAGE_ID_MESSAGE_ATTRIBUTE_NAME = "MessageId";
+
+	private static final Object ABSENT = new Object();
+
+	private final transient Message message;
+
+	private final transient Map<String, Object> additionalHeaders;
+
+	private transient volatile Map<String, Object> headers;
+
+	LazySqsMessageHeaders(Message message, Map<String, Object> additionalHeaders) {
+		super(Collections.emptyMap(), resolveId(message, additionalHeaders),
+				resolveTimestamp(message, additionalHeaders));
+		this.message = message;
+		this.additionalHeaders = additionalHeaders;
+	}
+
+	private static UUID resolveId(Message message,
+			Map<String, Object> additionalHeaders) {
+		Object id = resolve(message, additionalHeaders, ID);
+		return id != ABSENT ? (UUID) id : null;
+	}
+
+	private static Long resolveTimestamp(Message message,
+			Map<String, Object> additionalHeaders) {
+		Object sentTimestamp = resolve(message, additionalHeaders, SQS_SENT_TIMESTAMP);
+		return sentTimestamp != ABSENT && sentTimestamp != null
+				? Long.parseLong((String) sentTimestamp) : null;
+	}
+
+	private static Object resolve(Message message, Map<String, Object> additionalHeaders,
+			Object name) {
+		MessageAttributeValue messageAttribute = message.getMessageAttributes()
+				.get(name);
+		if (messageAttribute != null && isMessageHeader(name, messageAttribute)) {
+			return getMessageHeaderValue(name, messageAttribute);
+		}
+		if (message.getAttributes().containsKey(name)) {
+			return message.getAttributes().get(name);
+		}
+		if (additionalHeaders.containsKey(name)) {
+			return additionalHeaders.get(name);
+		}
+		if (MESSAGE_ID_MESSAGE_ATTRIBUTE_NAME.equals(name)) {
+			return message.getMessageId();
+		}
+		if (SQS_RECEIPT_HANDLE.equals(name)) {
+			return message.getReceiptHandle();
+		}
+		return ABSENT;
+	}
+
+	private static boolean isMessageHeader(Object name,
+			MessageAttributeValue messageAttribute) {
+		String dataType = messageAttribute.getDataType();
+		return CONTENT_TYPE.equals(name) || ID.equals(name)
+				|| MessageAttributeDataTypes.STRING.equals(dataType)
+				|| dataType.startsWith(MessageAttributeDataTypes.NUMBER)
+				|| MessageAttributeDataTypes.BINARY.equals(dataType);
+	}
+
+	private static boolean requiresConversion(Object name,
+			MessageAttributeValue messageAttribute) {
+		return CONTENT_TYPE.equals(name) || ID.equals(name) || messageAttribute
+				.getDataType().startsWith(MessageAttributeDataTypes.NUMBER);
+	}
+
+	private static Object getMessageHeaderValue(Object name,
+			MessageAttributeValue messageAttribute) {
+		if (CONTENT_TYPE.equals(name)) {
+			return MimeType.valueOf(messageAttribute.getStringValue());
+		}
+		else if (ID.equals(name)) {
+			return UUID.fromString(messageAttribute.getStringValue());
+		}
+		String dataType = messageAttribute.getDataType();
+		if (MessageAttributeDataTypes.BINARY.equals(dataType)) {
+			return messageAttribute.getBinaryValue();
+		}
+		else if (MessageAttributeDataTypes.STRING.equals(dataType)) {
+			return messageAttribute.getStringValue();
+		}
+		return QueueMessageUtils.getNumberValue(messageAttribute.getStringValue(),
+				dataType);
+	}
+
+	private static boolean isIdOrTimestamp(Object name) {
+		return ID.equals(name) || TIMESTAMP.equals(name);
+	}
+
+	private boolean isMaterialized(Object name) {
+		if (this.headers != null) {
+			return true;
+		}
+		MessageAttributeValue messageAttribute = this.message.getMessageAttributes()
+				.get(name);
+		return messageAttribute != null && isMessageHeader(name, messageAttribute)
+				&& requiresConversion(name, messageAttribute);
+	}
+
+	@Override
+	protected Map<String, Object> getRawHeaders() {
+		Map<String, Object> headers = this.headers;
+		if (headers == null) {
+			headers = new HashMap<>();
+			headers.put(MESSAGE_ID_MESSAGE_ATTRIBUTE_NAME, this.message.getMessageId());
+			headers.put(SQS_RECEIPT_HANDLE, this.message.getReceiptHandle());
+			headers.putAll(this.additionalHeaders);
+			headers.putAll(this.message.getAttributes());
+			for (Map.Entry<String, MessageAttributeValue> messageAttribute : this.message
+					.getMessageAttributes().entrySet()) {
+				if (isMessageHeader(messageAttribute.getKey(),
+						messageAttribute.getValue())) {
+					headers.put(messageAttribute.getKey(), getMessageHeaderValue(
+							messageAttribute.getKey(), messageAttribute.getValue()));
+				}
+			}
+			headers.putAll(super.getRawHeaders());
+			this.headers = headers;
+		}
+		return headers;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (isIdOrTimestamp(key)) {
+			return super.get(key);
+		}
+		if (isMaterialized(key)) {
+			return getRawHeaders().get(key);
+		}
+		Object value = resolve(this.message, this.additionalHeaders, key);
+		return value != ABSENT ? value : null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		Object value = get(key);
+		if (value == null) {
+			return null;
+		}
+		if (!type.isAssignableFrom(value.getClass())) {
+			throw new IllegalArgumentException("Incorrect type specified for header '"
+					+ key + "'. Expected [" + type + "] but actual type is ["
+					+ value.getClass() + "]");
+		}
+		return (T) value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (isIdOrTimestamp(key)) {
+			return super.containsKey(key);
+		}
+		if (isMaterialized(key)) {
+			return getRawHeaders().containsKey(key);
+		}
+		return resolve(this.message, this.additionalHeaders, key) != ABSENT;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return getRawHeaders().containsValue(value);
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return Collections.unmodifiableMap(getRawHeaders()).entrySet();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(getRawHeaders().keySet());
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return Collections.unmodifiableCollection(getRawHeaders().values());
+	}
+
+	@Override
+	public int size() {
+		return getRawHeaders().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return this == other || (other instanceof MessageHeaders && getRawHeaders()
+				.entrySet().equals(((MessageHeaders) other).entrySet()));
+	}
+
+	@Override
+	public int hashCode() {
+		return getRawHeaders().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return getRawHeaders().toString();
+	}
+
+	/**
+	 * Serializes the materialized headers, as the backing SQS message is not
+	 * serializable.
+	 */
+	private Object writeReplace() {
+		return new SqsMessageHeaders(getRawHeaders(), getId(), getTimestamp());
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Result of sending one message of a batch. Either contains the id that SQS assigned to
+ * the message or the error that prevented it from being sent.
+ *
+ * @author agent
+ * @since 3.0
+ * @see QueueMessageChannel#sendBatch(java.util.Collection)
+ */
+public final class MessageSendResult {
+
+	private final Message<?> message;
+
+	private final String messageId;
+
+	private final String sequenceNumber;
+
+	private final String errorCode;
+
+	private final String errorMessage;
+
+	private final boolean senderFault;
+
+	private MessageSendResult(Message<?> message, String messageId,
+			String sequenceNumber, String errorCode, String errorMessage,
+			boolean senderFault) {
+		this.message = message;
+		this.messageId = messageId;
+		this.sequenceNumber = sequenceNumber;
+		this.errorCode = errorCode;
+		this.errorMessage = errorMessage;
+		this.senderFault = senderFault;
+	}
+
+	static MessageSendResult successful(Message<?> message, String messageId,
+			String sequenceNumber) {
+		return new MessageSendResult(message, messageId, sequenceNumber, null, null,
+				false);
+	}
+
+	static MessageSendResult failed(Message<?> message, String errorCode,
+			String errorMessage, boolean senderFault) {
+		return new MessageSendResult(message, null, null, errorCode, errorMessage,
+				senderFault);
+	}
+
+	/**
+	 * @return the message that has been sent
+	 */
+	public Message<?> getMessage() {
+		return this.message;
+	}
+
+	public boolean isSuccessful() {
+		return this.messageId != null;
+	}
+
+	/**
+	 * @return the id of the sent message or {@code null} if it could not be sent
+	 */
+	public String getMessageId() {
+		return this.messageId;
+	}
+
+	/**
+	 * @return the sequence number of a message sent to a FIFO queue
+	 */
+	public String getSequenceNumber() {
+		return this.sequenceNumber;
+	}
+
+	/**
+	 * @return the error code if the message could not be sent
+	 */
+	public String getErrorCode() {
+		return this.errorCode;
+	}
+
+	/**
+	 * @return the error message if the message could not be sent
+	 */
+	public String getErrorMessage() {
+		return this.errorMessage;
+	}
+
+	/**
+	 * @return {@code true} if the message could not be sent because it is invalid, so
+	 * that sending it again will fail as well
+	 */
+	public boolean isSenderFault() {
+		return this.senderFault;
+	}
+
+	@Override
+	public String toString() {
+		return isSuccessful() ? "MessageSendResult{messageId=" + this.messageId + "}"
+				: "MessageSendResult{errorCode=" + this.errorCode + ", errorMessage="
+						+ this.errorMessage + "}";
+	}
+
+}
@@ -17,12 +17,19 @@
 package org.springframework.cloud.aws.messaging.core;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.model.NotFoundException;
+import com.amazonaws.services.sns.model.PublishResult;
 
 import org.springframework.cloud.aws.core.env.ResourceIdResolver;
 import org.springframework.cloud.aws.messaging.core.support.AbstractMessageChannelMessagingSendingTemplate;
 import org.springframework.cloud.aws.messaging.support.destination.DynamicTopicDestinationResolver;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.core.DestinationResolver;
 
@@ -35,6 +42,8 @@ public class NotificationMessagingTemplate
 
 	private final AmazonSNS amazonSns;
 
+	private LargePayloadStore largePayloadStore;
+
 	public NotificationMessagingTemplate(AmazonSNS amazonSns) {
 		this(amazonSns, (ResourceIdResolver) null, null);
 	}
@@ -59,10 +68,35 @@ public class NotificationMessagingTemplate
 		initMessageConverter(messageConverter);
 	}
 
+	/**
+	 * Configures the store for payloads that exceed the size limit of SNS (claim-check).
+	 * Default is {@code null} (no payloads are stored).
+	 * @param largePayloadStore the store for large payloads
+	 * @see TopicMessageChannel#setLargePayloadStore(LargePayloadStore)
+	 */
+	public void setLargePayloadStore(LargePayloadStore largePayloadStore) {
+		this.largePayloadStore = largePayloadStore;
+		updateMessageChannels(
+				channel -> channel.setLargePayloadStore(largePayloadStore));
+	}
+
 	@Override
 	protected TopicMessageChannel resolveMessageChannel(
 			String physicalResourceIdentifier) {
-		return new TopicMessageChannel(this.amazonSns, physicalResourceIdentifier);
+		TopicMessageChannel channel = new TopicMessageChannel(this.amazonSns,
+				physicalResourceIdentifier);
+		channel.setLargePayloadStore(this.largePayloadStore);
+		return channel;
+	}
+
+	@Override
+	protected boolean isDestinationDeleted(Throwable exception) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (cause instanceof NotFoundException) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -94,4 +128,43 @@ public class NotificationMessagingTemplate
 				.singletonMap(TopicMessageChannel.NOTIFICATION_SUBJECT_HEADER, subject));
 	}
 
+	/**
+	 * Publishes the message to the destination without waiting for the result. Requires
+	 * the template to be created with an {@link AmazonSNSAsync} client. The first use of
+	 * a logical destination name resolves its topic arn on the calling thread, which
+	 * blocks for a request to SNS. The arn is cached afterwards; passing the arn itself
+	 * avoids the request.
+	 * @param destinationName the logical name or arn of the topic
+	 * @param message the message to publish
+	 * @return a future completed with the result of the publish request
+	 * @see TopicMessageChannel#publishAsync(Message)
+	 */
+	public CompletableFuture<PublishResult> publishAsync(String destinationName,
+			Message<?> message) throws MessagingException {
+		TopicMessageChannel channel = resolveMessageChannelByLogicalName(destinationName);
+		CompletableFuture<PublishResult> future = channel.publishAsync(message);
+		future.whenComplete((result, exception) -> {
+			if (exception != null) {
+				evictMessageChannelIfDeleted(channel, exception);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Converts the message and publishes it with the subject to the destination without
+	 * waiting for the result.
+	 * @param destinationName the logical name or arn of the topic
+	 * @param message the message to publish
+	 * @param subject the subject to send, may be {@code null}
+	 * @return a future completed with the result of the publish request
+	 * @see #publishAsync(String, Message)
+	 */
+	public CompletableFuture<PublishResult> publishAsync(String destinationName,
+			Object message, String subject) throws MessagingException {
+		Map<String, Object> headers = subject != null ? Collections.singletonMap(
+				TopicMessageChannel.NOTIFICATION_SUBJECT_HEADER, subject) : null;
+		return publishAsync(destinationName, doConvert(message, headers, null));
+	}
+
 }
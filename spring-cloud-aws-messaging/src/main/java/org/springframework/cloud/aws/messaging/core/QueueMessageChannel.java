@@ -17,19 +17,39 @@
 package org.springframework.cloud.aws.messaging.core;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 
@@ -42,7 +62,10 @@ import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
 import org.springframework.util.NumberUtils;
 
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.MAX_BATCH_SIZE;
 import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.createMessage;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryId;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryIndex;
 
 /**
  * @author Agim Emruli
@@ -56,15 +79,59 @@ public class QueueMessageChannel extends AbstractMessageChannel
 
 	private static final String MESSAGE_ATTRIBUTE_NAMES = "All";
 
+	/**
+	 * Header containing the pointer to the stored payload of a message received with
+	 * deferred deletion.
+	 */
+	private static final String PAYLOAD_POINTER_HEADER = "LargePayloadPointer";
+
+	/**
+	 * Maximum size in bytes of all entries of one {@link SendMessageBatchRequest}.
+	 */
+	static final int MAX_BATCH_PAYLOAD_SIZE = 256 * 1024;
+
+	/**
+	 * Number of times entries that failed without being the fault of the sender are sent
+	 * again.
+	 */
+	static final int MAX_BATCH_RETRIES = 3;
+
 	private final AmazonSQSAsync amazonSqs;
 
 	private final String queueUrl;
 
+	private LargePayloadStore largePayloadStore;
+
+	private QueueMessageSendBuffer sendBuffer;
+
 	public QueueMessageChannel(AmazonSQSAsync amazonSqs, String queueUrl) {
 		this.amazonSqs = amazonSqs;
 		this.queueUrl = queueUrl;
 	}
 
+	/**
+	 * Configures the store for payloads that exceed the size limit of SQS. Payloads above
+	 * the threshold of the store are stored in S3 and a pointer message is sent instead.
+	 * Received pointer messages are resolved to the stored payload, which is deleted
+	 * together with the message. Default is {@code null} (no payloads are stored).
+	 * @param largePayloadStore the store for large payloads
+	 */
+	public void setLargePayloadStore(LargePayloadStore largePayloadStore) {
+		this.largePayloadStore = largePayloadStore;
+	}
+
+	/**
+	 * Configures the buffer that coalesces sent messages into batch requests. If a buffer
+	 * is set, {@link #send(Message, long)} waits for the result of the buffered message
+	 * if the timeout is negative, at most for the timeout if it is positive and not at
+	 * all if it is {@code 0}. Default is {@code null} (every message is sent with its own
+	 * request).
+	 * @param sendBuffer the buffer for sent messages
+	 */
+	public void setSendBuffer(QueueMessageSendBuffer sendBuffer) {
+		this.sendBuffer = sendBuffer;
+	}
+
 	private static boolean isSkipHeader(String headerName) {
 		return SqsMessageHeaders.SQS_DELAY_HEADER.equals(headerName)
 				|| SqsMessageHeaders.SQS_DEDUPLICATION_ID_HEADER.equals(headerName)
@@ -73,25 +140,169 @@ public class QueueMessageChannel extends AbstractMessageChannel
 
 	@Override
 	protected boolean sendInternal(Message<?> message, long timeout) {
+		if (this.sendBuffer != null) {
+			return sendBufferedAndWaitForResult(message, timeout);
+		}
+
+		SendMessageRequest sendMessageRequest = prepareSendMessageRequest(message);
 		try {
-			sendMessageAndWaitForResult(prepareSendMessageRequest(message), timeout);
+			sendMessageAndWaitForResult(sendMessageRequest, timeout);
 		}
 		catch (AmazonServiceException e) {
+			deleteStoredPayload(sendMessageRequest);
 			throw new MessageDeliveryException(message, e.getMessage(), e);
 		}
+		catch (SdkClientException e) {
+			deleteStoredPayload(sendMessageRequest);
+			throw e;
+		}
 		catch (ExecutionException e) {
+			deleteStoredPayload(sendMessageRequest);
 			throw new MessageDeliveryException(message, e.getMessage(), e.getCause());
 		}
 		catch (TimeoutException e) {
+			// The message may still be sent, its stored payload must be kept
 			return false;
 		}
 
 		return true;
 	}
 
+	/**
+	 * Sends the message without blocking the calling thread. The message is sent with
+	 * its own request, even if a send buffer is configured. The interceptors of the
+	 * channel are applied like for {@link #send(Message)}, their {@code postSend} and
+	 * {@code afterSendCompletion} callbacks are invoked once the request has been
+	 * completed. A large payload is stored in S3 with the executor of the
+	 * {@link LargePayloadStore} before the message is sent.
+	 * @param message the message to send
+	 * @return a future completed with the result of the send request, with {@code null}
+	 * if an interceptor precluded the send or exceptionally with a
+	 * {@link MessageDeliveryException}
+	 */
+	public CompletableFuture<SendMessageResult> sendAsync(Message<?> message) {
+		return new AsyncSendInterceptorChain(this).send(message,
+				this::sendAsyncInternal);
+	}
+
+	private CompletableFuture<SendMessageResult> sendAsyncInternal(Message<?> message) {
+		return prepareSendMessageRequestAsync(message)
+				.thenCompose(this::sendMessageRequestAsync);
+	}
+
+	private CompletableFuture<SendMessageResult> sendMessageRequestAsync(
+			SendMessageRequest sendMessageRequest) {
+		CompletableFuture<SendMessageResult> future = new CompletableFuture<>();
+		try {
+			this.amazonSqs.sendMessageAsync(sendMessageRequest,
+					new AsyncHandler<SendMessageRequest, SendMessageResult>() {
+
+						@Override
+						public void onError(Exception exception) {
+							deleteStoredPayload(sendMessageRequest);
+							future.completeExceptionally(exception);
+						}
+
+						@Override
+						public void onSuccess(SendMessageRequest request,
+								SendMessageResult result) {
+							future.complete(result);
+						}
+
+					});
+		}
+		catch (RuntimeException e) {
+			deleteStoredPayload(sendMessageRequest);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Adds the message to the configured send buffer without waiting for it to be sent.
+	 * Note that the interceptors of the channel are not applied.
+	 * @param message the message to send
+	 * @return a future completed with the result of the message
+	 * @see #setSendBuffer(QueueMessageSendBuffer)
+	 */
+	public CompletableFuture<MessageSendResult> sendBuffered(Message<?> message) {
+		Assert.state(this.sendBuffer != null, "No send buffer configured");
+		SendMessageRequest sendMessageRequest = prepareSendMessageRequest(message);
+		return this.sendBuffer.send(this.queueUrl, message, sendMessageRequest)
+				.whenComplete((result, exception) -> {
+					if (exception != null || !result.isSuccessful()) {
+						deleteStoredPayload(sendMessageRequest);
+					}
+				});
+	}
+
+	private boolean sendBufferedAndWaitForResult(Message<?> message, long timeout) {
+		CompletableFuture<MessageSendResult> resultFuture = sendBuffered(message);
+		if (timeout == 0) {
+			return true;
+		}
+
+		MessageSendResult result;
+		try {
+			result = timeout > 0 ? resultFuture.get(timeout, TimeUnit.MILLISECONDS)
+					: resultFuture.get();
+		}
+		catch (ExecutionException e) {
+			throw new MessageDeliveryException(message, e.getMessage(), e.getCause());
+		}
+		catch (TimeoutException e) {
+			return false;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		if (!result.isSuccessful()) {
+			throw new MessageDeliveryException(message, result.getErrorMessage());
+		}
+		return true;
+	}
+
 	private SendMessageRequest prepareSendMessageRequest(Message<?> message) {
+		String body = String.valueOf(message.getPayload());
+		int storedSize = getStoredSize(body);
+		if (storedSize >= 0) {
+			body = this.largePayloadStore.store(body);
+		}
+		return createSendMessageRequest(message, body, storedSize);
+	}
+
+	/**
+	 * Prepares the request like {@link #prepareSendMessageRequest(Message)}, but stores a
+	 * large payload without blocking the calling thread.
+	 */
+	private CompletableFuture<SendMessageRequest> prepareSendMessageRequestAsync(
+			Message<?> message) {
+		String body = String.valueOf(message.getPayload());
+		int storedSize = getStoredSize(body);
+		if (storedSize < 0) {
+			return CompletableFuture
+					.completedFuture(createSendMessageRequest(message, body, storedSize));
+		}
+		return this.largePayloadStore.storeAsync(body)
+				.thenApply(pointer -> createSendMessageRequest(message, pointer,
+						storedSize));
+	}
+
+	private int getStoredSize(String body) {
+		return this.largePayloadStore != null ? this.largePayloadStore.getStoredSize(body)
+				: -1;
+	}
+
+	/**
+	 * @param storedSize the size of the stored payload if the body is a pointer to it,
+	 * otherwise {@code -1}
+	 */
+	private SendMessageRequest createSendMessageRequest(Message<?> message, String body,
+			int storedSize) {
 		SendMessageRequest sendMessageRequest = new SendMessageRequest(this.queueUrl,
-				String.valueOf(message.getPayload()));
+				body);
 
 		if (message.getHeaders().containsKey(SqsMessageHeaders.SQS_GROUP_ID_HEADER)) {
 			sendMessageRequest.setMessageGroupId(message.getHeaders()
@@ -111,6 +322,10 @@ public class QueueMessageChannel extends AbstractMessageChannel
 
 		Map<String, MessageAttributeValue> messageAttributes = getMessageAttributes(
 				message);
+		if (storedSize >= 0) {
+			messageAttributes.put(LargePayloadStore.PAYLOAD_SIZE_ATTRIBUTE,
+					getNumberMessageAttribute(storedSize));
+		}
 		if (!messageAttributes.isEmpty()) {
 			sendMessageRequest.withMessageAttributes(messageAttributes);
 		}
@@ -136,6 +351,184 @@ public class QueueMessageChannel extends AbstractMessageChannel
 		}
 	}
 
+	/**
+	 * Sends the messages with as few {@link SendMessageBatchRequest}s as possible. A
+	 * batch contains up to 10 messages with a total size of up to 256 KB. Every message
+	 * is converted like a single sent message, including its FIFO group and
+	 * deduplication id. Entries that failed without being the fault of the sender are
+	 * sent again up to {@value #MAX_BATCH_RETRIES} times. An entry of a FIFO queue is
+	 * only sent again if no later message of its group was part of the same request;
+	 * once a message of a group failed, the following messages of that group fail
+	 * without being sent. The stored payloads of failed messages are deleted.
+	 * @param messages the messages to send
+	 * @return the result of every message, in the order of the given messages
+	 */
+	public List<MessageSendResult> sendBatch(Collection<? extends Message<?>> messages) {
+		MessageSendResult[] results = new MessageSendResult[messages.size()];
+		Set<String> failedGroupIds = new HashSet<>();
+		List<BatchEntry> entries = new ArrayList<>(MAX_BATCH_SIZE);
+		int batchSize = 0;
+		int index = 0;
+		for (Message<?> message : messages) {
+			SendMessageRequest sendMessageRequest = prepareSendMessageRequest(message);
+			int size = getSize(sendMessageRequest);
+			if (entries.size() == MAX_BATCH_SIZE || (!entries.isEmpty()
+					&& batchSize + size > MAX_BATCH_PAYLOAD_SIZE)) {
+				sendBatchWithRetries(entries, results, failedGroupIds);
+				entries = new ArrayList<>(MAX_BATCH_SIZE);
+				batchSize = 0;
+			}
+			entries.add(new BatchEntry(index++, message, sendMessageRequest));
+			batchSize += size;
+		}
+		if (!entries.isEmpty()) {
+			sendBatchWithRetries(entries, results, failedGroupIds);
+		}
+		return Arrays.asList(results);
+	}
+
+	private void sendBatchWithRetries(List<BatchEntry> entries,
+			MessageSendResult[] results, Set<String> failedGroupIds) {
+		List<BatchEntry> pendingEntries = failEntriesOfFailedGroups(entries, results,
+				failedGroupIds);
+		for (int attempt = 0; !pendingEntries.isEmpty(); attempt++) {
+			SendMessageBatchRequest sendMessageBatchRequest = new SendMessageBatchRequest(
+					this.queueUrl);
+			for (int i = 0; i < pendingEntries.size(); i++) {
+				sendMessageBatchRequest.withEntries(
+						pendingEntries.get(i).toRequestEntry(getBatchEntryId(i)));
+			}
+
+			SendMessageBatchResult sendMessageBatchResult;
+			try {
+				sendMessageBatchResult = this.amazonSqs
+						.sendMessageBatch(sendMessageBatchRequest);
+			}
+			catch (AmazonServiceException e) {
+				boolean senderFault = e
+						.getErrorType() == AmazonServiceException.ErrorType.Client;
+				for (BatchEntry entry : pendingEntries) {
+					failEntry(entry, results, failedGroupIds, e.getErrorCode(),
+							e.getMessage(), senderFault);
+				}
+				return;
+			}
+			catch (SdkClientException e) {
+				for (BatchEntry entry : pendingEntries) {
+					failEntry(entry, results, failedGroupIds, null, e.getMessage(),
+							false);
+				}
+				return;
+			}
+
+			for (SendMessageBatchResultEntry successfulEntry : sendMessageBatchResult
+					.getSuccessful()) {
+				BatchEntry entry = pendingEntries
+						.get(getBatchEntryIndex(successfulEntry.getId()));
+				results[entry.index] = MessageSendResult.successful(entry.message,
+						successfulEntry.getMessageId(),
+						successfulEntry.getSequenceNumber());
+			}
+
+			List<BatchEntry> failedEntries = new ArrayList<>();
+			for (BatchResultErrorEntry failedEntry : sendMessageBatchResult
+					.getFailed()) {
+				BatchEntry entry = pendingEntries
+						.get(getBatchEntryIndex(failedEntry.getId()));
+				boolean senderFault = Boolean.TRUE.equals(failedEntry.getSenderFault());
+				if (senderFault || attempt >= MAX_BATCH_RETRIES
+						|| !entry.isLastOfGroup(pendingEntries)) {
+					failEntry(entry, results, failedGroupIds, failedEntry.getCode(),
+							failedEntry.getMessage(), senderFault);
+				}
+				else {
+					failedEntries.add(entry);
+				}
+			}
+			failedEntries.sort(Comparator.comparingInt(entry -> entry.index));
+			pendingEntries = failEntriesOfFailedGroups(failedEntries, results,
+					failedGroupIds);
+		}
+	}
+
+	private List<BatchEntry> failEntriesOfFailedGroups(List<BatchEntry> entries,
+			MessageSendResult[] results, Set<String> failedGroupIds) {
+		if (failedGroupIds.isEmpty()) {
+			return entries;
+		}
+
+		List<BatchEntry> pendingEntries = new ArrayList<>(entries.size());
+		for (BatchEntry entry : entries) {
+			if (failedGroupIds.contains(entry.getMessageGroupId())) {
+				failEntry(entry, results, failedGroupIds, null,
+						"A previous message of the message group could not be sent",
+						false);
+			}
+			else {
+				pendingEntries.add(entry);
+			}
+		}
+		return pendingEntries;
+	}
+
+	private void failEntry(BatchEntry entry, MessageSendResult[] results,
+			Set<String> failedGroupIds, String errorCode, String errorMessage,
+			boolean senderFault) {
+		results[entry.index] = MessageSendResult.failed(entry.message, errorCode,
+				errorMessage, senderFault);
+		if (entry.getMessageGroupId() != null) {
+			failedGroupIds.add(entry.getMessageGroupId());
+		}
+		deleteStoredPayload(entry.sendMessageRequest);
+	}
+
+	private void deleteStoredPayload(SendMessageRequest sendMessageRequest) {
+		if (this.largePayloadStore == null || !LargePayloadStore
+				.isPointer(sendMessageRequest.getMessageAttributes())) {
+			return;
+		}
+
+		try {
+			this.largePayloadStore.delete(sendMessageRequest.getMessageBody());
+		}
+		catch (RuntimeException e) {
+			this.logger.warn("Stored payload of a message that could not be sent"
+					+ " could not be deleted", e);
+		}
+	}
+
+	static SendMessageBatchRequestEntry createBatchRequestEntry(String id,
+			SendMessageRequest sendMessageRequest) {
+		return new SendMessageBatchRequestEntry(id, sendMessageRequest.getMessageBody())
+				.withMessageAttributes(sendMessageRequest.getMessageAttributes())
+				.withDelaySeconds(sendMessageRequest.getDelaySeconds())
+				.withMessageGroupId(sendMessageRequest.getMessageGroupId())
+				.withMessageDeduplicationId(
+						sendMessageRequest.getMessageDeduplicationId());
+	}
+
+	/**
+	 * @return the size of the message body and attributes as counted by SQS
+	 */
+	static int getSize(SendMessageRequest sendMessageRequest) {
+		int size = LargePayloadStore.utf8Length(sendMessageRequest.getMessageBody());
+		Map<String, MessageAttributeValue> messageAttributes = sendMessageRequest
+				.getMessageAttributes();
+		for (Map.Entry<String, MessageAttributeValue> messageAttribute : messageAttributes
+				.entrySet()) {
+			MessageAttributeValue value = messageAttribute.getValue();
+			size += LargePayloadStore.utf8Length(messageAttribute.getKey())
+					+ LargePayloadStore.utf8Length(value.getDataType());
+			if (value.getStringValue() != null) {
+				size += LargePayloadStore.utf8Length(value.getStringValue());
+			}
+			else if (value.getBinaryValue() != null) {
+				size += value.getBinaryValue().remaining();
+			}
+		}
+		return size;
+	}
+
 	private Map<String, MessageAttributeValue> getMessageAttributes(Message<?> message) {
 		HashMap<String, MessageAttributeValue> messageAttributes = new HashMap<>();
 		for (Map.Entry<String, Object> messageHeader : message.getHeaders().entrySet()) {
@@ -234,10 +627,177 @@ public class QueueMessageChannel extends AbstractMessageChannel
 		}
 		com.amazonaws.services.sqs.model.Message amazonMessage = receiveMessageResult
 				.getMessages().get(0);
+		if (this.largePayloadStore != null
+				&& LargePayloadStore.isPointer(amazonMessage.getMessageAttributes())) {
+			return receiveLargePayload(amazonMessage);
+		}
 		Message<String> message = createMessage(amazonMessage);
 		this.amazonSqs.deleteMessage(new DeleteMessageRequest(this.queueUrl,
 				amazonMessage.getReceiptHandle()));
 		return message;
 	}
 
+	/**
+	 * Receives up to 10 messages with one request and deletes them with one
+	 * {@link DeleteMessageBatchRequest}. Messages that could not be deleted are left out
+	 * of the result, as they are received again.
+	 * @param maxNumberOfMessages the maximum number of messages to receive (1 to 10)
+	 * @param waitTimeSeconds the number of seconds to wait for messages
+	 * @return the received messages, empty if no message has been received
+	 */
+	public List<Message<String>> receiveBatch(int maxNumberOfMessages,
+			int waitTimeSeconds) {
+		return receiveBatch(maxNumberOfMessages, waitTimeSeconds, false);
+	}
+
+	/**
+	 * Receives up to 10 messages with one request. If the deletion is deferred, the
+	 * messages stay invisible for the visibility timeout of the queue and must be
+	 * deleted with {@link #deleteMessages(Collection)} once they have been processed.
+	 * Otherwise they are deleted with one {@link DeleteMessageBatchRequest} before they
+	 * are returned, and messages that could not be deleted are left out of the result,
+	 * as they are received again.
+	 * @param maxNumberOfMessages the maximum number of messages to receive (1 to 10)
+	 * @param waitTimeSeconds the number of seconds to wait for messages
+	 * @param deferDeletion whether the caller deletes the messages
+	 * @return the received messages, empty if no message has been received
+	 */
+	public List<Message<String>> receiveBatch(int maxNumberOfMessages,
+			int waitTimeSeconds, boolean deferDeletion) {
+		Assert.isTrue(maxNumberOfMessages > 0 && maxNumberOfMessages <= MAX_BATCH_SIZE,
+				"maxNumberOfMessages must be between 1 and 10");
+		ReceiveMessageResult receiveMessageResult = this.amazonSqs.receiveMessage(
+				new ReceiveMessageRequest(this.queueUrl)
+						.withMaxNumberOfMessages(maxNumberOfMessages)
+						.withWaitTimeSeconds(waitTimeSeconds)
+						.withAttributeNames(ATTRIBUTE_NAMES)
+						.withMessageAttributeNames(MESSAGE_ATTRIBUTE_NAMES));
+
+		List<Message<String>> messages = new ArrayList<>(
+				receiveMessageResult.getMessages().size());
+		for (com.amazonaws.services.sqs.model.Message amazonMessage : receiveMessageResult
+				.getMessages()) {
+			if (this.largePayloadStore != null && LargePayloadStore
+					.isPointer(amazonMessage.getMessageAttributes())) {
+				// The stored payload is deleted together with the message
+				String pointer = amazonMessage.getBody();
+				amazonMessage.setBody(this.largePayloadStore.readPayload(pointer));
+				messages.add(createMessage(amazonMessage, Collections
+						.singletonMap(PAYLOAD_POINTER_HEADER, pointer)));
+			}
+			else {
+				messages.add(createMessage(amazonMessage));
+			}
+		}
+
+		if (!deferDeletion && !messages.isEmpty()) {
+			List<Message<?>> undeletedMessages = deleteMessages(messages);
+			if (!undeletedMessages.isEmpty()) {
+				this.logger.warn(String.format(
+						"%d received messages could not be deleted and will be "
+								+ "received again.",
+						undeletedMessages.size()));
+				messages.removeAll(undeletedMessages);
+			}
+		}
+		return messages;
+	}
+
+	/**
+	 * Deletes messages that have been received from this queue with
+	 * {@link DeleteMessageBatchRequest}s of up to 10 entries. Stored payloads of deleted
+	 * messages are deleted as well.
+	 * @param messages the received messages to delete
+	 * @return the messages that could not be deleted
+	 */
+	public List<Message<?>> deleteMessages(Collection<? extends Message<?>> messages) {
+		List<Message<?>> pendingMessages = new ArrayList<>(messages);
+		List<Message<?>> undeletedMessages = new ArrayList<>();
+		for (int i = 0; i < pendingMessages.size(); i += MAX_BATCH_SIZE) {
+			List<Message<?>> batch = pendingMessages.subList(i,
+					Math.min(i + MAX_BATCH_SIZE, pendingMessages.size()));
+			List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(
+					batch.size());
+			for (int j = 0; j < batch.size(); j++) {
+				String receiptHandle = batch.get(j).getHeaders()
+						.get(SqsMessageHeaders.SQS_RECEIPT_HANDLE, String.class);
+				Assert.notNull(receiptHandle,
+						"Only received messages with a receipt handle can be deleted");
+				entries.add(new DeleteMessageBatchRequestEntry(getBatchEntryId(j),
+						receiptHandle));
+			}
+
+			DeleteMessageBatchResult deleteMessageBatchResult = this.amazonSqs
+					.deleteMessageBatch(
+							new DeleteMessageBatchRequest(this.queueUrl, entries));
+			for (DeleteMessageBatchResultEntry successfulEntry : deleteMessageBatchResult
+					.getSuccessful()) {
+				String pointer = batch.get(getBatchEntryIndex(successfulEntry.getId()))
+						.getHeaders().get(PAYLOAD_POINTER_HEADER, String.class);
+				if (pointer != null && this.largePayloadStore != null) {
+					this.largePayloadStore.delete(pointer);
+				}
+			}
+			for (BatchResultErrorEntry failedEntry : deleteMessageBatchResult
+					.getFailed()) {
+				undeletedMessages.add(batch.get(getBatchEntryIndex(failedEntry.getId())));
+			}
+		}
+		return undeletedMessages;
+	}
+
+	/**
+	 * Replaces the pointer with the stored payload, which must be read before it is
+	 * deleted together with the message.
+	 */
+	private Message<String> receiveLargePayload(
+			com.amazonaws.services.sqs.model.Message amazonMessage) {
+		String pointer = amazonMessage.getBody();
+		amazonMessage.setBody(this.largePayloadStore.readPayload(pointer));
+		Message<String> message = createMessage(amazonMessage);
+		this.amazonSqs.deleteMessage(new DeleteMessageRequest(this.queueUrl,
+				amazonMessage.getReceiptHandle()));
+		this.largePayloadStore.delete(pointer);
+		return message;
+	}
+
+	private static final class BatchEntry {
+
+		private final int index;
+
+		private final Message<?> message;
+
+		private final SendMessageRequest sendMessageRequest;
+
+		private BatchEntry(int index, Message<?> message,
+				SendMessageRequest sendMessageRequest) {
+			this.index = index;
+			this.message = message;
+			this.sendMessageRequest = sendMessageRequest;
+		}
+
+		private SendMessageBatchRequestEntry toRequestEntry(String id) {
+			return createBatchRequestEntry(id, this.sendMessageRequest);
+		}
+
+		private String getMessageGroupId() {
+			return this.sendMessageRequest.getMessageGroupId();
+		}
+
+		private boolean isLastOfGroup(List<BatchEntry> entries) {
+			String messageGroupId = getMessageGroupId();
+			if (messageGroupId == null) {
+				return true;
+			}
+			for (BatchEntry entry : entries) {
+				if (entry.index > this.index
+						&& messageGroupId.equals(entry.getMessageGroupId())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
 }
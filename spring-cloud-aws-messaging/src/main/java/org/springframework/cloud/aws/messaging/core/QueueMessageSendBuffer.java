@@ -0,0 +1,528 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * Coalesces the messages sent through {@link QueueMessageChannel}s into
+ * {@link SendMessageBatchRequest}s. Messages are buffered per queue url and a buffer is
+ * sent as soon as it holds the maximum batch size, when the next message would exceed
+ * the 256 KB limit of a batch or when the linger time has elapsed since the first message
+ * was buffered. Every sender gets a {@link CompletableFuture} for the result of its own
+ * message. Entries that failed without being the fault of the sender are buffered again,
+ * like with {@link QueueMessageChannel#sendBatch(java.util.Collection)}, unless they
+ * belong to a message group of a FIFO queue.
+ * <p>
+ * The batches of a FIFO queue are sent one after the other, so that the messages of a
+ * group keep their order. When a message of a group could not be sent, the messages of
+ * the same group that are still buffered fail without being sent.
+ * <p>
+ * A buffer can be shared by all channels of a {@link QueueMessagingTemplate} (see
+ * {@link QueueMessagingTemplate#setSendBuffer(QueueMessageSendBuffer)}). It should be
+ * registered as a bean, so that the buffered messages are sent when the application
+ * context is closed.
+ *
+ * @author agent
+ * @since 3.0
+ * @see #getStatistics()
+ */
+public class QueueMessageSendBuffer implements DisposableBean {
+
+	/**
+	 * Default linger time in milliseconds.
+	 */
+	public static final long DEFAULT_LINGER_TIME = 10;
+
+	private static final long DEFAULT_SHUTDOWN_TIMEOUT = 10000;
+
+	private static final String FIFO_QUEUE_SUFFIX = ".fifo";
+
+	private static final String MESSAGE_GROUP_FAILED_ERROR_CODE = "MessageGroupFailed";
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(QueueMessageSendBuffer.class);
+
+	private final AmazonSQSAsync amazonSqs;
+
+	private final Map<String, Buffer> buffersByQueue = new ConcurrentHashMap<>();
+
+	private final Set<CompletableFuture<MessageSendResult>> pendingResults = ConcurrentHashMap
+			.newKeySet();
+
+	private final SendBufferStatistics statistics = new SendBufferStatistics();
+
+	private long lingerTime = DEFAULT_LINGER_TIME;
+
+	private int maxBatchSize = QueueMessageUtils.MAX_BATCH_SIZE;
+
+	private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+	private TaskScheduler taskScheduler;
+
+	private ThreadPoolTaskScheduler defaultTaskScheduler;
+
+	private volatile boolean destroyed;
+
+	public QueueMessageSendBuffer(AmazonSQSAsync amazonSqs) {
+		Assert.notNull(amazonSqs, "amazonSqs must not be null");
+		this.amazonSqs = amazonSqs;
+	}
+
+	/**
+	 * Configures the maximum time in milliseconds a message waits in the buffer for more
+	 * messages to the same queue. Higher values result in fuller batches but increase the
+	 * latency of every single send. Default is {@value #DEFAULT_LINGER_TIME}.
+	 * @param lingerTime the linger time in milliseconds
+	 */
+	public void setLingerTime(long lingerTime) {
+		Assert.isTrue(lingerTime >= 0, "lingerTime must not be negative");
+		this.lingerTime = lingerTime;
+	}
+
+	/**
+	 * Configures the number of messages that are sent without waiting for the linger
+	 * time. Default is 10, the maximum supported by SQS.
+	 * @param maxBatchSize the maximum number of messages of one batch request
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0
+				&& maxBatchSize <= QueueMessageUtils.MAX_BATCH_SIZE,
+				"maxBatchSize must be between 1 and 10");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Configures the maximum time in milliseconds {@link #destroy()} waits for the
+	 * buffered messages to be sent. Default is 10 seconds.
+	 * @param shutdownTimeout the shutdown timeout in milliseconds
+	 */
+	public void setShutdownTimeout(long shutdownTimeout) {
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+	/**
+	 * Configures the scheduler sending the buffers whose linger time has elapsed. By
+	 * default a scheduler with one daemon thread is created.
+	 * @param taskScheduler the scheduler to use
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	public SendBufferStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Buffers a message that has been prepared by a {@link QueueMessageChannel}.
+	 * @param queueUrl the url of the queue to send the message to
+	 * @param message the message to send
+	 * @param sendMessageRequest the request that would send the single message
+	 * @return a future completed with the result of the message
+	 */
+	CompletableFuture<MessageSendResult> send(String queueUrl, Message<?> message,
+			SendMessageRequest sendMessageRequest) {
+		BufferedMessage bufferedMessage = new BufferedMessage(message,
+				sendMessageRequest);
+		CompletableFuture<MessageSendResult> future = bufferedMessage.future;
+		this.pendingResults.add(future);
+		future.whenComplete((result, exception) -> this.pendingResults.remove(future));
+		add(queueUrl, bufferedMessage);
+		return future;
+	}
+
+	/**
+	 * Sends all buffered messages without waiting for the linger time.
+	 */
+	public void flush() {
+		for (String queueUrl : this.buffersByQueue.keySet()) {
+			flush(queueUrl);
+		}
+	}
+
+	/**
+	 * Sends all buffered messages and waits until they are sent or the shutdown timeout
+	 * has elapsed. Messages sent afterwards are not buffered anymore.
+	 */
+	@Override
+	public void destroy() {
+		this.destroyed = true;
+		flush();
+		try {
+			CompletableFuture
+					.allOf(this.pendingResults.toArray(new CompletableFuture<?>[0]))
+					.get(this.shutdownTimeout, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException | TimeoutException e) {
+			logger.warn("Not all buffered messages have been sent within {} ms",
+					this.shutdownTimeout, e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			synchronized (this) {
+				if (this.defaultTaskScheduler != null) {
+					this.defaultTaskScheduler.shutdown();
+				}
+			}
+		}
+	}
+
+	private void add(String queueUrl, BufferedMessage bufferedMessage) {
+		Buffer buffer = this.buffersByQueue.computeIfAbsent(queueUrl,
+				key -> new Buffer(key.endsWith(FIFO_QUEUE_SUFFIX)));
+		this.statistics.messageBuffered();
+
+		List<Batch> batches = new ArrayList<>(2);
+		boolean scheduleFlush = false;
+		synchronized (buffer) {
+			if (!buffer.messages.isEmpty() && buffer.size
+					+ bufferedMessage.size > QueueMessageChannel.MAX_BATCH_PAYLOAD_SIZE) {
+				batches.add(buffer.drain(true));
+			}
+			buffer.add(bufferedMessage);
+			if (buffer.messages.size() >= this.maxBatchSize || this.destroyed) {
+				batches.add(buffer.drain(true));
+			}
+			else if (buffer.messages.size() == 1) {
+				scheduleFlush = true;
+			}
+		}
+
+		for (Batch batch : batches) {
+			if (batch != null) {
+				sendBatch(queueUrl, buffer, batch);
+			}
+		}
+		if (scheduleFlush) {
+			getTaskScheduler().schedule(() -> flush(queueUrl),
+					new Date(System.currentTimeMillis() + this.lingerTime));
+		}
+	}
+
+	private void flush(String queueUrl) {
+		Buffer buffer = this.buffersByQueue.get(queueUrl);
+		if (buffer == null) {
+			return;
+		}
+
+		Batch batch;
+		synchronized (buffer) {
+			if (buffer.messages.isEmpty()) {
+				return;
+			}
+			batch = buffer.drain(false);
+		}
+		if (batch != null) {
+			sendBatch(queueUrl, buffer, batch);
+		}
+	}
+
+	private void sendBatch(String queueUrl, Buffer buffer, Batch batch) {
+		SendMessageBatchRequest sendMessageBatchRequest = new SendMessageBatchRequest(
+				queueUrl);
+		for (int i = 0; i < batch.messages.size(); i++) {
+			sendMessageBatchRequest.withEntries(QueueMessageChannel
+					.createBatchRequestEntry(QueueMessageUtils.getBatchEntryId(i),
+							batch.messages.get(i).sendMessageRequest));
+		}
+		this.statistics.batchSent(batch.messages.size(), batch.full);
+
+		SendMessageBatchCallback callback = new SendMessageBatchCallback(queueUrl,
+				buffer, batch.messages);
+		try {
+			this.amazonSqs.sendMessageBatchAsync(sendMessageBatchRequest, callback);
+		}
+		catch (RuntimeException e) {
+			callback.onError(e);
+		}
+	}
+
+	private synchronized TaskScheduler getTaskScheduler() {
+		if (this.taskScheduler == null) {
+			this.defaultTaskScheduler = new ThreadPoolTaskScheduler();
+			this.defaultTaskScheduler.setThreadNamePrefix("QueueMessageSendBuffer-");
+			this.defaultTaskScheduler.setDaemon(true);
+			this.defaultTaskScheduler.afterPropertiesSet();
+			this.taskScheduler = this.defaultTaskScheduler;
+		}
+		return this.taskScheduler;
+	}
+
+	private static final class Buffer {
+
+		private final boolean fifo;
+
+		private final Deque<Batch> pendingBatches = new ArrayDeque<>();
+
+		private List<BufferedMessage> messages = new ArrayList<>();
+
+		private int size;
+
+		private boolean sending;
+
+		private Buffer(boolean fifo) {
+			this.fifo = fifo;
+		}
+
+		private void add(BufferedMessage bufferedMessage) {
+			this.messages.add(bufferedMessage);
+			this.size += bufferedMessage.size;
+		}
+
+		/**
+		 * Drains the buffered messages into a batch. The batch of a FIFO queue is queued
+		 * while the previous batch is being sent.
+		 * @return the batch to send or {@code null} if it has been queued
+		 */
+		private Batch drain(boolean full) {
+			Batch batch = new Batch(this.messages, full);
+			this.messages = new ArrayList<>();
+			this.size = 0;
+			if (this.fifo) {
+				if (this.sending) {
+					this.pendingBatches.add(batch);
+					return null;
+				}
+				this.sending = true;
+			}
+			return batch;
+		}
+
+		/**
+		 * Completes the batch of a FIFO queue that has been sent and removes the buffered
+		 * messages of the groups that failed.
+		 * @param failedGroupIds the ids of the groups with a message that failed
+		 * @param removedMessages the list to add the removed messages to
+		 * @return the next batch to send or {@code null} if there is none
+		 */
+		private Batch complete(Set<String> failedGroupIds,
+				List<BufferedMessage> removedMessages) {
+			if (!failedGroupIds.isEmpty()) {
+				Iterator<Batch> iterator = this.pendingBatches.iterator();
+				while (iterator.hasNext()) {
+					Batch batch = iterator.next();
+					removeMessages(batch.messages, failedGroupIds, removedMessages);
+					if (batch.messages.isEmpty()) {
+						iterator.remove();
+					}
+				}
+				this.size -= removeMessages(this.messages, failedGroupIds,
+						removedMessages);
+			}
+
+			Batch nextBatch = this.pendingBatches.poll();
+			this.sending = nextBatch != null;
+			return nextBatch;
+		}
+
+		private static int removeMessages(List<BufferedMessage> messages,
+				Set<String> groupIds, List<BufferedMessage> removedMessages) {
+			int removedSize = 0;
+			Iterator<BufferedMessage> iterator = messages.iterator();
+			while (iterator.hasNext()) {
+				BufferedMessage bufferedMessage = iterator.next();
+				if (groupIds.contains(bufferedMessage.getMessageGroupId())) {
+					iterator.remove();
+					removedMessages.add(bufferedMessage);
+					removedSize += bufferedMessage.size;
+				}
+			}
+			return removedSize;
+		}
+
+	}
+
+	private static final class Batch {
+
+		private final List<BufferedMessage> messages;
+
+		private final boolean full;
+
+		private Batch(List<BufferedMessage> messages, boolean full) {
+			this.messages = messages;
+			this.full = full;
+		}
+
+	}
+
+	private static final class BufferedMessage {
+
+		private final Message<?> message;
+
+		private final SendMessageRequest sendMessageRequest;
+
+		private final int size;
+
+		private final CompletableFuture<MessageSendResult> future = new CompletableFuture<>();
+
+		private int retries;
+
+		private BufferedMessage(Message<?> message,
+				SendMessageRequest sendMessageRequest) {
+			this.message = message;
+			this.sendMessageRequest = sendMessageRequest;
+			this.size = QueueMessageChannel.getSize(sendMessageRequest);
+		}
+
+		private String getMessageGroupId() {
+			return this.sendMessageRequest.getMessageGroupId();
+		}
+
+	}
+
+	private final class SendMessageBatchCallback
+			implements AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> {
+
+		private final String queueUrl;
+
+		private final Buffer buffer;
+
+		private final List<BufferedMessage> batch;
+
+		private SendMessageBatchCallback(String queueUrl, Buffer buffer,
+				List<BufferedMessage> batch) {
+			this.queueUrl = queueUrl;
+			this.buffer = buffer;
+			this.batch = batch;
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			logger.warn("An exception occurred while sending a batch of {} messages",
+					this.batch.size(), exception);
+			String errorCode = exception instanceof AmazonServiceException
+					? ((AmazonServiceException) exception).getErrorCode() : null;
+			boolean senderFault = exception instanceof AmazonServiceException
+					&& ((AmazonServiceException) exception)
+							.getErrorType() == AmazonServiceException.ErrorType.Client;
+			Set<String> failedGroupIds = new HashSet<>();
+			for (BufferedMessage bufferedMessage : this.batch) {
+				statistics.messageFailed();
+				bufferedMessage.future.complete(MessageSendResult.failed(
+						bufferedMessage.message, errorCode, exception.getMessage(),
+						senderFault));
+				if (bufferedMessage.getMessageGroupId() != null) {
+					failedGroupIds.add(bufferedMessage.getMessageGroupId());
+				}
+			}
+			completeBatch(failedGroupIds);
+		}
+
+		@Override
+		public void onSuccess(SendMessageBatchRequest request,
+				SendMessageBatchResult result) {
+			for (SendMessageBatchResultEntry successfulEntry : result.getSuccessful()) {
+				BufferedMessage bufferedMessage = getBufferedMessage(
+						successfulEntry.getId());
+				statistics.messageSent();
+				bufferedMessage.future.complete(MessageSendResult.successful(
+						bufferedMessage.message, successfulEntry.getMessageId(),
+						successfulEntry.getSequenceNumber()));
+			}
+			Set<String> failedGroupIds = new HashSet<>();
+			for (BatchResultErrorEntry failedEntry : result.getFailed()) {
+				BufferedMessage bufferedMessage = getBufferedMessage(failedEntry.getId());
+				boolean senderFault = Boolean.TRUE.equals(failedEntry.getSenderFault());
+				// Buffering an entry of a FIFO queue again would change its order
+				if (senderFault || bufferedMessage.retries
+						>= QueueMessageChannel.MAX_BATCH_RETRIES
+						|| bufferedMessage.getMessageGroupId() != null) {
+					statistics.messageFailed();
+					bufferedMessage.future.complete(MessageSendResult.failed(
+							bufferedMessage.message, failedEntry.getCode(),
+							failedEntry.getMessage(), senderFault));
+					if (bufferedMessage.getMessageGroupId() != null) {
+						failedGroupIds.add(bufferedMessage.getMessageGroupId());
+					}
+				}
+				else {
+					bufferedMessage.retries++;
+					statistics.messageRetried();
+					add(this.queueUrl, bufferedMessage);
+				}
+			}
+			completeBatch(failedGroupIds);
+		}
+
+		/**
+		 * Sends the next batch of a FIFO queue and fails the buffered messages of the
+		 * groups that failed, as sending them would break the order of their group.
+		 */
+		private void completeBatch(Set<String> failedGroupIds) {
+			if (!this.buffer.fifo) {
+				return;
+			}
+
+			List<BufferedMessage> removedMessages = new ArrayList<>();
+			Batch nextBatch;
+			synchronized (this.buffer) {
+				nextBatch = this.buffer.complete(failedGroupIds, removedMessages);
+			}
+			for (BufferedMessage bufferedMessage : removedMessages) {
+				statistics.bufferedMessageFailed();
+				bufferedMessage.future.complete(MessageSendResult.failed(
+						bufferedMessage.message, MESSAGE_GROUP_FAILED_ERROR_CODE,
+						"A previous message of group "
+								+ bufferedMessage.getMessageGroupId()
+								+ " could not be sent",
+						false));
+			}
+			if (nextBatch != null) {
+				sendBatch(this.queueUrl, this.buffer, nextBatch);
+			}
+		}
+
+		private BufferedMessage getBufferedMessage(String entryId) {
+			return this.batch.get(QueueMessageUtils.getBatchEntryIndex(entryId));
+		}
+
+	}
+
+}
@@ -16,18 +16,19 @@
 
 package org.springframework.cloud.aws.messaging.core;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
-
-import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.springframework.messaging.Message;
-import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.support.GenericMessage;
-import org.springframework.util.MimeType;
 import org.springframework.util.NumberUtils;
 
 /**
@@ -37,9 +38,10 @@ import org.springframework.util.NumberUtils;
  */
 public final class QueueMessageUtils {
 
-	private static final String RECEIPT_HANDLE_MESSAGE_ATTRIBUTE_NAME = "ReceiptHandle";
-
-	private static final String MESSAGE_ID_MESSAGE_ATTRIBUTE_NAME = "MessageId";
+	/**
+	 * Maximum number of entries of one SQS batch request.
+	 */
+	public static final int MAX_BATCH_SIZE = 10;
 
 	private QueueMessageUtils() {
 		// Avoid instantiation
@@ -53,17 +55,29 @@ public final class QueueMessageUtils {
 	public static Message<String> createMessage(
 			com.amazonaws.services.sqs.model.Message message,
 			Map<String, Object> additionalHeaders) {
-		HashMap<String, Object> messageHeaders = new HashMap<>();
-		messageHeaders.put(MESSAGE_ID_MESSAGE_ATTRIBUTE_NAME, message.getMessageId());
-		messageHeaders.put(RECEIPT_HANDLE_MESSAGE_ATTRIBUTE_NAME,
-				message.getReceiptHandle());
+		return new GenericMessage<>(message.getBody(),
+				new LazySqsMessageHeaders(message, additionalHeaders));
+	}
 
-		messageHeaders.putAll(additionalHeaders);
-		messageHeaders.putAll(getAttributesAsMessageHeaders(message));
-		messageHeaders.putAll(getMessageAttributesAsMessageHeaders(message));
+	/**
+	 * Creates the id of an entry of an SQS batch request from its position in the
+	 * request. Ids only need to be unique within one batch request.
+	 * @param index the position of the entry in the batch request
+	 * @return the id of the entry
+	 * @see #getBatchEntryIndex(String)
+	 */
+	public static String getBatchEntryId(int index) {
+		return Integer.toString(index);
+	}
 
-		return new GenericMessage<>(message.getBody(),
-				new SqsMessageHeaders(messageHeaders));
+	/**
+	 * Resolves the position of an entry in an SQS batch request from the id of a batch
+	 * result entry.
+	 * @param entryId the id created with {@link #getBatchEntryId(int)}
+	 * @return the position of the entry in the batch request
+	 */
+	public static int getBatchEntryIndex(String entryId) {
+		return Integer.parseInt(entryId);
 	}
 
 	public static Object getNumberValue(String attributeValue, String attributeType) {
@@ -78,58 +92,21 @@ public final class QueueMessageUtils {
 		}
 	}
 
-	private static Map<String, Object> getAttributesAsMessageHeaders(
-			com.amazonaws.services.sqs.model.Message message) {
-		Map<String, Object> messageHeaders = new HashMap<>();
-		for (Map.Entry<String, String> attributeKeyValuePair : message.getAttributes()
-				.entrySet()) {
-			messageHeaders.put(attributeKeyValuePair.getKey(),
-					attributeKeyValuePair.getValue());
-		}
-
-		return messageHeaders;
-	}
-
-	private static Map<String, Object> getMessageAttributesAsMessageHeaders(
-			com.amazonaws.services.sqs.model.Message message) {
-		Map<String, Object> messageHeaders = new HashMap<>();
-		for (Map.Entry<String, MessageAttributeValue> messageAttribute : message
-				.getMessageAttributes().entrySet()) {
-			if (MessageHeaders.CONTENT_TYPE.equals(messageAttribute.getKey())) {
-				messageHeaders.put(MessageHeaders.CONTENT_TYPE,
-						MimeType.valueOf(messageAttribute.getValue().getStringValue()));
-			}
-			else if (MessageHeaders.ID.equals(messageAttribute.getKey())) {
-				messageHeaders.put(MessageHeaders.ID,
-						UUID.fromString(messageAttribute.getValue().getStringValue()));
-			}
-			else if (MessageAttributeDataTypes.STRING
-					.equals(messageAttribute.getValue().getDataType())) {
-				messageHeaders.put(messageAttribute.getKey(),
-						messageAttribute.getValue().getStringValue());
-			}
-			else if (messageAttribute.getValue().getDataType()
-					.startsWith(MessageAttributeDataTypes.NUMBER)) {
-				messageHeaders.put(messageAttribute.getKey(),
-						getNumberValue(messageAttribute.getValue()));
-			}
-			else if (MessageAttributeDataTypes.BINARY
-					.equals(messageAttribute.getValue().getDataType())) {
-				messageHeaders.put(messageAttribute.getKey(),
-						messageAttribute.getValue().getBinaryValue());
-			}
-		}
+	/**
+	 * Parses the values of {@code Number} message attributes. The parser of each data
+	 * type is resolved once and cached, so that the target class is not loaded with
+	 * {@link Class#forName(String)} for every received attribute. The cache is bounded,
+	 * data types beyond its capacity are resolved on every call.
+	 */
+	private static final class NumberParser {
 
-		return messageHeaders;
-	}
+		private static final int MAX_CACHED_DATA_TYPES = 256;
 
-	private static Object getNumberValue(MessageAttributeValue value) {
-		return getNumberValue(value.getStringValue(), value.getDataType());
-	}
+		private static final Map<String, Class<? extends Number>> PRIMITIVE_TO_WRAPPED = new HashMap<>();
 
-	private static class NumberParser {
+		private static final Map<String, Function<String, Number>> PREDEFINED_PARSERS = new HashMap<>();
 
-		private static final Map<String, Class<? extends Number>> PRIMITIVE_TO_WRAPPED = new HashMap<>();
+		private static final Map<String, Function<String, Number>> PARSERS_BY_DATA_TYPE = new ConcurrentHashMap<>();
 
 		static {
 			PRIMITIVE_TO_WRAPPED.put(byte.class.getName(), Byte.class);
@@ -138,27 +115,53 @@ public final class QueueMessageUtils {
 			PRIMITIVE_TO_WRAPPED.put(long.class.getName(), Long.class);
 			PRIMITIVE_TO_WRAPPED.put(float.class.getName(), Float.class);
 			PRIMITIVE_TO_WRAPPED.put(double.class.getName(), Double.class);
+
+			for (Class<? extends Number> wrapperType : PRIMITIVE_TO_WRAPPED.values()) {
+				PREDEFINED_PARSERS.put(wrapperType.getName(), parserFor(wrapperType));
+			}
+			PREDEFINED_PARSERS.put(BigDecimal.class.getName(),
+					parserFor(BigDecimal.class));
+			PREDEFINED_PARSERS.put(BigInteger.class.getName(),
+					parserFor(BigInteger.class));
+			PREDEFINED_PARSERS.put(AtomicInteger.class.getName(),
+					value -> new AtomicInteger(
+							NumberUtils.parseNumber(value, Integer.class)));
+			PREDEFINED_PARSERS.put(AtomicLong.class.getName(),
+					value -> new AtomicLong(NumberUtils.parseNumber(value, Long.class)));
+		}
+
+		private static Function<String, Number> parserFor(
+				Class<? extends Number> numberType) {
+			return value -> NumberUtils.parseNumber(value, numberType);
 		}
 
 		public static Object parseNumber(String value, String type)
 				throws ClassNotFoundException {
+			Function<String, Number> parser = PARSERS_BY_DATA_TYPE.get(type);
+			if (parser == null) {
+				parser = createParser(type);
+				if (PARSERS_BY_DATA_TYPE.size() < MAX_CACHED_DATA_TYPES) {
+					PARSERS_BY_DATA_TYPE.putIfAbsent(type, parser);
+				}
+			}
+			return parser.apply(value);
+		}
+
+		private static Function<String, Number> createParser(String type)
+				throws ClassNotFoundException {
 			if (MessageAttributeDataTypes.NUMBER.equals(type)) {
-				return NumberUtils.parseNumber(value, Number.class);
+				return parserFor(Number.class);
 			}
-			else {
-				String javaType = type
-						.substring(MessageAttributeDataTypes.NUMBER.length() + 1);
 
-				if (PRIMITIVE_TO_WRAPPED.containsKey(javaType.toLowerCase())) {
-					return NumberUtils.parseNumber(value,
-							PRIMITIVE_TO_WRAPPED.get(javaType.toLowerCase()));
-				}
-				else {
-					Class<? extends Number> numberTypeClass = Class.forName(javaType)
-							.asSubclass(Number.class);
-					return NumberUtils.parseNumber(value, numberTypeClass);
-				}
+			String javaType = type
+					.substring(MessageAttributeDataTypes.NUMBER.length() + 1);
+			if (PRIMITIVE_TO_WRAPPED.containsKey(javaType.toLowerCase())) {
+				return parserFor(PRIMITIVE_TO_WRAPPED.get(javaType.toLowerCase()));
+			}
+			if (PREDEFINED_PARSERS.containsKey(javaType)) {
+				return PREDEFINED_PARSERS.get(javaType);
 			}
+			return parserFor(Class.forName(javaType).asSubclass(Number.class));
 		}
 
 	}
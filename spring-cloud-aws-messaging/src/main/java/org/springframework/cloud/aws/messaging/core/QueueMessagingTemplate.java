@@ -16,8 +16,17 @@
 
 package org.springframework.cloud.aws.messaging.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.QueueDoesNotExistException;
+import com.amazonaws.services.sqs.model.SendMessageResult;
 
 import org.springframework.cloud.aws.core.env.ResourceIdResolver;
 import org.springframework.cloud.aws.messaging.core.support.AbstractMessageChannelMessagingSendingTemplate;
@@ -25,6 +34,7 @@ import org.springframework.cloud.aws.messaging.support.destination.DynamicQueueU
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.converter.StringMessageConverter;
 import org.springframework.messaging.core.DestinationResolver;
@@ -48,8 +58,14 @@ public class QueueMessagingTemplate
 		extends AbstractMessageChannelMessagingSendingTemplate<QueueMessageChannel>
 		implements DestinationResolvingMessageReceivingOperations<QueueMessageChannel> {
 
+	private static final String NON_EXISTENT_QUEUE_ERROR_CODE = "AWS.SimpleQueueService.NonExistentQueue";
+
 	private final AmazonSQSAsync amazonSqs;
 
+	private LargePayloadStore largePayloadStore;
+
+	private QueueMessageSendBuffer sendBuffer;
+
 	public QueueMessagingTemplate(AmazonSQSAsync amazonSqs) {
 		this(amazonSqs, (ResourceIdResolver) null, null);
 	}
@@ -96,10 +112,143 @@ public class QueueMessagingTemplate
 		initMessageConverter(messageConverter);
 	}
 
+	/**
+	 * Configures the store for payloads that exceed the size limit of SQS (claim-check).
+	 * Default is {@code null} (no payloads are stored).
+	 * @param largePayloadStore the store for large payloads
+	 * @see QueueMessageChannel#setLargePayloadStore(LargePayloadStore)
+	 */
+	public void setLargePayloadStore(LargePayloadStore largePayloadStore) {
+		this.largePayloadStore = largePayloadStore;
+		updateMessageChannels(
+				channel -> channel.setLargePayloadStore(largePayloadStore));
+	}
+
+	/**
+	 * Configures the buffer that coalesces the messages sent from all threads into batch
+	 * requests. Default is {@code null} (every message is sent with its own request).
+	 * @param sendBuffer the buffer for sent messages
+	 * @see QueueMessageChannel#setSendBuffer(QueueMessageSendBuffer)
+	 */
+	public void setSendBuffer(QueueMessageSendBuffer sendBuffer) {
+		this.sendBuffer = sendBuffer;
+		updateMessageChannels(channel -> channel.setSendBuffer(sendBuffer));
+	}
+
 	@Override
 	protected QueueMessageChannel resolveMessageChannel(
 			String physicalResourceIdentifier) {
-		return new QueueMessageChannel(this.amazonSqs, physicalResourceIdentifier);
+		QueueMessageChannel channel = new QueueMessageChannel(this.amazonSqs,
+				physicalResourceIdentifier);
+		channel.setLargePayloadStore(this.largePayloadStore);
+		channel.setSendBuffer(this.sendBuffer);
+		return channel;
+	}
+
+	@Override
+	protected boolean isDestinationDeleted(Throwable exception) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (cause instanceof QueueDoesNotExistException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sends the message to the destination without waiting for the result. The first use
+	 * of a queue name resolves its url on the calling thread, which blocks for a
+	 * GetQueueUrl request. The url is cached afterwards; passing the url itself avoids
+	 * the request.
+	 * @param destinationName the logical name or url of the queue
+	 * @param message the message to send
+	 * @return a future completed with the result of the send request
+	 * @see QueueMessageChannel#sendAsync(Message)
+	 */
+	public CompletableFuture<SendMessageResult> sendAsync(String destinationName,
+			Message<?> message) throws MessagingException {
+		QueueMessageChannel channel = resolveMessageChannelByLogicalName(destinationName);
+		CompletableFuture<SendMessageResult> future = channel.sendAsync(message);
+		future.whenComplete((result, exception) -> {
+			if (exception != null) {
+				evictMessageChannelIfDeleted(channel, exception);
+			}
+		});
+		return future;
+	}
+
+	public <T> CompletableFuture<SendMessageResult> convertAndSendAsync(
+			String destinationName, T payload) throws MessagingException {
+		return convertAndSendAsync(destinationName, payload, null);
+	}
+
+	/**
+	 * Converts the payload and sends it to the destination without waiting for the
+	 * result.
+	 * @param destinationName the logical name or url of the queue
+	 * @param payload the payload to send
+	 * @param headers the headers of the message, may be {@code null}
+	 * @param <T> the type of the payload
+	 * @return a future completed with the result of the send request
+	 * @see #sendAsync(String, Message)
+	 */
+	public <T> CompletableFuture<SendMessageResult> convertAndSendAsync(
+			String destinationName, T payload, Map<String, Object> headers)
+			throws MessagingException {
+		return sendAsync(destinationName, doConvert(payload, headers, null));
+	}
+
+	/**
+	 * Sends the messages to the destination with batch requests of up to 10 messages.
+	 * @param destinationName the logical name or url of the queue
+	 * @param messages the messages to send
+	 * @return the result of every message, in the order of the given messages
+	 * @see QueueMessageChannel#sendBatch(Collection)
+	 */
+	public List<MessageSendResult> sendBatch(String destinationName,
+			Collection<? extends Message<?>> messages) throws MessagingException {
+		QueueMessageChannel channel = resolveMessageChannelByLogicalName(destinationName);
+		List<MessageSendResult> results = channel.sendBatch(messages);
+		for (MessageSendResult result : results) {
+			if (NON_EXISTENT_QUEUE_ERROR_CODE.equals(result.getErrorCode())) {
+				evictMessageChannel(channel);
+				break;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Converts the payloads and sends them to the destination with batch requests of up
+	 * to 10 messages.
+	 * @param destinationName the logical name or url of the queue
+	 * @param payloads the payloads to send
+	 * @return the result of every payload, in the order of the given payloads
+	 */
+	public List<MessageSendResult> convertAndSendAll(String destinationName,
+			Collection<?> payloads) throws MessagingException {
+		return convertAndSendAll(destinationName, payloads, null);
+	}
+
+	/**
+	 * Converts the payloads and sends them with the same headers to the destination with
+	 * batch requests of up to 10 messages. Messages to a FIFO queue need a
+	 * {@link SqsMessageHeaders#SQS_GROUP_ID_HEADER} header and, unless content based
+	 * deduplication is enabled on the queue, must be sent with
+	 * {@link #sendBatch(String, Collection)} to use a deduplication id per message.
+	 * @param destinationName the logical name or url of the queue
+	 * @param payloads the payloads to send
+	 * @param headers the headers of every message, may be {@code null}
+	 * @return the result of every payload, in the order of the given payloads
+	 */
+	public List<MessageSendResult> convertAndSendAll(String destinationName,
+			Collection<?> payloads, Map<String, Object> headers)
+			throws MessagingException {
+		List<Message<?>> messages = new ArrayList<>(payloads.size());
+		for (Object payload : payloads) {
+			messages.add(doConvert(payload, headers, null));
+		}
+		return sendBatch(destinationName, messages);
 	}
 
 	@Override
@@ -109,7 +258,13 @@ public class QueueMessagingTemplate
 
 	@Override
 	public Message<?> receive(QueueMessageChannel destination) throws MessagingException {
-		return destination.receive();
+		try {
+			return destination.receive();
+		}
+		catch (RuntimeException e) {
+			evictMessageChannelIfDeleted(destination, e);
+			throw e;
+		}
 	}
 
 	@Override
@@ -121,7 +276,7 @@ public class QueueMessagingTemplate
 	@Override
 	public <T> T receiveAndConvert(QueueMessageChannel destination, Class<T> targetClass)
 			throws MessagingException {
-		Message<?> message = destination.receive();
+		Message<?> message = receive(destination);
 		if (message != null) {
 			return (T) getMessageConverter().fromMessage(message, targetClass);
 		}
@@ -132,7 +287,7 @@ public class QueueMessagingTemplate
 
 	@Override
 	public Message<?> receive(String destinationName) throws MessagingException {
-		return resolveMessageChannelByLogicalName(destinationName).receive();
+		return receive(resolveMessageChannelByLogicalName(destinationName));
 	}
 
 	@Override
@@ -142,4 +297,114 @@ public class QueueMessagingTemplate
 		return receiveAndConvert(channel, targetClass);
 	}
 
+	/**
+	 * Receives up to 10 messages from the destination with one request and deletes them
+	 * with one batch request. Messages that could not be deleted are not returned, as
+	 * they are received again.
+	 * @param destinationName the logical name or url of the queue
+	 * @param maxNumberOfMessages the maximum number of messages to receive (1 to 10)
+	 * @param waitTimeSeconds the number of seconds to wait for messages
+	 * @return the received messages, empty if no message has been received
+	 * @see QueueMessageChannel#receiveBatch(int, int)
+	 */
+	public List<Message<?>> receiveBatch(String destinationName, int maxNumberOfMessages,
+			int waitTimeSeconds) throws MessagingException {
+		return receiveBatch(destinationName, maxNumberOfMessages, waitTimeSeconds,
+				false);
+	}
+
+	/**
+	 * Receives up to 10 messages from the destination with one request. Messages
+	 * received with deferred deletion must be deleted with
+	 * {@link #deleteMessages(String, Collection)} once they have been processed.
+	 * @param destinationName the logical name or url of the queue
+	 * @param maxNumberOfMessages the maximum number of messages to receive (1 to 10)
+	 * @param waitTimeSeconds the number of seconds to wait for messages
+	 * @param deferDeletion whether the caller deletes the messages
+	 * @return the received messages, empty if no message has been received
+	 * @see QueueMessageChannel#receiveBatch(int, int, boolean)
+	 */
+	public List<Message<?>> receiveBatch(String destinationName, int maxNumberOfMessages,
+			int waitTimeSeconds, boolean deferDeletion) throws MessagingException {
+		QueueMessageChannel channel = resolveMessageChannelByLogicalName(destinationName);
+		try {
+			return Collections.unmodifiableList(channel.receiveBatch(maxNumberOfMessages,
+					waitTimeSeconds, deferDeletion));
+		}
+		catch (RuntimeException e) {
+			evictMessageChannelIfDeleted(channel, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Receives up to 10 messages from the destination with one request, converts their
+	 * payloads and deletes the converted messages with one batch request. Only the
+	 * payloads of messages that have been converted and deleted are returned. Messages
+	 * that could not be converted or deleted are received again once their visibility
+	 * timeout has expired.
+	 * @param destinationName the logical name or url of the queue
+	 * @param maxNumberOfMessages the maximum number of messages to receive (1 to 10)
+	 * @param waitTimeSeconds the number of seconds to wait for messages
+	 * @param targetClass the type to convert the payloads to
+	 * @param <T> the type of the converted payloads
+	 * @return the converted payloads, empty if no message has been received
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> receiveAndConvertBatch(String destinationName,
+			int maxNumberOfMessages, int waitTimeSeconds, Class<T> targetClass)
+			throws MessagingException {
+		List<Message<?>> messages = receiveBatch(destinationName, maxNumberOfMessages,
+				waitTimeSeconds, true);
+		List<Message<?>> convertedMessages = new ArrayList<>(messages.size());
+		List<T> payloads = new ArrayList<>(messages.size());
+		for (Message<?> message : messages) {
+			T payload;
+			try {
+				payload = (T) getMessageConverter().fromMessage(message, targetClass);
+			}
+			catch (MessageConversionException e) {
+				this.logger.warn("Received message could not be converted and will be"
+						+ " received again", e);
+				continue;
+			}
+			if (payload == null) {
+				this.logger.warn("No converter found to convert received message to "
+						+ targetClass.getName() + ", it will be received again");
+				continue;
+			}
+			convertedMessages.add(message);
+			payloads.add(payload);
+		}
+		if (convertedMessages.isEmpty()) {
+			return payloads;
+		}
+
+		List<Message<?>> undeletedMessages = deleteMessages(destinationName,
+				convertedMessages);
+		if (undeletedMessages.isEmpty()) {
+			return payloads;
+		}
+		List<T> deletedPayloads = new ArrayList<>(payloads.size());
+		for (int i = 0; i < convertedMessages.size(); i++) {
+			if (!undeletedMessages.contains(convertedMessages.get(i))) {
+				deletedPayloads.add(payloads.get(i));
+			}
+		}
+		return deletedPayloads;
+	}
+
+	/**
+	 * Deletes messages received from the destination with deferred deletion.
+	 * @param destinationName the logical name or url of the queue
+	 * @param messages the received messages to delete
+	 * @return the messages that could not be deleted
+	 * @see QueueMessageChannel#deleteMessages(Collection)
+	 */
+	public List<Message<?>> deleteMessages(String destinationName,
+			Collection<? extends Message<?>> messages) throws MessagingException {
+		return resolveMessageChannelByLogicalName(destinationName)
+				.deleteMessages(messages);
+	}
+
 }
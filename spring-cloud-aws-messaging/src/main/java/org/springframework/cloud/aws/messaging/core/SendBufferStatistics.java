@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of a {@link QueueMessageSendBuffer}. All values are updated concurrently by
+ * the sending threads and are meant to be exposed as metrics.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public final class SendBufferStatistics {
+
+	private final AtomicLong bufferedMessages = new AtomicLong();
+
+	private final AtomicLong fullBatches = new AtomicLong();
+
+	private final AtomicLong lingerBatches = new AtomicLong();
+
+	private final AtomicLong sentMessages = new AtomicLong();
+
+	private final AtomicLong failedMessages = new AtomicLong();
+
+	private final AtomicLong retriedMessages = new AtomicLong();
+
+	SendBufferStatistics() {
+	}
+
+	/**
+	 * @return the number of messages currently waiting in the buffer
+	 */
+	public long getBufferedMessages() {
+		return this.bufferedMessages.get();
+	}
+
+	/**
+	 * @return the number of batches that have been sent because they reached the maximum
+	 * batch size or payload size
+	 */
+	public long getFullBatches() {
+		return this.fullBatches.get();
+	}
+
+	/**
+	 * @return the number of batches that have been sent because the linger time elapsed
+	 * or the buffer has been flushed
+	 */
+	public long getLingerBatches() {
+		return this.lingerBatches.get();
+	}
+
+	/**
+	 * @return the number of messages that have been sent successfully
+	 */
+	public long getSentMessages() {
+		return this.sentMessages.get();
+	}
+
+	/**
+	 * @return the number of messages that could not be sent
+	 */
+	public long getFailedMessages() {
+		return this.failedMessages.get();
+	}
+
+	/**
+	 * @return the number of times a failed message has been buffered again
+	 */
+	public long getRetriedMessages() {
+		return this.retriedMessages.get();
+	}
+
+	void messageBuffered() {
+		this.bufferedMessages.incrementAndGet();
+	}
+
+	void batchSent(int batchSize, boolean full) {
+		this.bufferedMessages.addAndGet(-batchSize);
+		(full ? this.fullBatches : this.lingerBatches).incrementAndGet();
+	}
+
+	void messageSent() {
+		this.sentMessages.incrementAndGet();
+	}
+
+	void messageFailed() {
+		this.failedMessages.incrementAndGet();
+	}
+
+	void bufferedMessageFailed() {
+		this.bufferedMessages.decrementAndGet();
+		this.failedMessages.incrementAndGet();
+	}
+
+	void messageRetried() {
+		this.retriedMessages.incrementAndGet();
+	}
+
+}
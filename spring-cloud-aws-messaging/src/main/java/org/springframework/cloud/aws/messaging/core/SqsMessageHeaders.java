@@ -58,6 +58,11 @@ public class SqsMessageHeaders extends MessageHeaders {
 	 */
 	public static final String SQS_APPROXIMATE_RECEIVE_COUNT = "ApproximateReceiveCount";
 
+	/**
+	 * ReceiptHandle header in a SQS message.
+	 */
+	public static final String SQS_RECEIPT_HANDLE = "ReceiptHandle";
+
 	/**
 	 * SentTimestamp header in a SQS message.
 	 */
@@ -67,6 +72,17 @@ public class SqsMessageHeaders extends MessageHeaders {
 		super(headers, getId(headers), getTimestamp(headers));
 	}
 
+	/**
+	 * Constructor for subclasses that resolve the id and the timestamp themselves.
+	 * @param headers the headers to copy
+	 * @param id the id or {@code null} to generate one
+	 * @param timestamp the timestamp or {@code null} to use the current time
+	 * @since 3.0
+	 */
+	protected SqsMessageHeaders(Map<String, Object> headers, UUID id, Long timestamp) {
+		super(headers, id, timestamp);
+	}
+
 	public Long getApproximateFirstReceiveTimestamp() {
 		return containsKey(SQS_APPROXIMATE_FIRST_RECEIVE_TIMESTAMP)
 				? Long.parseLong(Objects.requireNonNull(
@@ -19,12 +19,17 @@ package org.springframework.cloud.aws.messaging.core;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSAsync;
 import com.amazonaws.services.sns.model.MessageAttributeValue;
 import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
 
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.AbstractMessageChannel;
 import org.springframework.util.Assert;
@@ -47,11 +52,25 @@ public class TopicMessageChannel extends AbstractMessageChannel {
 
 	private final String topicArn;
 
+	private LargePayloadStore largePayloadStore;
+
 	public TopicMessageChannel(AmazonSNS amazonSns, String topicArn) {
 		this.amazonSns = amazonSns;
 		this.topicArn = topicArn;
 	}
 
+	/**
+	 * Configures the store for payloads that exceed the size limit of SNS. Payloads above
+	 * the threshold of the store are stored in S3 and a pointer message is published
+	 * instead. SQS queues subscribed to the topic with raw message delivery receive the
+	 * pointer message and its message attributes unchanged. Default is {@code null} (no
+	 * payloads are stored).
+	 * @param largePayloadStore the store for large payloads
+	 */
+	public void setLargePayloadStore(LargePayloadStore largePayloadStore) {
+		this.largePayloadStore = largePayloadStore;
+	}
+
 	private static String findNotificationSubject(Message<?> message) {
 		return message.getHeaders().containsKey(NOTIFICATION_SUBJECT_HEADER)
 				? message.getHeaders().get(NOTIFICATION_SUBJECT_HEADER).toString() : null;
@@ -59,16 +78,137 @@ public class TopicMessageChannel extends AbstractMessageChannel {
 
 	@Override
 	protected boolean sendInternal(Message<?> message, long timeout) {
-		PublishRequest publishRequest = new PublishRequest(this.topicArn,
-				message.getPayload().toString(), findNotificationSubject(message));
+		PublishRequest publishRequest = preparePublishRequest(message);
+		try {
+			this.amazonSns.publish(publishRequest);
+		}
+		catch (RuntimeException e) {
+			deleteStoredPayload(publishRequest);
+			throw e;
+		}
+		return true;
+	}
+
+	/**
+	 * Publishes the message without blocking the calling thread. Requires an
+	 * {@link AmazonSNSAsync} client. The interceptors of the channel are applied like for
+	 * {@link #send(Message)}, their {@code postSend} and {@code afterSendCompletion}
+	 * callbacks are invoked once the request has been completed. A large payload is
+	 * stored in S3 with the executor of the {@link LargePayloadStore} before the message
+	 * is published.
+	 * @param message the message to publish
+	 * @return a future completed with the result of the publish request, with
+	 * {@code null} if an interceptor precluded the send or exceptionally with a
+	 * {@link MessageDeliveryException}
+	 */
+	public CompletableFuture<PublishResult> publishAsync(Message<?> message) {
+		Assert.state(this.amazonSns instanceof AmazonSNSAsync,
+				"An AmazonSNSAsync client is required to publish asynchronously");
+		return new AsyncSendInterceptorChain(this).send(message,
+				this::publishAsyncInternal);
+	}
+
+	private CompletableFuture<PublishResult> publishAsyncInternal(Message<?> message) {
+		return preparePublishRequestAsync(message)
+				.thenCompose(this::publishRequestAsync);
+	}
+
+	private CompletableFuture<PublishResult> publishRequestAsync(
+			PublishRequest publishRequest) {
+		CompletableFuture<PublishResult> future = new CompletableFuture<>();
+		try {
+			((AmazonSNSAsync) this.amazonSns).publishAsync(publishRequest,
+					new AsyncHandler<PublishRequest, PublishResult>() {
+
+						@Override
+						public void onError(Exception exception) {
+							deleteStoredPayload(publishRequest);
+							future.completeExceptionally(exception);
+						}
+
+						@Override
+						public void onSuccess(PublishRequest request,
+								PublishResult result) {
+							future.complete(result);
+						}
+
+					});
+		}
+		catch (RuntimeException e) {
+			deleteStoredPayload(publishRequest);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Deletes the stored payload of a message that could not be published, as no
+	 * subscriber will ever receive its pointer.
+	 */
+	private void deleteStoredPayload(PublishRequest publishRequest) {
+		if (this.largePayloadStore == null
+				|| publishRequest.getMessageAttributes() == null
+				|| !LargePayloadStore.isPointer(publishRequest.getMessageAttributes())) {
+			return;
+		}
+
+		try {
+			this.largePayloadStore.delete(publishRequest.getMessage());
+		}
+		catch (RuntimeException e) {
+			this.logger.warn("Stored payload of a message that could not be published"
+					+ " could not be deleted", e);
+		}
+	}
+
+	private PublishRequest preparePublishRequest(Message<?> message) {
+		String body = message.getPayload().toString();
+		int storedSize = getStoredSize(body);
+		if (storedSize >= 0) {
+			body = this.largePayloadStore.store(body);
+		}
+		return createPublishRequest(message, body, storedSize);
+	}
+
+	/**
+	 * Prepares the request like {@link #preparePublishRequest(Message)}, but stores a
+	 * large payload without blocking the calling thread.
+	 */
+	private CompletableFuture<PublishRequest> preparePublishRequestAsync(
+			Message<?> message) {
+		String body = message.getPayload().toString();
+		int storedSize = getStoredSize(body);
+		if (storedSize < 0) {
+			return CompletableFuture
+					.completedFuture(createPublishRequest(message, body, storedSize));
+		}
+		return this.largePayloadStore.storeAsync(body).thenApply(
+				pointer -> createPublishRequest(message, pointer, storedSize));
+	}
+
+	private int getStoredSize(String body) {
+		return this.largePayloadStore != null ? this.largePayloadStore.getStoredSize(body)
+				: -1;
+	}
+
+	/**
+	 * @param storedSize the size of the stored payload if the body is a pointer to it,
+	 * otherwise {@code -1}
+	 */
+	private PublishRequest createPublishRequest(Message<?> message, String body,
+			int storedSize) {
+		PublishRequest publishRequest = new PublishRequest(this.topicArn, body,
+				findNotificationSubject(message));
 		Map<String, MessageAttributeValue> messageAttributes = getMessageAttributes(
 				message);
+		if (storedSize >= 0) {
+			messageAttributes.put(LargePayloadStore.PAYLOAD_SIZE_ATTRIBUTE,
+					getNumberMessageAttribute(storedSize));
+		}
 		if (!messageAttributes.isEmpty()) {
 			publishRequest.withMessageAttributes(messageAttributes);
 		}
-		this.amazonSns.publish(publishRequest);
-
-		return true;
+		return publishRequest;
 	}
 
 	private Map<String, MessageAttributeValue> getMessageAttributes(Message<?> message) {
@@ -19,12 +19,16 @@ package org.springframework.cloud.aws.messaging.core.support;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import org.springframework.cloud.aws.messaging.support.converter.CachingMappingJackson2MessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.CompressingMessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.PayloadCompression;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessagingException;
-import org.springframework.messaging.converter.CompositeMessageConverter;
-import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.converter.StringMessageConverter;
 import org.springframework.messaging.core.AbstractMessageSendingTemplate;
@@ -32,6 +36,7 @@ import org.springframework.messaging.core.CachingDestinationResolverProxy;
 import org.springframework.messaging.core.DestinationResolver;
 import org.springframework.messaging.core.DestinationResolvingMessageSendingOperations;
 import org.springframework.messaging.core.MessagePostProcessor;
+import org.springframework.util.Assert;
 
 /**
  * @param <D> message channel type
@@ -43,8 +48,24 @@ public abstract class AbstractMessageChannelMessagingSendingTemplate<D extends M
 		extends AbstractMessageSendingTemplate<D>
 		implements DestinationResolvingMessageSendingOperations<D> {
 
+	/**
+	 * Maximum number of message channels that are reused for subsequent operations. The
+	 * least recently used channel is evicted once the limit is exceeded.
+	 */
+	static final int MAX_CACHED_MESSAGE_CHANNELS = 256;
+
 	private final DestinationResolver<String> destinationResolver;
 
+	/**
+	 * Read without locking. Only the eviction of the least recently used channels is
+	 * serialized by {@link #evictionMonitor}.
+	 */
+	private final Map<String, CachedMessageChannel<D>> messageChannelsByDestination = new ConcurrentHashMap<>();
+
+	private final AtomicLong accessCounter = new AtomicLong();
+
+	private final Object evictionMonitor = new Object();
+
 	protected AbstractMessageChannelMessagingSendingTemplate(
 			DestinationResolver<String> destinationResolver) {
 		this.destinationResolver = new CachingDestinationResolverProxy<>(
@@ -58,7 +79,13 @@ public abstract class AbstractMessageChannelMessagingSendingTemplate<D extends M
 
 	@Override
 	protected void doSend(D destination, Message<?> message) {
-		destination.send(message);
+		try {
+			destination.send(message);
+		}
+		catch (RuntimeException e) {
+			evictMessageChannelIfDeleted(destination, e);
+			throw e;
+		}
 	}
 
 	@Override
@@ -100,7 +127,89 @@ public abstract class AbstractMessageChannelMessagingSendingTemplate<D extends M
 	protected D resolveMessageChannelByLogicalName(String destination) {
 		String physicalResourceId = this.destinationResolver
 				.resolveDestination(destination);
-		return resolveMessageChannel(physicalResourceId);
+		// computeIfAbsent locks the bin of an existing key on Java 8
+		CachedMessageChannel<D> cachedMessageChannel = this.messageChannelsByDestination
+				.get(physicalResourceId);
+		if (cachedMessageChannel != null) {
+			cachedMessageChannel.lastAccess = this.accessCounter.incrementAndGet();
+			return cachedMessageChannel.messageChannel;
+		}
+
+		cachedMessageChannel = this.messageChannelsByDestination.computeIfAbsent(
+				physicalResourceId,
+				key -> new CachedMessageChannel<>(resolveMessageChannel(key),
+						this.accessCounter.incrementAndGet()));
+		evictLeastRecentlyUsedMessageChannels();
+		return cachedMessageChannel.messageChannel;
+	}
+
+	private void evictLeastRecentlyUsedMessageChannels() {
+		if (this.messageChannelsByDestination.size() <= MAX_CACHED_MESSAGE_CHANNELS) {
+			return;
+		}
+
+		synchronized (this.evictionMonitor) {
+			while (this.messageChannelsByDestination
+					.size() > MAX_CACHED_MESSAGE_CHANNELS) {
+				Map.Entry<String, CachedMessageChannel<D>> eldest = null;
+				for (Map.Entry<String, CachedMessageChannel<D>> entry : this.messageChannelsByDestination
+						.entrySet()) {
+					if (eldest == null || entry.getValue().lastAccess < eldest
+							.getValue().lastAccess) {
+						eldest = entry;
+					}
+				}
+				if (eldest == null) {
+					return;
+				}
+				this.messageChannelsByDestination.remove(eldest.getKey(),
+						eldest.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Applies a changed configuration to the message channels that have already been
+	 * created for previous operations.
+	 * @param update the update of a message channel
+	 */
+	protected void updateMessageChannels(Consumer<? super D> update) {
+		for (CachedMessageChannel<D> cachedMessageChannel : this.messageChannelsByDestination
+				.values()) {
+			update.accept(cachedMessageChannel.messageChannel);
+		}
+	}
+
+	/**
+	 * Removes the message channel from the channels reused for subsequent operations if
+	 * the exception indicates that its destination has been deleted, so that a
+	 * recreated destination gets a new channel.
+	 * @param messageChannel the channel whose operation failed
+	 * @param exception the exception thrown by the operation
+	 * @see #isDestinationDeleted(Throwable)
+	 */
+	protected void evictMessageChannelIfDeleted(D messageChannel, Throwable exception) {
+		if (isDestinationDeleted(exception)) {
+			evictMessageChannel(messageChannel);
+		}
+	}
+
+	/**
+	 * Removes the message channel from the channels reused for subsequent operations.
+	 * @param messageChannel the channel to remove
+	 */
+	protected void evictMessageChannel(D messageChannel) {
+		this.messageChannelsByDestination.values()
+				.removeIf(cached -> cached.messageChannel == messageChannel);
+	}
+
+	/**
+	 * @param exception the exception thrown by an operation of a message channel
+	 * @return {@code true} if the exception or one of its causes indicates that the
+	 * destination does not exist anymore
+	 */
+	protected boolean isDestinationDeleted(Throwable exception) {
+		return false;
 	}
 
 	protected void initMessageConverter(MessageConverter messageConverter) {
@@ -115,14 +224,55 @@ public abstract class AbstractMessageChannelMessagingSendingTemplate<D extends M
 			messageConverters.add(messageConverter);
 		}
 		else {
-			MappingJackson2MessageConverter mappingJackson2MessageConverter = new MappingJackson2MessageConverter();
-			mappingJackson2MessageConverter.setSerializedPayloadClass(String.class);
-			messageConverters.add(mappingJackson2MessageConverter);
+			messageConverters.add(new CachingMappingJackson2MessageConverter());
 		}
 
-		setMessageConverter(new CompositeMessageConverter(messageConverters));
+		setMessageConverter(new CompressingMessageConverter(messageConverters));
+	}
+
+	/**
+	 * Configures the compression of payloads that are larger than the compression
+	 * threshold. Compressed payloads are marked with the
+	 * {@value CompressingMessageConverter#CONTENT_ENCODING_HEADER} message attribute.
+	 * They are decompressed when they are received by this template or by a
+	 * {@link org.springframework.cloud.aws.messaging.listener.QueueMessageHandler}, if
+	 * they have a compression configured as well. Default is {@code null} (payloads are
+	 * neither compressed nor decompressed).
+	 * @param payloadCompression the compression algorithm
+	 * @see CompressingMessageConverter#setCompression(PayloadCompression)
+	 */
+	public void setPayloadCompression(PayloadCompression payloadCompression) {
+		getCompressingMessageConverter().setCompression(payloadCompression);
+	}
+
+	/**
+	 * Configures the size in bytes above which payloads are compressed. Default is 1 KB.
+	 * @param compressionThreshold the threshold in bytes
+	 * @see CompressingMessageConverter#setThreshold(int)
+	 */
+	public void setCompressionThreshold(int compressionThreshold) {
+		getCompressingMessageConverter().setThreshold(compressionThreshold);
+	}
+
+	private CompressingMessageConverter getCompressingMessageConverter() {
+		Assert.state(getMessageConverter() instanceof CompressingMessageConverter,
+				"Payload compression requires the message converter of the template");
+		return (CompressingMessageConverter) getMessageConverter();
 	}
 
 	protected abstract D resolveMessageChannel(String physicalResourceIdentifier);
 
+	private static final class CachedMessageChannel<D> {
+
+		private final D messageChannel;
+
+		private volatile long lastAccess;
+
+		private CachedMessageChannel(D messageChannel, long lastAccess) {
+			this.messageChannel = messageChannel;
+			this.lastAccess = lastAccess;
+		}
+
+	}
+
 }
@@ -16,14 +16,19 @@
 
 package org.springframework.cloud.aws.messaging.listener;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
 import com.amazonaws.services.sqs.model.GetQueueAttributesRequest;
 import com.amazonaws.services.sqs.model.GetQueueAttributesResult;
+import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.QueueAttributeName;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import org.slf4j.Logger;
@@ -34,6 +39,7 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cloud.aws.core.env.ResourceIdResolver;
 import org.springframework.cloud.aws.core.support.documentation.RuntimeUse;
+import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
 import org.springframework.cloud.aws.messaging.support.destination.DynamicQueueUrlDestinationResolver;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.messaging.core.CachingDestinationResolverProxy;
@@ -41,6 +47,9 @@ import org.springframework.messaging.core.DestinationResolutionException;
 import org.springframework.messaging.core.DestinationResolver;
 import org.springframework.util.Assert;
 
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.MAX_BATCH_SIZE;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryId;
+
 /**
  * Abstract base class for message listener containers providing basic lifecycle
  * capabilities and collaborator for the concrete sub classes. This class implements all
@@ -58,11 +67,15 @@ abstract class AbstractMessageListenerContainer
 
 	private static final String RECEIVING_MESSAGE_ATTRIBUTES = "All";
 
+	private static final String MESSAGE_GROUP_ID_ATTRIBUTE = "MessageGroupId";
+
 	// Visible to child classes for thread pool sizing
 	protected static final int DEFAULT_MAX_NUMBER_OF_MESSAGES = 10;
 
 	private static final int DEFAULT_WAIT_TIME_IN_SECONDS = 20;
 
+	private static final String FIFO_QUEUE_SUFFIX = ".fifo";
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 
 	private final Object lifecycleMonitor = new Object();
@@ -98,11 +111,19 @@ abstract class AbstractMessageListenerContainer
 	 */
 	private Integer waitTimeOut = DEFAULT_WAIT_TIME_IN_SECONDS;
 
+	private List<String> attributeNames = Collections
+			.singletonList(RECEIVING_ATTRIBUTES);
+
+	private List<String> messageAttributeNames = Collections
+			.singletonList(RECEIVING_MESSAGE_ATTRIBUTES);
+
 	// Optional settings with defaults
 	private boolean autoStartup = true;
 
 	private int phase = Integer.MAX_VALUE;
 
+	private MessageListenerMetrics messageListenerMetrics = MessageListenerMetrics.NONE;
+
 	// Settings that are changed at runtime
 	private boolean active;
 
@@ -221,6 +242,39 @@ abstract class AbstractMessageListenerContainer
 		this.waitTimeOut = waitTimeOut;
 	}
 
+	protected List<String> getAttributeNames() {
+		return this.attributeNames;
+	}
+
+	/**
+	 * Configures the system attributes (e.g. {@code ApproximateReceiveCount}) that are
+	 * requested with the received messages. Requesting only the attributes that are
+	 * read by the listener methods reduces the size of the receive responses. Listener
+	 * methods can override the value with {@link SqsListener#attributeNames()}. The
+	 * {@code MessageGroupId} attribute is always requested for FIFO queues. Default is
+	 * {@code All}.
+	 * @param attributeNames the names of the system attributes to receive
+	 */
+	public void setAttributeNames(List<String> attributeNames) {
+		Assert.notNull(attributeNames, "attributeNames must not be null");
+		this.attributeNames = attributeNames;
+	}
+
+	protected List<String> getMessageAttributeNames() {
+		return this.messageAttributeNames;
+	}
+
+	/**
+	 * Configures the message attributes that are requested with the received messages.
+	 * Names may end with {@code .*} to match a prefix. Listener methods can override the
+	 * value with {@link SqsListener#messageAttributeNames()}. Default is {@code All}.
+	 * @param messageAttributeNames the names of the message attributes to receive
+	 */
+	public void setMessageAttributeNames(List<String> messageAttributeNames) {
+		Assert.notNull(messageAttributeNames, "messageAttributeNames must not be null");
+		this.messageAttributeNames = messageAttributeNames;
+	}
+
 	@Override
 	public boolean isAutoStartup() {
 		return this.autoStartup;
@@ -256,6 +310,22 @@ abstract class AbstractMessageListenerContainer
 		this.phase = phase;
 	}
 
+	protected MessageListenerMetrics getMessageListenerMetrics() {
+		return this.messageListenerMetrics;
+	}
+
+	/**
+	 * Configures the {@link MessageListenerMetrics} notified about the receive requests,
+	 * the execution and the deletion of messages of this container. By default nothing
+	 * is recorded.
+	 * @param messageListenerMetrics - the metrics to record, e.g. a
+	 * {@link MicrometerMessageListenerMetrics}
+	 */
+	public void setMessageListenerMetrics(MessageListenerMetrics messageListenerMetrics) {
+		Assert.notNull(messageListenerMetrics, "messageListenerMetrics must not be null");
+		this.messageListenerMetrics = messageListenerMetrics;
+	}
+
 	public boolean isActive() {
 		synchronized (this.getLifecycleMonitor()) {
 			return this.active;
@@ -291,7 +361,7 @@ abstract class AbstractMessageListenerContainer
 					.getHandlerMethods().keySet()) {
 				for (String queue : mappingInformation.getLogicalResourceIds()) {
 					QueueAttributes queueAttributes = queueAttributes(queue,
-							mappingInformation.getDeletionPolicy());
+							mappingInformation);
 
 					if (queueAttributes != null) {
 						this.registeredQueues.put(queue, queueAttributes);
@@ -315,7 +385,7 @@ abstract class AbstractMessageListenerContainer
 	}
 
 	private QueueAttributes queueAttributes(String queue,
-			SqsMessageDeletionPolicy deletionPolicy) {
+			QueueMessageHandler.MappingInformation mappingInformation) {
 		String destinationUrl;
 		try {
 			destinationUrl = getDestinationResolver().resolveDestination(queue);
@@ -338,8 +408,22 @@ abstract class AbstractMessageListenerContainer
 		boolean hasRedrivePolicy = queueAttributes.getAttributes()
 				.containsKey(QueueAttributeName.RedrivePolicy.toString());
 
-		return new QueueAttributes(hasRedrivePolicy, deletionPolicy, destinationUrl,
-				getMaxNumberOfMessages(), getVisibilityTimeout(), getWaitTimeOut());
+		return new QueueAttributes(hasRedrivePolicy,
+				mappingInformation.getDeletionPolicy(), destinationUrl,
+				valueOrDefault(mappingInformation.getMaxMessagesPerPoll(),
+						getMaxNumberOfMessages()),
+				valueOrDefault(mappingInformation.getVisibilityTimeout(),
+						getVisibilityTimeout()),
+				valueOrDefault(mappingInformation.getWaitTimeSeconds(), getWaitTimeOut()),
+				mappingInformation.isBatch(), mappingInformation.getConcurrency(),
+				valueOrDefault(mappingInformation.getAttributeNames(),
+						getAttributeNames()),
+				valueOrDefault(mappingInformation.getMessageAttributeNames(),
+						getMessageAttributeNames()));
+	}
+
+	private static <T> T valueOrDefault(T value, T defaultValue) {
+		return value != null ? value : defaultValue;
 	}
 
 	@Override
@@ -376,6 +460,63 @@ abstract class AbstractMessageListenerContainer
 
 	}
 
+	protected static boolean isDeletedOnSuccess(SqsMessageDeletionPolicy deletionPolicy) {
+		return deletionPolicy == SqsMessageDeletionPolicy.ON_SUCCESS
+				|| deletionPolicy == SqsMessageDeletionPolicy.ALWAYS
+				|| deletionPolicy == SqsMessageDeletionPolicy.NO_REDRIVE;
+	}
+
+	protected static boolean isDeletedOnError(SqsMessageDeletionPolicy deletionPolicy,
+			boolean hasRedrivePolicy) {
+		return deletionPolicy == SqsMessageDeletionPolicy.ALWAYS
+				|| (deletionPolicy == SqsMessageDeletionPolicy.NO_REDRIVE
+						&& !hasRedrivePolicy);
+	}
+
+	/**
+	 * Creates the {@link ExponentialBackOffPolicy} with full jitter that is used if no
+	 * {@link BackOffPolicy} has been configured.
+	 * @param maxBackOffTime the maximum back off time in milliseconds
+	 * @return the back off policy
+	 */
+	protected static BackOffPolicy createDefaultBackOffPolicy(long maxBackOffTime) {
+		ExponentialBackOffPolicy policy = new ExponentialBackOffPolicy();
+		policy.setMaxInterval(maxBackOffTime);
+		policy.setInitialInterval(
+				Math.min(policy.getInitialInterval(), maxBackOffTime));
+		policy.setThrottlingInitialInterval(
+				Math.min(policy.getThrottlingInitialInterval(), maxBackOffTime));
+		return policy;
+	}
+
+	/**
+	 * Makes messages that have been received but whose execution has not been started
+	 * visible again immediately, so that they do not wait for their visibility timeout
+	 * to expire after the queue has been stopped.
+	 * @param queueUrl the url of the queue the messages were received from
+	 * @param messages the messages to return to the queue
+	 */
+	protected void returnMessages(String queueUrl, List<Message> messages) {
+		for (int i = 0; i < messages.size(); i += MAX_BATCH_SIZE) {
+			List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>();
+			for (Message message : messages.subList(i,
+					Math.min(i + MAX_BATCH_SIZE, messages.size()))) {
+				entries.add(new ChangeMessageVisibilityBatchRequestEntry(
+						getBatchEntryId(entries.size()), message.getReceiptHandle())
+								.withVisibilityTimeout(0));
+			}
+			try {
+				getAmazonSqs().changeMessageVisibilityBatchAsync(
+						new ChangeMessageVisibilityBatchRequest(queueUrl, entries),
+						new ChangeMessageVisibilityBatchHandler());
+			}
+			catch (RuntimeException e) {
+				getLogger().warn("An exception occurred while returning {} messages to "
+						+ "queue '{}'", entries.size(), queueUrl, e);
+			}
+		}
+	}
+
 	protected static class QueueAttributes {
 
 		private final boolean hasRedrivePolicy;
@@ -384,35 +525,81 @@ abstract class AbstractMessageListenerContainer
 
 		private final String destinationUrl;
 
-		private final Integer maxNumberOfMessages;
-
 		private final Integer visibilityTimeout;
 
-		private final Integer waitTimeOut;
+		private final boolean batch;
+
+		private final Integer concurrency;
+
+		private final ReceiveMessageRequest receiveMessageRequest;
+
+		public QueueAttributes(boolean hasRedrivePolicy,
+				SqsMessageDeletionPolicy deletionPolicy, String destinationUrl,
+				Integer maxNumberOfMessages, Integer visibilityTimeout,
+				Integer waitTimeOut, boolean batch) {
+			this(hasRedrivePolicy, deletionPolicy, destinationUrl, maxNumberOfMessages,
+					visibilityTimeout, waitTimeOut, batch, null);
+		}
+
+		public QueueAttributes(boolean hasRedrivePolicy,
+				SqsMessageDeletionPolicy deletionPolicy, String destinationUrl,
+				Integer maxNumberOfMessages, Integer visibilityTimeout,
+				Integer waitTimeOut, boolean batch, Integer concurrency) {
+			this(hasRedrivePolicy, deletionPolicy, destinationUrl, maxNumberOfMessages,
+					visibilityTimeout, waitTimeOut, batch, concurrency,
+					Collections.singletonList(RECEIVING_ATTRIBUTES),
+					Collections.singletonList(RECEIVING_MESSAGE_ATTRIBUTES));
+		}
 
+		/**
+		 * @param hasRedrivePolicy if the queue has a dead-letter queue
+		 * @param deletionPolicy the deletion policy of the listener method
+		 * @param destinationUrl the url of the queue
+		 * @param maxNumberOfMessages the maximum number of messages per poll of this
+		 * queue
+		 * @param visibilityTimeout the visibility timeout of the messages of this queue
+		 * @param waitTimeOut the wait time of a poll of this queue
+		 * @param batch if the listener method consumes batches of messages
+		 * @param concurrency the maximum number of in-flight messages of this queue or
+		 * {@code null} to use the default of the container
+		 * @param attributeNames the system attributes to receive
+		 * @param messageAttributeNames the message attributes to receive
+		 */
 		public QueueAttributes(boolean hasRedrivePolicy,
 				SqsMessageDeletionPolicy deletionPolicy, String destinationUrl,
 				Integer maxNumberOfMessages, Integer visibilityTimeout,
-				Integer waitTimeOut) {
+				Integer waitTimeOut, boolean batch, Integer concurrency,
+				List<String> attributeNames, List<String> messageAttributeNames) {
 			this.hasRedrivePolicy = hasRedrivePolicy;
 			this.deletionPolicy = deletionPolicy;
 			this.destinationUrl = destinationUrl;
-			this.maxNumberOfMessages = maxNumberOfMessages;
 			this.visibilityTimeout = visibilityTimeout;
-			this.waitTimeOut = waitTimeOut;
+			this.batch = batch;
+			this.concurrency = concurrency;
+			this.receiveMessageRequest = createReceiveMessageRequest(maxNumberOfMessages,
+					waitTimeOut, attributeNames, messageAttributeNames);
 		}
 
 		public boolean hasRedrivePolicy() {
 			return this.hasRedrivePolicy;
 		}
 
-		public ReceiveMessageRequest getReceiveMessageRequest() {
+		private ReceiveMessageRequest createReceiveMessageRequest(
+				Integer maxNumberOfMessages, Integer waitTimeOut,
+				List<String> attributeNames, List<String> messageAttributeNames) {
+			List<String> receivedAttributeNames = new ArrayList<>(attributeNames);
+			// Required to execute the messages of a message group in order
+			if (isFifo() && !receivedAttributeNames.contains(RECEIVING_ATTRIBUTES)
+					&& !receivedAttributeNames.contains(MESSAGE_GROUP_ID_ATTRIBUTE)) {
+				receivedAttributeNames.add(MESSAGE_GROUP_ID_ATTRIBUTE);
+			}
+
 			ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest(
-					this.destinationUrl).withAttributeNames(RECEIVING_ATTRIBUTES)
-							.withMessageAttributeNames(RECEIVING_MESSAGE_ATTRIBUTES);
+					this.destinationUrl).withAttributeNames(receivedAttributeNames)
+							.withMessageAttributeNames(messageAttributeNames);
 
-			if (this.maxNumberOfMessages != null) {
-				receiveMessageRequest.withMaxNumberOfMessages(this.maxNumberOfMessages);
+			if (maxNumberOfMessages != null) {
+				receiveMessageRequest.withMaxNumberOfMessages(maxNumberOfMessages);
 			}
 			else {
 				receiveMessageRequest
@@ -423,17 +610,60 @@ abstract class AbstractMessageListenerContainer
 				receiveMessageRequest.withVisibilityTimeout(this.visibilityTimeout);
 			}
 
-			if (this.waitTimeOut != null) {
-				receiveMessageRequest.setWaitTimeSeconds(this.waitTimeOut);
+			if (waitTimeOut != null) {
+				receiveMessageRequest.setWaitTimeSeconds(waitTimeOut);
 			}
 
 			return receiveMessageRequest;
 		}
 
+		/**
+		 * Returns the receive request of this queue. The request is created once and
+		 * shared by all polls of the queue, so it must not be modified. Use
+		 * {@link ReceiveMessageRequest#clone()} to derive a modified request.
+		 * @return the receive request of this queue
+		 */
+		public ReceiveMessageRequest getReceiveMessageRequest() {
+			return this.receiveMessageRequest;
+		}
+
+		public String getQueueUrl() {
+			return this.destinationUrl;
+		}
+
+		public int getMaxNumberOfMessages() {
+			return this.receiveMessageRequest.getMaxNumberOfMessages();
+		}
+
+		public Integer getVisibilityTimeout() {
+			return this.visibilityTimeout;
+		}
+
 		public SqsMessageDeletionPolicy getDeletionPolicy() {
 			return this.deletionPolicy;
 		}
 
+		public boolean isBatch() {
+			return this.batch;
+		}
+
+		/**
+		 * @return the maximum number of in-flight messages configured for this queue or
+		 * {@code null} if the default of the container applies
+		 */
+		public Integer getConcurrency() {
+			return this.concurrency;
+		}
+
+		/**
+		 * Checks if the queue is a FIFO queue. The type is derived from the queue url,
+		 * as the name of a FIFO queue must end with the {@code .fifo} suffix.
+		 * @return {@code true} if the queue is a FIFO queue
+		 */
+		public boolean isFifo() {
+			return this.destinationUrl.endsWith(FIFO_QUEUE_SUFFIX);
+		}
+
 	}
 
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+/**
+ * Strategy that determines how long a polling thread of the
+ * {@link SimpleMessageListenerContainer} waits before polling again after a receive
+ * request failed. Implementations are shared by all polling threads of a container and
+ * must be thread-safe. The number of consecutive failures is tracked per polling thread
+ * and starts over with the first successful receive request.
+ *
+ * @author agent
+ * @since 3.0
+ * @see ExponentialBackOffPolicy
+ */
+@FunctionalInterface
+public interface BackOffPolicy {
+
+	/**
+	 * Returns the time to wait before the next receive request.
+	 * @param attempt the number of consecutive failed receive requests, starting with
+	 * {@code 1}
+	 * @param exception the exception of the last failed receive request
+	 * @return the number of milliseconds to wait before polling again
+	 */
+	long getBackOffTime(int attempt, Exception exception);
+
+}
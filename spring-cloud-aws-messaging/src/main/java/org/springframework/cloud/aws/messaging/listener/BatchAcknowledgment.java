@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.Collection;
+import java.util.concurrent.Future;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Acknowledgment that can be injected into batch listener methods (see
+ * {@link org.springframework.cloud.aws.messaging.listener.annotation.SqsListener#batch()}).
+ * In addition to acknowledging the complete batch through {@link #acknowledge()}, it
+ * allows to acknowledge only the messages that were processed successfully.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public interface BatchAcknowledgment extends Acknowledgment {
+
+	/**
+	 * Acknowledges the given messages of the batch and triggers their deletion from the
+	 * SQS queue. Messages are identified by their receipt handle header, therefore the
+	 * messages passed to this method must be the ones (or copies with the same headers)
+	 * passed to the listener method.
+	 * @param messages the messages to acknowledge, must be part of the current batch
+	 * @return a {@link Future} as the acknowledgment involves an asynchronous request to
+	 * the AWS API.
+	 */
+	Future<?> acknowledge(Collection<? extends Message<?>> messages);
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryIndex;
+
+/**
+ * Logs the entries of a {@link ChangeMessageVisibilityBatchRequest} whose visibility
+ * could not be changed.
+ *
+ * @author agent
+ * @since 3.0
+ */
+class ChangeMessageVisibilityBatchHandler implements
+		AsyncHandler<ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult> {
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(ChangeMessageVisibilityBatchHandler.class);
+
+	@Override
+	public void onError(Exception exception) {
+		logger.warn("An exception occurred while changing the visibility of a batch of "
+				+ "messages", exception);
+	}
+
+	@Override
+	public void onSuccess(ChangeMessageVisibilityBatchRequest request,
+			ChangeMessageVisibilityBatchResult changeMessageVisibilityBatchResult) {
+		for (BatchResultErrorEntry failedEntry : changeMessageVisibilityBatchResult
+				.getFailed()) {
+			logger.warn("Visibility of '{}' receiptHandle could not be changed: {} ({})",
+					request.getEntries().get(getBatchEntryIndex(failedEntry.getId()))
+							.getReceiptHandle(),
+					failedEntry.getMessage(), failedEntry.getCode());
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandler;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Handles {@link CompletionStage} and reactive (e.g. {@code Mono} or {@code Flux})
+ * return values of listener methods. Reactive return values are subscribed to, so that
+ * the processing they describe is executed. If the message contains an
+ * {@link QueueMessageHandler#ASYNC_RESULT async result} header, the return value is
+ * published through it as a {@link CompletionStage}, which allows a container to
+ * acknowledge the message only once the asynchronous processing has finished.
+ *
+ * @author agent
+ * @since 3.0
+ */
+class CompletionHandlerMethodReturnValueHandler
+		implements HandlerMethodReturnValueHandler {
+
+	private static final boolean REACTOR_PRESENT = ClassUtils.isPresent(
+			"reactor.core.publisher.Flux",
+			CompletionHandlerMethodReturnValueHandler.class.getClassLoader());
+
+	private final ReactiveAdapterRegistry reactiveAdapterRegistry = ReactiveAdapterRegistry
+			.getSharedInstance();
+
+	@Override
+	public boolean supportsReturnType(MethodParameter returnType) {
+		Class<?> type = returnType.getParameterType();
+		return CompletionStage.class.isAssignableFrom(type) || (REACTOR_PRESENT
+				&& this.reactiveAdapterRegistry.getAdapter(type) != null);
+	}
+
+	@Override
+	public void handleReturnValue(Object returnValue, MethodParameter returnType,
+			Message<?> message) throws Exception {
+		CompletionStage<?> completionStage = toCompletionStage(returnValue,
+				returnType);
+		@SuppressWarnings("unchecked")
+		AtomicReference<CompletionStage<?>> asyncResult = message.getHeaders()
+				.get(QueueMessageHandler.ASYNC_RESULT, AtomicReference.class);
+		if (asyncResult != null) {
+			asyncResult.set(completionStage);
+		}
+	}
+
+	private CompletionStage<?> toCompletionStage(Object returnValue,
+			MethodParameter returnType) {
+		if (returnValue == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		if (returnValue instanceof CompletionStage) {
+			return (CompletionStage<?>) returnValue;
+		}
+
+		ReactiveAdapter adapter = this.reactiveAdapterRegistry
+				.getAdapter(returnType.getParameterType(), returnValue);
+		return ReactorDelegate.toCompletableFuture(adapter.toPublisher(returnValue));
+	}
+
+	/**
+	 * Inner class to avoid a hard dependency on Reactor.
+	 */
+	private static final class ReactorDelegate {
+
+		private static CompletableFuture<Void> toCompletableFuture(
+				Publisher<?> publisher) {
+			return Flux.from(publisher).then().toFuture();
+		}
+
+	}
+
+}
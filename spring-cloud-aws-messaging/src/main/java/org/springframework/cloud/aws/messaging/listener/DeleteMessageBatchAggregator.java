@@ -0,0 +1,280 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.AmazonSQSException;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.MAX_BATCH_SIZE;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryId;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryIndex;
+
+/**
+ * Aggregates the deletion of single messages into {@link DeleteMessageBatchRequest}s.
+ * Receipt handles are buffered per queue url and flushed as soon as a buffer holds the
+ * maximum of 10 entries supported by SQS or when the configured maximum delay has
+ * elapsed since the first entry was buffered. The outcome of every single entry is
+ * reported to the {@link AsyncHandler} registered with the entry, so that callers can
+ * use the same callbacks (e.g. {@link DeleteMessageHandler}) as for single deletions.
+ *
+ * @author agent
+ * @since 3.0
+ */
+class DeleteMessageBatchAggregator {
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(DeleteMessageBatchAggregator.class);
+
+	private final AmazonSQSAsync amazonSqs;
+
+	private final TaskScheduler taskScheduler;
+
+	private final long maxDelay;
+
+	private final Map<String, List<PendingDeletion>> pendingDeletionsByQueue = new ConcurrentHashMap<>();
+
+	DeleteMessageBatchAggregator(AmazonSQSAsync amazonSqs, TaskScheduler taskScheduler,
+			long maxDelay) {
+		this.amazonSqs = amazonSqs;
+		this.taskScheduler = taskScheduler;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Buffers the deletion of the message identified by the receipt handle.
+	 * @param queueUrl the url of the queue the message was received from
+	 * @param receiptHandle the receipt handle of the message to delete
+	 * @param asyncHandler the handler notified once the entry has been processed
+	 * @return a {@link Future} that completes when the entry has been processed
+	 */
+	Future<?> deleteMessage(String queueUrl, String receiptHandle,
+			AsyncHandler<DeleteMessageRequest, DeleteMessageResult> asyncHandler) {
+		PendingDeletion pendingDeletion = new PendingDeletion(receiptHandle,
+				asyncHandler);
+		List<PendingDeletion> pendingDeletions = this.pendingDeletionsByQueue
+				.computeIfAbsent(queueUrl, key -> new ArrayList<>(MAX_BATCH_SIZE));
+
+		List<PendingDeletion> batch = null;
+		boolean scheduleFlush = false;
+		synchronized (pendingDeletions) {
+			pendingDeletions.add(pendingDeletion);
+			if (pendingDeletions.size() >= MAX_BATCH_SIZE) {
+				batch = new ArrayList<>(pendingDeletions);
+				pendingDeletions.clear();
+			}
+			else if (pendingDeletions.size() == 1) {
+				scheduleFlush = true;
+			}
+		}
+
+		if (batch != null) {
+			sendBatch(queueUrl, batch);
+		}
+		else if (scheduleFlush) {
+			this.taskScheduler.schedule(() -> flush(queueUrl),
+					new Date(System.currentTimeMillis() + this.maxDelay));
+		}
+
+		return pendingDeletion.getFuture();
+	}
+
+	/**
+	 * Sends all buffered deletions and waits until they are processed.
+	 * @param timeout the maximum number of milliseconds to wait for the pending
+	 * deletions
+	 */
+	void flush(long timeout) {
+		List<Future<?>> futures = new ArrayList<>();
+		for (String queueUrl : this.pendingDeletionsByQueue.keySet()) {
+			Future<?> future = flush(queueUrl);
+			if (future != null) {
+				futures.add(future);
+			}
+		}
+
+		long deadline = System.currentTimeMillis() + timeout;
+		for (Future<?> future : futures) {
+			try {
+				future.get(Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+			catch (ExecutionException | TimeoutException e) {
+				logger.warn("An exception occurred while flushing pending deletions", e);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private Future<?> flush(String queueUrl) {
+		List<PendingDeletion> pendingDeletions = this.pendingDeletionsByQueue
+				.get(queueUrl);
+		if (pendingDeletions == null) {
+			return null;
+		}
+
+		List<PendingDeletion> batch;
+		synchronized (pendingDeletions) {
+			if (pendingDeletions.isEmpty()) {
+				return null;
+			}
+			batch = new ArrayList<>(pendingDeletions);
+			pendingDeletions.clear();
+		}
+		return sendBatch(queueUrl, batch);
+	}
+
+	private Future<?> sendBatch(String queueUrl, List<PendingDeletion> batch) {
+		List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			entries.add(new DeleteMessageBatchRequestEntry(getBatchEntryId(i),
+					batch.get(i).getReceiptHandle()));
+		}
+
+		CompletableFuture<Void> batchFuture = new CompletableFuture<>();
+		try {
+			this.amazonSqs.deleteMessageBatchAsync(
+					new DeleteMessageBatchRequest(queueUrl, entries),
+					new DeleteMessageBatchCallback(queueUrl, batch, batchFuture));
+		}
+		catch (RuntimeException e) {
+			notifyError(batch, e);
+			batchFuture.complete(null);
+		}
+		return batchFuture;
+	}
+
+	private static void notifyError(List<PendingDeletion> batch, Exception exception) {
+		for (PendingDeletion pendingDeletion : batch) {
+			pendingDeletion.onError(exception);
+		}
+	}
+
+	private static final class PendingDeletion {
+
+		private final String receiptHandle;
+
+		private final AsyncHandler<DeleteMessageRequest, DeleteMessageResult> asyncHandler;
+
+		private final CompletableFuture<DeleteMessageResult> future = new CompletableFuture<>();
+
+		private PendingDeletion(String receiptHandle,
+				AsyncHandler<DeleteMessageRequest, DeleteMessageResult> asyncHandler) {
+			this.receiptHandle = receiptHandle;
+			this.asyncHandler = asyncHandler;
+		}
+
+		private String getReceiptHandle() {
+			return this.receiptHandle;
+		}
+
+		private CompletableFuture<DeleteMessageResult> getFuture() {
+			return this.future;
+		}
+
+		private void onSuccess(String queueUrl) {
+			DeleteMessageResult result = new DeleteMessageResult();
+			if (this.asyncHandler != null) {
+				this.asyncHandler.onSuccess(
+						new DeleteMessageRequest(queueUrl, this.receiptHandle), result);
+			}
+			this.future.complete(result);
+		}
+
+		private void onError(Exception exception) {
+			if (this.asyncHandler != null) {
+				this.asyncHandler.onError(exception);
+			}
+			this.future.completeExceptionally(exception);
+		}
+
+	}
+
+	private static final class DeleteMessageBatchCallback
+			implements AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> {
+
+		private final String queueUrl;
+
+		private final List<PendingDeletion> batch;
+
+		private final CompletableFuture<Void> batchFuture;
+
+		private DeleteMessageBatchCallback(String queueUrl, List<PendingDeletion> batch,
+				CompletableFuture<Void> batchFuture) {
+			this.queueUrl = queueUrl;
+			this.batch = batch;
+			this.batchFuture = batchFuture;
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			notifyError(this.batch, exception);
+			this.batchFuture.complete(null);
+		}
+
+		@Override
+		public void onSuccess(DeleteMessageBatchRequest request,
+				DeleteMessageBatchResult result) {
+			for (DeleteMessageBatchResultEntry successfulEntry : result
+					.getSuccessful()) {
+				getPendingDeletion(successfulEntry.getId()).onSuccess(this.queueUrl);
+			}
+			for (BatchResultErrorEntry failedEntry : result.getFailed()) {
+				AmazonSQSException exception = new AmazonSQSException(
+						failedEntry.getMessage());
+				exception.setErrorCode(failedEntry.getCode());
+				exception.setErrorType(Boolean.TRUE.equals(failedEntry.getSenderFault())
+						? AmazonServiceException.ErrorType.Client
+						: AmazonServiceException.ErrorType.Service);
+				getPendingDeletion(failedEntry.getId()).onError(exception);
+			}
+			this.batchFuture.complete(null);
+		}
+
+		private PendingDeletion getPendingDeletion(String entryId) {
+			return this.batch.get(getBatchEntryIndex(entryId));
+		}
+
+	}
+
+}
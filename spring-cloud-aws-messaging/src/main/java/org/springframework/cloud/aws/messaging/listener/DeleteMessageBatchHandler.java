@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batch counterpart of the {@link DeleteMessageHandler} that logs the entries of a
+ * {@link DeleteMessageBatchRequest} that could not be deleted.
+ *
+ * @author agent
+ * @since 3.0
+ */
+class DeleteMessageBatchHandler
+		implements AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> {
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(DeleteMessageBatchHandler.class);
+
+	private final int messages;
+
+	private final IntConsumer failureCallback;
+
+	private final Consumer<String> successCallback;
+
+	DeleteMessageBatchHandler() {
+		this(0, null);
+	}
+
+	/**
+	 * @param messages the number of messages in the batch request
+	 * @param failureCallback called with the number of messages that could not be
+	 * deleted, may be {@code null}
+	 */
+	DeleteMessageBatchHandler(int messages, IntConsumer failureCallback) {
+		this(messages, failureCallback, null);
+	}
+
+	/**
+	 * @param messages the number of messages in the batch request
+	 * @param failureCallback called with the number of messages that could not be
+	 * deleted, may be {@code null}
+	 * @param successCallback called with the receipt handle of every deleted message,
+	 * may be {@code null}
+	 */
+	DeleteMessageBatchHandler(int messages, IntConsumer failureCallback,
+			Consumer<String> successCallback) {
+		this.messages = messages;
+		this.failureCallback = failureCallback;
+		this.successCallback = successCallback;
+	}
+
+	@Override
+	public void onError(Exception exception) {
+		logger.warn("An exception occurred while deleting a batch of messages",
+				exception);
+		notifyFailure(this.messages);
+	}
+
+	@Override
+	public void onSuccess(DeleteMessageBatchRequest request,
+			DeleteMessageBatchResult deleteMessageBatchResult) {
+		for (BatchResultErrorEntry failedEntry : deleteMessageBatchResult.getFailed()) {
+			logger.warn("'{}' receiptHandle could not be deleted: {} ({})",
+					getReceiptHandle(request, failedEntry.getId()),
+					failedEntry.getMessage(), failedEntry.getCode());
+		}
+		if (!deleteMessageBatchResult.getFailed().isEmpty()) {
+			notifyFailure(deleteMessageBatchResult.getFailed().size());
+		}
+		logger.trace("{} receiptHandles are deleted successfully",
+				deleteMessageBatchResult.getSuccessful().size());
+		if (this.successCallback != null) {
+			for (DeleteMessageBatchResultEntry successfulEntry : deleteMessageBatchResult
+					.getSuccessful()) {
+				this.successCallback
+						.accept(getReceiptHandle(request, successfulEntry.getId()));
+			}
+		}
+	}
+
+	private void notifyFailure(int failedMessages) {
+		if (this.failureCallback != null && failedMessages > 0) {
+			this.failureCallback.accept(failedMessages);
+		}
+	}
+
+	static String getReceiptHandle(DeleteMessageBatchRequest request, String entryId) {
+		for (DeleteMessageBatchRequestEntry entry : request.getEntries()) {
+			if (entry.getId().equals(entryId)) {
+				return entry.getReceiptHandle();
+			}
+		}
+		return null;
+	}
+
+}
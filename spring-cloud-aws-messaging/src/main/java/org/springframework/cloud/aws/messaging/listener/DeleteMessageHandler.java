@@ -35,14 +35,44 @@ class DeleteMessageHandler
 
 	private final String receiptHandle;
 
+	private final Runnable failureCallback;
+
+	private final Runnable successCallback;
+
 	DeleteMessageHandler(String receiptHandle) {
+		this(receiptHandle, null);
+	}
+
+	/**
+	 * @param receiptHandle the receipt handle of the message to delete
+	 * @param failureCallback called if the message could not be deleted, may be
+	 * {@code null}
+	 */
+	DeleteMessageHandler(String receiptHandle, Runnable failureCallback) {
+		this(receiptHandle, failureCallback, null);
+	}
+
+	/**
+	 * @param receiptHandle the receipt handle of the message to delete
+	 * @param failureCallback called if the message could not be deleted, may be
+	 * {@code null}
+	 * @param successCallback called once the message has been deleted, may be
+	 * {@code null}
+	 */
+	DeleteMessageHandler(String receiptHandle, Runnable failureCallback,
+			Runnable successCallback) {
 		this.receiptHandle = receiptHandle;
+		this.failureCallback = failureCallback;
+		this.successCallback = successCallback;
 	}
 
 	@Override
 	public void onError(Exception exception) {
 		logger.warn("An exception occurred while deleting '{}' receiptHandle",
 				receiptHandle, exception);
+		if (this.failureCallback != null) {
+			this.failureCallback.run();
+		}
 	}
 
 	@Override
@@ -50,6 +80,9 @@ class DeleteMessageHandler
 			DeleteMessageResult deleteMessageResult) {
 		logger.trace("'{}' receiptHandle is deleted successfully",
 				request.getReceiptHandle());
+		if (this.successCallback != null) {
+			this.successCallback.run();
+		}
 	}
 
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.retry.RetryUtils;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link BackOffPolicy} that doubles the back off time with every consecutive failure,
+ * up to a maximum, and waits a random time between zero and that back off time ("full
+ * jitter"), so that the polling threads of several applications do not retry in
+ * lockstep. Throttling errors reported by SQS start with a longer initial interval than
+ * other errors (e.g. a connection timeout), which are usually short-lived.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class ExponentialBackOffPolicy implements BackOffPolicy {
+
+	private static final double MULTIPLIER = 2;
+
+	private long initialInterval = 100;
+
+	private long throttlingInitialInterval = 1000;
+
+	private long maxInterval = 10000;
+
+	/**
+	 * @return The back off time in milliseconds after the first failure
+	 */
+	public long getInitialInterval() {
+		return this.initialInterval;
+	}
+
+	/**
+	 * The upper bound of the random back off time in milliseconds after the first
+	 * failure that is not caused by throttling. Default is 100 milliseconds.
+	 * @param initialInterval in milliseconds
+	 */
+	public void setInitialInterval(long initialInterval) {
+		Assert.isTrue(initialInterval >= 0, "initialInterval must not be negative");
+		this.initialInterval = initialInterval;
+	}
+
+	/**
+	 * @return The back off time in milliseconds after the first throttling error
+	 */
+	public long getThrottlingInitialInterval() {
+		return this.throttlingInitialInterval;
+	}
+
+	/**
+	 * The upper bound of the random back off time in milliseconds after the first
+	 * failure caused by throttling. Default is 1000 milliseconds.
+	 * @param throttlingInitialInterval in milliseconds
+	 */
+	public void setThrottlingInitialInterval(long throttlingInitialInterval) {
+		Assert.isTrue(throttlingInitialInterval >= 0,
+				"throttlingInitialInterval must not be negative");
+		this.throttlingInitialInterval = throttlingInitialInterval;
+	}
+
+	/**
+	 * @return The maximum back off time in milliseconds
+	 */
+	public long getMaxInterval() {
+		return this.maxInterval;
+	}
+
+	/**
+	 * The maximum back off time in milliseconds, regardless of the number of consecutive
+	 * failures. Default is 10000 milliseconds.
+	 * @param maxInterval in milliseconds
+	 */
+	public void setMaxInterval(long maxInterval) {
+		Assert.isTrue(maxInterval >= 0, "maxInterval must not be negative");
+		this.maxInterval = maxInterval;
+	}
+
+	@Override
+	public long getBackOffTime(int attempt, Exception exception) {
+		long ceiling = getBackOffCeiling(attempt, exception);
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	/**
+	 * Returns the upper bound of the random back off time.
+	 * @param attempt the number of consecutive failed receive requests
+	 * @param exception the exception of the last failed receive request
+	 * @return the maximum number of milliseconds to wait before polling again
+	 */
+	protected long getBackOffCeiling(int attempt, Exception exception) {
+		long interval = isThrottlingException(exception)
+				? this.throttlingInitialInterval : this.initialInterval;
+		double ceiling = interval * Math.pow(MULTIPLIER, Math.max(attempt - 1, 0));
+		return (long) Math.min(ceiling, this.maxInterval);
+	}
+
+	/**
+	 * Determines if the receive request failed because it has been throttled by SQS.
+	 * @param exception the exception of the failed receive request
+	 * @return {@code true} if the exception is a throttling error
+	 */
+	protected boolean isThrottlingException(Exception exception) {
+		return exception instanceof SdkBaseException
+				&& RetryUtils.isThrottlingException((SdkBaseException) exception);
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.handler.DestinationPatternsMessageCondition;
+
+/**
+ * {@link MessageHeaders} view that adds the
+ * {@link DestinationPatternsMessageCondition#LOOKUP_DESTINATION_HEADER lookup
+ * destination} to the headers of a received message. Headers that are looked up by name
+ * are delegated to the headers of the message, which are only copied once all headers
+ * are accessed (e.g. by iterating over them).
+ *
+ * @author agent
+ * @since 3.0
+ */
+final class LookupDestinationMessageHeaders extends MessageHeaders {
+
+	private static final String LOOKUP_DESTINATION_HEADER = DestinationPatternsMessageCondition.LOOKUP_DESTINATION_HEADER;
+
+	private final transient MessageHeaders headers;
+
+	private final transient String lookupDestination;
+
+	private transient volatile Map<String, Object> rawHeaders;
+
+	LookupDestinationMessageHeaders(MessageHeaders headers, String lookupDestination) {
+		super(Collections.emptyMap(), ID_VALUE_NONE, -1L);
+		this.headers = headers;
+		this.lookupDestination = lookupDestination;
+	}
+
+	@Override
+	protected Map<String, Object> getRawHeaders() {
+		Map<String, Object> rawHeaders = this.rawHeaders;
+		if (rawHeaders == null) {
+			rawHeaders = new HashMap<>(this.headers);
+			rawHeaders.put(LOOKUP_DESTINATION_HEADER, this.lookupDestination);
+			this.rawHeaders = rawHeaders;
+		}
+		return rawHeaders;
+	}
+
+	@Override
+	public Object get(Object key) {
+		return LOOKUP_DESTINATION_HEADER.equals(key) ? this.lookupDestination
+				: this.headers.get(key);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		Object value = get(key);
+		if (value == null) {
+			return null;
+		}
+		if (!type.isAssignableFrom(value.getClass())) {
+			throw new IllegalArgumentException("Incorrect type specified for header '"
+					+ key + "'. Expected [" + type + "] but actual type is ["
+					+ value.getClass() + "]");
+		}
+		return (T) value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return LOOKUP_DESTINATION_HEADER.equals(key) || this.headers.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return getRawHeaders().containsValue(value);
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return Collections.unmodifiableMap(getRawHeaders()).entrySet();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(getRawHeaders().keySet());
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return Collections.unmodifiableCollection(getRawHeaders().values());
+	}
+
+	@Override
+	public int size() {
+		return getRawHeaders().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return this == other || (other instanceof MessageHeaders && getRawHeaders()
+				.entrySet().equals(((MessageHeaders) other).entrySet()));
+	}
+
+	@Override
+	public int hashCode() {
+		return getRawHeaders().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return getRawHeaders().toString();
+	}
+
+	/**
+	 * Serializes the copied headers, as the headers of the message might not be
+	 * serializable.
+	 */
+	private Object writeReplace() {
+		UUID id = getId();
+		Long timestamp = getTimestamp();
+		return new CopiedMessageHeaders(getRawHeaders(), id != null ? id : ID_VALUE_NONE,
+				timestamp != null ? timestamp : -1L);
+	}
+
+	/**
+	 * Keeps the id and the timestamp of the copied headers, which the public
+	 * constructor of {@link MessageHeaders} would replace.
+	 */
+	private static final class CopiedMessageHeaders extends MessageHeaders {
+
+		private CopiedMessageHeaders(Map<String, Object> headers, UUID id,
+				Long timestamp) {
+			super(headers, id, timestamp);
+		}
+
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+/**
+ * Callback notified by the message listener containers and the
+ * {@link QueueMessageHandler} about polling, execution and deletion of messages, so
+ * that these can be recorded as metrics. All events carry the logical queue name as
+ * defined on the listener method. Implementations must be thread-safe and should not
+ * block, as they are called on the polling and execution threads. All methods do
+ * nothing by default.
+ *
+ * @author agent
+ * @since 3.0
+ * @see MicrometerMessageListenerMetrics
+ */
+public interface MessageListenerMetrics {
+
+	/**
+	 * Instance that does not record anything, used if no metrics are configured.
+	 */
+	MessageListenerMetrics NONE = new MessageListenerMetrics() {
+	};
+
+	/**
+	 * Called once per queue when the container is initialized, so that the statistics of
+	 * the polling threads can be exposed.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param pollerStatistics the live statistics of the polling threads of the queue
+	 */
+	default void bindPollerStatistics(String logicalQueueName,
+			PollerStatistics pollerStatistics) {
+	}
+
+	/**
+	 * Called after a receive request returned.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param durationNanos the duration of the receive request in nanoseconds
+	 * @param receivedMessages the number of received messages
+	 * @param maxNumberOfMessages the maximum number of messages that have been requested
+	 */
+	default void recordReceive(String logicalQueueName, long durationNanos,
+			int receivedMessages, int maxNumberOfMessages) {
+	}
+
+	/**
+	 * Called after a receive request failed.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param durationNanos the duration of the receive request in nanoseconds
+	 * @param exception the exception of the receive request
+	 */
+	default void recordReceiveFailure(String logicalQueueName, long durationNanos,
+			Exception exception) {
+	}
+
+	/**
+	 * Called if the task executor rejected a polling or execution task.
+	 * @param logicalQueueName the name as defined on the listener method
+	 */
+	default void recordRejectedExecution(String logicalQueueName) {
+	}
+
+	/**
+	 * Called before the execution of received messages starts.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param messages the number of messages whose execution starts
+	 */
+	default void executionStarted(String logicalQueueName, int messages) {
+	}
+
+	/**
+	 * Called after the execution of received messages finished.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param messages the number of messages whose execution finished
+	 */
+	default void executionFinished(String logicalQueueName, int messages) {
+	}
+
+	/**
+	 * Called after the invocation of a listener method.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param listenerMethod the name of the listener method, including its class
+	 * @param durationNanos the duration of the invocation in nanoseconds
+	 * @param exception the exception thrown by the invocation or {@code null} if the
+	 * listener method returned normally
+	 */
+	default void recordListenerInvocation(String logicalQueueName,
+			String listenerMethod, long durationNanos, Throwable exception) {
+	}
+
+	/**
+	 * Called if messages could not be deleted after their execution.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @param messages the number of messages that could not be deleted
+	 */
+	default void recordDeletionFailure(String logicalQueueName, int messages) {
+	}
+
+}
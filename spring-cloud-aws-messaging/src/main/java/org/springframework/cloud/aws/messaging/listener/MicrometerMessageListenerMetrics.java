@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link MessageListenerMetrics} that records the events as Micrometer meters tagged by
+ * logical queue name ({@code queue}) and, for listener invocations, by listener method
+ * ({@code method}):
+ * <ul>
+ * <li>{@code sqs.listener.receive}: timer of the receive requests, tagged by
+ * {@code outcome} ({@code success} or {@code failure}) and {@code fill} ({@code empty},
+ * {@code partial} or {@code full})</li>
+ * <li>{@code sqs.listener.receive.messages}: distribution of the number of messages per
+ * receive request</li>
+ * <li>{@code sqs.listener.inflight}: gauge of the messages in execution</li>
+ * <li>{@code sqs.listener.invocation}: timer of the listener method invocations, tagged
+ * by {@code exception}</li>
+ * <li>{@code sqs.listener.executor.rejected}: counter of rejected executor tasks</li>
+ * <li>{@code sqs.listener.delete.failures}: counter of messages that could not be
+ * deleted</li>
+ * <li>{@code sqs.listener.pollers.active}, {@code sqs.listener.pollers.scale.ups} and
+ * {@code sqs.listener.pollers.scale.downs}: the {@link PollerStatistics} of the
+ * queue</li>
+ * </ul>
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class MicrometerMessageListenerMetrics implements MessageListenerMetrics {
+
+	private static final String QUEUE_TAG = "queue";
+
+	private static final String NONE = "none";
+
+	private final MeterRegistry meterRegistry;
+
+	private final Map<String, AtomicInteger> inflightMessagesByQueue = new ConcurrentHashMap<>();
+
+	public MicrometerMessageListenerMetrics(MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		this.meterRegistry = meterRegistry;
+	}
+
+	private static String getFill(int receivedMessages, int maxNumberOfMessages) {
+		if (receivedMessages == 0) {
+			return "empty";
+		}
+		return receivedMessages < maxNumberOfMessages ? "partial" : "full";
+	}
+
+	@Override
+	public void bindPollerStatistics(String logicalQueueName,
+			PollerStatistics pollerStatistics) {
+		Gauge.builder("sqs.listener.pollers.active", pollerStatistics,
+				PollerStatistics::getActivePollers)
+				.description("Number of threads polling the queue")
+				.tag(QUEUE_TAG, logicalQueueName).register(this.meterRegistry);
+		FunctionCounter
+				.builder("sqs.listener.pollers.scale.ups", pollerStatistics,
+						PollerStatistics::getScaleUps)
+				.description("Number of polling threads added after full receives")
+				.tag(QUEUE_TAG, logicalQueueName).register(this.meterRegistry);
+		FunctionCounter
+				.builder("sqs.listener.pollers.scale.downs", pollerStatistics,
+						PollerStatistics::getScaleDowns)
+				.description("Number of polling threads removed after empty receives")
+				.tag(QUEUE_TAG, logicalQueueName).register(this.meterRegistry);
+	}
+
+	@Override
+	public void recordReceive(String logicalQueueName, long durationNanos,
+			int receivedMessages, int maxNumberOfMessages) {
+		Timer.builder("sqs.listener.receive")
+				.description("Duration of the receive requests")
+				.tags(QUEUE_TAG, logicalQueueName, "outcome", "success", "fill",
+						getFill(receivedMessages, maxNumberOfMessages))
+				.register(this.meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("sqs.listener.receive.messages")
+				.description("Number of messages per receive request")
+				.tag(QUEUE_TAG, logicalQueueName).register(this.meterRegistry)
+				.record(receivedMessages);
+	}
+
+	@Override
+	public void recordReceiveFailure(String logicalQueueName, long durationNanos,
+			Exception exception) {
+		Timer.builder("sqs.listener.receive")
+				.description("Duration of the receive requests")
+				.tags(QUEUE_TAG, logicalQueueName, "outcome", "failure", "fill", NONE)
+				.register(this.meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordRejectedExecution(String logicalQueueName) {
+		Counter.builder("sqs.listener.executor.rejected")
+				.description("Number of tasks rejected by the task executor")
+				.tag(QUEUE_TAG, logicalQueueName).register(this.meterRegistry)
+				.increment();
+	}
+
+	@Override
+	public void executionStarted(String logicalQueueName, int messages) {
+		getInflightMessages(logicalQueueName).addAndGet(messages);
+	}
+
+	@Override
+	public void executionFinished(String logicalQueueName, int messages) {
+		getInflightMessages(logicalQueueName).addAndGet(-messages);
+	}
+
+	private AtomicInteger getInflightMessages(String logicalQueueName) {
+		return this.inflightMessagesByQueue.computeIfAbsent(logicalQueueName,
+				queue -> this.meterRegistry.gauge("sqs.listener.inflight",
+						Tags.of(QUEUE_TAG, queue),
+						new AtomicInteger()));
+	}
+
+	@Override
+	public void recordListenerInvocation(String logicalQueueName,
+			String listenerMethod, long durationNanos, Throwable exception) {
+		Timer.builder("sqs.listener.invocation")
+				.description("Duration of the listener method invocations")
+				.tags(QUEUE_TAG, logicalQueueName, "method", listenerMethod,
+						"exception",
+						exception != null ? exception.getClass().getSimpleName() : NONE)
+				.register(this.meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordDeletionFailure(String logicalQueueName, int messages) {
+		Counter.builder("sqs.listener.delete.failures")
+				.description("Number of messages that could not be deleted")
+				.tag(QUEUE_TAG, logicalQueueName).register(this.meterRegistry)
+				.increment(messages);
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the polling threads of one queue of a
+ * {@link SimpleMessageListenerContainer}, including the scaling decisions taken by the
+ * adaptive polling (see
+ * {@link SimpleMessageListenerContainer#setMaxPollersPerQueue(Integer)}), or about the
+ * polling of one queue of a {@link ReactiveMessageListenerContainer}. All values are
+ * updated concurrently by the polling threads and are meant to be exposed as metrics.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public final class PollerStatistics {
+
+	private final AtomicInteger activePollers = new AtomicInteger();
+
+	private final AtomicLong fullReceives = new AtomicLong();
+
+	private final AtomicLong emptyReceives = new AtomicLong();
+
+	private final AtomicLong scaleUps = new AtomicLong();
+
+	private final AtomicLong scaleDowns = new AtomicLong();
+
+	PollerStatistics() {
+	}
+
+	/**
+	 * @return the number of polling threads currently polling the queue
+	 */
+	public int getActivePollers() {
+		return this.activePollers.get();
+	}
+
+	/**
+	 * @return the number of receive requests that returned the maximum number of
+	 * messages
+	 */
+	public long getFullReceives() {
+		return this.fullReceives.get();
+	}
+
+	/**
+	 * @return the number of receive requests that returned no message
+	 */
+	public long getEmptyReceives() {
+		return this.emptyReceives.get();
+	}
+
+	/**
+	 * @return the number of polling threads that have been added because of full
+	 * receives
+	 */
+	public long getScaleUps() {
+		return this.scaleUps.get();
+	}
+
+	/**
+	 * @return the number of polling threads that have been removed because of empty
+	 * receives
+	 */
+	public long getScaleDowns() {
+		return this.scaleDowns.get();
+	}
+
+	void recordReceive(int receivedMessages, int maxNumberOfMessages) {
+		if (receivedMessages == 0) {
+			this.emptyReceives.incrementAndGet();
+		}
+		else if (receivedMessages >= maxNumberOfMessages) {
+			this.fullReceives.incrementAndGet();
+		}
+	}
+
+	void pollerStarted() {
+		this.activePollers.incrementAndGet();
+	}
+
+	void pollerStopped() {
+		this.activePollers.decrementAndGet();
+	}
+
+	/**
+	 * Reserves an additional poller if less than the maximum number of pollers are
+	 * active. The caller must either confirm the reservation with {@link #scaledUp()}
+	 * once the poller has been started or release it with {@link #pollerStopped()}.
+	 * @param maxPollers the maximum number of pollers of the queue
+	 * @return {@code true} if the caller must start an additional poller
+	 */
+	boolean tryReservePoller(int maxPollers) {
+		int pollers;
+		do {
+			pollers = this.activePollers.get();
+			if (pollers >= maxPollers) {
+				return false;
+			}
+		}
+		while (!this.activePollers.compareAndSet(pollers, pollers + 1));
+		return true;
+	}
+
+	void scaledUp() {
+		this.scaleUps.incrementAndGet();
+	}
+
+	void scaleDown() {
+		this.activePollers.decrementAndGet();
+		this.scaleDowns.incrementAndGet();
+	}
+
+}
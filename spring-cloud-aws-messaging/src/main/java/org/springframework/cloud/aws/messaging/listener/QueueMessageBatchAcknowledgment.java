@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+
+import org.springframework.cloud.aws.messaging.core.SqsMessageHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryId;
+
+/**
+ * {@link BatchAcknowledgment} implementation that deletes the acknowledged messages with
+ * one {@link DeleteMessageBatchRequest}.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class QueueMessageBatchAcknowledgment implements BatchAcknowledgment {
+
+	private final AmazonSQSAsync amazonSqsAsync;
+
+	private final String queueUrl;
+
+	private final List<String> receiptHandles;
+
+	public QueueMessageBatchAcknowledgment(AmazonSQSAsync amazonSqsAsync,
+			String queueUrl, List<String> receiptHandles) {
+		this.amazonSqsAsync = amazonSqsAsync;
+		this.queueUrl = queueUrl;
+		this.receiptHandles = receiptHandles;
+	}
+
+	@Override
+	public Future<?> acknowledge() {
+		return deleteMessages(this.receiptHandles);
+	}
+
+	@Override
+	public Future<?> acknowledge(Collection<? extends Message<?>> messages) {
+		Set<String> acknowledgedReceiptHandles = new LinkedHashSet<>(messages.size());
+		for (Message<?> message : messages) {
+			String receiptHandle = message.getHeaders()
+					.get(SqsMessageHeaders.SQS_RECEIPT_HANDLE, String.class);
+			Assert.isTrue(this.receiptHandles.contains(receiptHandle),
+					"Message with receipt handle '" + receiptHandle
+							+ "' is not part of this batch");
+			acknowledgedReceiptHandles.add(receiptHandle);
+		}
+		return deleteMessages(acknowledgedReceiptHandles);
+	}
+
+	/**
+	 * Deletes every message once, as SQS rejects batch requests without entries or with
+	 * duplicate entries.
+	 */
+	private Future<?> deleteMessages(Collection<String> receiptHandles) {
+		if (receiptHandles.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return this.amazonSqsAsync.deleteMessageBatchAsync(
+				createDeleteMessageBatchRequest(this.queueUrl,
+						new ArrayList<>(new LinkedHashSet<>(receiptHandles))),
+				new DeleteMessageBatchHandler());
+	}
+
+	static DeleteMessageBatchRequest createDeleteMessageBatchRequest(String queueUrl,
+			List<String> receiptHandles) {
+		List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(
+				receiptHandles.size());
+		for (int i = 0; i < receiptHandles.size(); i++) {
+			entries.add(new DeleteMessageBatchRequestEntry(getBatchEntryId(i),
+					receiptHandles.get(i)));
+		}
+		return new DeleteMessageBatchRequest(queueUrl, entries);
+	}
+
+}
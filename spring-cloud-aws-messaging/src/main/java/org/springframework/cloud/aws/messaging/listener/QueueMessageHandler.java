@@ -21,8 +21,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -31,19 +33,27 @@ import org.springframework.beans.factory.config.BeanExpressionResolver;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
 import org.springframework.cloud.aws.messaging.listener.support.AcknowledgmentHandlerMethodArgumentResolver;
+import org.springframework.cloud.aws.messaging.listener.support.BatchPayloadHandlerMethodArgumentResolver;
+import org.springframework.cloud.aws.messaging.listener.support.LargePayloadHandlerMethodArgumentResolver;
 import org.springframework.cloud.aws.messaging.listener.support.VisibilityHandlerMethodArgumentResolver;
 import org.springframework.cloud.aws.messaging.support.NotificationMessageArgumentResolver;
 import org.springframework.cloud.aws.messaging.support.NotificationSubjectArgumentResolver;
 import org.springframework.cloud.aws.messaging.support.SqsHeadersMethodArgumentResolver;
+import org.springframework.cloud.aws.messaging.support.converter.CompressingMessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.JacksonBinaryMessageConverter;
 import org.springframework.cloud.aws.messaging.support.converter.ObjectMessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.PayloadCompression;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.converter.CompositeMessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.converter.SimpleMessageConverter;
 import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.handler.DestinationPatternsMessageCondition;
 import org.springframework.messaging.handler.HandlerMethod;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.support.AnnotationExceptionHandlerMethodResolver;
@@ -52,14 +62,22 @@ import org.springframework.messaging.handler.annotation.support.MessageMethodArg
 import org.springframework.messaging.handler.annotation.support.PayloadArgumentResolver;
 import org.springframework.messaging.handler.invocation.AbstractExceptionHandlerMethodResolver;
 import org.springframework.messaging.handler.invocation.AbstractMethodMessageHandler;
+import org.springframework.messaging.handler.invocation.AsyncHandlerMethodReturnValueHandler;
 import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolverComposite;
 import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandler;
+import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandlerComposite;
 import org.springframework.messaging.handler.invocation.InvocableHandlerMethod;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.util.comparator.ComparableComparator;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.MAX_BATCH_SIZE;
+
 /**
  * @author Agim Emruli
  * @author Alain Sahli
@@ -74,11 +92,27 @@ public class QueueMessageHandler
 	static final String LOGICAL_RESOURCE_ID = "LogicalResourceId";
 	static final String ACKNOWLEDGMENT = "Acknowledgment";
 	static final String VISIBILITY = "Visibility";
+	static final String ASYNC_RESULT = "AsyncResult";
+
+	private static final int MAX_WAIT_TIME_SECONDS = 20;
+
+	private static final int MAX_VISIBILITY_TIMEOUT_SECONDS = 12 * 60 * 60;
 
 	private final SqsMessageDeletionPolicy sqsMessageDeletionPolicy;
 
 	private final List<MessageConverter> messageConverters;
 
+	private MessageListenerMetrics messageListenerMetrics = MessageListenerMetrics.NONE;
+
+	private PayloadCompression payloadCompression;
+
+	private final HandlerMethodArgumentResolverComposite argumentResolvers = new HandlerMethodArgumentResolverComposite();
+
+	private final HandlerMethodReturnValueHandlerComposite returnValueHandlers = new HandlerMethodReturnValueHandlerComposite();
+
+	private Map<String, DirectHandlerMethod> directHandlerMethods = Collections
+			.emptyMap();
+
 	public QueueMessageHandler(List<MessageConverter> messageConverters,
 			SqsMessageDeletionPolicy sqsMessageDeletionPolicy) {
 		this.messageConverters = messageConverters;
@@ -94,6 +128,79 @@ public class QueueMessageHandler
 		return new String[] { valueToWrap.toString() };
 	}
 
+	private static String getListenerMethodName(HandlerMethod handlerMethod) {
+		return handlerMethod.getBeanType().getSimpleName() + "."
+				+ handlerMethod.getMethod().getName();
+	}
+
+	/**
+	 * Configures the {@link MessageListenerMetrics} notified about every invocation of a
+	 * listener method. For asynchronous listener methods only the invocation itself is
+	 * timed, not the completion of the returned result.
+	 * @param messageListenerMetrics the metrics to record
+	 */
+	public void setMessageListenerMetrics(MessageListenerMetrics messageListenerMetrics) {
+		Assert.notNull(messageListenerMetrics, "messageListenerMetrics must not be null");
+		this.messageListenerMetrics = messageListenerMetrics;
+	}
+
+	/**
+	 * Enables the decompression of received payloads that have been compressed by a
+	 * {@link CompressingMessageConverter}, with any supported content encoding. Must be
+	 * set before the handler is initialized. Default is {@code null} (compressed
+	 * payloads are passed as received).
+	 * @param payloadCompression the compression algorithm
+	 */
+	public void setPayloadCompression(PayloadCompression payloadCompression) {
+		this.payloadCompression = payloadCompression;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		this.argumentResolvers.clear();
+		this.argumentResolvers.addResolvers(getArgumentResolvers());
+		this.returnValueHandlers.clear();
+		this.returnValueHandlers.addHandlers(getReturnValueHandlers());
+		this.directHandlerMethods = createDirectHandlerMethods();
+	}
+
+	/**
+	 * Precomputes the handler method of every destination that is mapped to exactly one
+	 * handler method, which is the case for all destinations unless several listener
+	 * methods listen to the same queue. Asynchronous return value handlers are not
+	 * supported by the direct invocation, if any is registered all messages are
+	 * dispatched through the regular mapping lookup.
+	 */
+	private Map<String, DirectHandlerMethod> createDirectHandlerMethods() {
+		for (HandlerMethodReturnValueHandler handler : getReturnValueHandlers()) {
+			if (handler instanceof AsyncHandlerMethodReturnValueHandler) {
+				return Collections.emptyMap();
+			}
+		}
+
+		Map<String, List<HandlerMethod>> handlerMethodsByDestination = new HashMap<>();
+		for (Map.Entry<MappingInformation, HandlerMethod> handlerMethod : getHandlerMethods()
+				.entrySet()) {
+			for (String destination : getDirectLookupDestinations(
+					handlerMethod.getKey())) {
+				handlerMethodsByDestination
+						.computeIfAbsent(destination, key -> new ArrayList<>())
+						.add(handlerMethod.getValue());
+			}
+		}
+
+		Map<String, DirectHandlerMethod> directHandlerMethods = new HashMap<>();
+		for (Map.Entry<String, List<HandlerMethod>> destination : handlerMethodsByDestination
+				.entrySet()) {
+			if (destination.getValue().size() == 1) {
+				directHandlerMethods.put(destination.getKey(),
+						new DirectHandlerMethod(destination.getValue().get(0)));
+			}
+		}
+		return directHandlerMethods;
+	}
+
 	@Override
 	protected List<? extends HandlerMethodArgumentResolver> initArgumentResolvers() {
 		List<HandlerMethodArgumentResolver> resolvers = new ArrayList<>(
@@ -106,20 +213,30 @@ public class QueueMessageHandler
 		resolvers.add(new AcknowledgmentHandlerMethodArgumentResolver(ACKNOWLEDGMENT));
 		resolvers.add(new VisibilityHandlerMethodArgumentResolver(VISIBILITY));
 
-		CompositeMessageConverter compositeMessageConverter = createPayloadArgumentCompositeConverter();
+		CompressingMessageConverter compositeMessageConverter = createPayloadArgumentCompositeConverter();
 		resolvers.add(new NotificationMessageArgumentResolver(compositeMessageConverter));
-		resolvers.add(new MessageMethodArgumentResolver(
-				this.messageConverters.isEmpty() ? new StringMessageConverter()
-						: new CompositeMessageConverter(this.messageConverters)));
-		resolvers.add(new PayloadArgumentResolver(compositeMessageConverter,
-				new NoOpValidator()));
+		resolvers.add(new LargePayloadHandlerMethodArgumentResolver(
+				new MessageMethodArgumentResolver(this.messageConverters.isEmpty()
+						? new StringMessageConverter()
+						: new CompositeMessageConverter(this.messageConverters)),
+				compositeMessageConverter));
+		HandlerMethodArgumentResolver payloadArgumentResolver = new LargePayloadHandlerMethodArgumentResolver(
+				new PayloadArgumentResolver(compositeMessageConverter,
+						new NoOpValidator()),
+				compositeMessageConverter);
+		resolvers.add(new BatchPayloadHandlerMethodArgumentResolver(
+				compositeMessageConverter, payloadArgumentResolver));
+		resolvers.add(payloadArgumentResolver);
 
 		return resolvers;
 	}
 
 	@Override
 	protected List<? extends HandlerMethodReturnValueHandler> initReturnValueHandlers() {
-		return new ArrayList<>(this.getCustomReturnValueHandlers());
+		List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(
+				this.getCustomReturnValueHandlers());
+		handlers.add(new CompletionHandlerMethodReturnValueHandler());
+		return handlers;
 	}
 
 	@Override
@@ -143,9 +260,25 @@ public class QueueMessageHandler
 						+ method.getDeclaringClass().getName()
 						+ "' has deletion policy 'NEVER' but does not have a parameter of type Acknowledgment.");
 			}
+			Integer maxMessagesPerPoll = resolveInteger(method, "maxMessagesPerPoll",
+					sqsListenerAnnotation.maxMessagesPerPoll(), 1, MAX_BATCH_SIZE);
 			return new MappingInformation(
 					resolveDestinationNames(sqsListenerAnnotation.value()),
-					tempDeletionPolicy);
+					tempDeletionPolicy, sqsListenerAnnotation.batch(),
+					resolveInteger(method, "concurrency",
+							sqsListenerAnnotation.concurrency(),
+							maxMessagesPerPoll != null ? maxMessagesPerPoll : 1,
+							Integer.MAX_VALUE),
+					maxMessagesPerPoll,
+					resolveInteger(method, "waitTimeSeconds",
+							sqsListenerAnnotation.waitTimeSeconds(), 0,
+							MAX_WAIT_TIME_SECONDS),
+					resolveInteger(method, "visibilityTimeout",
+							sqsListenerAnnotation.visibilityTimeout(), 0,
+							MAX_VISIBILITY_TIMEOUT_SECONDS),
+					resolveAttributeNames(sqsListenerAnnotation.attributeNames()),
+					resolveAttributeNames(
+							sqsListenerAnnotation.messageAttributeNames()));
 		}
 
 		MessageMapping messageMappingAnnotation = AnnotationUtils.findAnnotation(method,
@@ -180,6 +313,53 @@ public class QueueMessageHandler
 		return result;
 	}
 
+	private List<String> resolveAttributeNames(String[] attributeNames) {
+		if (attributeNames.length == 0) {
+			return null;
+		}
+		List<String> result = new ArrayList<>(attributeNames.length);
+		for (String attributeName : attributeNames) {
+			result.addAll(Arrays.asList(resolveName(attributeName)));
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves an integer attribute of the {@link SqsListener} annotation and checks that
+	 * it is within the allowed range, so that invalid values fail at startup instead of
+	 * on every poll.
+	 */
+	private Integer resolveInteger(Method method, String attributeName, String value,
+			int min, int max) {
+		if (!StringUtils.hasText(value)) {
+			return null;
+		}
+		String[] resolvedValue = resolveName(value);
+		Assert.state(resolvedValue.length == 1 && StringUtils.hasText(resolvedValue[0]),
+				"Could not resolve '" + value + "' to a single integer value");
+		int result;
+		try {
+			result = Integer.parseInt(resolvedValue[0].trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalStateException(
+					getAttributeDescription(method, attributeName) + " must be an integer"
+							+ " but was '" + resolvedValue[0] + "'",
+					e);
+		}
+		if (result < min || result > max) {
+			throw new IllegalStateException(getAttributeDescription(method, attributeName)
+					+ " must be between " + min + " and " + max + " but was " + result);
+		}
+		return result;
+	}
+
+	private static String getAttributeDescription(Method method, String attributeName) {
+		return "Attribute '" + attributeName + "' of listener method '"
+				+ method.getName() + "' in type '" + method.getDeclaringClass().getName()
+				+ "'";
+	}
+
 	private String[] resolveName(String name) {
 		if (!(getApplicationContext() instanceof ConfigurableApplicationContext)) {
 			return wrapInStringArray(name);
@@ -240,6 +420,103 @@ public class QueueMessageHandler
 		return new AnnotationExceptionHandlerMethodResolver(beanType);
 	}
 
+	/**
+	 * Invokes the handler method of destinations that are mapped to exactly one handler
+	 * method directly, without matching and sorting the mappings. All other messages
+	 * are dispatched by the regular mapping lookup of the
+	 * {@link AbstractMethodMessageHandler}. Unlike the inherited implementation, both
+	 * paths keep the headers of the message instead of copying them to add the
+	 * {@link DestinationPatternsMessageCondition#LOOKUP_DESTINATION_HEADER} header.
+	 * @param message the message to handle
+	 */
+	@Override
+	public void handleMessage(Message<?> message) throws MessagingException {
+		String destination = getDestination(message);
+		if (destination == null) {
+			return;
+		}
+
+		String lookupDestination = getLookupDestination(destination);
+		if (lookupDestination == null) {
+			return;
+		}
+
+		message = withLookupDestination(message, lookupDestination);
+		DirectHandlerMethod directHandlerMethod = this.directHandlerMethods
+				.get(lookupDestination);
+		if (directHandlerMethod == null) {
+			handleMessageInternal(message, lookupDestination);
+			return;
+		}
+
+		long start = System.nanoTime();
+		Throwable exception = null;
+		InvocableHandlerMethod invocable = directHandlerMethod
+				.getInvocableHandlerMethod();
+		try {
+			Object returnValue = invocable.invoke(message);
+			MethodParameter returnType = invocable.getReturnType();
+			if (void.class != returnType.getParameterType()) {
+				this.returnValueHandlers.handleReturnValue(returnValue, returnType,
+						message);
+			}
+		}
+		catch (Exception ex) {
+			exception = ex;
+			processHandlerMethodException(invocable, ex, message);
+		}
+		catch (Throwable ex) {
+			exception = ex;
+			processHandlerMethodException(invocable, new MessageHandlingException(
+					message, "Unexpected handler method invocation error", ex), message);
+		}
+		finally {
+			recordListenerInvocation(lookupDestination, invocable, start, exception);
+		}
+	}
+
+	/**
+	 * Exposes the lookup destination as a header of the message. Messages created by
+	 * the listener containers already contain it and are returned as they are, all
+	 * others get a view that does not copy their headers.
+	 */
+	private static Message<?> withLookupDestination(Message<?> message,
+			String lookupDestination) {
+		if (lookupDestination.equals(message.getHeaders()
+				.get(DestinationPatternsMessageCondition.LOOKUP_DESTINATION_HEADER))) {
+			return message;
+		}
+		return MessageBuilder.createMessage(message.getPayload(),
+				new LookupDestinationMessageHeaders(message.getHeaders(),
+						lookupDestination));
+	}
+
+	@Override
+	protected void handleMatch(MappingInformation mapping, HandlerMethod handlerMethod,
+			String lookupDestination, Message<?> message) {
+		long start = System.nanoTime();
+		Throwable exception = null;
+		try {
+			super.handleMatch(mapping, handlerMethod, lookupDestination, message);
+		}
+		catch (RuntimeException | Error e) {
+			exception = e instanceof MessagingException && e.getCause() != null
+					? e.getCause() : e;
+			throw e;
+		}
+		finally {
+			recordListenerInvocation(lookupDestination, handlerMethod, start,
+					exception);
+		}
+	}
+
+	private void recordListenerInvocation(String lookupDestination,
+			HandlerMethod handlerMethod, long start, Throwable exception) {
+		this.messageListenerMetrics.recordListenerInvocation(lookupDestination,
+				getListenerMethodName(handlerMethod), System.nanoTime() - start,
+				exception);
+	}
+
 	@Override
 	protected void handleNoMatch(Set<MappingInformation> ts, String lookupDestination,
 			Message<?> message) {
@@ -262,7 +539,7 @@ public class QueueMessageHandler
 				"An exception occurred while invoking the handler method", ex);
 	}
 
-	private CompositeMessageConverter createPayloadArgumentCompositeConverter() {
+	private CompressingMessageConverter createPayloadArgumentCompositeConverter() {
 		List<MessageConverter> payloadArgumentConverters = new ArrayList<>(
 				this.messageConverters);
 
@@ -270,9 +547,50 @@ public class QueueMessageHandler
 		objectMessageConverter.setStrictContentTypeMatch(true);
 		payloadArgumentConverters.add(objectMessageConverter);
 
+		JacksonBinaryMessageConverter binaryMessageConverter = new JacksonBinaryMessageConverter();
+		binaryMessageConverter.setStrictContentTypeMatch(true);
+		payloadArgumentConverters.add(binaryMessageConverter);
+
 		payloadArgumentConverters.add(new SimpleMessageConverter());
 
-		return new CompositeMessageConverter(payloadArgumentConverters);
+		return new CompressingMessageConverter(payloadArgumentConverters,
+				this.payloadCompression);
+	}
+
+	/**
+	 * Handler method that is the only one mapped to its destination. The
+	 * {@link InvocableHandlerMethod} is created once for singleton handler beans and for
+	 * every invocation otherwise.
+	 */
+	private final class DirectHandlerMethod {
+
+		private final HandlerMethod handlerMethod;
+
+		private final boolean singleton;
+
+		private volatile InvocableHandlerMethod invocableHandlerMethod;
+
+		private DirectHandlerMethod(HandlerMethod handlerMethod) {
+			this.handlerMethod = handlerMethod;
+			Object bean = handlerMethod.getBean();
+			this.singleton = !(bean instanceof String)
+					|| getApplicationContext().isSingleton((String) bean);
+		}
+
+		private InvocableHandlerMethod getInvocableHandlerMethod() {
+			InvocableHandlerMethod invocable = this.invocableHandlerMethod;
+			if (invocable == null) {
+				invocable = new InvocableHandlerMethod(
+						this.handlerMethod.createWithResolvedBean());
+				invocable.setMessageMethodArgumentResolvers(
+						QueueMessageHandler.this.argumentResolvers);
+				if (this.singleton) {
+					this.invocableHandlerMethod = invocable;
+				}
+			}
+			return invocable;
+		}
+
 	}
 
 	@SuppressWarnings("ComparableImplementedButEqualsNotOverridden")
@@ -282,10 +600,69 @@ public class QueueMessageHandler
 
 		private final SqsMessageDeletionPolicy deletionPolicy;
 
+		private final boolean batch;
+
+		private final Integer concurrency;
+
+		private final Integer maxMessagesPerPoll;
+
+		private final Integer waitTimeSeconds;
+
+		private final Integer visibilityTimeout;
+
+		private final List<String> attributeNames;
+
+		private final List<String> messageAttributeNames;
+
 		public MappingInformation(Set<String> logicalResourceIds,
 				SqsMessageDeletionPolicy deletionPolicy) {
+			this(logicalResourceIds, deletionPolicy, false);
+		}
+
+		public MappingInformation(Set<String> logicalResourceIds,
+				SqsMessageDeletionPolicy deletionPolicy, boolean batch) {
+			this(logicalResourceIds, deletionPolicy, batch, null, null, null, null);
+		}
+
+		public MappingInformation(Set<String> logicalResourceIds,
+				SqsMessageDeletionPolicy deletionPolicy, boolean batch,
+				Integer concurrency, Integer maxMessagesPerPoll, Integer waitTimeSeconds,
+				Integer visibilityTimeout) {
+			this(logicalResourceIds, deletionPolicy, batch, concurrency,
+					maxMessagesPerPoll, waitTimeSeconds, visibilityTimeout, null, null);
+		}
+
+		/**
+		 * @param logicalResourceIds the queues of the listener method
+		 * @param deletionPolicy the deletion policy of the listener method
+		 * @param batch if the listener method consumes batches of messages
+		 * @param concurrency the maximum number of in-flight messages per queue or
+		 * {@code null} to use the default of the container
+		 * @param maxMessagesPerPoll the maximum number of messages per poll or
+		 * {@code null} to use the default of the container
+		 * @param waitTimeSeconds the wait time of a poll or {@code null} to use the
+		 * default of the container
+		 * @param visibilityTimeout the visibility timeout of the received messages or
+		 * {@code null} to use the default of the container
+		 * @param attributeNames the system attributes to receive or {@code null} to use
+		 * the default of the container
+		 * @param messageAttributeNames the message attributes to receive or {@code null}
+		 * to use the default of the container
+		 */
+		public MappingInformation(Set<String> logicalResourceIds,
+				SqsMessageDeletionPolicy deletionPolicy, boolean batch,
+				Integer concurrency, Integer maxMessagesPerPoll, Integer waitTimeSeconds,
+				Integer visibilityTimeout, List<String> attributeNames,
+				List<String> messageAttributeNames) {
 			this.logicalResourceIds = Collections.unmodifiableSet(logicalResourceIds);
 			this.deletionPolicy = deletionPolicy;
+			this.batch = batch;
+			this.concurrency = concurrency;
+			this.maxMessagesPerPoll = maxMessagesPerPoll;
+			this.waitTimeSeconds = waitTimeSeconds;
+			this.visibilityTimeout = visibilityTimeout;
+			this.attributeNames = attributeNames;
+			this.messageAttributeNames = messageAttributeNames;
 		}
 
 		public Set<String> getLogicalResourceIds() {
@@ -296,6 +673,34 @@ public class QueueMessageHandler
 			return this.deletionPolicy;
 		}
 
+		public boolean isBatch() {
+			return this.batch;
+		}
+
+		public Integer getConcurrency() {
+			return this.concurrency;
+		}
+
+		public Integer getMaxMessagesPerPoll() {
+			return this.maxMessagesPerPoll;
+		}
+
+		public Integer getWaitTimeSeconds() {
+			return this.waitTimeSeconds;
+		}
+
+		public Integer getVisibilityTimeout() {
+			return this.visibilityTimeout;
+		}
+
+		public List<String> getAttributeNames() {
+			return this.attributeNames;
+		}
+
+		public List<String> getMessageAttributeNames() {
+			return this.messageAttributeNames;
+		}
+
 		@SuppressWarnings("NullableProblems")
 		@Override
 		public int compareTo(MappingInformation o) {
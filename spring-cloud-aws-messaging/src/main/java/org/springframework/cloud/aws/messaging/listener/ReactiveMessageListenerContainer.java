@@ -0,0 +1,466 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.messaging.handler.DestinationPatternsMessageCondition;
+import org.springframework.util.Assert;
+
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.createMessage;
+
+/**
+ * Non-blocking sibling of the {@link SimpleMessageListenerContainer}. Messages are
+ * received with {@code receiveMessageAsync} and every queue is exposed as a
+ * {@link Flux} that only polls again once the messages of the previous poll have been
+ * requested by its subscriber, so that no thread is parked per queue.
+ * <p>
+ * Listener methods are invoked on the threads completing the asynchronous receive
+ * requests (i.e. the executor of the {@link com.amazonaws.services.sqs.AmazonSQSAsync}
+ * client) and should therefore not block. A listener method returning a
+ * {@link java.util.concurrent.CompletionStage} or a reactive type like
+ * {@link Mono} has its message deleted according to the deletion policy once the
+ * returned value completes. Batch listener methods are not supported by this container.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class ReactiveMessageListenerContainer extends AbstractMessageListenerContainer {
+
+	private static final int DEFAULT_MAX_INFLIGHT_MESSAGES_PER_QUEUE = 10;
+
+	private int maxInflightMessagesPerQueue = DEFAULT_MAX_INFLIGHT_MESSAGES_PER_QUEUE;
+
+	private long backOffTime = 10000;
+
+	private BackOffPolicy backOffPolicy;
+
+	private final Map<String, Boolean> runningStateByQueue = new ConcurrentHashMap<>();
+
+	private final Map<String, Disposable> subscriptionByQueue = new ConcurrentHashMap<>();
+
+	private final Map<String, PollerStatistics> pollerStatisticsByQueue = new ConcurrentHashMap<>();
+
+	/**
+	 * @return The maximum number of messages per queue that are executed at the same
+	 * time
+	 */
+	public int getMaxInflightMessagesPerQueue() {
+		return this.maxInflightMessagesPerQueue;
+	}
+
+	/**
+	 * The maximum number of messages per queue whose execution, including the
+	 * completion of an asynchronous return value, may be in progress at the same time.
+	 * No further messages are requested from the queue while this limit is reached.
+	 * Listener methods can override the value for their queues with
+	 * {@link org.springframework.cloud.aws.messaging.listener.annotation.SqsListener#concurrency()}.
+	 * Default is 10.
+	 * @param maxInflightMessagesPerQueue the maximum number of in-flight messages per
+	 * queue
+	 */
+	public void setMaxInflightMessagesPerQueue(int maxInflightMessagesPerQueue) {
+		this.maxInflightMessagesPerQueue = maxInflightMessagesPerQueue;
+	}
+
+	/**
+	 * @return The maximum number of milliseconds a queue waits before polling again
+	 * after a receive request failed
+	 */
+	public long getBackOffTime() {
+		return this.backOffTime;
+	}
+
+	/**
+	 * The maximum number of milliseconds a queue waits before polling again after a
+	 * receive request failed (e.g. connection timeout). Used as the maximum interval of
+	 * the default {@link ExponentialBackOffPolicy} and ignored if a
+	 * {@link #setBackOffPolicy(BackOffPolicy) back off policy} is set. Default is 10000
+	 * milliseconds.
+	 * @param backOffTime in milliseconds
+	 */
+	public void setBackOffTime(long backOffTime) {
+		this.backOffTime = backOffTime;
+	}
+
+	/**
+	 * @return The policy determining how long a queue waits after a failed receive
+	 * request
+	 */
+	public BackOffPolicy getBackOffPolicy() {
+		return this.backOffPolicy;
+	}
+
+	/**
+	 * Configures how long a queue waits before polling again after a receive request
+	 * failed, depending on the number of consecutive failures and the error. If no
+	 * policy is set, an {@link ExponentialBackOffPolicy} with full jitter and a maximum
+	 * interval of {@link #setBackOffTime(long) backOffTime} is used.
+	 * @param backOffPolicy the back off policy
+	 */
+	public void setBackOffPolicy(BackOffPolicy backOffPolicy) {
+		this.backOffPolicy = backOffPolicy;
+	}
+
+	/**
+	 * Returns the statistics of the polling of the specified queue.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @return the statistics of the queue
+	 */
+	public PollerStatistics getPollerStatistics(String logicalQueueName) {
+		Assert.isTrue(this.pollerStatisticsByQueue.containsKey(logicalQueueName),
+				"Queue with name '" + logicalQueueName + "' does not exist");
+		return this.pollerStatisticsByQueue.get(logicalQueueName);
+	}
+
+	@Override
+	protected void initialize() {
+		super.initialize();
+
+		Assert.state(this.maxInflightMessagesPerQueue > 0,
+				"maxInflightMessagesPerQueue must be greater than zero");
+		for (Map.Entry<String, QueueAttributes> registeredQueue : getRegisteredQueues()
+				.entrySet()) {
+			Assert.state(!registeredQueue.getValue().isBatch(),
+					"Batch listener methods are not supported by the "
+							+ "ReactiveMessageListenerContainer (queue '"
+							+ registeredQueue.getKey() + "')");
+			this.runningStateByQueue.put(registeredQueue.getKey(), false);
+			PollerStatistics pollerStatistics = new PollerStatistics();
+			this.pollerStatisticsByQueue.put(registeredQueue.getKey(), pollerStatistics);
+			getMessageListenerMetrics().bindPollerStatistics(registeredQueue.getKey(),
+					pollerStatistics);
+		}
+
+		if (this.backOffPolicy == null) {
+			this.backOffPolicy = createDefaultBackOffPolicy(this.backOffTime);
+		}
+	}
+
+	@Override
+	protected void doStart() {
+		synchronized (this.getLifecycleMonitor()) {
+			for (String logicalQueueName : getRegisteredQueues().keySet()) {
+				startQueue(logicalQueueName);
+			}
+		}
+	}
+
+	@Override
+	protected void doStop() {
+		for (String logicalQueueName : getRegisteredQueues().keySet()) {
+			stopQueue(logicalQueueName);
+		}
+	}
+
+	@Override
+	protected void doDestroy() {
+		for (Disposable subscription : this.subscriptionByQueue.values()) {
+			subscription.dispose();
+		}
+		this.subscriptionByQueue.clear();
+	}
+
+	/**
+	 * Starts polling the specified queue and dispatching its messages to the listener
+	 * methods.
+	 * @param logicalQueueName the name as defined on the listener method
+	 */
+	public void start(String logicalQueueName) {
+		Assert.isTrue(this.runningStateByQueue.containsKey(logicalQueueName),
+				"Queue with name '" + logicalQueueName + "' does not exist");
+		startQueue(logicalQueueName);
+	}
+
+	/**
+	 * Stops polling the specified queue. Messages whose execution has already been
+	 * started are still executed, while received messages that have not been started
+	 * yet are returned to the queue.
+	 * @param logicalQueueName the name as defined on the listener method
+	 */
+	public void stop(String logicalQueueName) {
+		Assert.isTrue(this.runningStateByQueue.containsKey(logicalQueueName),
+				"Queue with name '" + logicalQueueName + "' does not exist");
+		stopQueue(logicalQueueName);
+	}
+
+	/**
+	 * Checks if the specified queue is still polling for new messages or executing
+	 * already received messages.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @return {@code true} if the queue is running otherwise {@code false}.
+	 */
+	public boolean isRunning(String logicalQueueName) {
+		Disposable subscription = this.subscriptionByQueue.get(logicalQueueName);
+		return subscription != null && !subscription.isDisposed();
+	}
+
+	/**
+	 * Exposes the specified queue as a stream of messages. The queue is polled on demand
+	 * only, every poll requests up to the configured maximum number of messages. The
+	 * returned messages carry an {@link Acknowledgment} and a {@link Visibility} header
+	 * and must be acknowledged by the subscriber, as they are not passed to any listener
+	 * method. The stream completes once the container is stopped.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @return the messages of the queue
+	 */
+	public Flux<org.springframework.messaging.Message<String>> receive(
+			String logicalQueueName) {
+		QueueAttributes queueAttributes = getRegisteredQueues().get(logicalQueueName);
+		Assert.isTrue(queueAttributes != null,
+				"Queue with name '" + logicalQueueName + "' does not exist");
+		String queueUrl = queueAttributes.getQueueUrl();
+		return poll(logicalQueueName, queueAttributes, this::isRunning)
+				// prefetch of one, the next poll is only sent once all messages of the
+				// previous poll have been requested
+				.flatMapIterable(ReceiveMessageResult::getMessages, 1)
+				.map(message -> createMessage(message, getMessageHeaders(
+						logicalQueueName, queueUrl, message, true, null)));
+	}
+
+	protected void executeMessage(org.springframework.messaging.Message<String> message) {
+		getMessageHandler().handleMessage(message);
+	}
+
+	private void startQueue(String logicalQueueName) {
+		synchronized (this.getLifecycleMonitor()) {
+			if (Boolean.TRUE.equals(this.runningStateByQueue.put(logicalQueueName, true))
+					&& isRunning(logicalQueueName)) {
+				return;
+			}
+
+			// A stopped queue keeps polling until its last receive request completes,
+			// it must not poll next to the new subscription
+			Disposable previousSubscription = this.subscriptionByQueue
+					.remove(logicalQueueName);
+			if (previousSubscription != null) {
+				previousSubscription.dispose();
+			}
+
+			QueueAttributes queueAttributes = getRegisteredQueues()
+					.get(logicalQueueName);
+			String queueUrl = queueAttributes.getQueueUrl();
+			Set<Message> unstartedMessages = ConcurrentHashMap.newKeySet();
+			Flux<Message> messages = poll(logicalQueueName, queueAttributes,
+					() -> isQueueRunning(logicalQueueName))
+							.doOnNext(receiveMessageResult -> unstartedMessages
+									.addAll(receiveMessageResult.getMessages()))
+							// prefetch of one, the next poll is only sent once all
+							// messages of the previous poll have been requested
+							.flatMapIterable(ReceiveMessageResult::getMessages, 1)
+							.doFinally(signalType -> returnUnstartedMessages(queueUrl,
+									unstartedMessages));
+			int concurrency = queueAttributes.getConcurrency() != null
+					? queueAttributes.getConcurrency()
+					: this.maxInflightMessagesPerQueue;
+			Disposable subscription = messages.flatMap(message -> {
+				// Messages received before the queue has been stopped are returned
+				// once the polling completes
+				if (!isQueueRunning(logicalQueueName)
+						|| !unstartedMessages.remove(message)) {
+					return Mono.empty();
+				}
+				return execute(logicalQueueName, message, queueAttributes);
+			}, concurrency).subscribe();
+			this.subscriptionByQueue.put(logicalQueueName, subscription);
+		}
+	}
+
+	/**
+	 * Returns the received messages whose execution has not been started, after the
+	 * polling of a queue has been stopped or cancelled.
+	 */
+	private void returnUnstartedMessages(String queueUrl,
+			Set<Message> unstartedMessages) {
+		List<Message> messages = new ArrayList<>();
+		for (Message message : unstartedMessages) {
+			if (unstartedMessages.remove(message)) {
+				messages.add(message);
+			}
+		}
+		if (!messages.isEmpty()) {
+			returnMessages(queueUrl, messages);
+		}
+	}
+
+	private void stopQueue(String logicalQueueName) {
+		this.runningStateByQueue.put(logicalQueueName, false);
+	}
+
+	private boolean isQueueRunning(String logicalQueueName) {
+		return isRunning() && Boolean.TRUE
+				.equals(this.runningStateByQueue.get(logicalQueueName));
+	}
+
+	/**
+	 * Polls the queue as long as it is running. Failed receive requests are retried
+	 * after the time determined by the {@link BackOffPolicy}, the number of consecutive
+	 * failures is tracked per subscription.
+	 */
+	private Flux<ReceiveMessageResult> poll(String logicalQueueName,
+			QueueAttributes queueAttributes, BooleanSupplier running) {
+		ReceiveMessageRequest receiveMessageRequest = queueAttributes
+				.getReceiveMessageRequest();
+		PollerStatistics pollerStatistics = this.pollerStatisticsByQueue
+				.get(logicalQueueName);
+		return Flux.defer(() -> {
+			AtomicInteger failedAttempts = new AtomicInteger();
+			return Mono
+					.defer(() -> receiveMessages(logicalQueueName, receiveMessageRequest))
+					.doOnNext(receiveMessageResult -> {
+						failedAttempts.set(0);
+						pollerStatistics.recordReceive(
+								receiveMessageResult.getMessages().size(),
+								receiveMessageRequest.getMaxNumberOfMessages());
+					}).onErrorResume(Exception.class, exception -> {
+						long backOffTime = getBackOffPolicy().getBackOffTime(
+								failedAttempts.incrementAndGet(), exception);
+						getLogger().warn(
+								"An Exception occurred while polling queue '{}'. The "
+										+ "failing operation will be retried in {} "
+										+ "milliseconds",
+								logicalQueueName, backOffTime, exception);
+						return Mono.<ReceiveMessageResult>empty()
+								.delaySubscription(Duration.ofMillis(backOffTime));
+					}).repeat(running);
+		}).doOnSubscribe(subscription -> pollerStatistics.pollerStarted())
+				.doFinally(signalType -> pollerStatistics.pollerStopped());
+	}
+
+	/**
+	 * Sends a receive request. Messages received after the subscriber has cancelled the
+	 * request (e.g. because the queue has been restarted) are returned to the queue
+	 * right away.
+	 */
+	private Mono<ReceiveMessageResult> receiveMessages(String logicalQueueName,
+			ReceiveMessageRequest receiveMessageRequest) {
+		return Mono.create(sink -> {
+			AtomicBoolean cancelled = new AtomicBoolean();
+			sink.onCancel(() -> cancelled.set(true));
+			long start = System.nanoTime();
+			getAmazonSqs().receiveMessageAsync(receiveMessageRequest,
+					new AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult>() {
+
+						@Override
+						public void onError(Exception exception) {
+							getMessageListenerMetrics().recordReceiveFailure(
+									logicalQueueName, System.nanoTime() - start,
+									exception);
+							sink.error(exception);
+						}
+
+						@Override
+						public void onSuccess(ReceiveMessageRequest request,
+								ReceiveMessageResult receiveMessageResult) {
+							getMessageListenerMetrics().recordReceive(logicalQueueName,
+									System.nanoTime() - start,
+									receiveMessageResult.getMessages().size(),
+									request.getMaxNumberOfMessages());
+							if (cancelled.get()) {
+								returnMessages(request.getQueueUrl(),
+										receiveMessageResult.getMessages());
+							}
+							else {
+								sink.success(receiveMessageResult);
+							}
+						}
+
+					});
+		});
+	}
+
+	private Mono<Void> execute(String logicalQueueName, Message message,
+			QueueAttributes queueAttributes) {
+		String queueUrl = queueAttributes.getQueueUrl();
+		String receiptHandle = message.getReceiptHandle();
+		SqsMessageDeletionPolicy deletionPolicy = queueAttributes.getDeletionPolicy();
+
+		return Mono.defer(() -> {
+			AtomicReference<CompletionStage<?>> asyncResult = new AtomicReference<>();
+			executeMessage(createMessage(message,
+					getMessageHeaders(logicalQueueName, queueUrl, message,
+							deletionPolicy == SqsMessageDeletionPolicy.NEVER,
+							asyncResult)));
+			// Listener methods without an asynchronous return value are done as soon as
+			// they return
+			if (asyncResult.get() == null) {
+				return Mono.empty();
+			}
+			return Mono.fromFuture(asyncResult.get().toCompletableFuture())
+					.doOnError(exception -> getLogger().error(
+							"An exception occurred while completing the handler method",
+							exception));
+		}).then(Mono.fromSupplier(() -> isDeletedOnSuccess(deletionPolicy)))
+				.onErrorReturn(isDeletedOnError(deletionPolicy,
+						queueAttributes.hasRedrivePolicy()))
+				.doOnNext(deleteMessage -> {
+					if (deleteMessage) {
+						getAmazonSqs().deleteMessageAsync(
+								new DeleteMessageRequest(queueUrl, receiptHandle),
+								new DeleteMessageHandler(receiptHandle,
+										() -> getMessageListenerMetrics()
+												.recordDeletionFailure(logicalQueueName,
+														1)));
+					}
+				}).then()
+				.doOnSubscribe(subscription -> getMessageListenerMetrics()
+						.executionStarted(logicalQueueName, 1))
+				.doFinally(signalType -> getMessageListenerMetrics()
+						.executionFinished(logicalQueueName, 1));
+	}
+
+	private Map<String, Object> getMessageHeaders(String logicalQueueName,
+			String queueUrl, Message message, boolean acknowledgment,
+			AtomicReference<CompletionStage<?>> asyncResult) {
+		Map<String, Object> headers = new HashMap<>();
+		headers.put(QueueMessageHandler.LOGICAL_RESOURCE_ID, logicalQueueName);
+		headers.put(DestinationPatternsMessageCondition.LOOKUP_DESTINATION_HEADER,
+				logicalQueueName);
+		if (acknowledgment) {
+			headers.put(QueueMessageHandler.ACKNOWLEDGMENT,
+					new QueueMessageAcknowledgment(getAmazonSqs(), queueUrl,
+							message.getReceiptHandle()));
+		}
+		headers.put(QueueMessageHandler.VISIBILITY, new QueueMessageVisibility(
+				getAmazonSqs(), queueUrl, message.getReceiptHandle()));
+		if (asyncResult != null) {
+			headers.put(QueueMessageHandler.ASYNC_RESULT, asyncResult);
+		}
+		return headers;
+	}
+
+}
@@ -16,24 +16,46 @@
 
 package org.springframework.cloud.aws.messaging.listener;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.Message;
-import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 
+import org.springframework.cloud.aws.messaging.core.LargePayloadStore;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.handler.DestinationPatternsMessageCondition;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.createMessage;
 
@@ -50,18 +72,60 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 	private static final String DEFAULT_THREAD_NAME_PREFIX = ClassUtils
 			.getShortName(SimpleMessageListenerContainer.class) + "-";
 
+	private static final long INFLIGHT_PERMITS_WAIT_TIME = 1000;
+
+	/**
+	 * Wait time in seconds used by an idle poller in adaptive polling mode, the maximum
+	 * supported by SQS.
+	 */
+	private static final int IDLE_WAIT_TIME_SECONDS = 20;
+
+	private static final String MESSAGE_GROUP_ID_ATTRIBUTE = "MessageGroupId";
+
 	private boolean defaultTaskExecutor;
 
 	private long backOffTime = 10000;
 
 	private long queueStopTimeout = 20000;
 
+	private Integer maxInflightMessagesPerQueue;
+
+	private boolean batchDeleteEnabled;
+
+	private long batchDeleteMaxDelay = 100;
+
+	private boolean virtualThreads;
+
+	private boolean visibilityHeartbeatEnabled;
+
+	private int maxVisibilityExtension = 43200;
+
+	private Integer maxPollersPerQueue;
+
+	private BackOffPolicy backOffPolicy;
+
+	private LargePayloadStore largePayloadStore;
+
 	private AsyncTaskExecutor taskExecutor;
 
+	private ExecutorService virtualThreadExecutorService;
+
+	private ThreadPoolTaskScheduler taskScheduler;
+
+	private DeleteMessageBatchAggregator deleteMessageBatchAggregator;
+
+	private VisibilityHeartbeat visibilityHeartbeat;
+
 	private ConcurrentHashMap<String, Future<?>> scheduledFutureByQueue;
 
 	private ConcurrentHashMap<String, Boolean> runningStateByQueue;
 
+	private ConcurrentHashMap<String, Set<Future<?>>> additionalPollersByQueue;
+
+	private ConcurrentHashMap<String, Semaphore> inflightMessagesByQueue;
+
+	private ConcurrentHashMap<String, PollerStatistics> pollerStatisticsByQueue;
+
 	protected AsyncTaskExecutor getTaskExecutor() {
 		return this.taskExecutor;
 	}
@@ -71,22 +135,43 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 	}
 
 	/**
-	 * @return The number of milliseconds the polling thread must wait before trying to
-	 * recover when an error occurs (e.g. connection timeout)
+	 * @return The maximum number of milliseconds the polling thread must wait before
+	 * trying to recover when an error occurs (e.g. connection timeout)
 	 */
 	public long getBackOffTime() {
 		return this.backOffTime;
 	}
 
 	/**
-	 * The number of milliseconds the polling thread must wait before trying to recover
-	 * when an error occurs (e.g. connection timeout). Default is 10000 milliseconds.
+	 * The maximum number of milliseconds the polling thread must wait before trying to
+	 * recover when an error occurs (e.g. connection timeout). Used as the maximum
+	 * interval of the default {@link ExponentialBackOffPolicy} and ignored if a
+	 * {@link #setBackOffPolicy(BackOffPolicy) back off policy} is set. Default is 10000
+	 * milliseconds.
 	 * @param backOffTime in milliseconds
 	 */
 	public void setBackOffTime(long backOffTime) {
 		this.backOffTime = backOffTime;
 	}
 
+	/**
+	 * @return The policy determining how long the polling thread waits after an error
+	 */
+	public BackOffPolicy getBackOffPolicy() {
+		return this.backOffPolicy;
+	}
+
+	/**
+	 * Configures how long the polling thread waits before polling again after a receive
+	 * request failed, depending on the number of consecutive failures and the error. If
+	 * no policy is set, an {@link ExponentialBackOffPolicy} with full jitter and a
+	 * maximum interval of {@link #setBackOffTime(long) backOffTime} is used.
+	 * @param backOffPolicy the back off policy
+	 */
+	public void setBackOffPolicy(BackOffPolicy backOffPolicy) {
+		this.backOffPolicy = backOffPolicy;
+	}
+
 	/**
 	 * @return The number of milliseconds the
 	 * {@link SimpleMessageListenerContainer#stop(String)} method waits for a queue to
@@ -107,24 +192,258 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 		this.queueStopTimeout = queueStopTimeout;
 	}
 
+	/**
+	 * @return The maximum number of received messages per queue that may wait for or be
+	 * in execution at the same time, or {@code null} if the polling thread waits for
+	 * every batch to be executed before polling again
+	 */
+	public Integer getMaxInflightMessagesPerQueue() {
+		return this.maxInflightMessagesPerQueue;
+	}
+
+	/**
+	 * Enables the pipelined polling mode. By default the polling thread of a queue waits
+	 * until all messages of a batch are executed before it polls the next batch, so that
+	 * one slow message delays the whole queue. When this value is set, the polling
+	 * thread keeps receiving messages as long as fewer than
+	 * {@code maxInflightMessagesPerQueue} messages of the queue are executing, and every
+	 * message is executed independently. The value must not be lower than the maximum
+	 * number of messages per poll. Default is {@code null} (not pipelined). Listener
+	 * methods can override the value for their queues with
+	 * {@link org.springframework.cloud.aws.messaging.listener.annotation.SqsListener#concurrency()}.
+	 * @param maxInflightMessagesPerQueue the maximum number of in-flight messages per
+	 * queue
+	 */
+	public void setMaxInflightMessagesPerQueue(Integer maxInflightMessagesPerQueue) {
+		this.maxInflightMessagesPerQueue = maxInflightMessagesPerQueue;
+	}
+
+	/**
+	 * @return {@code true} if messages deleted by the container are aggregated into
+	 * {@code DeleteMessageBatch} requests
+	 */
+	public boolean isBatchDeleteEnabled() {
+		return this.batchDeleteEnabled;
+	}
+
+	/**
+	 * Configures if the messages deleted by the container after their execution are
+	 * buffered per queue and deleted with {@code DeleteMessageBatch} requests of up to 10
+	 * messages instead of one {@code DeleteMessage} request per message. Buffered
+	 * deletions are flushed when the container is stopped. Default is {@code false}.
+	 * @param batchDeleteEnabled {@code true} to aggregate deletions into batches
+	 */
+	public void setBatchDeleteEnabled(boolean batchDeleteEnabled) {
+		this.batchDeleteEnabled = batchDeleteEnabled;
+	}
+
+	/**
+	 * @return The maximum number of milliseconds a deletion is buffered before the batch
+	 * is sent, even if it is not full
+	 */
+	public long getBatchDeleteMaxDelay() {
+		return this.batchDeleteMaxDelay;
+	}
+
+	/**
+	 * The maximum number of milliseconds a deletion is buffered before the batch is sent,
+	 * even if it does not contain 10 messages yet. Only used if batch deletion is
+	 * enabled. Default is 100 milliseconds.
+	 * @param batchDeleteMaxDelay in milliseconds
+	 */
+	public void setBatchDeleteMaxDelay(long batchDeleteMaxDelay) {
+		this.batchDeleteMaxDelay = batchDeleteMaxDelay;
+	}
+
+	/**
+	 * @return {@code true} if the default task executor runs the polling threads and the
+	 * message executions on virtual threads
+	 */
+	public boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Configures the default task executor to start one virtual thread per polling
+	 * thread and per message execution instead of using a pool of platform threads.
+	 * Requires Java 21 or later and is ignored if a task executor has been set
+	 * explicitly. As virtual threads are not pooled, the queues are always polled in
+	 * pipelined mode, so that the {@link #setMaxInflightMessagesPerQueue(Integer)
+	 * maximum number of in-flight messages per queue} limits the number of concurrently
+	 * executed messages. Queues without a configured limit may have as many messages in
+	 * flight as their pollers receive with one poll each. Default is {@code false}.
+	 * @param virtualThreads {@code true} to use virtual threads
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * @return {@code true} if the visibility of messages in execution is extended
+	 * automatically
+	 */
+	public boolean isVisibilityHeartbeatEnabled() {
+		return this.visibilityHeartbeatEnabled;
+	}
+
+	/**
+	 * Configures if the container extends the visibility of the received messages until
+	 * they have been executed, so that long running listener methods do not need to call
+	 * {@link Visibility#extend(int)} to prevent their message from being received again.
+	 * Messages are extended from the moment they are received, which also covers
+	 * messages waiting for the previous messages of their FIFO message group. The
+	 * visibility of a message is extended by another visibility timeout as soon as less
+	 * than half of it is left. Extensions are sent per queue with
+	 * {@code ChangeMessageVisibilityBatch} requests and stop when the listener method
+	 * returns or the message is returned to the queue. Requires a
+	 * {@link #setVisibilityTimeout(Integer) visibility timeout} that is well above the
+	 * heartbeat interval of one second. Default is {@code false}.
+	 * @param visibilityHeartbeatEnabled {@code true} to extend the visibility
+	 * automatically
+	 */
+	public void setVisibilityHeartbeatEnabled(boolean visibilityHeartbeatEnabled) {
+		this.visibilityHeartbeatEnabled = visibilityHeartbeatEnabled;
+	}
+
+	/**
+	 * @return The maximum number of seconds the visibility of a message is extended
+	 * automatically
+	 */
+	public int getMaxVisibilityExtension() {
+		return this.maxVisibilityExtension;
+	}
+
+	/**
+	 * The maximum number of seconds the visibility of a message in execution is extended
+	 * in total, beyond the initial visibility timeout. Only used if the visibility
+	 * heartbeat is enabled. SQS limits the visibility of a message to 12 hours after it
+	 * has been received. Default is 43200 seconds (12 hours).
+	 * @param maxVisibilityExtension in seconds
+	 */
+	public void setMaxVisibilityExtension(int maxVisibilityExtension) {
+		this.maxVisibilityExtension = maxVisibilityExtension;
+	}
+
+	/**
+	 * @return The maximum number of polling threads per queue, or {@code null} if every
+	 * queue is polled by a single thread
+	 */
+	public Integer getMaxPollersPerQueue() {
+		return this.maxPollersPerQueue;
+	}
+
+	/**
+	 * Enables the adaptive polling mode. A queue is polled by one thread as long as its
+	 * receive requests return fewer messages than requested. Every receive returning
+	 * the maximum number of messages starts an additional polling thread for the queue,
+	 * up to {@code maxPollersPerQueue} threads. An additional thread stops as soon as
+	 * one of its receive requests returns no message, while the last remaining thread
+	 * switches to the maximum wait time of 20 seconds until messages arrive again. The
+	 * scaling decisions are exposed by {@link #getPollerStatistics(String)}. Default is
+	 * {@code null} (one polling thread per queue).
+	 * @param maxPollersPerQueue the maximum number of polling threads per queue
+	 */
+	public void setMaxPollersPerQueue(Integer maxPollersPerQueue) {
+		this.maxPollersPerQueue = maxPollersPerQueue;
+	}
+
+	public LargePayloadStore getLargePayloadStore() {
+		return this.largePayloadStore;
+	}
+
+	/**
+	 * Configures the store resolving the payloads of pointer messages sent with a
+	 * {@link LargePayloadStore}. The stored payload is passed lazily to the listener
+	 * methods and deleted once the message has been deleted by the container. Payloads
+	 * of messages that are acknowledged by the listener method (deletion policy
+	 * {@link SqsMessageDeletionPolicy#NEVER}) are not deleted, a lifecycle rule of the
+	 * bucket should expire them. Default is {@code null} (pointer messages are passed
+	 * unchanged).
+	 * @param largePayloadStore the store for large payloads
+	 */
+	public void setLargePayloadStore(LargePayloadStore largePayloadStore) {
+		this.largePayloadStore = largePayloadStore;
+	}
+
+	/**
+	 * Returns the statistics of the polling threads of the specified queue.
+	 * @param logicalQueueName the name as defined on the listener method
+	 * @return the statistics of the queue
+	 */
+	public PollerStatistics getPollerStatistics(String logicalQueueName) {
+		Assert.isTrue(this.pollerStatisticsByQueue.containsKey(logicalQueueName),
+				"Queue with name '" + logicalQueueName + "' does not exist");
+		return this.pollerStatisticsByQueue.get(logicalQueueName);
+	}
+
 	@Override
 	protected void initialize() {
 		super.initialize();
 
+		if (this.maxPollersPerQueue != null) {
+			Assert.state(this.maxPollersPerQueue > 0,
+					"maxPollersPerQueue must be greater than zero");
+		}
+		for (Map.Entry<String, QueueAttributes> registeredQueue : getRegisteredQueues()
+				.entrySet()) {
+			Integer concurrency = getConcurrency(registeredQueue.getValue());
+			Assert.state(
+					concurrency == null || concurrency >= getMaxNumberOfMessagesPerPoll(
+							registeredQueue.getValue()),
+					"maxInflightMessagesPerQueue (concurrency) must not be lower than "
+							+ "maxNumberOfMessages for queue '" + registeredQueue.getKey()
+							+ "'");
+		}
+
+		if (this.backOffPolicy == null) {
+			this.backOffPolicy = createDefaultBackOffPolicy(this.backOffTime);
+		}
+
 		if (this.taskExecutor == null) {
 			this.defaultTaskExecutor = true;
 			this.taskExecutor = createDefaultTaskExecutor();
 		}
 
+		if (this.visibilityHeartbeatEnabled) {
+			for (Map.Entry<String, QueueAttributes> registeredQueue : getRegisteredQueues()
+					.entrySet()) {
+				Assert.state(registeredQueue.getValue().getVisibilityTimeout() != null,
+						"A visibility timeout must be configured to extend the "
+								+ "visibility of messages of queue '"
+								+ registeredQueue.getKey() + "'");
+			}
+		}
+
+		if (this.batchDeleteEnabled || this.visibilityHeartbeatEnabled) {
+			this.taskScheduler = createTaskScheduler();
+		}
+		if (this.batchDeleteEnabled) {
+			this.deleteMessageBatchAggregator = new DeleteMessageBatchAggregator(
+					getAmazonSqs(), this.taskScheduler, this.batchDeleteMaxDelay);
+		}
+		if (this.visibilityHeartbeatEnabled) {
+			this.visibilityHeartbeat = new VisibilityHeartbeat(getAmazonSqs(),
+					this.taskScheduler, this.maxVisibilityExtension);
+		}
+
 		initializeRunningStateByQueue();
 		this.scheduledFutureByQueue = new ConcurrentHashMap<>(
 				getRegisteredQueues().size());
+		this.additionalPollersByQueue = new ConcurrentHashMap<>(
+				getRegisteredQueues().size());
+		this.inflightMessagesByQueue = new ConcurrentHashMap<>(
+				getRegisteredQueues().size());
 	}
 
 	private void initializeRunningStateByQueue() {
 		this.runningStateByQueue = new ConcurrentHashMap<>(getRegisteredQueues().size());
+		this.pollerStatisticsByQueue = new ConcurrentHashMap<>(
+				getRegisteredQueues().size());
 		for (String queueName : getRegisteredQueues().keySet()) {
+			PollerStatistics pollerStatistics = new PollerStatistics();
 			this.runningStateByQueue.put(queueName, false);
+			this.pollerStatisticsByQueue.put(queueName, pollerStatistics);
+			getMessageListenerMetrics().bindPollerStatistics(queueName, pollerStatistics);
 		}
 	}
 
@@ -139,6 +458,13 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 	protected void doStop() {
 		notifyRunningQueuesToStop();
 		waitForRunningQueuesToStop();
+		flushPendingDeletions();
+	}
+
+	private void flushPendingDeletions() {
+		if (this.deleteMessageBatchAggregator != null) {
+			this.deleteMessageBatchAggregator.flush(getQueueStopTimeout());
+		}
 	}
 
 	private void notifyRunningQueuesToStop() {
@@ -150,7 +476,12 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 		}
 	}
 
+	/**
+	 * Waits for all queues to stop. As all queues have already been notified, they stop
+	 * in parallel and share one deadline of {@link #getQueueStopTimeout()}.
+	 */
 	private void waitForRunningQueuesToStop() {
+		long deadline = System.currentTimeMillis() + getQueueStopTimeout();
 		for (Map.Entry<String, Boolean> queueRunningState : this.runningStateByQueue
 				.entrySet()) {
 			String logicalQueueName = queueRunningState.getKey();
@@ -159,7 +490,8 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 
 			if (queueSpinningThread != null) {
 				try {
-					queueSpinningThread.get(getQueueStopTimeout(), TimeUnit.MILLISECONDS);
+					queueSpinningThread.get(getRemainingTime(deadline),
+							TimeUnit.MILLISECONDS);
 				}
 				catch (ExecutionException | TimeoutException e) {
 					getLogger().warn("An exception occurred while stopping queue '"
@@ -169,14 +501,88 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 					Thread.currentThread().interrupt();
 				}
 			}
+			waitForAdditionalPollersToStop(logicalQueueName, deadline);
+			waitForInflightMessages(logicalQueueName, deadline);
+		}
+	}
+
+	private static long getRemainingTime(long deadline) {
+		return Math.max(deadline - System.currentTimeMillis(), 0);
+	}
+
+	private void waitForAdditionalPollersToStop(String logicalQueueName,
+			long deadline) {
+		Set<Future<?>> additionalPollers = this.additionalPollersByQueue
+				.get(logicalQueueName);
+		if (additionalPollers == null) {
+			return;
+		}
+		for (Future<?> additionalPoller : additionalPollers) {
+			try {
+				additionalPoller.get(getRemainingTime(deadline), TimeUnit.MILLISECONDS);
+			}
+			catch (ExecutionException | TimeoutException e) {
+				getLogger().warn("An exception occurred while stopping a poller of "
+						+ "queue '" + logicalQueueName + "'", e);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			additionalPollers.remove(additionalPoller);
+		}
+	}
+
+	/**
+	 * Waits until the messages dispatched by the pipelined polling mode have been
+	 * executed, as the polling threads do not wait for them.
+	 */
+	private void waitForInflightMessages(String logicalQueueName, long deadline) {
+		Semaphore inflightMessages = this.inflightMessagesByQueue.get(logicalQueueName);
+		if (inflightMessages == null) {
+			return;
+		}
+		int concurrency = getConcurrency(getRegisteredQueues().get(logicalQueueName));
+		try {
+			if (inflightMessages.tryAcquire(concurrency, getRemainingTime(deadline),
+					TimeUnit.MILLISECONDS)) {
+				inflightMessages.release(concurrency);
+			}
+			else {
+				getLogger().warn("Stopped queue '{}' while messages were still in "
+						+ "execution", logicalQueueName);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
 	@Override
 	protected void doDestroy() {
-		if (this.defaultTaskExecutor) {
+		if (this.virtualThreadExecutorService != null) {
+			this.virtualThreadExecutorService.shutdownNow();
+		}
+		else if (this.defaultTaskExecutor) {
 			((ThreadPoolTaskExecutor) this.taskExecutor).destroy();
 		}
+		if (this.visibilityHeartbeat != null) {
+			this.visibilityHeartbeat.stop();
+		}
+		if (this.taskScheduler != null) {
+			this.taskScheduler.destroy();
+		}
+	}
+
+	private ThreadPoolTaskScheduler createTaskScheduler() {
+		String beanName = getBeanName();
+		ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+		threadPoolTaskScheduler.setThreadNamePrefix(
+				(beanName != null ? beanName + "-" : DEFAULT_THREAD_NAME_PREFIX)
+						+ "scheduler-");
+		threadPoolTaskScheduler.setDaemon(true);
+		threadPoolTaskScheduler.afterPropertiesSet();
+		return threadPoolTaskScheduler;
 	}
 
 	/**
@@ -192,6 +598,12 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 	 */
 	protected AsyncTaskExecutor createDefaultTaskExecutor() {
 		String beanName = getBeanName();
+		if (this.virtualThreads) {
+			this.virtualThreadExecutorService = createVirtualThreadExecutorService(
+					beanName != null ? beanName + "-" : DEFAULT_THREAD_NAME_PREFIX);
+			return new ConcurrentTaskExecutor(this.virtualThreadExecutorService);
+		}
+
 		ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
 		threadPoolTaskExecutor.setThreadNamePrefix(
 				beanName != null ? beanName + "-" : DEFAULT_THREAD_NAME_PREFIX);
@@ -201,10 +613,19 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 			threadPoolTaskExecutor
 					.setCorePoolSize(spinningThreads * DEFAULT_WORKER_THREADS);
 
-			int maxNumberOfMessagePerBatch = getMaxNumberOfMessages() != null
-					? getMaxNumberOfMessages() : DEFAULT_MAX_NUMBER_OF_MESSAGES;
-			threadPoolTaskExecutor
-					.setMaxPoolSize(spinningThreads * (maxNumberOfMessagePerBatch + 1));
+			// Every queue gets enough threads for its own limits, so that a busy queue
+			// cannot take the threads of the other queues
+			int pollersPerQueue = this.maxPollersPerQueue != null
+					? this.maxPollersPerQueue : 1;
+			int maxPoolSize = 0;
+			for (QueueAttributes queueAttributes : getRegisteredQueues().values()) {
+				Integer concurrency = getConcurrency(queueAttributes);
+				int workerThreads = concurrency != null ? concurrency
+						: pollersPerQueue
+								* getMaxNumberOfMessagesPerPoll(queueAttributes);
+				maxPoolSize += workerThreads + pollersPerQueue;
+			}
+			threadPoolTaskExecutor.setMaxPoolSize(maxPoolSize);
 		}
 
 		// No use of a thread pool executor queue to avoid retaining message to long in
@@ -216,6 +637,60 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 
 	}
 
+	/**
+	 * Creates an executor service starting a new named virtual thread for each task. The
+	 * Java 21 API is accessed reflectively to keep the module compatible with Java 8.
+	 * @param threadNamePrefix the prefix of the virtual thread names
+	 * @return the executor service
+	 */
+	private static ExecutorService createVirtualThreadExecutorService(
+			String threadNamePrefix) {
+		Method ofVirtual = ReflectionUtils.findMethod(Thread.class, "ofVirtual");
+		Method newThreadPerTaskExecutor = ReflectionUtils.findMethod(Executors.class,
+				"newThreadPerTaskExecutor", ThreadFactory.class);
+		if (ofVirtual == null || newThreadPerTaskExecutor == null) {
+			throw new IllegalStateException(
+					"Virtual threads require Java 21 or later, current version is "
+							+ System.getProperty("java.version"));
+		}
+
+		Object builder = ReflectionUtils.invokeMethod(ofVirtual, null);
+		Method name = ReflectionUtils.findMethod(ofVirtual.getReturnType(), "name",
+				String.class, long.class);
+		builder = ReflectionUtils.invokeMethod(name, builder, threadNamePrefix, 0L);
+		Method factory = ReflectionUtils.findMethod(ofVirtual.getReturnType(),
+				"factory");
+		ThreadFactory threadFactory = (ThreadFactory) ReflectionUtils
+				.invokeMethod(factory, builder);
+		return (ExecutorService) ReflectionUtils.invokeMethod(newThreadPerTaskExecutor,
+				null, threadFactory);
+	}
+
+	private static int getMaxNumberOfMessagesPerPoll(QueueAttributes queueAttributes) {
+		return queueAttributes.getMaxNumberOfMessages();
+	}
+
+	/**
+	 * @return the maximum number of in-flight messages of the queue, as configured on
+	 * the listener method or by {@link #setMaxInflightMessagesPerQueue(Integer)}, or
+	 * {@code null} if the queue is not polled in pipelined mode. Queues executed on
+	 * virtual threads are always polled in pipelined mode.
+	 */
+	private Integer getConcurrency(QueueAttributes queueAttributes) {
+		if (queueAttributes.getConcurrency() != null) {
+			return queueAttributes.getConcurrency();
+		}
+		if (this.maxInflightMessagesPerQueue != null) {
+			return this.maxInflightMessagesPerQueue;
+		}
+		if (this.virtualThreadExecutorService != null) {
+			int pollersPerQueue = this.maxPollersPerQueue != null
+					? this.maxPollersPerQueue : 1;
+			return pollersPerQueue * getMaxNumberOfMessagesPerPoll(queueAttributes);
+		}
+		return null;
+	}
+
 	private void scheduleMessageListeners() {
 		for (Map.Entry<String, QueueAttributes> registeredQueue : getRegisteredQueues()
 				.entrySet()) {
@@ -228,6 +703,43 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 		getMessageHandler().handleMessage(stringMessage);
 	}
 
+	protected void executeMessageBatch(
+			org.springframework.messaging.Message<List<org.springframework.messaging.Message<String>>> batchMessage) {
+		getMessageHandler().handleMessage(batchMessage);
+	}
+
+	/**
+	 * Waits until the {@link CompletionStage} or reactive return value of the listener
+	 * method, if any, has completed, so that the message is only deleted once its
+	 * asynchronous processing has finished.
+	 * @param asyncResult the asynchronous result published by the listener method
+	 * @param message the executed message
+	 * @throws MessagingException if the asynchronous processing failed
+	 */
+	private void awaitAsyncResult(AtomicReference<CompletionStage<?>> asyncResult,
+			org.springframework.messaging.Message<?> message) {
+		CompletionStage<?> completionStage = asyncResult.get();
+		if (completionStage == null) {
+			return;
+		}
+
+		try {
+			completionStage.toCompletableFuture().get();
+		}
+		catch (ExecutionException | CancellationException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			getLogger().error("An exception occurred while completing the handler method",
+					cause);
+			throw new MessagingException(message,
+					"An exception occurred while completing the handler method", cause);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessagingException(message,
+					"Interrupted while waiting for the handler method to complete", e);
+		}
+	}
+
 	/**
 	 * Stops and waits until the specified queue has stopped. If the wait timeout
 	 * specified by {@link SimpleMessageListenerContainer#getQueueStopTimeout()} is
@@ -237,11 +749,12 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 	public void stop(String logicalQueueName) {
 		stopQueue(logicalQueueName);
 
+		long deadline = System.currentTimeMillis() + this.queueStopTimeout;
 		try {
 			if (isRunning(logicalQueueName)) {
 				Future<?> future = this.scheduledFutureByQueue.remove(logicalQueueName);
 				if (future != null) {
-					future.get(this.queueStopTimeout, TimeUnit.MILLISECONDS);
+					future.get(getRemainingTime(deadline), TimeUnit.MILLISECONDS);
 				}
 			}
 		}
@@ -252,6 +765,8 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 			getLogger().warn("Error stopping queue with name: '" + logicalQueueName + "'",
 					e);
 		}
+		waitForAdditionalPollersToStop(logicalQueueName, deadline);
+		waitForInflightMessages(logicalQueueName, deadline);
 	}
 
 	protected void stopQueue(String logicalQueueName) {
@@ -288,11 +803,69 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 		}
 
 		this.runningStateByQueue.put(queueName, true);
-		Future<?> future = getTaskExecutor()
-				.submit(new AsynchronousMessageListener(queueName, queueAttributes));
+		// The in-flight limit is shared by all pollers of the queue
+		Semaphore inflightMessages = null;
+		Integer concurrency = getConcurrency(queueAttributes);
+		if (concurrency != null) {
+			inflightMessages = new Semaphore(concurrency);
+			this.inflightMessagesByQueue.put(queueName, inflightMessages);
+		}
+		Future<?> future = getTaskExecutor().submit(new AsynchronousMessageListener(
+				queueName, queueAttributes, inflightMessages, true));
 		this.scheduledFutureByQueue.put(queueName, future);
 	}
 
+	private boolean hasStoredPayload(Message message) {
+		return this.largePayloadStore != null
+				&& LargePayloadStore.isPointer(message.getMessageAttributes());
+	}
+
+	private Map<String, Object> getStoredPayloadHeaders(Message message) {
+		if (!hasStoredPayload(message)) {
+			return Collections.emptyMap();
+		}
+		return Collections.singletonMap(LargePayloadStore.PAYLOAD_HEADER,
+				this.largePayloadStore.getPayload(message.getBody()));
+	}
+
+	private void deleteStoredPayload(Message message) {
+		try {
+			this.largePayloadStore.delete(message.getBody());
+		}
+		catch (RuntimeException e) {
+			getLogger().warn("Could not delete the stored payload of message '{}'",
+					message.getMessageId(), e);
+		}
+	}
+
+	private void startVisibilityHeartbeat(String queueUrl, List<Message> messages,
+			Integer visibilityTimeout, long receivedAt) {
+		if (this.visibilityHeartbeat != null) {
+			for (Message message : messages) {
+				this.visibilityHeartbeat.register(queueUrl, message.getReceiptHandle(),
+						visibilityTimeout, receivedAt);
+			}
+		}
+	}
+
+	private void stopVisibilityHeartbeat(String queueUrl, String receiptHandle) {
+		if (this.visibilityHeartbeat != null) {
+			this.visibilityHeartbeat.unregister(queueUrl, receiptHandle);
+		}
+	}
+
+	private void stopVisibilityHeartbeat(String queueUrl, List<Message> messages) {
+		for (Message message : messages) {
+			stopVisibilityHeartbeat(queueUrl, message.getReceiptHandle());
+		}
+	}
+
+	@Override
+	protected void returnMessages(String queueUrl, List<Message> messages) {
+		stopVisibilityHeartbeat(queueUrl, messages);
+		super.returnMessages(queueUrl, messages);
+	}
+
 	private static final class SignalExecutingRunnable implements Runnable {
 
 		private final CountDownLatch countDownLatch;
@@ -316,62 +889,473 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 
 	}
 
+	private static final class PermitReleasingRunnable implements Runnable {
+
+		private final Semaphore semaphore;
+
+		private final int permits;
+
+		private final Runnable runnable;
+
+		private PermitReleasingRunnable(Semaphore semaphore, int permits,
+				Runnable runnable) {
+			this.semaphore = semaphore;
+			this.permits = permits;
+			this.runnable = runnable;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.runnable.run();
+			}
+			finally {
+				this.semaphore.release(this.permits);
+			}
+		}
+
+	}
+
 	private final class AsynchronousMessageListener implements Runnable {
 
 		private final QueueAttributes queueAttributes;
 
 		private final String logicalQueueName;
 
+		private final Semaphore inflightMessages;
+
+		private final int maxNumberOfMessagesPerPoll;
+
+		private final PollerStatistics pollerStatistics;
+
+		/**
+		 * The primary poller of a queue is started with the queue and only stops with
+		 * it, additional pollers are started and stopped by the adaptive polling.
+		 */
+		private final boolean primary;
+
+		private boolean idle;
+
+		private int failedAttempts;
+
 		private AsynchronousMessageListener(String logicalQueueName,
-				QueueAttributes queueAttributes) {
+				QueueAttributes queueAttributes, Semaphore inflightMessages,
+				boolean primary) {
 			this.logicalQueueName = logicalQueueName;
 			this.queueAttributes = queueAttributes;
+			this.inflightMessages = inflightMessages;
+			this.primary = primary;
+			this.maxNumberOfMessagesPerPoll = queueAttributes.getMaxNumberOfMessages();
+			this.pollerStatistics = getPollerStatistics(logicalQueueName);
 		}
 
 		@Override
 		public void run() {
+			if (this.primary) {
+				this.pollerStatistics.pollerStarted();
+			}
+			try {
+				poll();
+			}
+			finally {
+				if (this.primary) {
+					SimpleMessageListenerContainer.this.scheduledFutureByQueue
+							.remove(this.logicalQueueName);
+				}
+			}
+		}
+
+		private void poll() {
 			while (isQueueRunning()) {
 				try {
-					ReceiveMessageResult receiveMessageResult = getAmazonSqs()
-							.receiveMessage(
-									this.queueAttributes.getReceiveMessageRequest());
-					CountDownLatch messageBatchLatch = new CountDownLatch(
-							receiveMessageResult.getMessages().size());
-					for (Message message : receiveMessageResult.getMessages()) {
-						if (isQueueRunning()) {
-							MessageExecutor messageExecutor = new MessageExecutor(
-									this.logicalQueueName, message, this.queueAttributes);
-							getTaskExecutor().execute(new SignalExecutingRunnable(
-									messageBatchLatch, messageExecutor));
-						}
-						else {
-							messageBatchLatch.countDown();
-						}
-					}
-					try {
-						messageBatchLatch.await();
-					}
-					catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
+					int receivedMessages = this.inflightMessages != null
+							? receiveAndDispatchMessages() : receiveAndExecuteMessages();
+					this.failedAttempts = 0;
+					if (receivedMessages >= 0 && !adaptPollers(receivedMessages)) {
+						this.pollerStatistics.scaleDown();
+						return;
 					}
 				}
 				catch (Exception e) {
+					if (e instanceof RejectedExecutionException) {
+						getMessageListenerMetrics()
+								.recordRejectedExecution(this.logicalQueueName);
+					}
+					long backOffTime = getBackOffPolicy()
+							.getBackOffTime(++this.failedAttempts, e);
 					getLogger().warn(
 							"An Exception occurred while polling queue '{}'. The failing operation will be "
 									+ "retried in {} milliseconds",
-							this.logicalQueueName, getBackOffTime(), e);
+							this.logicalQueueName, backOffTime, e);
 					try {
 						// noinspection BusyWait
-						Thread.sleep(getBackOffTime());
+						Thread.sleep(backOffTime);
 					}
 					catch (InterruptedException ie) {
 						Thread.currentThread().interrupt();
 					}
 				}
 			}
+			this.pollerStatistics.pollerStopped();
+		}
+
+		/**
+		 * Records the outcome of a receive request and, in adaptive polling mode, starts
+		 * an additional poller after a full receive.
+		 * @param receivedMessages the number of messages returned by the receive request
+		 * @return {@code false} if this poller is not needed anymore and must stop
+		 */
+		private boolean adaptPollers(int receivedMessages) {
+			this.pollerStatistics.recordReceive(receivedMessages,
+					this.maxNumberOfMessagesPerPoll);
+			if (getMaxPollersPerQueue() == null) {
+				return true;
+			}
+
+			if (receivedMessages == 0) {
+				if (!this.primary) {
+					return false;
+				}
+				this.idle = true;
+				return true;
+			}
+
+			this.idle = false;
+			if (receivedMessages >= this.maxNumberOfMessagesPerPoll && isQueueRunning()
+					&& this.pollerStatistics.tryReservePoller(getMaxPollersPerQueue())) {
+				startAdditionalPoller();
+			}
+			return true;
+		}
+
+		private void startAdditionalPoller() {
+			try {
+				Future<?> future = getTaskExecutor()
+						.submit(new AsynchronousMessageListener(this.logicalQueueName,
+								this.queueAttributes, this.inflightMessages, false));
+				Set<Future<?>> additionalPollers = SimpleMessageListenerContainer.this.additionalPollersByQueue
+						.computeIfAbsent(this.logicalQueueName,
+								key -> ConcurrentHashMap.newKeySet());
+				additionalPollers.removeIf(Future::isDone);
+				additionalPollers.add(future);
+				this.pollerStatistics.scaledUp();
+			}
+			catch (RuntimeException e) {
+				this.pollerStatistics.pollerStopped();
+				if (e instanceof RejectedExecutionException) {
+					getMessageListenerMetrics()
+							.recordRejectedExecution(this.logicalQueueName);
+				}
+				getLogger().debug("Could not start an additional poller for queue '{}'",
+						this.logicalQueueName, e);
+			}
+		}
+
+		/**
+		 * @return the receive request for the next poll, using the maximum wait time if
+		 * this poller is idle in adaptive polling mode
+		 */
+		private ReceiveMessageRequest getReceiveMessageRequest() {
+			ReceiveMessageRequest receiveMessageRequest = this.queueAttributes
+					.getReceiveMessageRequest();
+			if (this.idle) {
+				return receiveMessageRequest.clone()
+						.withWaitTimeSeconds(IDLE_WAIT_TIME_SECONDS);
+			}
+			return receiveMessageRequest;
+		}
+
+		/**
+		 * Receives the next messages and starts extending their visibility right away,
+		 * so that it is also kept while they wait for their execution.
+		 */
+		private List<Message> receiveMessages() {
+			long receivedAt = System.currentTimeMillis();
+			long start = System.nanoTime();
+			try {
+				List<Message> messages = getAmazonSqs()
+						.receiveMessage(getReceiveMessageRequest()).getMessages();
+				getMessageListenerMetrics().recordReceive(this.logicalQueueName,
+						System.nanoTime() - start, messages.size(),
+						this.maxNumberOfMessagesPerPoll);
+				startVisibilityHeartbeat(this.queueAttributes.getQueueUrl(), messages,
+						this.queueAttributes.getVisibilityTimeout(), receivedAt);
+				return messages;
+			}
+			catch (RuntimeException e) {
+				getMessageListenerMetrics().recordReceiveFailure(this.logicalQueueName,
+						System.nanoTime() - start, e);
+				throw e;
+			}
+		}
+
+		private int receiveAndExecuteMessages() {
+			List<Message> messages = receiveMessages();
+			if (this.queueAttributes.isBatch()) {
+				executeBatch(messages);
+				return messages.size();
+			}
+			if (this.queueAttributes.isFifo()) {
+				executeMessageGroups(messages);
+				return messages.size();
+			}
+			CountDownLatch messageBatchLatch = new CountDownLatch(messages.size());
+			List<Message> unstartedMessages = new ArrayList<>();
+			for (int i = 0; i < messages.size(); i++) {
+				Message message = messages.get(i);
+				if (isQueueRunning()) {
+					MessageExecutor messageExecutor = new MessageExecutor(
+							this.logicalQueueName, message, this.queueAttributes);
+					try {
+						getTaskExecutor().execute(new SignalExecutingRunnable(
+								messageBatchLatch, messageExecutor));
+					}
+					catch (RuntimeException e) {
+						stopVisibilityHeartbeat(messages.subList(i, messages.size()));
+						throw e;
+					}
+				}
+				else {
+					unstartedMessages.add(message);
+					messageBatchLatch.countDown();
+				}
+			}
+			returnMessages(unstartedMessages);
+			try {
+				messageBatchLatch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return messages.size();
+		}
+
+		private void executeMessageGroups(List<Message> messages) {
+			List<List<Message>> messageGroups = new ArrayList<>(
+					groupByMessageGroupId(messages).values());
+			CountDownLatch messageGroupsLatch = new CountDownLatch(messageGroups.size());
+			List<Message> unstartedMessages = new ArrayList<>();
+			for (int i = 0; i < messageGroups.size(); i++) {
+				List<Message> messageGroup = messageGroups.get(i);
+				if (isQueueRunning()) {
+					MessageGroupExecutor messageGroupExecutor = createMessageGroupExecutor(
+							messageGroup);
+					try {
+						getTaskExecutor().execute(new SignalExecutingRunnable(
+								messageGroupsLatch, messageGroupExecutor));
+					}
+					catch (RuntimeException e) {
+						stopVisibilityHeartbeatOfGroups(
+								messageGroups.subList(i, messageGroups.size()));
+						throw e;
+					}
+				}
+				else {
+					unstartedMessages.addAll(messageGroup);
+					messageGroupsLatch.countDown();
+				}
+			}
+			returnMessages(unstartedMessages);
+			try {
+				messageGroupsLatch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Groups the messages of a FIFO queue by their message group id, preserving the
+		 * order of the messages within each group. SQS does not return further messages
+		 * of a group while messages of that group are in flight, so ordering only needs
+		 * to be enforced within one receive.
+		 */
+		private Map<String, List<Message>> groupByMessageGroupId(List<Message> messages) {
+			Map<String, List<Message>> messageGroups = new LinkedHashMap<>();
+			for (Message message : messages) {
+				String messageGroupId = message.getAttributes()
+						.get(MESSAGE_GROUP_ID_ATTRIBUTE);
+				messageGroups.computeIfAbsent(
+						messageGroupId != null ? messageGroupId : message.getMessageId(),
+						key -> new ArrayList<>()).add(message);
+			}
+			return messageGroups;
+		}
+
+		private MessageGroupExecutor createMessageGroupExecutor(
+				List<Message> messageGroup) {
+			List<MessageExecutor> messageExecutors = new ArrayList<>(messageGroup.size());
+			for (Message message : messageGroup) {
+				messageExecutors.add(new MessageExecutor(this.logicalQueueName, message,
+						this.queueAttributes));
+			}
+			return new MessageGroupExecutor(this.logicalQueueName, messageExecutors);
+		}
+
+		private void executeBatch(List<Message> messages) {
+			if (messages.isEmpty()) {
+				return;
+			}
+			if (!isQueueRunning()) {
+				returnMessages(messages);
+				return;
+			}
+			CountDownLatch messageBatchLatch = new CountDownLatch(1);
+			MessageBatchExecutor messageBatchExecutor = new MessageBatchExecutor(
+					this.logicalQueueName, messages, this.queueAttributes);
+			try {
+				getTaskExecutor().execute(new SignalExecutingRunnable(messageBatchLatch,
+						messageBatchExecutor));
+			}
+			catch (RuntimeException e) {
+				stopVisibilityHeartbeat(messages);
+				throw e;
+			}
+			try {
+				messageBatchLatch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Pipelined variant of {@link #receiveAndExecuteMessages()} that does not wait
+		 * for the received messages to be executed. Each poll reserves one permit per
+		 * requested message, so that the number of received but not yet executed
+		 * messages never exceeds the concurrency of the queue.
+		 * @return the number of received messages or {@code -1} if the queue has not
+		 * been polled
+		 */
+		private int receiveAndDispatchMessages() {
+			try {
+				if (!this.inflightMessages.tryAcquire(this.maxNumberOfMessagesPerPoll,
+						INFLIGHT_PERMITS_WAIT_TIME, TimeUnit.MILLISECONDS)) {
+					return -1;
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return -1;
+			}
+
+			List<Message> messages;
+			try {
+				messages = receiveMessages();
+			}
+			catch (RuntimeException e) {
+				this.inflightMessages.release(this.maxNumberOfMessagesPerPoll);
+				throw e;
+			}
+			this.inflightMessages
+					.release(this.maxNumberOfMessagesPerPoll - messages.size());
+
+			if (messages.isEmpty()) {
+				return 0;
+			}
+			if (!isQueueRunning()) {
+				this.inflightMessages.release(messages.size());
+				returnMessages(messages);
+				return messages.size();
+			}
+
+			if (this.queueAttributes.isBatch()) {
+				try {
+					dispatch(new MessageBatchExecutor(this.logicalQueueName, messages,
+							this.queueAttributes), messages.size());
+				}
+				catch (RuntimeException e) {
+					stopVisibilityHeartbeat(messages);
+					throw e;
+				}
+				return messages.size();
+			}
+			if (this.queueAttributes.isFifo()) {
+				dispatchMessageGroups(messages);
+				return messages.size();
+			}
+			List<Message> unstartedMessages = new ArrayList<>();
+			for (int i = 0; i < messages.size(); i++) {
+				if (isQueueRunning()) {
+					try {
+						dispatch(new MessageExecutor(this.logicalQueueName,
+								messages.get(i), this.queueAttributes), 1);
+					}
+					catch (RuntimeException e) {
+						this.inflightMessages.release(messages.size() - i - 1);
+						stopVisibilityHeartbeat(messages.subList(i, messages.size()));
+						throw e;
+					}
+				}
+				else {
+					unstartedMessages.add(messages.get(i));
+					this.inflightMessages.release(1);
+				}
+			}
+			returnMessages(unstartedMessages);
+			return messages.size();
+		}
+
+		private void dispatchMessageGroups(List<Message> messages) {
+			List<List<Message>> messageGroups = new ArrayList<>(
+					groupByMessageGroupId(messages).values());
+			List<Message> unstartedMessages = new ArrayList<>();
+			for (int i = 0; i < messageGroups.size(); i++) {
+				List<Message> messageGroup = messageGroups.get(i);
+				if (isQueueRunning()) {
+					try {
+						dispatch(createMessageGroupExecutor(messageGroup),
+								messageGroup.size());
+					}
+					catch (RuntimeException e) {
+						for (int j = i + 1; j < messageGroups.size(); j++) {
+							this.inflightMessages.release(messageGroups.get(j).size());
+						}
+						stopVisibilityHeartbeatOfGroups(
+								messageGroups.subList(i, messageGroups.size()));
+						throw e;
+					}
+				}
+				else {
+					unstartedMessages.addAll(messageGroup);
+					this.inflightMessages.release(messageGroup.size());
+				}
+			}
+			returnMessages(unstartedMessages);
+		}
+
+		private void returnMessages(List<Message> messages) {
+			if (!messages.isEmpty()) {
+				SimpleMessageListenerContainer.this.returnMessages(
+						this.queueAttributes.getQueueUrl(),
+						messages);
+			}
+		}
 
-			SimpleMessageListenerContainer.this.scheduledFutureByQueue
-					.remove(this.logicalQueueName);
+		/**
+		 * Stops extending the visibility of received messages that could not be handed
+		 * over for their execution.
+		 */
+		private void stopVisibilityHeartbeat(List<Message> messages) {
+			SimpleMessageListenerContainer.this.stopVisibilityHeartbeat(
+					this.queueAttributes.getQueueUrl(), messages);
+		}
+
+		private void stopVisibilityHeartbeatOfGroups(List<List<Message>> messageGroups) {
+			for (List<Message> messageGroup : messageGroups) {
+				stopVisibilityHeartbeat(messageGroup);
+			}
+		}
+
+		private void dispatch(Runnable executor, int permits) {
+			try {
+				getTaskExecutor().execute(new PermitReleasingRunnable(
+						this.inflightMessages, permits, executor));
+			}
+			catch (RuntimeException e) {
+				this.inflightMessages.release(permits);
+				throw e;
+			}
 		}
 
 		private boolean isQueueRunning() {
@@ -405,50 +1389,98 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 				QueueAttributes queueAttributes) {
 			this.logicalQueueName = logicalQueueName;
 			this.message = message;
-			this.queueUrl = queueAttributes.getReceiveMessageRequest().getQueueUrl();
+			this.queueUrl = queueAttributes.getQueueUrl();
 			this.hasRedrivePolicy = queueAttributes.hasRedrivePolicy();
 			this.deletionPolicy = queueAttributes.getDeletionPolicy();
 		}
 
 		@Override
 		public void run() {
+			execute();
+		}
+
+		private Message getMessage() {
+			return this.message;
+		}
+
+		private String getQueueUrl() {
+			return this.queueUrl;
+		}
+
+		/**
+		 * Executes the message, waits for the asynchronous result of the listener method
+		 * and applies the deletion policy.
+		 * @return {@code true} if the message has been executed successfully
+		 */
+		private boolean execute() {
 			String receiptHandle = this.message.getReceiptHandle();
-			org.springframework.messaging.Message<String> queueMessage = getMessageForExecution();
+			AtomicReference<CompletionStage<?>> asyncResult = new AtomicReference<>();
+			org.springframework.messaging.Message<String> queueMessage;
+			try {
+				queueMessage = getMessageForExecution(asyncResult);
+			}
+			catch (RuntimeException e) {
+				stopVisibilityHeartbeat(this.queueUrl, receiptHandle);
+				throw e;
+			}
+			getMessageListenerMetrics().executionStarted(this.logicalQueueName, 1);
 			try {
 				executeMessage(queueMessage);
+				awaitAsyncResult(asyncResult, queueMessage);
 				applyDeletionPolicyOnSuccess(receiptHandle);
+				return true;
 			}
 			catch (MessagingException messagingException) {
 				applyDeletionPolicyOnError(receiptHandle);
+				return false;
+			}
+			finally {
+				getMessageListenerMetrics().executionFinished(this.logicalQueueName, 1);
+				stopVisibilityHeartbeat(this.queueUrl, receiptHandle);
 			}
 		}
 
 		private void applyDeletionPolicyOnSuccess(String receiptHandle) {
-			if (this.deletionPolicy == SqsMessageDeletionPolicy.ON_SUCCESS
-					|| this.deletionPolicy == SqsMessageDeletionPolicy.ALWAYS
-					|| this.deletionPolicy == SqsMessageDeletionPolicy.NO_REDRIVE) {
+			if (isDeletedOnSuccess(this.deletionPolicy)) {
 				deleteMessage(receiptHandle);
 			}
 		}
 
 		private void applyDeletionPolicyOnError(String receiptHandle) {
-			if (this.deletionPolicy == SqsMessageDeletionPolicy.ALWAYS
-					|| (this.deletionPolicy == SqsMessageDeletionPolicy.NO_REDRIVE
-							&& !this.hasRedrivePolicy)) {
+			if (isDeletedOnError(this.deletionPolicy, this.hasRedrivePolicy)) {
 				deleteMessage(receiptHandle);
 			}
 		}
 
 		private void deleteMessage(String receiptHandle) {
-			getAmazonSqs().deleteMessageAsync(
-					new DeleteMessageRequest(this.queueUrl, receiptHandle),
-					new DeleteMessageHandler(receiptHandle));
+			Runnable successCallback = hasStoredPayload(this.message)
+					? () -> deleteStoredPayload(this.message) : null;
+			DeleteMessageHandler deleteMessageHandler = new DeleteMessageHandler(
+					receiptHandle, this::recordDeletionFailure, successCallback);
+			if (SimpleMessageListenerContainer.this.deleteMessageBatchAggregator != null) {
+				SimpleMessageListenerContainer.this.deleteMessageBatchAggregator
+						.deleteMessage(this.queueUrl, receiptHandle,
+								deleteMessageHandler);
+			}
+			else {
+				getAmazonSqs().deleteMessageAsync(
+						new DeleteMessageRequest(this.queueUrl, receiptHandle),
+						deleteMessageHandler);
+			}
+		}
+
+		private void recordDeletionFailure() {
+			getMessageListenerMetrics().recordDeletionFailure(this.logicalQueueName, 1);
 		}
 
-		private org.springframework.messaging.Message<String> getMessageForExecution() {
+		private org.springframework.messaging.Message<String> getMessageForExecution(
+				AtomicReference<CompletionStage<?>> asyncResult) {
 			HashMap<String, Object> additionalHeaders = new HashMap<>();
 			additionalHeaders.put(QueueMessageHandler.LOGICAL_RESOURCE_ID,
 					this.logicalQueueName);
+			additionalHeaders.put(
+					DestinationPatternsMessageCondition.LOOKUP_DESTINATION_HEADER,
+					this.logicalQueueName);
 			if (this.deletionPolicy == SqsMessageDeletionPolicy.NEVER) {
 				String receiptHandle = this.message.getReceiptHandle();
 				QueueMessageAcknowledgment acknowledgment = new QueueMessageAcknowledgment(
@@ -460,10 +1492,202 @@ public class SimpleMessageListenerContainer extends AbstractMessageListenerConta
 					new QueueMessageVisibility(
 							SimpleMessageListenerContainer.this.getAmazonSqs(),
 							this.queueUrl, this.message.getReceiptHandle()));
+			additionalHeaders.put(QueueMessageHandler.ASYNC_RESULT, asyncResult);
+			additionalHeaders.putAll(getStoredPayloadHeaders(this.message));
 
 			return createMessage(this.message, additionalHeaders);
 		}
 
 	}
 
+	/**
+	 * Executes the messages of one message group of a FIFO queue one after the other.
+	 * The execution stops at the first failing message, the remaining messages are
+	 * received again in order once their visibility timeout expires. If the queue is
+	 * stopped, the remaining messages are returned to the queue instead of being
+	 * executed.
+	 */
+	private final class MessageGroupExecutor implements Runnable {
+
+		private final String logicalQueueName;
+
+		private final List<MessageExecutor> messageExecutors;
+
+		private MessageGroupExecutor(String logicalQueueName,
+				List<MessageExecutor> messageExecutors) {
+			this.logicalQueueName = logicalQueueName;
+			this.messageExecutors = messageExecutors;
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < this.messageExecutors.size(); i++) {
+				if (i > 0 && !isQueueRunning()) {
+					returnRemainingMessages(i);
+					return;
+				}
+				boolean executed = false;
+				try {
+					executed = this.messageExecutors.get(i).execute();
+				}
+				finally {
+					if (!executed) {
+						skipRemainingMessages(i + 1);
+					}
+				}
+				if (!executed) {
+					return;
+				}
+			}
+		}
+
+		private boolean isQueueRunning() {
+			return Boolean.TRUE.equals(SimpleMessageListenerContainer.this.runningStateByQueue
+					.get(this.logicalQueueName));
+		}
+
+		/**
+		 * Stops extending the visibility of the remaining messages, so that they are
+		 * received again in order once their visibility timeout expires.
+		 */
+		private void skipRemainingMessages(int startIndex) {
+			if (startIndex >= this.messageExecutors.size()) {
+				return;
+			}
+			getLogger().debug(
+					"Skipped {} messages of the message group of a failed message to "
+							+ "preserve their order",
+					this.messageExecutors.size() - startIndex);
+			for (MessageExecutor messageExecutor : this.messageExecutors.subList(
+					startIndex, this.messageExecutors.size())) {
+				stopVisibilityHeartbeat(messageExecutor.getQueueUrl(),
+						messageExecutor.getMessage().getReceiptHandle());
+			}
+		}
+
+		private void returnRemainingMessages(int startIndex) {
+			List<Message> messages = new ArrayList<>();
+			for (MessageExecutor messageExecutor : this.messageExecutors.subList(
+					startIndex, this.messageExecutors.size())) {
+				messages.add(messageExecutor.getMessage());
+			}
+			returnMessages(this.messageExecutors.get(startIndex).getQueueUrl(),
+					messages);
+		}
+
+	}
+
+	private final class MessageBatchExecutor implements Runnable {
+
+		private final List<Message> messages;
+
+		private final String logicalQueueName;
+
+		private final String queueUrl;
+
+		private final boolean hasRedrivePolicy;
+
+		private final SqsMessageDeletionPolicy deletionPolicy;
+
+		private MessageBatchExecutor(String logicalQueueName, List<Message> messages,
+				QueueAttributes queueAttributes) {
+			this.logicalQueueName = logicalQueueName;
+			this.messages = messages;
+			this.queueUrl = queueAttributes.getQueueUrl();
+			this.hasRedrivePolicy = queueAttributes.hasRedrivePolicy();
+			this.deletionPolicy = queueAttributes.getDeletionPolicy();
+		}
+
+		@Override
+		public void run() {
+			List<String> receiptHandles = new ArrayList<>(this.messages.size());
+			for (Message message : this.messages) {
+				receiptHandles.add(message.getReceiptHandle());
+			}
+
+			getMessageListenerMetrics().executionStarted(this.logicalQueueName,
+					receiptHandles.size());
+			try {
+				AtomicReference<CompletionStage<?>> asyncResult = new AtomicReference<>();
+				org.springframework.messaging.Message<List<org.springframework.messaging.Message<String>>> batchMessage = getMessageBatchForExecution(
+						receiptHandles, asyncResult);
+				executeMessageBatch(batchMessage);
+				awaitAsyncResult(asyncResult, batchMessage);
+				if (isDeletedOnSuccess(this.deletionPolicy)) {
+					deleteMessages(receiptHandles);
+				}
+			}
+			catch (MessagingException messagingException) {
+				if (isDeletedOnError(this.deletionPolicy, this.hasRedrivePolicy)) {
+					deleteMessages(receiptHandles);
+				}
+			}
+			finally {
+				getMessageListenerMetrics().executionFinished(this.logicalQueueName,
+						receiptHandles.size());
+				for (String receiptHandle : receiptHandles) {
+					stopVisibilityHeartbeat(this.queueUrl, receiptHandle);
+				}
+			}
+		}
+
+		private void deleteMessages(List<String> receiptHandles) {
+			getAmazonSqs().deleteMessageBatchAsync(
+					QueueMessageBatchAcknowledgment.createDeleteMessageBatchRequest(
+							this.queueUrl, receiptHandles),
+					new DeleteMessageBatchHandler(receiptHandles.size(),
+							failedMessages -> getMessageListenerMetrics()
+									.recordDeletionFailure(this.logicalQueueName,
+											failedMessages),
+							getStoredPayloadDeletion()));
+		}
+
+		/**
+		 * @return the callback deleting the stored payload of a deleted message or
+		 * {@code null} if no message of the batch has a stored payload
+		 */
+		private Consumer<String> getStoredPayloadDeletion() {
+			Map<String, Message> messagesWithStoredPayload = new HashMap<>();
+			for (Message message : this.messages) {
+				if (hasStoredPayload(message)) {
+					messagesWithStoredPayload.put(message.getReceiptHandle(), message);
+				}
+			}
+			if (messagesWithStoredPayload.isEmpty()) {
+				return null;
+			}
+			return receiptHandle -> {
+				Message message = messagesWithStoredPayload.get(receiptHandle);
+				if (message != null) {
+					deleteStoredPayload(message);
+				}
+			};
+		}
+
+		private org.springframework.messaging.Message<List<org.springframework.messaging.Message<String>>> getMessageBatchForExecution(
+				List<String> receiptHandles,
+				AtomicReference<CompletionStage<?>> asyncResult) {
+			List<org.springframework.messaging.Message<String>> batch = new ArrayList<>(
+					this.messages.size());
+			for (Message message : this.messages) {
+				batch.add(createMessage(message, getStoredPayloadHeaders(message)));
+			}
+
+			HashMap<String, Object> headers = new HashMap<>();
+			headers.put(QueueMessageHandler.LOGICAL_RESOURCE_ID, this.logicalQueueName);
+			headers.put(DestinationPatternsMessageCondition.LOOKUP_DESTINATION_HEADER,
+					this.logicalQueueName);
+			if (this.deletionPolicy == SqsMessageDeletionPolicy.NEVER) {
+				headers.put(QueueMessageHandler.ACKNOWLEDGMENT,
+						new QueueMessageBatchAcknowledgment(
+								SimpleMessageListenerContainer.this.getAmazonSqs(),
+								this.queueUrl, receiptHandles));
+			}
+			headers.put(QueueMessageHandler.ASYNC_RESULT, asyncResult);
+
+			return MessageBuilder.createMessage(batch, new MessageHeaders(headers));
+		}
+
+	}
+
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.MAX_BATCH_SIZE;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryId;
+import static org.springframework.cloud.aws.messaging.core.QueueMessageUtils.getBatchEntryIndex;
+
+/**
+ * Keeps received messages invisible to other consumers until they are executed. Messages
+ * are registered as soon as they are received, so that messages waiting for their
+ * execution (e.g. the later messages of a FIFO message group) are kept invisible as
+ * well. Every registered receipt handle whose visibility timeout is about to expire (less
+ * than half of the timeout, or less than two heartbeat intervals, left) is extended by
+ * another visibility timeout. Extensions are sent per queue with
+ * {@link ChangeMessageVisibilityBatchRequest}s of up to 10 entries. A message is
+ * extended until it is unregistered or until its visibility has been extended by the
+ * configured maximum in total, which like the 12 hours limit of SQS is counted from the
+ * time the message has been received.
+ *
+ * @author agent
+ * @since 3.0
+ */
+class VisibilityHeartbeat {
+
+	/**
+	 * Interval in milliseconds in which the registered messages are checked.
+	 */
+	static final long HEARTBEAT_INTERVAL = 1000;
+
+	/**
+	 * Maximum visibility of a message (12 hours) since it has been received, as enforced
+	 * by SQS.
+	 */
+	private static final long MAX_VISIBILITY = 12 * 60 * 60 * 1000;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(VisibilityHeartbeat.class);
+
+	private final AmazonSQSAsync amazonSqs;
+
+	private final long maxExtension;
+
+	private final Map<String, Map<String, InflightMessage>> inflightMessagesByQueue = new ConcurrentHashMap<>();
+
+	private final ScheduledFuture<?> scheduledFuture;
+
+	/**
+	 * @param amazonSqs the client used to change the visibility
+	 * @param taskScheduler the scheduler running the heartbeat
+	 * @param maxExtension the maximum number of seconds the visibility of a message is
+	 * extended in total
+	 */
+	VisibilityHeartbeat(AmazonSQSAsync amazonSqs, TaskScheduler taskScheduler,
+			int maxExtension) {
+		this.amazonSqs = amazonSqs;
+		this.maxExtension = maxExtension * 1000L;
+		this.scheduledFuture = taskScheduler != null ? taskScheduler
+				.scheduleAtFixedRate(this::extendVisibility, HEARTBEAT_INTERVAL) : null;
+	}
+
+	/**
+	 * Starts extending the visibility of the message identified by the receipt handle.
+	 * @param queueUrl the url of the queue the message was received from
+	 * @param receiptHandle the receipt handle of the message
+	 * @param visibilityTimeout the visibility timeout in seconds the message was received
+	 * with, also used for every extension
+	 * @param receivedAt the time in milliseconds the receive request of the message was
+	 * sent, from which on its visibility timeout runs
+	 */
+	void register(String queueUrl, String receiptHandle, int visibilityTimeout,
+			long receivedAt) {
+		this.inflightMessagesByQueue
+				.computeIfAbsent(queueUrl, key -> new ConcurrentHashMap<>())
+				.put(receiptHandle,
+						new InflightMessage(visibilityTimeout * 1000L, receivedAt));
+	}
+
+	/**
+	 * Stops extending the visibility of the message identified by the receipt handle.
+	 * @param queueUrl the url of the queue the message was received from
+	 * @param receiptHandle the receipt handle of the message
+	 */
+	void unregister(String queueUrl, String receiptHandle) {
+		Map<String, InflightMessage> inflightMessages = this.inflightMessagesByQueue
+				.get(queueUrl);
+		if (inflightMessages != null) {
+			inflightMessages.remove(receiptHandle);
+		}
+	}
+
+	void stop() {
+		if (this.scheduledFuture != null) {
+			this.scheduledFuture.cancel(false);
+		}
+		this.inflightMessagesByQueue.clear();
+	}
+
+	/**
+	 * Sends the visibility extensions for all registered messages that are due.
+	 */
+	void extendVisibility() {
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Map<String, InflightMessage>> queue : this.inflightMessagesByQueue
+				.entrySet()) {
+			List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>();
+			Iterator<Map.Entry<String, InflightMessage>> iterator = queue.getValue()
+					.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, InflightMessage> inflightMessage = iterator.next();
+				int extension = inflightMessage.getValue().nextExtension(now,
+						this.maxExtension);
+				if (extension < 0) {
+					logger.debug(
+							"Maximum visibility extension reached for '{}' receiptHandle",
+							inflightMessage.getKey());
+					iterator.remove();
+				}
+				else if (extension > 0) {
+					entries.add(new ChangeMessageVisibilityBatchRequestEntry(
+							getBatchEntryId(entries.size() % MAX_BATCH_SIZE),
+							inflightMessage.getKey()).withVisibilityTimeout(extension));
+				}
+			}
+
+			for (int i = 0; i < entries.size(); i += MAX_BATCH_SIZE) {
+				sendBatch(queue.getKey(), entries.subList(i,
+						Math.min(i + MAX_BATCH_SIZE, entries.size())));
+			}
+		}
+	}
+
+	private void sendBatch(String queueUrl,
+			List<ChangeMessageVisibilityBatchRequestEntry> entries) {
+		try {
+			this.amazonSqs.changeMessageVisibilityBatchAsync(
+					new ChangeMessageVisibilityBatchRequest(queueUrl,
+							new ArrayList<>(entries)),
+					new ChangeMessageVisibilityBatchCallback());
+		}
+		catch (RuntimeException e) {
+			logger.warn("An exception occurred while extending the visibility of "
+					+ "messages of queue '{}'", queueUrl, e);
+		}
+	}
+
+	private static final class InflightMessage {
+
+		private final long visibilityTimeout;
+
+		private final long receivedAt;
+
+		private long visibleAt;
+
+		private InflightMessage(long visibilityTimeout, long receivedAt) {
+			this.visibilityTimeout = visibilityTimeout;
+			this.receivedAt = receivedAt;
+			this.visibleAt = receivedAt + visibilityTimeout;
+		}
+
+		/**
+		 * @return the visibility timeout in seconds to set, {@code 0} if no extension is
+		 * due yet or {@code -1} if the message must not be extended anymore
+		 */
+		private int nextExtension(long now, long maxExtension) {
+			// Extend early enough that the next heartbeat is not too late
+			if (this.visibleAt - now > Math.max(this.visibilityTimeout / 2,
+					2 * HEARTBEAT_INTERVAL)) {
+				return 0;
+			}
+
+			long maxVisibleAt = this.receivedAt + Math.min(
+					this.visibilityTimeout + maxExtension, MAX_VISIBILITY);
+			long extension = Math.min(this.visibilityTimeout, maxVisibleAt - now);
+			if (extension < 1000 || this.visibleAt >= maxVisibleAt) {
+				return -1;
+			}
+
+			this.visibleAt = now + extension;
+			return (int) (extension / 1000);
+		}
+
+	}
+
+	private final class ChangeMessageVisibilityBatchCallback implements
+			AsyncHandler<ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult> {
+
+		@Override
+		public void onError(Exception exception) {
+			logger.warn(
+					"An exception occurred while extending the visibility of messages",
+					exception);
+		}
+
+		@Override
+		public void onSuccess(ChangeMessageVisibilityBatchRequest request,
+				ChangeMessageVisibilityBatchResult result) {
+			for (BatchResultErrorEntry failedEntry : result.getFailed()) {
+				String receiptHandle = request.getEntries()
+						.get(getBatchEntryIndex(failedEntry.getId())).getReceiptHandle();
+				logger.debug(
+						"Stopped extending the visibility of '{}' receiptHandle: {}",
+						receiptHandle, failedEntry.getMessage());
+				unregister(request.getQueueUrl(), receiptHandle);
+			}
+		}
+
+	}
+
+}
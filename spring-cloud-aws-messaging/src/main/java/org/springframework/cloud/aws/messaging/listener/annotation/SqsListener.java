@@ -55,6 +55,21 @@ import org.springframework.messaging.handler.annotation.MessageMapping;
  * {@link SqsMessageDeletionPolicy#NEVER}.</li>
  * </ul>
  * <p>
+ * When {@link #batch()} is enabled, the listener method receives all messages returned
+ * by one poll at once. The payload argument must then be declared as {@code List<T>} or
+ * {@code List<Message<T>>}, and an
+ * {@link org.springframework.cloud.aws.messaging.listener.BatchAcknowledgment} argument
+ * can be used to acknowledge a subset of the messages.
+ * </p>
+ * <p>
+ * The receive settings and the concurrency can be overridden per listener with
+ * {@link #concurrency()}, {@link #maxMessagesPerPoll()}, {@link #waitTimeSeconds()},
+ * {@link #visibilityTimeout()}, {@link #attributeNames()} and
+ * {@link #messageAttributeNames()}. Queues of listener methods that do not define them
+ * use the defaults of the listener container. These attributes support placeholders and
+ * SpEL expressions, like the queue names.
+ * </p>
+ * <p>
  * Additionally a deletion policy can be chosen to define when a message must be deleted
  * once the listener method has been called. To get an overview of the available deletion
  * policies read the {@link SqsMessageDeletionPolicy} documentation.
@@ -88,4 +103,63 @@ public @interface SqsListener {
 	 */
 	SqsMessageDeletionPolicy deletionPolicy() default SqsMessageDeletionPolicy.DEFAULT;
 
+	/**
+	 * Defines if the listener method is called once per received batch of messages
+	 * instead of once per message. Successfully processed batches are deleted with a
+	 * single {@code DeleteMessageBatch} request.
+	 * @return {@code true} if the listener method consumes batches of messages
+	 */
+	boolean batch() default false;
+
+	/**
+	 * The maximum number of received messages of the queues of this listener method that
+	 * may wait for or be in execution at the same time. Each queue gets its own limit and
+	 * uses the pipelined polling mode, so that a slow queue does not take the threads of
+	 * the other queues. The value must not be lower than the maximum number of messages
+	 * per poll. Defaults to the {@code maxInflightMessagesPerQueue} of the container.
+	 * @return the maximum number of in-flight messages per queue
+	 */
+	String concurrency() default "";
+
+	/**
+	 * The maximum number of messages received by one poll, between 1 and 10. Defaults to
+	 * the {@code maxNumberOfMessages} of the container.
+	 * @return the maximum number of messages per poll
+	 */
+	String maxMessagesPerPoll() default "";
+
+	/**
+	 * The number of seconds a poll waits for messages to arrive (long polling), at most
+	 * 20. Defaults to the {@code waitTimeOut} of the container.
+	 * @return the wait time in seconds
+	 */
+	String waitTimeSeconds() default "";
+
+	/**
+	 * The number of seconds the received messages are hidden from subsequent receive
+	 * requests, at most 43200 (12 hours). Defaults to the {@code visibilityTimeout} of
+	 * the container.
+	 * @return the visibility timeout in seconds
+	 */
+	String visibilityTimeout() default "";
+
+	/**
+	 * The system attributes (e.g. {@code ApproximateReceiveCount}) that are received
+	 * with the messages of the queues of this listener method. Receiving only the
+	 * attributes read by the listener method reduces the size of the receive responses.
+	 * Defaults to the {@code attributeNames} of the container, which requests all
+	 * attributes.
+	 * @return the names of the system attributes to receive
+	 */
+	String[] attributeNames() default {};
+
+	/**
+	 * The message attributes that are received with the messages of the queues of this
+	 * listener method. Names may end with {@code .*} to match a prefix. Defaults to the
+	 * {@code messageAttributeNames} of the container, which requests all message
+	 * attributes.
+	 * @return the names of the message attributes to receive
+	 */
+	String[] messageAttributeNames() default {};
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cloud.aws.messaging.support.converter.CompressingMessageConverter;
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Resolves {@code List<T>} and {@code List<Message<T>>} arguments of batch listener
+ * methods. The payload of a batch message is the list of received messages, each of them
+ * is converted individually into the element type of the method parameter. Messages that
+ * do not contain a batch are passed to the delegate resolver, so that {@code List}
+ * payloads of regular listener methods are still converted as a whole.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class BatchPayloadHandlerMethodArgumentResolver
+		implements HandlerMethodArgumentResolver {
+
+	private final MessageConverter messageConverter;
+
+	private final HandlerMethodArgumentResolver payloadArgumentResolver;
+
+	public BatchPayloadHandlerMethodArgumentResolver(MessageConverter messageConverter,
+			HandlerMethodArgumentResolver payloadArgumentResolver) {
+		this.messageConverter = messageConverter;
+		this.payloadArgumentResolver = payloadArgumentResolver;
+	}
+
+	public static boolean isBatch(Message<?> message) {
+		if (!(message.getPayload() instanceof List)) {
+			return false;
+		}
+		for (Object element : (List<?>) message.getPayload()) {
+			if (!(element instanceof Message)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return List.class == parameter.getParameterType();
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, Message<?> message)
+			throws Exception {
+		if (!isBatch(message)) {
+			return this.payloadArgumentResolver.resolveArgument(parameter, message);
+		}
+
+		MethodParameter elementParameter = parameter.nested();
+		boolean messageElements = Message.class
+				.isAssignableFrom(elementParameter.getNestedParameterType());
+		MethodParameter payloadParameter = messageElements ? elementParameter.nested()
+				: elementParameter;
+
+		List<?> batch = (List<?>) message.getPayload();
+		List<Object> arguments = new ArrayList<>(batch.size());
+		for (Object element : batch) {
+			Message<?> batchMessage = resolvePayload((Message<?>) element);
+			Object payload = convertPayload(batchMessage, payloadParameter);
+			arguments.add(messageElements
+					? MessageBuilder.createMessage(payload, batchMessage.getHeaders())
+					: payload);
+		}
+		return arguments;
+	}
+
+	private Message<?> resolvePayload(Message<?> message) {
+		Message<?> resolvedMessage = LargePayloadHandlerMethodArgumentResolver
+				.resolveStoredPayload(message);
+		return this.messageConverter instanceof CompressingMessageConverter
+				? ((CompressingMessageConverter) this.messageConverter)
+						.decompress(resolvedMessage)
+				: resolvedMessage;
+	}
+
+	private Object convertPayload(Message<?> message, MethodParameter payloadParameter) {
+		Class<?> targetClass = payloadParameter.getNestedParameterType();
+		if (ClassUtils.isAssignableValue(targetClass, message.getPayload())) {
+			return message.getPayload();
+		}
+
+		Object payload = this.messageConverter instanceof SmartMessageConverter
+				? ((SmartMessageConverter) this.messageConverter).fromMessage(message,
+						targetClass, payloadParameter)
+				: this.messageConverter.fromMessage(message, targetClass);
+		if (payload == null) {
+			throw new MessageConversionException(message,
+					"Cannot convert from [" + message.getPayload().getClass().getName()
+							+ "] to [" + targetClass.getName() + "] for " + message);
+		}
+		return payload;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener.support;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.cloud.aws.messaging.core.LargePayloadStore;
+import org.springframework.cloud.aws.messaging.support.converter.CompressingMessageConverter;
+import org.springframework.cloud.aws.messaging.support.converter.PayloadCompression;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Decorates a payload or message argument resolver to resolve the payloads stored by a
+ * {@link LargePayloadStore}. {@link InputStream} and {@link Resource} payload arguments
+ * stream the stored payload without materializing it, all other arguments are resolved
+ * by the delegate from a message containing the stored payload. Payloads of regular
+ * messages are also available as {@link InputStream} and {@link Resource}. If a
+ * {@link CompressingMessageConverter} with a compression is given, the payloads it
+ * compressed are decompressed, streams while they are read.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class LargePayloadHandlerMethodArgumentResolver
+		implements HandlerMethodArgumentResolver {
+
+	private final HandlerMethodArgumentResolver delegate;
+
+	private final CompressingMessageConverter compressingMessageConverter;
+
+	public LargePayloadHandlerMethodArgumentResolver(
+			HandlerMethodArgumentResolver delegate) {
+		this(delegate, null);
+	}
+
+	public LargePayloadHandlerMethodArgumentResolver(
+			HandlerMethodArgumentResolver delegate,
+			CompressingMessageConverter compressingMessageConverter) {
+		this.delegate = delegate;
+		this.compressingMessageConverter = compressingMessageConverter;
+	}
+
+	/**
+	 * Replaces the payload of a message received for a pointer message with the stored
+	 * payload.
+	 * @param message the received message
+	 * @return the message containing the stored payload, or the given message if it has
+	 * no stored payload
+	 */
+	public static Message<?> resolveStoredPayload(Message<?> message) {
+		Resource storedPayload = message.getHeaders()
+				.get(LargePayloadStore.PAYLOAD_HEADER, Resource.class);
+		if (storedPayload == null) {
+			return message;
+		}
+		return MessageBuilder.createMessage(LargePayloadStore.read(storedPayload),
+				message.getHeaders());
+	}
+
+	/**
+	 * Replaces the stored or compressed payload of a received message with the original
+	 * payload.
+	 * @param message the received message
+	 * @return the message containing the original payload
+	 */
+	private Message<?> resolvePayload(Message<?> message) {
+		Message<?> resolvedMessage = resolveStoredPayload(message);
+		return this.compressingMessageConverter != null
+				? this.compressingMessageConverter.decompress(resolvedMessage)
+				: resolvedMessage;
+	}
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return this.delegate.supportsParameter(parameter);
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, Message<?> message)
+			throws Exception {
+		Class<?> parameterType = parameter.getParameterType();
+		if (InputStream.class == parameterType || Resource.class == parameterType) {
+			Resource payload = getPayloadResource(message);
+			PayloadCompression compression = this.compressingMessageConverter != null
+					? this.compressingMessageConverter
+							.getDecompression(message.getHeaders())
+					: null;
+			if (payload != null && compression != null) {
+				InputStream inputStream = compression
+						.decompress(payload.getInputStream());
+				return InputStream.class == parameterType ? inputStream
+						: new InputStreamResource(inputStream);
+			}
+			if (payload != null) {
+				return InputStream.class == parameterType ? payload.getInputStream()
+						: payload;
+			}
+		}
+		return this.delegate.resolveArgument(parameter, resolvePayload(message));
+	}
+
+	private static Resource getPayloadResource(Message<?> message) {
+		Resource storedPayload = message.getHeaders()
+				.get(LargePayloadStore.PAYLOAD_HEADER, Resource.class);
+		if (storedPayload != null) {
+			return storedPayload;
+		}
+		if (message.getPayload() instanceof String) {
+			return new ByteArrayResource(
+					((String) message.getPayload()).getBytes(StandardCharsets.UTF_8));
+		}
+		if (message.getPayload() instanceof byte[]) {
+			return new ByteArrayResource((byte[]) message.getPayload());
+		}
+		return null;
+	}
+
+}
@@ -45,7 +45,7 @@ public class SqsHeadersMethodArgumentResolver extends HeadersMethodArgumentResol
 		final Object resolvedParameter = Objects
 				.requireNonNull(super.resolveArgument(parameter, message));
 		if (Map.class.isAssignableFrom(resolvedParameter.getClass())
-				&& SqsMessageHeaders.class != resolvedParameter.getClass()) {
+				&& !(resolvedParameter instanceof SqsMessageHeaders)) {
 			return new SqsMessageHeaders((Map<String, Object>) resolvedParameter);
 		}
 		else {
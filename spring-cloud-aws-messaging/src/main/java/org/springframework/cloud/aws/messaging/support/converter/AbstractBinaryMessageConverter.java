@@ -0,0 +1,163 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Base class for converters that serialize payloads with a binary codec. Unlike the
+ * {@link ObjectMessageConverter}, the encoded payload is not converted into a String by
+ * default: it is sent in the binary {@value #PAYLOAD_ATTRIBUTE} message attribute and
+ * decoded straight from the received attribute value. The body of the message only
+ * references the attribute, because SQS does not accept empty bodies. Alternatively the
+ * encoded payload can be sent Base64 encoded in the body (see
+ * {@link #setPayloadInMessageAttribute(boolean)}), e.g. for SNS topics without raw
+ * message delivery.
+ * <p>
+ * Implementations are selected by the content type of the message, which is sent with
+ * the payload.
+ * </p>
+ *
+ * @author agent
+ * @since 3.0
+ */
+public abstract class AbstractBinaryMessageConverter extends AbstractMessageConverter {
+
+	/**
+	 * Name of the binary message attribute and header containing the encoded payload.
+	 */
+	public static final String PAYLOAD_ATTRIBUTE = "BinaryPayload";
+
+	private boolean payloadInMessageAttribute = true;
+
+	protected AbstractBinaryMessageConverter(MimeType... supportedMimeTypes) {
+		super(Arrays.asList(supportedMimeTypes));
+	}
+
+	public boolean isPayloadInMessageAttribute() {
+		return this.payloadInMessageAttribute;
+	}
+
+	/**
+	 * Configures if the encoded payload is sent in the binary
+	 * {@value #PAYLOAD_ATTRIBUTE} message attribute or Base64 encoded in the body.
+	 * Received payloads are decoded from both. Default is {@code true}. Listeners that
+	 * restrict the received message attributes must request the attribute.
+	 * @param payloadInMessageAttribute {@code false} to send the payload in the body
+	 */
+	public void setPayloadInMessageAttribute(boolean payloadInMessageAttribute) {
+		this.payloadInMessageAttribute = payloadInMessageAttribute;
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return true;
+	}
+
+	@Override
+	protected Object convertFromInternal(Message<?> message, Class<?> targetClass,
+			Object conversionHint) {
+		try {
+			Object payloadAttribute = message.getHeaders().get(PAYLOAD_ATTRIBUTE);
+			if (payloadAttribute instanceof ByteBuffer) {
+				ByteBuffer content = (ByteBuffer) payloadAttribute;
+				if (content.hasArray()) {
+					return decode(content.array(),
+							content.arrayOffset() + content.position(),
+							content.remaining(), targetClass, conversionHint);
+				}
+				byte[] copy = new byte[content.remaining()];
+				content.duplicate().get(copy);
+				return decode(copy, 0, copy.length, targetClass, conversionHint);
+			}
+
+			Object payload = message.getPayload();
+			byte[] content = payload instanceof byte[] ? (byte[]) payload
+					: Base64.getDecoder().decode(payload.toString());
+			return decode(content, 0, content.length, targetClass, conversionHint);
+		}
+		catch (IOException | IllegalArgumentException e) {
+			throw new MessageConversionException(message,
+					"Error decoding binary payload: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	protected Object convertToInternal(Object payload, MessageHeaders headers,
+			Object conversionHint) {
+		try {
+			return encode(payload, conversionHint);
+		}
+		catch (IOException e) {
+			throw new MessageConversionException(
+					"Error encoding payload: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public Message<?> toMessage(Object payload, MessageHeaders headers,
+			Object conversionHint) {
+		Message<?> message = super.toMessage(payload, headers, conversionHint);
+		if (message == null || !(message.getPayload() instanceof byte[])) {
+			return message;
+		}
+
+		byte[] content = (byte[]) message.getPayload();
+		if (this.payloadInMessageAttribute) {
+			return MessageBuilder.withPayload(PAYLOAD_ATTRIBUTE)
+					.copyHeaders(message.getHeaders())
+					.setHeader(PAYLOAD_ATTRIBUTE, ByteBuffer.wrap(content)).build();
+		}
+		return MessageBuilder.withPayload(Base64.getEncoder().encodeToString(content))
+				.copyHeaders(message.getHeaders()).build();
+	}
+
+	/**
+	 * Encodes the payload.
+	 * @param payload the payload to send
+	 * @param conversionHint an extra object passed to the converter
+	 * @return the encoded payload
+	 * @throws IOException if the payload cannot be encoded
+	 */
+	protected abstract byte[] encode(Object payload, Object conversionHint)
+			throws IOException;
+
+	/**
+	 * Decodes a received payload.
+	 * @param content the buffer containing the encoded payload
+	 * @param offset the offset of the encoded payload in the buffer
+	 * @param length the length of the encoded payload
+	 * @param targetClass the target type of the conversion
+	 * @param conversionHint an extra object passed to the converter, e.g. the
+	 * {@link org.springframework.core.MethodParameter} of a listener method
+	 * @return the decoded payload
+	 * @throws IOException if the payload cannot be decoded
+	 */
+	protected abstract Object decode(byte[] content, int offset, int length,
+			Class<?> targetClass, Object conversionHint) throws IOException;
+
+}
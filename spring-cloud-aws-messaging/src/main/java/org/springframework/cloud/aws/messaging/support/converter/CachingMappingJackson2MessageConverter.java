@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * {@link MappingJackson2MessageConverter} that serializes payloads into Strings, as
+ * required by the SQS and SNS APIs, and caches the Jackson infrastructure used for every
+ * message. The {@link ObjectReader} is created once per listener method parameter or
+ * target type, including the resolution of the generic {@link JavaType} and of the
+ * {@code @JsonView}. Payloads are written with a cached {@link ObjectWriter}, which uses
+ * the recycled buffers of Jackson, and are read directly from the received String.
+ * <p>
+ * The caches are cleared when the {@link ObjectMapper} is replaced. Changing the
+ * configuration of the {@link ObjectMapper} after the first conversion is not supported.
+ * </p>
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class CachingMappingJackson2MessageConverter
+		extends MappingJackson2MessageConverter {
+
+	private static final Object NO_VIEW = new Object();
+
+	private final Map<Object, ObjectReader> readers = new ConcurrentReferenceHashMap<>();
+
+	private final Map<Object, ObjectWriter> writers = new ConcurrentReferenceHashMap<>();
+
+	private final Map<Class<?>, Boolean> deserializableTypes = new ConcurrentReferenceHashMap<>();
+
+	private final Map<Class<?>, Boolean> serializableTypes = new ConcurrentReferenceHashMap<>();
+
+	public CachingMappingJackson2MessageConverter() {
+		setSerializedPayloadClass(String.class);
+	}
+
+	public CachingMappingJackson2MessageConverter(ObjectMapper objectMapper) {
+		this();
+		setObjectMapper(objectMapper);
+	}
+
+	@Override
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		super.setObjectMapper(objectMapper);
+		clearCaches();
+	}
+
+	@Override
+	public void setPrettyPrint(boolean prettyPrint) {
+		super.setPrettyPrint(prettyPrint);
+		clearCaches();
+	}
+
+	private void clearCaches() {
+		// Guards against invocations from the constructor of the superclass
+		if (this.readers != null) {
+			this.readers.clear();
+			this.writers.clear();
+			this.deserializableTypes.clear();
+			this.serializableTypes.clear();
+		}
+	}
+
+	@Override
+	protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+		if (targetClass == null || !supportsMimeType(message.getHeaders())) {
+			return false;
+		}
+		return this.deserializableTypes.computeIfAbsent(targetClass,
+				type -> super.canConvertFrom(message, type));
+	}
+
+	@Override
+	protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+		if (!supportsMimeType(headers)) {
+			return false;
+		}
+		return this.serializableTypes.computeIfAbsent(payload.getClass(),
+				type -> super.canConvertTo(payload, headers));
+	}
+
+	@Override
+	protected Object convertFromInternal(Message<?> message, Class<?> targetClass,
+			Object conversionHint) {
+		ObjectReader reader = getReader(targetClass, conversionHint);
+		Object payload = message.getPayload();
+		try {
+			if (payload instanceof byte[]) {
+				return reader.readValue((byte[]) payload);
+			}
+			return reader.readValue(payload.toString());
+		}
+		catch (IOException ex) {
+			throw new MessageConversionException(message,
+					"Could not read JSON: " + ex.getMessage(), ex);
+		}
+	}
+
+	@Override
+	protected Object convertToInternal(Object payload, MessageHeaders headers,
+			Object conversionHint) {
+		if (byte[].class == getSerializedPayloadClass()) {
+			// The superclass applies the charset of the content type
+			return super.convertToInternal(payload, headers, conversionHint);
+		}
+		try {
+			return getWriter(conversionHint).writeValueAsString(payload);
+		}
+		catch (IOException ex) {
+			throw new MessageConversionException(
+					"Could not write JSON: " + ex.getMessage(), ex);
+		}
+	}
+
+	private ObjectReader getReader(Class<?> targetClass, Object conversionHint) {
+		Object key = conversionHint instanceof MethodParameter ? conversionHint
+				: targetClass;
+		ObjectReader reader = this.readers.get(key);
+		if (reader == null) {
+			reader = getObjectMapper()
+					.readerFor(getJavaType(targetClass, conversionHint));
+			Class<?> view = getSerializationView(conversionHint);
+			if (view != null) {
+				reader = reader.withView(view);
+			}
+			this.readers.put(key, reader);
+		}
+		return reader;
+	}
+
+	private ObjectWriter getWriter(Object conversionHint) {
+		Class<?> view = getSerializationView(conversionHint);
+		Object key = view != null ? view : NO_VIEW;
+		ObjectWriter writer = this.writers.get(key);
+		if (writer == null) {
+			writer = view != null ? getObjectMapper().writerWithView(view)
+					: getObjectMapper().writer();
+			this.writers.put(key, writer);
+		}
+		return writer;
+	}
+
+	private JavaType getJavaType(Class<?> targetClass, Object conversionHint) {
+		if (conversionHint instanceof MethodParameter) {
+			MethodParameter parameter = (MethodParameter) conversionHint;
+			parameter = parameter.nestedIfOptional();
+			if (Message.class.isAssignableFrom(parameter.getParameterType())) {
+				parameter = parameter.nested();
+			}
+			Type type = GenericTypeResolver.resolveType(
+					parameter.getNestedGenericParameterType(),
+					parameter.getContainingClass());
+			return getObjectMapper().constructType(type);
+		}
+		return getObjectMapper().constructType(targetClass);
+	}
+
+}
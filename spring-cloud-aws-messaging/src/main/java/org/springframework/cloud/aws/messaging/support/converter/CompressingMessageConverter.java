@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import org.springframework.cloud.aws.messaging.core.LargePayloadStore;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CompositeMessageConverter} that compresses the converted payloads that are
+ * larger than a threshold. Compressed payloads are Base64 encoded and marked with the
+ * {@value #CONTENT_ENCODING_HEADER} header, which is sent as a message attribute.
+ * If a compression is configured, received payloads marked with any supported content
+ * encoding are decompressed before they are passed to the converters. Decompressed
+ * payloads larger than the maximum decompressed size are rejected.
+ * <p>
+ * Only {@code String} payloads are compressed. Payloads that do not get smaller are sent
+ * uncompressed.
+ * </p>
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class CompressingMessageConverter extends CompositeMessageConverter {
+
+	/**
+	 * Name of the header and message attribute containing the content encoding of a
+	 * compressed payload.
+	 */
+	public static final String CONTENT_ENCODING_HEADER = "contentEncoding";
+
+	/**
+	 * Default size in bytes above which payloads are compressed.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	/**
+	 * Default maximum size in bytes of a decompressed payload.
+	 */
+	public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 10 * 1024 * 1024;
+
+	private PayloadCompression compression;
+
+	private int threshold = DEFAULT_THRESHOLD;
+
+	private int maxDecompressedSize = DEFAULT_MAX_DECOMPRESSED_SIZE;
+
+	public CompressingMessageConverter(Collection<MessageConverter> converters) {
+		this(converters, null);
+	}
+
+	public CompressingMessageConverter(Collection<MessageConverter> converters,
+			PayloadCompression compression) {
+		super(converters);
+		this.compression = compression;
+	}
+
+	/**
+	 * Replaces a compressed payload with the decompressed payload.
+	 * @param message the received message
+	 * @return the message containing the decompressed payload, or the given message if
+	 * its payload is not compressed with a supported content encoding or no compression
+	 * is configured
+	 */
+	public Message<?> decompress(Message<?> message) {
+		PayloadCompression decompression = getDecompression(message.getHeaders());
+		if (decompression == null || !(message.getPayload() instanceof String)) {
+			return message;
+		}
+		return MessageBuilder
+				.withPayload(decompression.decompress((String) message.getPayload(),
+						this.maxDecompressedSize))
+				.copyHeaders(message.getHeaders())
+				.removeHeader(CONTENT_ENCODING_HEADER).build();
+	}
+
+	/**
+	 * @param headers the headers of a received message
+	 * @return the compression to decompress the payload with or {@code null} if the
+	 * payload is not compressed with a supported content encoding or no compression is
+	 * configured
+	 */
+	public PayloadCompression getDecompression(MessageHeaders headers) {
+		if (this.compression == null) {
+			return null;
+		}
+		Object contentEncoding = headers.get(CONTENT_ENCODING_HEADER);
+		return contentEncoding instanceof String
+				? PayloadCompression.forContentEncoding((String) contentEncoding) : null;
+	}
+
+	public PayloadCompression getCompression() {
+		return this.compression;
+	}
+
+	/**
+	 * Configures the compression of the converted payloads, which also enables the
+	 * decompression of received payloads. Default is {@code null} (payloads are neither
+	 * compressed nor decompressed).
+	 * @param compression the compression algorithm
+	 */
+	public void setCompression(PayloadCompression compression) {
+		this.compression = compression;
+	}
+
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * The size in bytes (UTF-8 encoded) above which converted payloads are compressed.
+	 * Compressing small payloads costs CPU time without reducing the number of billed
+	 * 64 KB chunks. Default is 1 KB.
+	 * @param threshold the threshold in bytes
+	 */
+	public void setThreshold(int threshold) {
+		Assert.isTrue(threshold >= 0, "threshold must not be negative");
+		this.threshold = threshold;
+	}
+
+	public int getMaxDecompressedSize() {
+		return this.maxDecompressedSize;
+	}
+
+	/**
+	 * The maximum size in bytes of a decompressed payload. Received payloads that
+	 * decompress to more bytes are rejected with a {@link MessageConversionException},
+	 * so that a small compressed payload cannot exhaust the memory. Default is 10 MB.
+	 * @param maxDecompressedSize the maximum size in bytes
+	 */
+	public void setMaxDecompressedSize(int maxDecompressedSize) {
+		Assert.isTrue(maxDecompressedSize > 0, "maxDecompressedSize must be positive");
+		this.maxDecompressedSize = maxDecompressedSize;
+	}
+
+	@Override
+	public Object fromMessage(Message<?> message, Class<?> targetClass) {
+		return super.fromMessage(decompress(message), targetClass);
+	}
+
+	@Override
+	public Object fromMessage(Message<?> message, Class<?> targetClass,
+			Object conversionHint) {
+		return super.fromMessage(decompress(message), targetClass, conversionHint);
+	}
+
+	@Override
+	public Message<?> toMessage(Object payload, MessageHeaders headers) {
+		return compress(super.toMessage(payload, headers));
+	}
+
+	@Override
+	public Message<?> toMessage(Object payload, MessageHeaders headers,
+			Object conversionHint) {
+		return compress(super.toMessage(payload, headers, conversionHint));
+	}
+
+	private Message<?> compress(Message<?> message) {
+		if (message == null || this.compression == null
+				|| !(message.getPayload() instanceof String)
+				|| message.getHeaders().containsKey(CONTENT_ENCODING_HEADER)) {
+			return message;
+		}
+
+		String payload = (String) message.getPayload();
+		if (!LargePayloadStore.exceedsUtf8Length(payload, this.threshold)) {
+			return message;
+		}
+		byte[] content = payload.getBytes(StandardCharsets.UTF_8);
+		String compressed = this.compression.compress(content);
+		if (compressed.length() >= content.length) {
+			return message;
+		}
+		return MessageBuilder.withPayload(compressed).copyHeaders(message.getHeaders())
+				.setHeader(CONTENT_ENCODING_HEADER,
+						this.compression.getContentEncoding())
+				.build();
+	}
+
+}
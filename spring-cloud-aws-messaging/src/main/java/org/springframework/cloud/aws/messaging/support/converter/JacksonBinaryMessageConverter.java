@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.MethodParameter;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+
+/**
+ * {@link AbstractBinaryMessageConverter} that encodes payloads with a Jackson
+ * {@link ObjectMapper} of a binary data format. CBOR ({@code application/cbor}) is used
+ * by default. Other formats are used by passing an {@link ObjectMapper} of the format
+ * together with its content type, e.g. Smile:
+ *
+ * <pre class="code">
+ * new JacksonBinaryMessageConverter(new ObjectMapper(new SmileFactory()),
+ * 		MimeType.valueOf("application/x-jackson-smile"));
+ * </pre>
+ *
+ * Jackson writes into recycled buffers and reads directly from the received bytes.
+ *
+ * @author agent
+ * @since 3.0
+ */
+public class JacksonBinaryMessageConverter extends AbstractBinaryMessageConverter {
+
+	/**
+	 * Content type of CBOR encoded payloads.
+	 */
+	public static final MimeType CBOR = new MimeType("application", "cbor");
+
+	private final ObjectMapper objectMapper;
+
+	public JacksonBinaryMessageConverter() {
+		this(new ObjectMapper(new CBORFactory()), CBOR);
+	}
+
+	public JacksonBinaryMessageConverter(ObjectMapper objectMapper,
+			MimeType... supportedMimeTypes) {
+		super(supportedMimeTypes);
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		this.objectMapper = objectMapper;
+	}
+
+	public ObjectMapper getObjectMapper() {
+		return this.objectMapper;
+	}
+
+	@Override
+	protected byte[] encode(Object payload, Object conversionHint) throws IOException {
+		return this.objectMapper.writeValueAsBytes(payload);
+	}
+
+	@Override
+	protected Object decode(byte[] content, int offset, int length, Class<?> targetClass,
+			Object conversionHint) throws IOException {
+		return this.objectMapper.readValue(content, offset, length,
+				getJavaType(targetClass, conversionHint));
+	}
+
+	private JavaType getJavaType(Class<?> targetClass, Object conversionHint) {
+		if (conversionHint instanceof MethodParameter) {
+			MethodParameter parameter = (MethodParameter) conversionHint;
+			Type type = GenericTypeResolver.resolveType(
+					parameter.getNestedGenericParameterType(),
+					parameter.getContainingClass());
+			return this.objectMapper.constructType(type);
+		}
+		return this.objectMapper.constructType(targetClass);
+	}
+
+}
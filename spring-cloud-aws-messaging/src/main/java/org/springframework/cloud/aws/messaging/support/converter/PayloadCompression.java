@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Compression algorithms for message payloads. Compressed payloads are Base64 encoded,
+ * because SQS and SNS only accept text payloads.
+ *
+ * @author agent
+ * @since 3.0
+ * @see CompressingMessageConverter
+ */
+public enum PayloadCompression {
+
+	/**
+	 * GZIP compression (RFC 1952).
+	 */
+	GZIP("gzip") {
+		@Override
+		OutputStream createOutputStream(OutputStream outputStream) throws IOException {
+			return new GZIPOutputStream(outputStream);
+		}
+
+		@Override
+		InputStream createInputStream(InputStream inputStream) throws IOException {
+			return new GZIPInputStream(inputStream);
+		}
+	},
+
+	/**
+	 * Deflate compression with zlib wrapper (RFC 1950), which is slightly more compact
+	 * than {@link #GZIP}.
+	 */
+	DEFLATE("deflate") {
+		@Override
+		OutputStream createOutputStream(OutputStream outputStream) {
+			return new DeflaterOutputStream(outputStream);
+		}
+
+		@Override
+		InputStream createInputStream(InputStream inputStream) {
+			return new InflaterInputStream(inputStream);
+		}
+	};
+
+	private final String contentEncoding;
+
+	PayloadCompression(String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+	}
+
+	/**
+	 * @param contentEncoding the content encoding of a received message
+	 * @return the compression of the content encoding or {@code null} if the content
+	 * encoding is not supported
+	 */
+	public static PayloadCompression forContentEncoding(String contentEncoding) {
+		for (PayloadCompression compression : values()) {
+			if (compression.contentEncoding.equalsIgnoreCase(contentEncoding)) {
+				return compression;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the value of the content encoding header marking payloads compressed with
+	 * this compression
+	 */
+	public String getContentEncoding() {
+		return this.contentEncoding;
+	}
+
+	/**
+	 * Compresses the content and encodes the result with Base64.
+	 * @param content the content to compress
+	 * @return the Base64 encoded compressed content
+	 */
+	public String compress(byte[] content) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(
+				content.length / 4 + 64);
+		try (OutputStream outputStream = createOutputStream(
+				Base64.getEncoder().wrap(compressed))) {
+			outputStream.write(content);
+		}
+		catch (IOException e) {
+			throw new MessageConversionException("Error compressing payload", e);
+		}
+		return new String(compressed.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Decodes and decompresses a payload compressed with {@link #compress(byte[])}.
+	 * @param payload the Base64 encoded compressed payload
+	 * @param maxDecompressedSize the maximum size in bytes of the decompressed payload
+	 * @return the decompressed payload
+	 * @throws MessageConversionException if the payload cannot be decompressed or its
+	 * decompressed size exceeds the maximum size
+	 */
+	public String decompress(String payload, int maxDecompressedSize) {
+		try (InputStream inputStream = decompress(new ByteArrayInputStream(
+				payload.getBytes(StandardCharsets.US_ASCII)))) {
+			ByteArrayOutputStream decompressed = new ByteArrayOutputStream(
+					(int) Math.min(payload.length() * 4L, maxDecompressedSize));
+			byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+			int bytesRead;
+			while ((bytesRead = inputStream.read(buffer)) != -1) {
+				if (decompressed.size() + bytesRead > maxDecompressedSize) {
+					throw new MessageConversionException(
+							"Decompressed payload exceeds the maximum size of "
+									+ maxDecompressedSize + " bytes");
+				}
+				decompressed.write(buffer, 0, bytesRead);
+			}
+			return new String(decompressed.toByteArray(), StandardCharsets.UTF_8);
+		}
+		catch (IOException | IllegalArgumentException e) {
+			throw new MessageConversionException(
+					"Error decompressing payload with content encoding '"
+							+ this.contentEncoding + "'",
+					e);
+		}
+	}
+
+	/**
+	 * Decodes and decompresses a stream of a payload compressed with
+	 * {@link #compress(byte[])} while it is read.
+	 * @param inputStream the stream of the Base64 encoded compressed payload
+	 * @return the stream of the decompressed payload
+	 * @throws IOException if the compression header cannot be read
+	 */
+	public InputStream decompress(InputStream inputStream) throws IOException {
+		return createInputStream(Base64.getDecoder().wrap(inputStream));
+	}
+
+	abstract OutputStream createOutputStream(OutputStream outputStream)
+			throws IOException;
+
+	abstract InputStream createInputStream(InputStream inputStream) throws IOException;
+
+}
@@ -18,6 +18,7 @@ package org.springframework.cloud.aws.messaging.config.annotation;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
@@ -42,6 +43,7 @@ import org.springframework.context.annotation.AnnotationConfigApplicationContext
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
@@ -225,11 +227,14 @@ class SqsConfigurationTest {
 				.getBean(QueueMessageHandler.class);
 
 		// Assert
-		assertThat(queueMessageHandler.getReturnValueHandlers().size()).isEqualTo(1);
+		assertThat(queueMessageHandler.getReturnValueHandlers().size()).isEqualTo(2);
 		assertThat(
 				ConfigurationWithCustomSendToMessageTemplate.SEND_TO_MESSAGE_TEMPLATE == ReflectionTestUtils
 						.getField(queueMessageHandler.getReturnValueHandlers().get(0),
 								"messageTemplate")).isTrue();
+		assertThat(queueMessageHandler.getReturnValueHandlers().get(1)
+				.supportsReturnType(new MethodParameter(CompletableFuture.class
+						.getMethod("completedFuture", Object.class), -1))).isTrue();
 	}
 
 	@Test
@@ -17,17 +17,25 @@
 package org.springframework.cloud.aws.messaging.core;
 
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSAsync;
 import com.amazonaws.services.sns.model.ListTopicsRequest;
 import com.amazonaws.services.sns.model.ListTopicsResult;
 import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
 import com.amazonaws.services.sns.model.Topic;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.messaging.core.DestinationResolver;
 import org.springframework.messaging.support.MessageBuilder;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.isNotNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -122,4 +130,44 @@ class NotificationMessagingTemplateTest {
 						.withMessageAttributes(isNotNull()));
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	void publishAsync_asyncClient_completesWithResultOfAsyncRequest() throws Exception {
+		// Arrange
+		AmazonSNSAsync amazonSns = mock(AmazonSNSAsync.class);
+		NotificationMessagingTemplate notificationMessagingTemplate = new NotificationMessagingTemplate(
+				amazonSns);
+		String physicalTopicName = "arn:aws:sns:eu-west:123456789012:test";
+
+		// Act
+		CompletableFuture<PublishResult> result = notificationMessagingTemplate
+				.publishAsync(physicalTopicName, "Message content", "Subject");
+
+		// Assert
+		ArgumentCaptor<PublishRequest> requestCaptor = ArgumentCaptor
+				.forClass(PublishRequest.class);
+		ArgumentCaptor<AsyncHandler<PublishRequest, PublishResult>> handlerCaptor = ArgumentCaptor
+				.forClass(AsyncHandler.class);
+		verify(amazonSns).publishAsync(requestCaptor.capture(), handlerCaptor.capture());
+		assertThat(requestCaptor.getValue().getTopicArn()).isEqualTo(physicalTopicName);
+		assertThat(requestCaptor.getValue().getSubject()).isEqualTo("Subject");
+		assertThat(result.isDone()).isFalse();
+
+		handlerCaptor.getValue().onSuccess(requestCaptor.getValue(),
+				new PublishResult().withMessageId("123"));
+		assertThat(result.get(1, TimeUnit.SECONDS).getMessageId()).isEqualTo("123");
+	}
+
+	@Test
+	void publishAsync_synchronousClient_throwsAnException() {
+		// Arrange
+		NotificationMessagingTemplate notificationMessagingTemplate = new NotificationMessagingTemplate(
+				mock(AmazonSNS.class));
+
+		// Assert
+		assertThatThrownBy(() -> notificationMessagingTemplate.publishAsync(
+				"arn:aws:sns:eu-west:123456789012:test", "Message content", null))
+						.isInstanceOf(IllegalStateException.class);
+	}
+
 }
@@ -16,14 +16,21 @@
 
 package org.springframework.cloud.aws.messaging.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -31,10 +38,26 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 import org.junit.jupiter.api.Test;
@@ -46,15 +69,20 @@ import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.PollableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.util.MimeType;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNotNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -834,4 +862,405 @@ class QueueMessageChannelTest {
 				.containsKey(SqsMessageHeaders.SQS_DEDUPLICATION_ID_HEADER)).isFalse();
 	}
 
+	@Test
+	void sendMessage_payloadAboveLargePayloadThreshold_sendsPointerToStoredPayload()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		ArgumentCaptor<SendMessageRequest> sendMessageRequestArgumentCaptor = ArgumentCaptor
+				.forClass(SendMessageRequest.class);
+		when(amazonSqs.sendMessage(sendMessageRequestArgumentCaptor.capture()))
+				.thenReturn(new SendMessageResult());
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		LargePayloadStore largePayloadStore = new LargePayloadStore(amazonS3, "bucket");
+		largePayloadStore.setThreshold(10);
+
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		messageChannel.setLargePayloadStore(largePayloadStore);
+
+		// Act
+		messageChannel.send(MessageBuilder.withPayload("message content").build());
+
+		// Assert
+		verify(amazonS3).putObject(eq("bucket"), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+		SendMessageRequest sendMessageRequest = sendMessageRequestArgumentCaptor
+				.getValue();
+		assertThat(sendMessageRequest.getMessageBody())
+				.contains("\"s3BucketName\":\"bucket\"");
+		assertThat(sendMessageRequest.getMessageAttributes()
+				.get(LargePayloadStore.PAYLOAD_SIZE_ATTRIBUTE).getStringValue())
+						.isEqualTo("15");
+	}
+
+	@Test
+	void receiveMessage_pointerToStoredPayload_returnsStoredPayloadAndDeletesIt()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		String pointer = "[\"software.amazon.payloadoffloading.PayloadS3Pointer\","
+				+ "{\"s3BucketName\":\"bucket\",\"s3Key\":\"key\"}]";
+		when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenReturn(new ReceiveMessageResult().withMessages(
+						new com.amazonaws.services.sqs.model.Message().withBody(pointer)
+								.withReceiptHandle("rh").addMessageAttributesEntry(
+										LargePayloadStore.PAYLOAD_SIZE_ATTRIBUTE,
+										new MessageAttributeValue()
+												.withDataType("Number")
+												.withStringValue("15"))));
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		S3Object s3Object = new S3Object();
+		s3Object.setObjectContent(new ByteArrayInputStream(
+				"message content".getBytes(StandardCharsets.UTF_8)));
+		when(amazonS3.getObject(any(GetObjectRequest.class))).thenReturn(s3Object);
+
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		messageChannel.setLargePayloadStore(new LargePayloadStore(amazonS3, "bucket"));
+
+		// Act
+		Message<?> receivedMessage = messageChannel.receive();
+
+		// Assert
+		assertThat(receivedMessage.getPayload()).isEqualTo("message content");
+		verify(amazonSqs)
+				.deleteMessage(new DeleteMessageRequest("http://testQueue", "rh"));
+		verify(amazonS3).deleteObject("bucket", "key");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void sendAsync_withInterceptor_appliesInterceptorAndCompletesItOnceSent()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		List<Boolean> completions = new ArrayList<>();
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		messageChannel.addInterceptor(new ChannelInterceptor() {
+
+			@Override
+			public Message<?> preSend(Message<?> message, MessageChannel channel) {
+				return MessageBuilder.fromMessage(message)
+						.setHeader("intercepted", "true").build();
+			}
+
+			@Override
+			public void afterSendCompletion(Message<?> message, MessageChannel channel,
+					boolean sent, Exception ex) {
+				completions.add(sent);
+			}
+
+		});
+
+		// Act
+		CompletableFuture<SendMessageResult> result = messageChannel
+				.sendAsync(MessageBuilder.withPayload("message content").build());
+
+		// Assert
+		ArgumentCaptor<SendMessageRequest> requestCaptor = ArgumentCaptor
+				.forClass(SendMessageRequest.class);
+		ArgumentCaptor<AsyncHandler<SendMessageRequest, SendMessageResult>> handlerCaptor = ArgumentCaptor
+				.forClass(AsyncHandler.class);
+		verify(amazonSqs).sendMessageAsync(requestCaptor.capture(),
+				handlerCaptor.capture());
+		assertThat(requestCaptor.getValue().getMessageAttributes())
+				.containsKey("intercepted");
+		assertThat(completions).isEmpty();
+
+		handlerCaptor.getValue().onSuccess(requestCaptor.getValue(),
+				new SendMessageResult().withMessageId("123"));
+		assertThat(result.get(1, TimeUnit.SECONDS).getMessageId()).isEqualTo("123");
+		assertThat(completions).containsExactly(true);
+	}
+
+	@Test
+	void sendMessage_serviceExceptionWithStoredPayload_deletesStoredPayload() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		when(amazonSqs.sendMessage(any(SendMessageRequest.class)))
+				.thenThrow(new AmazonServiceException("Queue does not exist"));
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		LargePayloadStore largePayloadStore = new LargePayloadStore(amazonS3, "bucket");
+		largePayloadStore.setThreshold(10);
+
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		messageChannel.setLargePayloadStore(largePayloadStore);
+
+		// Act
+		assertThatThrownBy(() -> messageChannel
+				.send(MessageBuilder.withPayload("message content").build()))
+						.isInstanceOf(MessageDeliveryException.class);
+
+		// Assert
+		verify(amazonS3).putObject(eq("bucket"), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+		verify(amazonS3).deleteObject(eq("bucket"), anyString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void sendAsync_payloadAboveLargePayloadThreshold_storesPayloadWithStoreExecutor() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		List<Runnable> storeTasks = new ArrayList<>();
+		LargePayloadStore largePayloadStore = new LargePayloadStore(amazonS3, "bucket");
+		largePayloadStore.setThreshold(10);
+		largePayloadStore.setStoreExecutor(storeTasks::add);
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		messageChannel.setLargePayloadStore(largePayloadStore);
+
+		// Act
+		CompletableFuture<SendMessageResult> result = messageChannel
+				.sendAsync(MessageBuilder.withPayload("message content").build());
+
+		// Assert
+		assertThat(result.isDone()).isFalse();
+		verify(amazonS3, never()).putObject(anyString(), anyString(),
+				any(InputStream.class), any(ObjectMetadata.class));
+		verify(amazonSqs, never()).sendMessageAsync(any(SendMessageRequest.class),
+				any(AsyncHandler.class));
+
+		storeTasks.forEach(Runnable::run);
+		verify(amazonS3).putObject(eq("bucket"), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+		verify(amazonSqs).sendMessageAsync(any(SendMessageRequest.class),
+				any(AsyncHandler.class));
+	}
+
+	@Test
+	void sendBatch_twelveFifoMessages_sendsTwoBatchesWithIdsPerEntry() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		when(amazonSqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+				.thenAnswer(invocation -> {
+					SendMessageBatchResult result = new SendMessageBatchResult();
+					for (SendMessageBatchRequestEntry entry : invocation
+							.<SendMessageBatchRequest>getArgument(0).getEntries()) {
+						result.withSuccessful(new SendMessageBatchResultEntry()
+								.withId(entry.getId())
+								.withMessageId("id-" + entry.getMessageBody()));
+					}
+					return result;
+				});
+		List<Message<String>> messages = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			messages.add(MessageBuilder.withPayload("message" + i)
+					.setHeader(SqsMessageHeaders.SQS_GROUP_ID_HEADER, "group")
+					.setHeader(SqsMessageHeaders.SQS_DEDUPLICATION_ID_HEADER, "dedup" + i)
+					.build());
+		}
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+
+		// Act
+		List<MessageSendResult> results = messageChannel.sendBatch(messages);
+
+		// Assert
+		ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(SendMessageBatchRequest.class);
+		verify(amazonSqs, times(2)).sendMessageBatch(requestCaptor.capture());
+		List<SendMessageBatchRequest> requests = requestCaptor.getAllValues();
+		assertThat(requests.get(0).getEntries()).hasSize(10);
+		assertThat(requests.get(1).getEntries()).hasSize(2);
+		SendMessageBatchRequestEntry lastEntry = requests.get(1).getEntries().get(1);
+		assertThat(lastEntry.getId()).isEqualTo("1");
+		assertThat(lastEntry.getMessageBody()).isEqualTo("message11");
+		assertThat(lastEntry.getMessageGroupId()).isEqualTo("group");
+		assertThat(lastEntry.getMessageDeduplicationId()).isEqualTo("dedup11");
+		assertThat(lastEntry.getMessageAttributes())
+				.doesNotContainKey(SqsMessageHeaders.SQS_GROUP_ID_HEADER);
+		assertThat(results).hasSize(12);
+		assertThat(results.get(11).isSuccessful()).isTrue();
+		assertThat(results.get(11).getMessageId()).isEqualTo("id-message11");
+		assertThat(results.get(11).getMessage()).isSameAs(messages.get(11));
+	}
+
+	@Test
+	void sendBatch_failedEntries_retriesOnlyEntriesNotFailedBySender() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		when(amazonSqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+				.thenReturn(new SendMessageBatchResult()
+						.withSuccessful(new SendMessageBatchResultEntry().withId("0")
+								.withMessageId("id0"))
+						.withFailed(
+								new BatchResultErrorEntry().withId("1")
+										.withCode("InternalError").withSenderFault(false),
+								new BatchResultErrorEntry().withId("2")
+										.withCode("InvalidMessageContents")
+										.withSenderFault(true)))
+				.thenReturn(new SendMessageBatchResult().withSuccessful(
+						new SendMessageBatchResultEntry().withId("0")
+								.withMessageId("id1")));
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+
+		// Act
+		List<MessageSendResult> results = messageChannel.sendBatch(Arrays.asList(
+				MessageBuilder.withPayload("first").build(),
+				MessageBuilder.withPayload("second").build(),
+				MessageBuilder.withPayload("invalid").build()));
+
+		// Assert
+		ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(SendMessageBatchRequest.class);
+		verify(amazonSqs, times(2)).sendMessageBatch(requestCaptor.capture());
+		SendMessageBatchRequest retry = requestCaptor.getAllValues().get(1);
+		assertThat(retry.getEntries()).hasSize(1);
+		assertThat(retry.getEntries().get(0).getMessageBody()).isEqualTo("second");
+		assertThat(results.get(0).getMessageId()).isEqualTo("id0");
+		assertThat(results.get(1).getMessageId()).isEqualTo("id1");
+		assertThat(results.get(2).isSuccessful()).isFalse();
+		assertThat(results.get(2).isSenderFault()).isTrue();
+		assertThat(results.get(2).getErrorCode()).isEqualTo("InvalidMessageContents");
+	}
+
+	@Test
+	void sendBatch_failedFifoEntryWithLaterEntryOfGroup_isNotRetried() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		when(amazonSqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+				.thenReturn(new SendMessageBatchResult()
+						.withSuccessful(new SendMessageBatchResultEntry().withId("1")
+								.withMessageId("a1"))
+						.withFailed(
+								new BatchResultErrorEntry().withId("0")
+										.withCode("InternalError").withSenderFault(false),
+								new BatchResultErrorEntry().withId("2")
+										.withCode("InternalError").withSenderFault(false)))
+				.thenReturn(new SendMessageBatchResult().withSuccessful(
+						new SendMessageBatchResultEntry().withId("0")
+								.withMessageId("b0")));
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+
+		// Act
+		List<MessageSendResult> results = messageChannel.sendBatch(Arrays.asList(
+				MessageBuilder.withPayload("a0")
+						.setHeader(SqsMessageHeaders.SQS_GROUP_ID_HEADER, "a").build(),
+				MessageBuilder.withPayload("a1")
+						.setHeader(SqsMessageHeaders.SQS_GROUP_ID_HEADER, "a").build(),
+				MessageBuilder.withPayload("b0")
+						.setHeader(SqsMessageHeaders.SQS_GROUP_ID_HEADER, "b").build()));
+
+		// Assert
+		ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(SendMessageBatchRequest.class);
+		verify(amazonSqs, times(2)).sendMessageBatch(requestCaptor.capture());
+		SendMessageBatchRequest retry = requestCaptor.getAllValues().get(1);
+		assertThat(retry.getEntries()).hasSize(1);
+		assertThat(retry.getEntries().get(0).getMessageBody()).isEqualTo("b0");
+		assertThat(results.get(0).isSuccessful()).isFalse();
+		assertThat(results.get(0).getErrorCode()).isEqualTo("InternalError");
+		assertThat(results.get(1).getMessageId()).isEqualTo("a1");
+		assertThat(results.get(2).getMessageId()).isEqualTo("b0");
+	}
+
+	@Test
+	void sendBatch_clientException_failsAllEntriesAndDeletesStoredPayloads() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		when(amazonSqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+				.thenThrow(new SdkClientException("Unable to execute HTTP request"));
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		LargePayloadStore largePayloadStore = new LargePayloadStore(amazonS3, "bucket");
+		largePayloadStore.setThreshold(10);
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		messageChannel.setLargePayloadStore(largePayloadStore);
+
+		// Act
+		List<MessageSendResult> results = messageChannel.sendBatch(Arrays.asList(
+				MessageBuilder.withPayload("small").build(),
+				MessageBuilder.withPayload("message content").build()));
+
+		// Assert
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0).isSuccessful()).isFalse();
+		assertThat(results.get(1).isSuccessful()).isFalse();
+		assertThat(results.get(1).getErrorMessage())
+				.contains("Unable to execute HTTP request");
+		verify(amazonS3).deleteObject(eq("bucket"), anyString());
+	}
+
+	private static AmazonSQSAsync mockReceiveMessages(int numberOfMessages) {
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
+		ReceiveMessageResult receiveMessageResult = new ReceiveMessageResult();
+		for (int i = 0; i < numberOfMessages; i++) {
+			receiveMessageResult
+					.withMessages(new com.amazonaws.services.sqs.model.Message()
+							.withBody("message" + i).withReceiptHandle("rh" + i));
+		}
+		when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenReturn(receiveMessageResult);
+		when(amazonSqs.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+				.thenAnswer(invocation -> {
+					DeleteMessageBatchResult result = new DeleteMessageBatchResult();
+					for (DeleteMessageBatchRequestEntry entry : invocation
+							.<DeleteMessageBatchRequest>getArgument(0).getEntries()) {
+						result.withSuccessful(new DeleteMessageBatchResultEntry()
+								.withId(entry.getId()));
+					}
+					return result;
+				});
+		return amazonSqs;
+	}
+
+	@Test
+	void receiveBatch_threeMessages_deletesThemWithOneBatchRequest() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mockReceiveMessages(3);
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+
+		// Act
+		List<Message<String>> messages = messageChannel.receiveBatch(10, 5);
+
+		// Assert
+		ArgumentCaptor<ReceiveMessageRequest> receiveCaptor = ArgumentCaptor
+				.forClass(ReceiveMessageRequest.class);
+		verify(amazonSqs).receiveMessage(receiveCaptor.capture());
+		assertThat(receiveCaptor.getValue().getMaxNumberOfMessages()).isEqualTo(10);
+		assertThat(receiveCaptor.getValue().getWaitTimeSeconds()).isEqualTo(5);
+		assertThat(messages).hasSize(3);
+		assertThat(messages.get(2).getPayload()).isEqualTo("message2");
+
+		ArgumentCaptor<DeleteMessageBatchRequest> deleteCaptor = ArgumentCaptor
+				.forClass(DeleteMessageBatchRequest.class);
+		verify(amazonSqs).deleteMessageBatch(deleteCaptor.capture());
+		assertThat(deleteCaptor.getValue().getEntries()).hasSize(3);
+		assertThat(deleteCaptor.getValue().getEntries().get(2).getReceiptHandle())
+				.isEqualTo("rh2");
+		verify(amazonSqs, never()).deleteMessage(any(DeleteMessageRequest.class));
+	}
+
+	@Test
+	void receiveBatch_deferredDeletion_deletesMessagesOnceConfirmed() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = mockReceiveMessages(2);
+		QueueMessageChannel messageChannel = new QueueMessageChannel(amazonSqs,
+				"http://testQueue");
+		List<Message<String>> messages = messageChannel.receiveBatch(2, 0, true);
+		verify(amazonSqs, never())
+				.deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+
+		// Act
+		List<Message<?>> undeletedMessages = messageChannel
+				.deleteMessages(messages.subList(1, 2));
+
+		// Assert
+		ArgumentCaptor<DeleteMessageBatchRequest> deleteCaptor = ArgumentCaptor
+				.forClass(DeleteMessageBatchRequest.class);
+		verify(amazonSqs).deleteMessageBatch(deleteCaptor.capture());
+		assertThat(deleteCaptor.getValue().getEntries()).hasSize(1);
+		assertThat(deleteCaptor.getValue().getEntries().get(0).getReceiptHandle())
+				.isEqualTo("rh1");
+		assertThat(undeletedMessages).isEmpty();
+	}
+
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueMessageSendBufferTest {
+
+	private static final String QUEUE_URL = "https://queue.amazonaws.com";
+
+	private static final String FIFO_QUEUE_URL = "https://queue.amazonaws.com/queue.fifo";
+
+	@SuppressWarnings("unchecked")
+	private static AmazonSQSAsync mockSendMessageBatch() {
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		when(sqs.sendMessageBatchAsync(any(SendMessageBatchRequest.class),
+				any(AsyncHandler.class))).thenAnswer(invocation -> {
+					SendMessageBatchRequest request = invocation.getArgument(0);
+					invocation
+							.<AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult>>getArgument(
+									1)
+							.onSuccess(request, createResult(request));
+					return null;
+				});
+		return sqs;
+	}
+
+	private static SendMessageBatchResult createResult(SendMessageBatchRequest request) {
+		SendMessageBatchResult result = new SendMessageBatchResult();
+		for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+			if (entry.getMessageBody().startsWith("invalid")) {
+				result.withFailed(new BatchResultErrorEntry().withId(entry.getId())
+						.withCode("InvalidMessageContents").withSenderFault(true));
+			}
+			else {
+				result.withSuccessful(new SendMessageBatchResultEntry()
+						.withId(entry.getId())
+						.withMessageId("id-" + entry.getMessageBody()));
+			}
+		}
+		return result;
+	}
+
+	private static CompletableFuture<MessageSendResult> send(
+			QueueMessageSendBuffer sendBuffer, String body) {
+		QueueMessageChannel messageChannel = new QueueMessageChannel(mock(
+				AmazonSQSAsync.class), QUEUE_URL);
+		messageChannel.setSendBuffer(sendBuffer);
+		return messageChannel.sendBuffered(MessageBuilder.withPayload(body).build());
+	}
+
+	private static CompletableFuture<MessageSendResult> sendToGroup(
+			QueueMessageSendBuffer sendBuffer, String body, String groupId) {
+		QueueMessageChannel messageChannel = new QueueMessageChannel(mock(
+				AmazonSQSAsync.class), FIFO_QUEUE_URL);
+		messageChannel.setSendBuffer(sendBuffer);
+		return messageChannel.sendBuffered(MessageBuilder.withPayload(body)
+				.setHeader(SqsMessageHeaders.SQS_GROUP_ID_HEADER, groupId)
+				.setHeader(SqsMessageHeaders.SQS_DEDUPLICATION_ID_HEADER, body)
+				.build());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void send_maxBatchSizeReached_sendsOneBatchWithoutLingering() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSendMessageBatch();
+		QueueMessageSendBuffer sendBuffer = new QueueMessageSendBuffer(sqs);
+		sendBuffer.setLingerTime(60000);
+		sendBuffer.setMaxBatchSize(3);
+
+		// Act
+		List<CompletableFuture<MessageSendResult>> results = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			results.add(send(sendBuffer, "message" + i));
+		}
+
+		// Assert
+		ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(SendMessageBatchRequest.class);
+		verify(sqs).sendMessageBatchAsync(requestCaptor.capture(),
+				any(AsyncHandler.class));
+		assertThat(requestCaptor.getValue().getEntries()).hasSize(3);
+		assertThat(requestCaptor.getValue().getQueueUrl()).isEqualTo(QUEUE_URL);
+		assertThat(results.get(2).get(1, TimeUnit.SECONDS).getMessageId())
+				.isEqualTo("id-message2");
+		assertThat(sendBuffer.getStatistics().getFullBatches()).isEqualTo(1);
+		assertThat(sendBuffer.getStatistics().getSentMessages()).isEqualTo(3);
+		assertThat(sendBuffer.getStatistics().getBufferedMessages()).isEqualTo(0);
+		sendBuffer.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void send_lingerTimeElapsed_sendsBufferedMessages() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSendMessageBatch();
+		QueueMessageSendBuffer sendBuffer = new QueueMessageSendBuffer(sqs);
+		sendBuffer.setLingerTime(50);
+
+		// Act
+		CompletableFuture<MessageSendResult> valid = send(sendBuffer, "valid");
+		CompletableFuture<MessageSendResult> invalid = send(sendBuffer, "invalid");
+
+		// Assert
+		assertThat(valid.isDone()).isFalse();
+		verify(sqs, timeout(1000)).sendMessageBatchAsync(
+				any(SendMessageBatchRequest.class), any(AsyncHandler.class));
+		assertThat(valid.get(1, TimeUnit.SECONDS).isSuccessful()).isTrue();
+		assertThat(invalid.get(1, TimeUnit.SECONDS).getErrorCode())
+				.isEqualTo("InvalidMessageContents");
+		assertThat(sendBuffer.getStatistics().getLingerBatches()).isEqualTo(1);
+		assertThat(sendBuffer.getStatistics().getFailedMessages()).isEqualTo(1);
+		sendBuffer.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void destroy_bufferedMessages_sendsThemBeforeLingerTime() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSendMessageBatch();
+		QueueMessageSendBuffer sendBuffer = new QueueMessageSendBuffer(sqs);
+		sendBuffer.setLingerTime(60000);
+		CompletableFuture<MessageSendResult> result = send(sendBuffer, "message");
+		verify(sqs, never()).sendMessageBatchAsync(any(SendMessageBatchRequest.class),
+				any(AsyncHandler.class));
+
+		// Act
+		sendBuffer.destroy();
+
+		// Assert
+		verify(sqs, times(1)).sendMessageBatchAsync(any(SendMessageBatchRequest.class),
+				any(AsyncHandler.class));
+		assertThat(result.isDone()).isTrue();
+		assertThat(result.get().getMessageId()).isEqualTo("id-message");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void send_fifoQueue_sendsNextBatchAfterPreviousBatchCompleted() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		List<SendMessageBatchRequest> requests = new ArrayList<>();
+		List<AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult>> handlers = new ArrayList<>();
+		when(sqs.sendMessageBatchAsync(any(SendMessageBatchRequest.class),
+				any(AsyncHandler.class))).thenAnswer(invocation -> {
+					requests.add(invocation.getArgument(0));
+					handlers.add(invocation.getArgument(1));
+					return null;
+				});
+		QueueMessageSendBuffer sendBuffer = new QueueMessageSendBuffer(sqs);
+		sendBuffer.setLingerTime(60000);
+		sendBuffer.setMaxBatchSize(1);
+
+		// Act
+		CompletableFuture<MessageSendResult> first = sendToGroup(sendBuffer, "first",
+				"group");
+		CompletableFuture<MessageSendResult> second = sendToGroup(sendBuffer,
+				"second", "group");
+
+		// Assert
+		assertThat(requests).hasSize(1);
+		assertThat(sendBuffer.getStatistics().getBufferedMessages()).isEqualTo(1);
+
+		handlers.get(0).onSuccess(requests.get(0), createResult(requests.get(0)));
+		assertThat(first.get(1, TimeUnit.SECONDS).isSuccessful()).isTrue();
+		assertThat(requests).hasSize(2);
+		assertThat(requests.get(1).getEntries().get(0).getMessageBody())
+				.isEqualTo("second");
+
+		handlers.get(1).onSuccess(requests.get(1), createResult(requests.get(1)));
+		assertThat(second.get(1, TimeUnit.SECONDS).isSuccessful()).isTrue();
+		sendBuffer.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void send_fifoQueueMessageFailed_failsBufferedMessagesOfSameGroup()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		List<SendMessageBatchRequest> requests = new ArrayList<>();
+		List<AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult>> handlers = new ArrayList<>();
+		when(sqs.sendMessageBatchAsync(any(SendMessageBatchRequest.class),
+				any(AsyncHandler.class))).thenAnswer(invocation -> {
+					requests.add(invocation.getArgument(0));
+					handlers.add(invocation.getArgument(1));
+					return null;
+				});
+		QueueMessageSendBuffer sendBuffer = new QueueMessageSendBuffer(sqs);
+		sendBuffer.setLingerTime(60000);
+		sendBuffer.setMaxBatchSize(1);
+		CompletableFuture<MessageSendResult> failed = sendToGroup(sendBuffer,
+				"invalid", "failing");
+		CompletableFuture<MessageSendResult> later = sendToGroup(sendBuffer, "later",
+				"failing");
+		CompletableFuture<MessageSendResult> other = sendToGroup(sendBuffer, "other",
+				"other");
+
+		// Act
+		handlers.get(0).onSuccess(requests.get(0), createResult(requests.get(0)));
+
+		// Assert
+		assertThat(failed.get(1, TimeUnit.SECONDS).getErrorCode())
+				.isEqualTo("InvalidMessageContents");
+		assertThat(later.get(1, TimeUnit.SECONDS).isSuccessful()).isFalse();
+		assertThat(later.get().isSenderFault()).isFalse();
+		assertThat(requests).hasSize(2);
+		assertThat(requests.get(1).getEntries()).hasSize(1);
+		assertThat(requests.get(1).getEntries().get(0).getMessageBody())
+				.isEqualTo("other");
+
+		handlers.get(1).onSuccess(requests.get(1), createResult(requests.get(1)));
+		assertThat(other.get(1, TimeUnit.SECONDS).isSuccessful()).isTrue();
+		assertThat(sendBuffer.getStatistics().getFailedMessages()).isEqualTo(2);
+		assertThat(sendBuffer.getStatistics().getBufferedMessages()).isEqualTo(0);
+		sendBuffer.destroy();
+	}
+
+}
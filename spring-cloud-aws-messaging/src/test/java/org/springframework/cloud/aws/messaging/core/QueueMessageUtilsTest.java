@@ -17,15 +17,27 @@
 package org.springframework.cloud.aws.messaging.core;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.MimeType;
+import org.springframework.util.SerializationUtils;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Tests for {@link QueueMessageUtils}.
@@ -47,6 +59,104 @@ class QueueMessageUtilsTest {
 		assertThat(result.getHeaders().get("number-attribute")).isEqualTo(expected);
 	}
 
+	@Test
+	void getNumberValue_atomicNumberTypes_createsAtomicNumbers() {
+		assertThat(QueueMessageUtils.getNumberValue("10",
+				"Number.java.util.concurrent.atomic.AtomicLong"))
+						.isInstanceOfSatisfying(AtomicLong.class,
+								value -> assertThat(value.get()).isEqualTo(10L));
+		assertThat(QueueMessageUtils.getNumberValue("10",
+				"Number.java.util.concurrent.atomic.AtomicInteger"))
+						.isInstanceOfSatisfying(AtomicInteger.class,
+								value -> assertThat(value.get()).isEqualTo(10));
+	}
+
+	@Test
+	void getNumberValue_unknownNumberType_failsOnEveryCall() {
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> QueueMessageUtils.getNumberValue("10",
+					"Number.com.example.UnknownNumber"))
+							.isInstanceOf(MessagingException.class)
+							.hasCauseInstanceOf(ClassNotFoundException.class);
+		}
+	}
+
+	@Test
+	void createMessage_withAttributesAndAdditionalHeaders_resolvesHeadersLazily() {
+		UUID id = UUID.randomUUID();
+		Message message = createMessageWithAttributes(id);
+
+		MessageHeaders headers = QueueMessageUtils
+				.createMessage(message, Collections.singletonMap("additional", "value"))
+				.getHeaders();
+
+		assertThat(headers.getId()).isEqualTo(id);
+		assertThat(headers.getTimestamp()).isEqualTo(1000L);
+		assertThat(headers.get("MessageId")).isEqualTo("messageId");
+		assertThat(headers.get(SqsMessageHeaders.SQS_RECEIPT_HANDLE))
+				.isEqualTo("receiptHandle");
+		assertThat(headers.get("additional")).isEqualTo("value");
+		assertThat(headers.get("string-attribute")).isEqualTo("messageAttribute");
+		assertThat(headers.get(SqsMessageHeaders.SQS_APPROXIMATE_RECEIVE_COUNT))
+				.isEqualTo("1");
+		assertThat(headers.containsKey("custom-attribute")).isFalse();
+		assertThat(headers.get(MessageHeaders.CONTENT_TYPE))
+				.isEqualTo(MimeType.valueOf("text/plain"));
+		assertThat(headers.keySet()).contains("MessageId", "additional",
+				"string-attribute", MessageHeaders.ID, MessageHeaders.TIMESTAMP)
+				.doesNotContain("custom-attribute");
+		assertThat(((SqsMessageHeaders) headers).getApproximateReceiveCount())
+				.isEqualTo(1L);
+	}
+
+	@Test
+	void createMessage_messageAttributeWithSameNameAsSystemAttribute_takesPrecedence() {
+		Message message = new Message().addAttributesEntry("name", "attribute")
+				.addMessageAttributesEntry("name", new MessageAttributeValue()
+						.withDataType("String").withStringValue("messageAttribute"));
+
+		MessageHeaders headers = QueueMessageUtils
+				.createMessage(message, Collections.singletonMap("name", "additional"))
+				.getHeaders();
+
+		assertThat(headers.get("name")).isEqualTo("messageAttribute");
+		assertThat(headers).containsEntry("name", "messageAttribute");
+	}
+
+	@Test
+	void createMessage_headersSerialized_deserializesMaterializedHeaders() {
+		UUID id = UUID.randomUUID();
+		MessageHeaders headers = QueueMessageUtils
+				.createMessage(createMessageWithAttributes(id)).getHeaders();
+
+		MessageHeaders deserialized = (MessageHeaders) SerializationUtils
+				.deserialize(SerializationUtils.serialize(headers));
+
+		assertThat(deserialized).isInstanceOf(SqsMessageHeaders.class);
+		assertThat(deserialized.getId()).isEqualTo(id);
+		assertThat(deserialized.get("string-attribute")).isEqualTo("messageAttribute");
+		assertThat(headers).isEqualTo(deserialized);
+	}
+
+	private static Message createMessageWithAttributes(UUID id) {
+		return new Message().withBody("body").withMessageId("messageId")
+				.withReceiptHandle("receiptHandle")
+				.addAttributesEntry(SqsMessageHeaders.SQS_SENT_TIMESTAMP, "1000")
+				.addAttributesEntry(SqsMessageHeaders.SQS_APPROXIMATE_RECEIVE_COUNT, "1")
+				.addMessageAttributesEntry(MessageHeaders.ID,
+						new MessageAttributeValue().withDataType("String")
+								.withStringValue(id.toString()))
+				.addMessageAttributesEntry(MessageHeaders.CONTENT_TYPE,
+						new MessageAttributeValue().withDataType("String")
+								.withStringValue("text/plain"))
+				.addMessageAttributesEntry("string-attribute",
+						new MessageAttributeValue().withDataType("String")
+								.withStringValue("messageAttribute"))
+				.addMessageAttributesEntry("custom-attribute",
+						new MessageAttributeValue().withDataType("Custom")
+								.withStringValue("ignored"));
+	}
+
 	private static Stream<Arguments> validArguments() {
 		return Stream.of(Arguments.of("10", "Number", BigDecimal.valueOf(10)),
 				Arguments.of("3", "Number.byte", (byte) 3),
@@ -66,7 +176,10 @@ class QueueMessageUtilsTest {
 				Arguments.of("3.4", "Number.java.lang.Float", 3.4f),
 				Arguments.of("3.4", "Number.double", 3.4d),
 				Arguments.of("3.4", "Number.Double", 3.4d),
-				Arguments.of("3.4", "Number.java.lang.Double", 3.4d));
+				Arguments.of("3.4", "Number.java.lang.Double", 3.4d),
+				Arguments.of("3.4", "Number.java.math.BigDecimal",
+						new BigDecimal("3.4")),
+				Arguments.of("10", "Number.java.math.BigInteger", BigInteger.TEN));
 	}
 
 }
@@ -17,14 +17,25 @@
 package org.springframework.cloud.aws.messaging.core;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.GetQueueUrlRequest;
 import com.amazonaws.services.sqs.model.GetQueueUrlResult;
+import com.amazonaws.services.sqs.model.QueueDoesNotExistException;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -224,6 +235,125 @@ class QueueMessagingTemplateTest {
 								.isInstanceOf(MappingJackson2MessageConverter.class);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	void convertAndSendAsync_withDestination_completesWithResultOfAsyncRequest()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync amazonSqs = createAmazonSqs();
+		QueueMessagingTemplate queueMessagingTemplate = new QueueMessagingTemplate(
+				amazonSqs);
+
+		// Act
+		CompletableFuture<SendMessageResult> result = queueMessagingTemplate
+				.convertAndSendAsync("my-queue", "message content");
+
+		// Assert
+		ArgumentCaptor<SendMessageRequest> requestCaptor = ArgumentCaptor
+				.forClass(SendMessageRequest.class);
+		ArgumentCaptor<AsyncHandler<SendMessageRequest, SendMessageResult>> handlerCaptor = ArgumentCaptor
+				.forClass(AsyncHandler.class);
+		verify(amazonSqs).sendMessageAsync(requestCaptor.capture(),
+				handlerCaptor.capture());
+		assertThat(requestCaptor.getValue().getQueueUrl())
+				.isEqualTo("https://queue-url.com");
+		assertThat(requestCaptor.getValue().getMessageBody())
+				.isEqualTo("message content");
+		assertThat(result.isDone()).isFalse();
+
+		handlerCaptor.getValue().onSuccess(requestCaptor.getValue(),
+				new SendMessageResult().withMessageId("123"));
+		assertThat(result.get(1, TimeUnit.SECONDS).getMessageId()).isEqualTo("123");
+	}
+
+	@Test
+	void send_sameDestinationTwice_reusesMessageChannel() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = createAmazonSqs();
+		AtomicInteger createdChannels = new AtomicInteger();
+		QueueMessagingTemplate queueMessagingTemplate = new QueueMessagingTemplate(
+				amazonSqs) {
+
+			@Override
+			protected QueueMessageChannel resolveMessageChannel(
+					String physicalResourceIdentifier) {
+				createdChannels.incrementAndGet();
+				return super.resolveMessageChannel(physicalResourceIdentifier);
+			}
+
+		};
+
+		// Act
+		queueMessagingTemplate.convertAndSend("my-queue", "first");
+		queueMessagingTemplate.convertAndSend("my-queue", "second");
+
+		// Assert
+		assertThat(createdChannels.get()).isEqualTo(1);
+	}
+
+	@Test
+	void receive_queueDoesNotExist_evictsMessageChannel() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = createAmazonSqs();
+		when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenThrow(new QueueDoesNotExistException("deleted"));
+		AtomicInteger createdChannels = new AtomicInteger();
+		QueueMessagingTemplate queueMessagingTemplate = new QueueMessagingTemplate(
+				amazonSqs) {
+
+			@Override
+			protected QueueMessageChannel resolveMessageChannel(
+					String physicalResourceIdentifier) {
+				createdChannels.incrementAndGet();
+				return super.resolveMessageChannel(physicalResourceIdentifier);
+			}
+
+		};
+		queueMessagingTemplate.convertAndSend("my-queue", "message");
+
+		// Act
+		assertThatThrownBy(() -> queueMessagingTemplate.receive("my-queue"))
+				.isInstanceOf(QueueDoesNotExistException.class);
+		queueMessagingTemplate.convertAndSend("my-queue", "message");
+
+		// Assert
+		assertThat(createdChannels.get()).isEqualTo(2);
+	}
+
+	@Test
+	void receiveAndConvertBatch_unconvertibleAndUndeletedMessages_returnsOnlyDeletedPayloads() {
+		// Arrange
+		AmazonSQSAsync amazonSqs = createAmazonSqs();
+		when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenReturn(new ReceiveMessageResult().withMessages(
+						new com.amazonaws.services.sqs.model.Message()
+								.withBody("1").withReceiptHandle("rh1"),
+						new com.amazonaws.services.sqs.model.Message()
+								.withBody("invalid").withReceiptHandle("rh2"),
+						new com.amazonaws.services.sqs.model.Message()
+								.withBody("3").withReceiptHandle("rh3")));
+		when(amazonSqs.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+				.thenReturn(new DeleteMessageBatchResult()
+						.withSuccessful(new DeleteMessageBatchResultEntry().withId("0"))
+						.withFailed(new BatchResultErrorEntry().withId("1")
+								.withCode("ReceiptHandleIsInvalid")));
+		QueueMessagingTemplate queueMessagingTemplate = new QueueMessagingTemplate(
+				amazonSqs);
+
+		// Act
+		List<Integer> payloads = queueMessagingTemplate
+				.receiveAndConvertBatch("my-queue", 10, 0, Integer.class);
+
+		// Assert
+		ArgumentCaptor<DeleteMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(DeleteMessageBatchRequest.class);
+		verify(amazonSqs).deleteMessageBatch(requestCaptor.capture());
+		assertThat(requestCaptor.getValue().getEntries()).hasSize(2);
+		assertThat(requestCaptor.getValue().getEntries().get(1).getReceiptHandle())
+				.isEqualTo("rh3");
+		assertThat(payloads).containsExactly(1);
+	}
+
 	private AmazonSQSAsync createAmazonSqs() {
 		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class);
 
@@ -16,13 +16,20 @@
 
 package org.springframework.cloud.aws.messaging.core;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSAsync;
 import com.amazonaws.services.sns.model.MessageAttributeValue;
 import com.amazonaws.services.sns.model.PublishRequest;
 import com.amazonaws.services.sns.model.PublishResult;
@@ -35,7 +42,12 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNotNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.verify;
@@ -251,4 +263,61 @@ class TopicMessageChannelTest {
 				.get(MessageHeaders.ID).getStringValue()).isEqualTo(uuid.toString());
 	}
 
+	@Test
+	void sendMessage_publishFailsWithStoredPayload_deletesStoredPayload() {
+		// Arrange
+		AmazonSNS amazonSns = mock(AmazonSNS.class);
+		when(amazonSns.publish(any(PublishRequest.class)))
+				.thenThrow(new AmazonServiceException("Topic does not exist"));
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		LargePayloadStore largePayloadStore = new LargePayloadStore(amazonS3, "bucket");
+		largePayloadStore.setThreshold(10);
+
+		TopicMessageChannel messageChannel = new TopicMessageChannel(amazonSns,
+				"topicArn");
+		messageChannel.setLargePayloadStore(largePayloadStore);
+
+		// Act
+		assertThatThrownBy(() -> messageChannel
+				.send(MessageBuilder.withPayload("message content").build()))
+						.isInstanceOf(AmazonServiceException.class);
+
+		// Assert
+		verify(amazonS3).putObject(eq("bucket"), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+		verify(amazonS3).deleteObject(eq("bucket"), anyString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void publishAsync_publishFailsWithStoredPayload_deletesStoredPayload() {
+		// Arrange
+		AmazonSNSAsync amazonSns = mock(AmazonSNSAsync.class);
+		doAnswer(invocation -> {
+			AsyncHandler<PublishRequest, PublishResult> asyncHandler = invocation
+					.getArgument(1);
+			asyncHandler.onError(new AmazonServiceException("Topic does not exist"));
+			return null;
+		}).when(amazonSns).publishAsync(any(PublishRequest.class),
+				any(AsyncHandler.class));
+		AmazonS3 amazonS3 = mock(AmazonS3.class);
+		LargePayloadStore largePayloadStore = new LargePayloadStore(amazonS3, "bucket");
+		largePayloadStore.setThreshold(10);
+		largePayloadStore.setStoreExecutor(Runnable::run);
+
+		TopicMessageChannel messageChannel = new TopicMessageChannel(amazonSns,
+				"topicArn");
+		messageChannel.setLargePayloadStore(largePayloadStore);
+
+		// Act
+		CompletableFuture<PublishResult> result = messageChannel
+				.publishAsync(MessageBuilder.withPayload("message content").build());
+
+		// Assert
+		assertThat(result).isCompletedExceptionally();
+		verify(amazonS3).putObject(eq("bucket"), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+		verify(amazonS3).deleteObject(eq("bucket"), anyString());
+	}
+
 }
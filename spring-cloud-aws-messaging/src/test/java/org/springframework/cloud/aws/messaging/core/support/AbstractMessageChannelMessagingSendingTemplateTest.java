@@ -16,8 +16,14 @@
 
 package org.springframework.cloud.aws.messaging.core.support;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -218,6 +224,81 @@ class AbstractMessageChannelMessagingSendingTemplateTest {
 
 	}
 
+	@Test
+	void resolveMessageChannelByLogicalName_cacheFull_evictsLeastRecentlyUsedChannel() {
+		// Arrange
+		int maxCachedChannels = AbstractMessageChannelMessagingSendingTemplate.MAX_CACHED_MESSAGE_CHANNELS;
+		when(this.destinationResolver.resolveDestination(ArgumentMatchers.anyString()))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+		MessageSendingTemplateTest messageSendingTemplate = new MessageSendingTemplateTest(
+				this.destinationResolver);
+		MessageChannel first = messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination0");
+		MessageChannel second = messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination1");
+		for (int i = 2; i < maxCachedChannels; i++) {
+			messageSendingTemplate.resolveMessageChannelByLogicalName("destination" + i);
+		}
+
+		// Act
+		messageSendingTemplate.resolveMessageChannelByLogicalName("destination0");
+		messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination" + maxCachedChannels);
+
+		// Assert
+		assertThat(messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination0")).isSameAs(first);
+		assertThat(messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination1")).isNotSameAs(second);
+	}
+
+	@Test
+	void resolveMessageChannelByLogicalName_concurrentThreads_createsOneChannel()
+			throws Exception {
+		// Arrange
+		when(this.destinationResolver.resolveDestination("destination"))
+				.thenReturn("resolvedDestination");
+		MessageSendingTemplateTest messageSendingTemplate = new MessageSendingTemplateTest(
+				this.destinationResolver);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		// Act
+		List<Future<MessageChannel>> messageChannels = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			messageChannels.add(executor.submit(() -> messageSendingTemplate
+					.resolveMessageChannelByLogicalName("destination")));
+		}
+		executor.shutdown();
+
+		// Assert
+		MessageChannel first = messageChannels.get(0).get(1, TimeUnit.SECONDS);
+		for (Future<MessageChannel> messageChannel : messageChannels) {
+			assertThat(messageChannel.get(1, TimeUnit.SECONDS)).isSameAs(first);
+		}
+	}
+
+	@Test
+	void evictMessageChannel_staleChannel_keepsChannelCreatedAfterEviction() {
+		// Arrange
+		when(this.destinationResolver.resolveDestination("destination"))
+				.thenReturn("resolvedDestination");
+		MessageSendingTemplateTest messageSendingTemplate = new MessageSendingTemplateTest(
+				this.destinationResolver);
+		MessageChannel evicted = messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination");
+		messageSendingTemplate.evictMessageChannel(evicted);
+		MessageChannel recreated = messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination");
+
+		// Act
+		messageSendingTemplate.evictMessageChannel(evicted);
+
+		// Assert
+		assertThat(recreated).isNotSameAs(evicted);
+		assertThat(messageSendingTemplate
+				.resolveMessageChannelByLogicalName("destination")).isSameAs(recreated);
+	}
+
 	private static class MessageSendingTemplateTest
 			extends AbstractMessageChannelMessagingSendingTemplate<MessageChannel> {
 
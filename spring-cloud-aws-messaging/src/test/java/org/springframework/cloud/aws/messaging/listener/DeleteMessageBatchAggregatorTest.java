@@ -0,0 +1,194 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.AmazonSQSException;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.cloud.aws.messaging.core.QueueMessageUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeleteMessageBatchAggregatorTest {
+
+	private static final String QUEUE_URL = "https://queue.amazonaws.com";
+
+	private ThreadPoolTaskScheduler taskScheduler;
+
+	@SuppressWarnings("unchecked")
+	private static void mockDeleteMessageBatch(AmazonSQSAsync sqs) {
+		when(sqs.deleteMessageBatchAsync(any(DeleteMessageBatchRequest.class),
+				any(AsyncHandler.class)))
+						.thenAnswer((Answer<Future<DeleteMessageBatchResult>>) invocation -> {
+							DeleteMessageBatchRequest request = invocation.getArgument(0);
+							DeleteMessageBatchResult result = new DeleteMessageBatchResult();
+							for (DeleteMessageBatchRequestEntry entry : request
+									.getEntries()) {
+								if (entry.getReceiptHandle().startsWith("invalid")) {
+									result.withFailed(new BatchResultErrorEntry()
+											.withId(entry.getId())
+											.withCode("ReceiptHandleIsInvalid")
+											.withSenderFault(true));
+								}
+								else {
+									result.withSuccessful(new DeleteMessageBatchResultEntry()
+											.withId(entry.getId()));
+								}
+							}
+							invocation
+									.<AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult>>getArgument(
+											1)
+									.onSuccess(request, result);
+							return null;
+						});
+	}
+
+	@BeforeEach
+	void setUp() {
+		this.taskScheduler = new ThreadPoolTaskScheduler();
+		this.taskScheduler.afterPropertiesSet();
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.taskScheduler.destroy();
+	}
+
+	@Test
+	void deleteMessage_fullBatch_sendsOneBatchRequest() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		mockDeleteMessageBatch(sqs);
+		DeleteMessageBatchAggregator aggregator = new DeleteMessageBatchAggregator(sqs,
+				this.taskScheduler, 60000);
+
+		// Act
+		Future<?> lastDeletion = null;
+		for (int i = 0; i < QueueMessageUtils.MAX_BATCH_SIZE; i++) {
+			lastDeletion = aggregator.deleteMessage(QUEUE_URL, "ReceiptHandle" + i,
+					null);
+		}
+
+		// Assert
+		assertThat(lastDeletion.get(1, TimeUnit.SECONDS)).isNotNull();
+		ArgumentCaptor<DeleteMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(DeleteMessageBatchRequest.class);
+		verify(sqs, times(1)).deleteMessageBatchAsync(requestCaptor.capture(),
+				any(AsyncHandler.class));
+		assertThat(requestCaptor.getValue().getQueueUrl()).isEqualTo(QUEUE_URL);
+		assertThat(requestCaptor.getValue().getEntries())
+				.hasSize(QueueMessageUtils.MAX_BATCH_SIZE);
+	}
+
+	@Test
+	void deleteMessage_partialBatch_sendsBatchAfterMaxDelay() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		mockDeleteMessageBatch(sqs);
+		DeleteMessageBatchAggregator aggregator = new DeleteMessageBatchAggregator(sqs,
+				this.taskScheduler, 50);
+
+		// Act
+		Future<?> deletion = aggregator.deleteMessage(QUEUE_URL, "ReceiptHandle", null);
+
+		// Assert
+		assertThat(deletion.get(1, TimeUnit.SECONDS)).isNotNull();
+		verify(sqs, times(1)).deleteMessageBatchAsync(
+				eq(new DeleteMessageBatchRequest(QUEUE_URL).withEntries(
+						new DeleteMessageBatchRequestEntry("0", "ReceiptHandle"))),
+				any(AsyncHandler.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void deleteMessage_failedEntry_reportsErrorToEntryHandler() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		mockDeleteMessageBatch(sqs);
+		DeleteMessageBatchAggregator aggregator = new DeleteMessageBatchAggregator(sqs,
+				this.taskScheduler, 60000);
+		AsyncHandler<DeleteMessageRequest, DeleteMessageResult> validHandler = mock(
+				AsyncHandler.class);
+		AsyncHandler<DeleteMessageRequest, DeleteMessageResult> invalidHandler = mock(
+				AsyncHandler.class);
+
+		// Act
+		Future<?> validDeletion = aggregator.deleteMessage(QUEUE_URL, "ReceiptHandle",
+				validHandler);
+		Future<?> invalidDeletion = aggregator.deleteMessage(QUEUE_URL,
+				"invalidReceiptHandle", invalidHandler);
+		aggregator.flush(1000);
+
+		// Assert
+		assertThat(validDeletion.get(1, TimeUnit.SECONDS)).isNotNull();
+		assertThatThrownBy(() -> invalidDeletion.get(1, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(AmazonSQSException.class);
+		verify(validHandler).onSuccess(
+				eq(new DeleteMessageRequest(QUEUE_URL, "ReceiptHandle")),
+				any(DeleteMessageResult.class));
+		verify(validHandler, never()).onError(any(Exception.class));
+		verify(invalidHandler).onError(any(AmazonSQSException.class));
+	}
+
+	@Test
+	void flush_pendingDeletions_sendsAllBufferedDeletions() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		mockDeleteMessageBatch(sqs);
+		DeleteMessageBatchAggregator aggregator = new DeleteMessageBatchAggregator(sqs,
+				this.taskScheduler, 60000);
+		aggregator.deleteMessage(QUEUE_URL, "ReceiptHandle1", null);
+		aggregator.deleteMessage("https://otherQueue.amazonaws.com", "ReceiptHandle2",
+				null);
+
+		// Act
+		aggregator.flush(1000);
+
+		// Assert
+		verify(sqs, timeout(1000).times(2)).deleteMessageBatchAsync(
+				any(DeleteMessageBatchRequest.class), any(AsyncHandler.class));
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import com.amazonaws.AmazonServiceException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExponentialBackOffPolicyTest {
+
+	private static AmazonServiceException throttlingException() {
+		AmazonServiceException exception = new AmazonServiceException("Throttled");
+		exception.setErrorCode("RequestThrottled");
+		return exception;
+	}
+
+	@Test
+	void getBackOffCeiling_consecutiveFailures_doublesUpToMaxInterval() {
+		// Arrange
+		ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+		RuntimeException exception = new RuntimeException("Connection timeout");
+
+		// Act & Assert
+		assertThat(backOffPolicy.getBackOffCeiling(1, exception)).isEqualTo(100);
+		assertThat(backOffPolicy.getBackOffCeiling(2, exception)).isEqualTo(200);
+		assertThat(backOffPolicy.getBackOffCeiling(4, exception)).isEqualTo(800);
+		assertThat(backOffPolicy.getBackOffCeiling(10, exception)).isEqualTo(10000);
+		assertThat(backOffPolicy.getBackOffCeiling(Integer.MAX_VALUE, exception))
+				.isEqualTo(10000);
+	}
+
+	@Test
+	void getBackOffCeiling_throttlingException_startsWithThrottlingInterval() {
+		// Arrange
+		ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+
+		// Act & Assert
+		assertThat(backOffPolicy.getBackOffCeiling(1, throttlingException()))
+				.isEqualTo(1000);
+		assertThat(backOffPolicy.getBackOffCeiling(2, throttlingException()))
+				.isEqualTo(2000);
+	}
+
+	@Test
+	void getBackOffTime_consecutiveFailures_returnsRandomTimeBelowCeiling() {
+		// Arrange
+		ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+		backOffPolicy.setMaxInterval(500);
+
+		// Act & Assert
+		for (int attempt = 1; attempt < 100; attempt++) {
+			assertThat(backOffPolicy.getBackOffTime(attempt, throttlingException()))
+					.isBetween(0L, 500L);
+		}
+	}
+
+}
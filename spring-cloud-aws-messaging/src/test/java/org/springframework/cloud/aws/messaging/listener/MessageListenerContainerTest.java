@@ -239,6 +239,98 @@ class MessageListenerContainerTest {
 				.getWaitTimeSeconds().longValue()).isEqualTo(33L);
 	}
 
+	@Test
+	void receiveMessageRequests_listenerWithReceiveSettings_overridesContainerSettings()
+			throws Exception {
+		AbstractMessageListenerContainer container = new StubAbstractMessageListenerContainer();
+
+		AmazonSQSAsync mock = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(mock);
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		messageHandler.setApplicationContext(applicationContext);
+		container.setMessageHandler(messageHandler);
+		applicationContext.registerSingleton("messageListener", MessageListener.class);
+		applicationContext.registerSingleton("tunedMessageListener",
+				TunedMessageListener.class);
+
+		container.setMaxNumberOfMessages(10);
+		container.setVisibilityTimeout(22);
+		container.setWaitTimeOut(20);
+
+		when(mock.getQueueUrl(new GetQueueUrlRequest().withQueueName("testQueue")))
+				.thenReturn(new GetQueueUrlResult()
+						.withQueueUrl("http://testQueue.amazonaws.com"));
+		when(mock.getQueueUrl(new GetQueueUrlRequest().withQueueName("tunedQueue")))
+				.thenReturn(new GetQueueUrlResult()
+						.withQueueUrl("http://tunedQueue.amazonaws.com"));
+		when(mock.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+
+		messageHandler.afterPropertiesSet();
+		container.afterPropertiesSet();
+
+		Map<String, QueueAttributes> registeredQueues = container.getRegisteredQueues();
+		QueueAttributes tunedQueue = registeredQueues.get("tunedQueue");
+		assertThat(tunedQueue.getConcurrency()).isEqualTo(50);
+		assertThat(tunedQueue.getReceiveMessageRequest().getMaxNumberOfMessages())
+				.isEqualTo(5);
+		assertThat(tunedQueue.getReceiveMessageRequest().getVisibilityTimeout())
+				.isEqualTo(300);
+		assertThat(tunedQueue.getReceiveMessageRequest().getWaitTimeSeconds())
+				.isEqualTo(1);
+		QueueAttributes testQueue = registeredQueues.get("testQueue");
+		assertThat(testQueue.getConcurrency()).isNull();
+		assertThat(testQueue.getReceiveMessageRequest().getMaxNumberOfMessages())
+				.isEqualTo(10);
+		assertThat(testQueue.getReceiveMessageRequest().getVisibilityTimeout())
+				.isEqualTo(22);
+		assertThat(testQueue.getReceiveMessageRequest().getWaitTimeSeconds())
+				.isEqualTo(20);
+	}
+
+	@Test
+	void receiveMessageRequests_listenerWithAttributeNames_requestsOnlyProjectedAttributes()
+			throws Exception {
+		AbstractMessageListenerContainer container = new StubAbstractMessageListenerContainer();
+
+		AmazonSQSAsync mock = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(mock);
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		messageHandler.setApplicationContext(applicationContext);
+		container.setMessageHandler(messageHandler);
+		applicationContext.registerSingleton("messageListener", MessageListener.class);
+		applicationContext.registerSingleton("projectedMessageListener",
+				ProjectedMessageListener.class);
+
+		when(mock.getQueueUrl(new GetQueueUrlRequest().withQueueName("testQueue")))
+				.thenReturn(new GetQueueUrlResult()
+						.withQueueUrl("http://testQueue.amazonaws.com"));
+		when(mock.getQueueUrl(new GetQueueUrlRequest().withQueueName("projected.fifo")))
+				.thenReturn(new GetQueueUrlResult()
+						.withQueueUrl("http://projected.amazonaws.com.fifo"));
+		when(mock.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+
+		messageHandler.afterPropertiesSet();
+		container.afterPropertiesSet();
+
+		Map<String, QueueAttributes> registeredQueues = container.getRegisteredQueues();
+		QueueAttributes projectedQueue = registeredQueues.get("projected.fifo");
+		assertThat(projectedQueue.getReceiveMessageRequest().getAttributeNames())
+				.containsExactly("ApproximateReceiveCount", "MessageGroupId");
+		assertThat(projectedQueue.getReceiveMessageRequest().getMessageAttributeNames())
+				.containsExactly("trace.*");
+		assertThat(projectedQueue.getReceiveMessageRequest())
+				.isSameAs(projectedQueue.getReceiveMessageRequest());
+		QueueAttributes testQueue = registeredQueues.get("testQueue");
+		assertThat(testQueue.getReceiveMessageRequest().getAttributeNames())
+				.containsExactly("All");
+		assertThat(testQueue.getReceiveMessageRequest().getMessageAttributeNames())
+				.containsExactly("All");
+	}
+
 	@Test
 	void receiveMessageRequests_withMultipleElements_created() throws Exception {
 		AbstractMessageListenerContainer container = new StubAbstractMessageListenerContainer();
@@ -497,6 +589,28 @@ class MessageListenerContainerTest {
 
 	}
 
+	private static class TunedMessageListener {
+
+		@SuppressWarnings({ "UnusedDeclaration", "EmptyMethod" })
+		@SqsListener(value = "tunedQueue", concurrency = "50", maxMessagesPerPoll = "5",
+				waitTimeSeconds = "1", visibilityTimeout = "300")
+		void listenerMethod(String ignore) {
+
+		}
+
+	}
+
+	private static class ProjectedMessageListener {
+
+		@SuppressWarnings({ "UnusedDeclaration", "EmptyMethod" })
+		@SqsListener(value = "projected.fifo", attributeNames = "ApproximateReceiveCount",
+				messageAttributeNames = "trace.*")
+		void listenerMethod(String ignore) {
+
+		}
+
+	}
+
 	private static class DestroyAwareAbstractMessageListenerContainer
 			extends AbstractMessageListenerContainer {
 
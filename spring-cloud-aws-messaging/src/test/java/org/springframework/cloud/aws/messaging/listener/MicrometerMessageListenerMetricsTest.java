@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MicrometerMessageListenerMetricsTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final MicrometerMessageListenerMetrics metrics = new MicrometerMessageListenerMetrics(
+			this.meterRegistry);
+
+	@Test
+	void recordReceive_emptyAndFullReceives_areTaggedByFill() {
+		// Act
+		this.metrics.recordReceive("testQueue", 1000, 0, 10);
+		this.metrics.recordReceive("testQueue", 1000, 10, 10);
+		this.metrics.recordReceive("testQueue", 1000, 10, 10);
+		this.metrics.recordReceiveFailure("testQueue", 1000,
+				new IllegalStateException());
+
+		// Assert
+		assertThat(this.meterRegistry.get("sqs.listener.receive")
+				.tags("queue", "testQueue", "fill", "empty").timer().count())
+						.isEqualTo(1);
+		assertThat(this.meterRegistry.get("sqs.listener.receive")
+				.tags("queue", "testQueue", "fill", "full").timer().count())
+						.isEqualTo(2);
+		assertThat(this.meterRegistry.get("sqs.listener.receive")
+				.tags("queue", "testQueue", "outcome", "failure").timer().count())
+						.isEqualTo(1);
+		assertThat(this.meterRegistry.get("sqs.listener.receive.messages")
+				.tag("queue", "testQueue").summary().totalAmount()).isEqualTo(20);
+	}
+
+	@Test
+	void executionStarted_messagesInExecution_areReportedAsInflight() {
+		// Act
+		this.metrics.executionStarted("testQueue", 10);
+		this.metrics.executionFinished("testQueue", 3);
+
+		// Assert
+		assertThat(this.meterRegistry.get("sqs.listener.inflight")
+				.tag("queue", "testQueue").gauge().value()).isEqualTo(7);
+	}
+
+	@Test
+	void recordListenerInvocation_failingInvocation_isTaggedByMethodAndException() {
+		// Act
+		this.metrics.recordListenerInvocation("testQueue", "Listener.receive", 1000,
+				null);
+		this.metrics.recordListenerInvocation("testQueue", "Listener.receive", 1000,
+				new IllegalStateException());
+
+		// Assert
+		assertThat(this.meterRegistry.get("sqs.listener.invocation")
+				.tags("method", "Listener.receive", "exception", "none").timer()
+				.count()).isEqualTo(1);
+		assertThat(this.meterRegistry.get("sqs.listener.invocation")
+				.tags("method", "Listener.receive", "exception",
+						"IllegalStateException")
+				.timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void bindPollerStatistics_pollerStatistics_areExposedAsMeters() {
+		// Arrange
+		PollerStatistics pollerStatistics = new PollerStatistics();
+		this.metrics.bindPollerStatistics("testQueue", pollerStatistics);
+
+		// Act
+		pollerStatistics.pollerStarted();
+		pollerStatistics.tryReservePoller(2);
+		pollerStatistics.scaledUp();
+
+		// Assert
+		assertThat(this.meterRegistry.get("sqs.listener.pollers.active")
+				.tag("queue", "testQueue").gauge().value()).isEqualTo(2);
+		assertThat(this.meterRegistry.get("sqs.listener.pollers.scale.ups")
+				.tag("queue", "testQueue").functionCounter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void recordDeletionFailure_failedMessages_areCounted() {
+		// Act
+		this.metrics.recordDeletionFailure("testQueue", 3);
+		this.metrics.recordRejectedExecution("testQueue");
+
+		// Assert
+		assertThat(this.meterRegistry.get("sqs.listener.delete.failures")
+				.tag("queue", "testQueue").counter().count()).isEqualTo(3);
+		assertThat(this.meterRegistry.get("sqs.listener.executor.rejected")
+				.tag("queue", "testQueue").counter().count()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Future;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.cloud.aws.messaging.core.SqsMessageHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class QueueMessageBatchAcknowledgmentTest {
+
+	private static final String QUEUE_URL = "https://queue.amazonaws.com";
+
+	private static Message<String> createMessage(String receiptHandle) {
+		return MessageBuilder.withPayload("message")
+				.setHeader(SqsMessageHeaders.SQS_RECEIPT_HANDLE, receiptHandle).build();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void acknowledge_noMessages_doesNotSendEmptyBatchRequest() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		QueueMessageBatchAcknowledgment acknowledgment = new QueueMessageBatchAcknowledgment(
+				sqs, QUEUE_URL, Arrays.asList("rh1", "rh2"));
+
+		// Act
+		Future<?> future = acknowledgment.acknowledge(Collections.emptyList());
+
+		// Assert
+		assertThat(future.isDone()).isTrue();
+		verify(sqs, never()).deleteMessageBatchAsync(
+				any(DeleteMessageBatchRequest.class), any(AsyncHandler.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void acknowledge_duplicateMessages_deletesEveryReceiptHandleOnce() {
+		// Arrange
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		QueueMessageBatchAcknowledgment acknowledgment = new QueueMessageBatchAcknowledgment(
+				sqs, QUEUE_URL, Arrays.asList("rh1", "rh2"));
+
+		// Act
+		acknowledgment.acknowledge(Arrays.asList(createMessage("rh1"),
+				createMessage("rh2"), createMessage("rh1")));
+
+		// Assert
+		ArgumentCaptor<DeleteMessageBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(DeleteMessageBatchRequest.class);
+		verify(sqs).deleteMessageBatchAsync(requestCaptor.capture(),
+				any(AsyncHandler.class));
+		assertThat(requestCaptor.getValue().getEntries()).hasSize(2);
+		assertThat(requestCaptor.getValue().getEntries().get(1).getReceiptHandle())
+				.isEqualTo("rh2");
+		assertThat(requestCaptor.getValue().getEntries().get(1).getId())
+				.isEqualTo("1");
+	}
+
+}
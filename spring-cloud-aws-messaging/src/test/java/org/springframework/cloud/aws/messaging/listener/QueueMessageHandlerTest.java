@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.aws.messaging.listener;
 
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collections;
@@ -23,12 +24,14 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -50,6 +53,8 @@ import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.cloud.aws.core.support.documentation.RuntimeUse;
 import org.springframework.cloud.aws.messaging.config.annotation.NotificationMessage;
 import org.springframework.cloud.aws.messaging.config.annotation.NotificationSubject;
+import org.springframework.cloud.aws.messaging.core.LargePayloadStore;
+import org.springframework.cloud.aws.messaging.core.QueueMessageUtils;
 import org.springframework.cloud.aws.messaging.core.SqsMessageHeaders;
 import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
 import org.springframework.context.annotation.Bean;
@@ -57,12 +62,14 @@ import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.core.DestinationResolvingMessageSendingOperations;
+import org.springframework.messaging.handler.DestinationPatternsMessageCondition;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
@@ -71,6 +78,7 @@ import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
 import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandler;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.StreamUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -78,7 +86,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -313,6 +323,52 @@ class QueueMessageHandlerTest {
 				.isEqualTo("Hello from resolved queue!");
 	}
 
+	@Test
+	void getMappingForMethod_methodAnnotatedWithSqsListenerReceiveSettings_resolvesPlaceholders() {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.getEnvironment().getPropertySources()
+				.addLast(new MapPropertySource("test",
+						Collections.singletonMap("custom.concurrency", "25")));
+
+		applicationContext.registerSingleton("ppc",
+				PropertySourcesPlaceholderConfigurer.class);
+		applicationContext.registerSingleton("incomingMessageHandlerWithReceiveSettings",
+				IncomingMessageHandlerWithReceiveSettings.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+
+		// Act
+		applicationContext.refresh();
+
+		// Assert
+		QueueMessageHandler.MappingInformation mappingInformation = applicationContext
+				.getBean(QueueMessageHandler.class).getHandlerMethods().keySet()
+				.iterator().next();
+		assertThat(mappingInformation.getConcurrency()).isEqualTo(25);
+		assertThat(mappingInformation.getMaxMessagesPerPoll()).isEqualTo(5);
+		assertThat(mappingInformation.getWaitTimeSeconds()).isEqualTo(3);
+		assertThat(mappingInformation.getVisibilityTimeout()).isNull();
+	}
+
+	@Test
+	void getMappingForMethod_maxMessagesPerPollAboveBatchLimit_failsAtStartupNamingMethod() {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("incomingMessageHandlerWithInvalidSettings",
+				IncomingMessageHandlerWithInvalidReceiveSettings.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+
+		// Act & Assert
+		assertThatThrownBy(applicationContext::refresh)
+				.hasRootCauseInstanceOf(IllegalStateException.class)
+				.hasStackTraceContaining("Attribute 'maxMessagesPerPoll' of listener"
+						+ " method 'receive' in type '"
+						+ IncomingMessageHandlerWithInvalidReceiveSettings.class.getName()
+						+ "' must be between 1 and 10 but was 11");
+	}
+
 	@Test
 	void receiveMessage_withHeaderAnnotationAsArgument_shouldReceiveRequestedHeader() {
 		// Arrange
@@ -338,6 +394,88 @@ class QueueMessageHandlerTest {
 		assertThat(messageReceiver.getSenderId()).isEqualTo("elsUnitTest");
 	}
 
+	@Test
+	void receiveMessage_directlyInvokedHandlerMethod_shouldReceiveLookupDestinationHeader() {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("messageReceiverWithLookupDestination",
+				MessageReceiverWithLookupDestinationHeader.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+		applicationContext.refresh();
+
+		QueueMessageHandler queueMessageHandler = applicationContext
+				.getBean(QueueMessageHandler.class);
+		MessageReceiverWithLookupDestinationHeader messageReceiver = applicationContext
+				.getBean(MessageReceiverWithLookupDestinationHeader.class);
+
+		// Act
+		queueMessageHandler.handleMessage(MessageBuilder.withPayload("Hello")
+				.setHeader(QueueMessageHandler.LOGICAL_RESOURCE_ID, "testQueue").build());
+
+		// Assert
+		assertThat(messageReceiver.getLookupDestination()).isEqualTo("testQueue");
+	}
+
+	@Test
+	void receiveMessage_directlyInvokedHandlerMethod_shouldNotConvertUnreadHeaders() {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("messageReceiverWithLookupDestination",
+				MessageReceiverWithLookupDestinationHeader.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+		applicationContext.refresh();
+
+		QueueMessageHandler queueMessageHandler = applicationContext
+				.getBean(QueueMessageHandler.class);
+		MessageReceiverWithLookupDestinationHeader messageReceiver = applicationContext
+				.getBean(MessageReceiverWithLookupDestinationHeader.class);
+		MessageAttributeValue numberAttribute = spy(new MessageAttributeValue()
+				.withDataType("Number").withStringValue("42"));
+		com.amazonaws.services.sqs.model.Message sqsMessage = new com.amazonaws.services.sqs.model.Message()
+				.withBody("Hello").withMessageId("messageId")
+				.withReceiptHandle("receiptHandle")
+				.withMessageAttributes(Collections.singletonMap("count", numberAttribute));
+
+		// Act
+		queueMessageHandler.handleMessage(QueueMessageUtils.createMessage(sqsMessage,
+				Collections.singletonMap(QueueMessageHandler.LOGICAL_RESOURCE_ID,
+						"testQueue")));
+
+		// Assert
+		assertThat(messageReceiver.getLookupDestination()).isEqualTo("testQueue");
+		verify(numberAttribute, never()).getStringValue();
+	}
+
+	@Test
+	void receiveMessage_withStoredPayload_shouldStreamStoredPayloadToInputStream()
+			throws Exception {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("largePayloadMessageReceiver",
+				LargePayloadMessageReceiver.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+		applicationContext.refresh();
+
+		QueueMessageHandler queueMessageHandler = applicationContext
+				.getBean(QueueMessageHandler.class);
+		LargePayloadMessageReceiver messageReceiver = applicationContext
+				.getBean(LargePayloadMessageReceiver.class);
+
+		// Act
+		queueMessageHandler.handleMessage(MessageBuilder.withPayload("pointer")
+				.setHeader(LargePayloadStore.PAYLOAD_HEADER,
+						new ByteArrayResource("stored payload".getBytes()))
+				.setHeader(QueueMessageHandler.LOGICAL_RESOURCE_ID, "largePayloadQueue")
+				.build());
+
+		// Assert
+		assertThat(StreamUtils.copyToByteArray(messageReceiver.getPayload()))
+				.isEqualTo("stored payload".getBytes());
+	}
+
 	@Test
 	void receiveMessage_withWrongHeaderAnnotationValueAsArgument_shouldReceiveNullAsHeaderValue() {
 		// Arrange
@@ -479,6 +617,57 @@ class QueueMessageHandlerTest {
 						.isEqualTo("testQueue");
 	}
 
+	@Test
+	void receiveMessage_destinationMappedToOneMethod_receivesHeadersWithoutCopy() {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("messageHandlerWithMessageHeaderObject",
+				MessageReceiverWithMessageHeadersObject.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+		applicationContext.refresh();
+
+		QueueMessageHandler queueMessageHandler = applicationContext
+				.getBean(QueueMessageHandler.class);
+		MessageReceiverWithMessageHeadersObject messageReceiver = applicationContext
+				.getBean(MessageReceiverWithMessageHeadersObject.class);
+		Message<String> message = MessageBuilder.withPayload("Hello from a sender")
+				.setHeader(QueueMessageHandler.LOGICAL_RESOURCE_ID, "testQueue").build();
+
+		// Act
+		queueMessageHandler.handleMessage(message);
+		queueMessageHandler.handleMessage(message);
+
+		// Assert
+		assertThat(messageReceiver.getPayload()).isEqualTo("Hello from a sender");
+		assertThat(messageReceiver.getHeaders()).isSameAs(message.getHeaders());
+	}
+
+	@Test
+	void receiveMessage_prototypeHandlerBean_resolvesHandlerBeanForEveryMessage() {
+		// Arrange
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerPrototype("prototypeMessageReceiver",
+				PrototypeMessageReceiver.class);
+		applicationContext.registerSingleton("queueMessageHandler",
+				QueueMessageHandler.class);
+		applicationContext.refresh();
+
+		QueueMessageHandler queueMessageHandler = applicationContext
+				.getBean(QueueMessageHandler.class);
+		int instances = PrototypeMessageReceiver.instances.get();
+
+		// Act
+		for (int i = 0; i < 2; i++) {
+			queueMessageHandler.handleMessage(MessageBuilder.withPayload("message")
+					.setHeader(QueueMessageHandler.LOGICAL_RESOURCE_ID, "prototypeQueue")
+					.build());
+		}
+
+		// Assert
+		assertThat(PrototypeMessageReceiver.instances.get() - instances).isEqualTo(2);
+	}
+
 	@Test
 	void receiveMessage_withCustomArgumentResolvers_shouldCallThemBeforeTheDefaultOnes()
 			throws Exception {
@@ -795,6 +984,26 @@ class QueueMessageHandlerTest {
 
 	}
 
+	private static class IncomingMessageHandlerWithReceiveSettings {
+
+		@RuntimeUse
+		@SqsListener(value = "receiveSettingsQueue",
+				concurrency = "${custom.concurrency}", maxMessagesPerPoll = "5",
+				waitTimeSeconds = "#{1 + 2}")
+		public void receive(String value) {
+		}
+
+	}
+
+	private static class IncomingMessageHandlerWithInvalidReceiveSettings {
+
+		@RuntimeUse
+		@SqsListener(value = "receiveSettingsQueue", maxMessagesPerPoll = "11")
+		public void receive(String value) {
+		}
+
+	}
+
 	public static class DummyKeyValueHolder {
 
 		private final String key;
@@ -874,6 +1083,39 @@ class QueueMessageHandlerTest {
 
 	}
 
+	private static class MessageReceiverWithLookupDestinationHeader {
+
+		private String lookupDestination;
+
+		public String getLookupDestination() {
+			return this.lookupDestination;
+		}
+
+		@RuntimeUse
+		@SqsListener("testQueue")
+		public void receive(@Payload String payload, @Header(
+				DestinationPatternsMessageCondition.LOOKUP_DESTINATION_HEADER) String lookupDestination) {
+			this.lookupDestination = lookupDestination;
+		}
+
+	}
+
+	private static class LargePayloadMessageReceiver {
+
+		private InputStream payload;
+
+		InputStream getPayload() {
+			return this.payload;
+		}
+
+		@RuntimeUse
+		@SqsListener("largePayloadQueue")
+		public void receive(InputStream payload) {
+			this.payload = payload;
+		}
+
+	}
+
 	private static class MessageReceiverWithHeadersAnnotation {
 
 		private String payload;
@@ -947,6 +1189,21 @@ class QueueMessageHandlerTest {
 
 	}
 
+	private static class PrototypeMessageReceiver {
+
+		private static final AtomicInteger instances = new AtomicInteger();
+
+		PrototypeMessageReceiver() {
+			instances.incrementAndGet();
+		}
+
+		@RuntimeUse
+		@SqsListener("prototypeQueue")
+		public void receive(String message) {
+		}
+
+	}
+
 	private static class NotificationMessageReceiver {
 
 		private String subject;
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageRequest;
+import com.amazonaws.services.sqs.model.GetQueueAttributesRequest;
+import com.amazonaws.services.sqs.model.GetQueueAttributesResult;
+import com.amazonaws.services.sqs.model.GetQueueUrlRequest;
+import com.amazonaws.services.sqs.model.GetQueueUrlResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.QueueAttributeName;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.aws.core.support.documentation.RuntimeUse;
+import org.springframework.cloud.aws.messaging.listener.annotation.SqsListener;
+import org.springframework.context.support.StaticApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveMessageListenerContainerTest {
+
+	private static final String QUEUE_URL = "https://reactive.amazonaws.com/testQueue";
+
+	private static AmazonSQSAsync mockSqs() {
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		when(sqs.getQueueUrl(new GetQueueUrlRequest("testQueue")))
+				.thenReturn(new GetQueueUrlResult().withQueueUrl(QUEUE_URL));
+		when(sqs.getQueueAttributes(new GetQueueAttributesRequest(QUEUE_URL)
+				.withAttributeNames(QueueAttributeName.RedrivePolicy)))
+						.thenReturn(new GetQueueAttributesResult());
+		return sqs;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static AmazonSQSAsync mockSqsReturningOnce(Message... messages) {
+		AmazonSQSAsync sqs = mockSqs();
+		AtomicBoolean received = new AtomicBoolean();
+		when(sqs.receiveMessageAsync(any(ReceiveMessageRequest.class),
+				any(AsyncHandler.class))).thenAnswer(invocation -> {
+					// Following polls never complete, like an empty long poll
+					if (!received.getAndSet(true)) {
+						AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult> handler = invocation
+								.getArgument(1);
+						handler.onSuccess(invocation.getArgument(0),
+								new ReceiveMessageResult().withMessages(messages));
+					}
+					return null;
+				});
+		return sqs;
+	}
+
+	private static ReactiveMessageListenerContainer createContainer(AmazonSQSAsync sqs,
+			Class<?> listenerClass) throws Exception {
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener", listenerClass);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		ReactiveMessageListenerContainer container = new ReactiveMessageListenerContainer();
+		container.setAmazonSqs(sqs);
+		container.setMessageHandler(messageHandler);
+		container.afterPropertiesSet();
+		return container;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void executeMessage_listenerReturnsCompletableFuture_deletesMessageOnceCompleted()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSqsReturningOnce(
+				new Message().withBody("messageContent").withReceiptHandle("rh1"));
+		ReactiveMessageListenerContainer container = createContainer(sqs,
+				CompletableFutureMessageListener.class);
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(CompletableFutureMessageListener.invoked.await(1, TimeUnit.SECONDS))
+				.isTrue();
+		verify(sqs, never()).deleteMessageAsync(any(DeleteMessageRequest.class),
+				any(AsyncHandler.class));
+
+		CompletableFutureMessageListener.result.complete(null);
+		verify(sqs, timeout(1000)).deleteMessageAsync(
+				eq(new DeleteMessageRequest(QUEUE_URL, "rh1")), any(AsyncHandler.class));
+		container.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void executeMessage_listenerReturnsFailingMono_doesNotDeleteMessage()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSqsReturningOnce(
+				new Message().withBody("messageContent").withReceiptHandle("rh2"));
+		ReactiveMessageListenerContainer container = createContainer(sqs,
+				FailingMonoMessageListener.class);
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(FailingMonoMessageListener.subscribed.await(1, TimeUnit.SECONDS))
+				.isTrue();
+		Thread.sleep(100);
+		verify(sqs, never()).deleteMessageAsync(any(DeleteMessageRequest.class),
+				any(AsyncHandler.class));
+		container.destroy();
+	}
+
+	@Test
+	void receive_registeredQueue_emitsMessagesWithAcknowledgment() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSqsReturningOnce(
+				new Message().withBody("messageContent").withReceiptHandle("rh3"));
+		ReactiveMessageListenerContainer container = createContainer(sqs,
+				CompletableFutureMessageListener.class);
+
+		// Act
+		org.springframework.messaging.Message<String> message = container
+				.receive("testQueue").blockFirst(Duration.ofSeconds(1));
+
+		// Assert
+		assertThat(message.getPayload()).isEqualTo("messageContent");
+		assertThat(message.getHeaders().get(QueueMessageHandler.ACKNOWLEDGMENT))
+				.isInstanceOf(QueueMessageAcknowledgment.class);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void poll_failedReceiveRequest_retriesAfterBackOffTimeOfPolicy() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSqs();
+		IllegalStateException failure = new IllegalStateException("failed");
+		when(sqs.receiveMessageAsync(any(ReceiveMessageRequest.class),
+				any(AsyncHandler.class))).thenAnswer(invocation -> {
+					invocation
+							.<AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult>>getArgument(
+									1)
+							.onError(failure);
+					return null;
+				}).thenReturn(null);
+		ReactiveMessageListenerContainer container = createContainer(sqs,
+				CompletableFutureMessageListener.class);
+		List<Integer> attempts = new CopyOnWriteArrayList<>();
+		container.setBackOffPolicy((attempt, exception) -> {
+			assertThat(exception).isSameAs(failure);
+			attempts.add(attempt);
+			return 0;
+		});
+
+		// Act
+		container.start();
+
+		// Assert
+		verify(sqs, timeout(1000).times(2)).receiveMessageAsync(
+				any(ReceiveMessageRequest.class), any(AsyncHandler.class));
+		assertThat(attempts).containsExactly(1);
+		assertThat(container.getPollerStatistics("testQueue").getActivePollers())
+				.isEqualTo(1);
+		container.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void start_stoppedQueueWithPendingReceive_replacesPreviousSubscription()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSqs();
+		List<AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult>> handlers = new CopyOnWriteArrayList<>();
+		List<ReceiveMessageRequest> requests = new CopyOnWriteArrayList<>();
+		when(sqs.receiveMessageAsync(any(ReceiveMessageRequest.class),
+				any(AsyncHandler.class))).thenAnswer(invocation -> {
+					// Polls never complete by themselves, like an empty long poll
+					requests.add(invocation.getArgument(0));
+					handlers.add(invocation.getArgument(1));
+					return null;
+				});
+		ReactiveMessageListenerContainer container = createContainer(sqs,
+				CompletableFutureMessageListener.class);
+		container.start();
+		verify(sqs, timeout(1000)).receiveMessageAsync(any(ReceiveMessageRequest.class),
+				any(AsyncHandler.class));
+
+		// Act
+		container.stop("testQueue");
+		container.start("testQueue");
+
+		// Assert
+		verify(sqs, timeout(1000).times(2)).receiveMessageAsync(
+				any(ReceiveMessageRequest.class), any(AsyncHandler.class));
+		assertThat(container.getPollerStatistics("testQueue").getActivePollers())
+				.isEqualTo(1);
+
+		// The pending receive of the previous subscription returns its messages
+		handlers.get(0).onSuccess(requests.get(0), new ReceiveMessageResult()
+				.withMessages(new Message().withBody("late").withReceiptHandle("rh4")));
+		ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(ChangeMessageVisibilityBatchRequest.class);
+		verify(sqs, timeout(1000)).changeMessageVisibilityBatchAsync(
+				requestCaptor.capture(), any(AsyncHandler.class));
+		assertThat(requestCaptor.getValue().getEntries()).extracting("receiptHandle")
+				.containsExactly("rh4");
+		assertThat(requestCaptor.getValue().getEntries())
+				.extracting("visibilityTimeout").containsOnly(0);
+		verify(sqs, times(2)).receiveMessageAsync(any(ReceiveMessageRequest.class),
+				any(AsyncHandler.class));
+		container.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void stop_withReceivedMessagesNotStarted_returnsThemToTheQueue() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockSqsReturningOnce(
+				new Message().withBody("first").withReceiptHandle("rh5"),
+				new Message().withBody("second").withReceiptHandle("rh6"));
+		ReactiveMessageListenerContainer container = createContainer(sqs,
+				BlockingMessageListener.class);
+		container.setMaxInflightMessagesPerQueue(1);
+		container.start();
+		assertThat(BlockingMessageListener.invoked.await(1, TimeUnit.SECONDS)).isTrue();
+
+		// Act
+		container.stop("testQueue");
+		BlockingMessageListener.result.complete(null);
+
+		// Assert
+		ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(ChangeMessageVisibilityBatchRequest.class);
+		verify(sqs, timeout(1000)).changeMessageVisibilityBatchAsync(
+				requestCaptor.capture(), any(AsyncHandler.class));
+		assertThat(requestCaptor.getValue().getEntries()).extracting("receiptHandle")
+				.containsExactly("rh6");
+		assertThat(BlockingMessageListener.messages).containsExactly("first");
+		verify(sqs, timeout(1000)).deleteMessageAsync(
+				eq(new DeleteMessageRequest(QUEUE_URL, "rh5")), any(AsyncHandler.class));
+		container.destroy();
+	}
+
+	private static class CompletableFutureMessageListener {
+
+		private static final CountDownLatch invoked = new CountDownLatch(1);
+
+		private static final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		@RuntimeUse
+		@SqsListener(value = "testQueue",
+				deletionPolicy = SqsMessageDeletionPolicy.ON_SUCCESS)
+		CompletableFuture<Void> handleMessage(String message) {
+			invoked.countDown();
+			return result;
+		}
+
+	}
+
+	private static class BlockingMessageListener {
+
+		private static final CountDownLatch invoked = new CountDownLatch(1);
+
+		private static final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		private static final List<String> messages = new CopyOnWriteArrayList<>();
+
+		@RuntimeUse
+		@SqsListener(value = "testQueue",
+				deletionPolicy = SqsMessageDeletionPolicy.ON_SUCCESS)
+		CompletableFuture<Void> handleMessage(String message) {
+			messages.add(message);
+			invoked.countDown();
+			return result;
+		}
+
+	}
+
+	private static class FailingMonoMessageListener {
+
+		private static final CountDownLatch subscribed = new CountDownLatch(1);
+
+		@RuntimeUse
+		@SqsListener(value = "testQueue",
+				deletionPolicy = SqsMessageDeletionPolicy.ON_SUCCESS)
+		Mono<Void> handleMessage(String message) {
+			return Mono.<Void>error(new IllegalStateException("failed"))
+					.doOnSubscribe(subscription -> subscribed.countDown());
+		}
+
+	}
+
+}
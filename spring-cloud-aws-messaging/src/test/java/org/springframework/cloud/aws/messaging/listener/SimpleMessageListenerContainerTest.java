@@ -17,11 +17,17 @@
 package org.springframework.cloud.aws.messaging.listener;
 
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
@@ -30,7 +36,10 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
 import com.amazonaws.services.sqs.buffered.AmazonSQSBufferedAsyncClient;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
 import com.amazonaws.services.sqs.model.ChangeMessageVisibilityRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
 import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.GetQueueAttributesRequest;
 import com.amazonaws.services.sqs.model.GetQueueAttributesResult;
@@ -61,19 +70,24 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.handler.HandlerMethod;
 import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.MimeType;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StopWatch;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -209,6 +223,512 @@ class SimpleMessageListenerContainerTest {
 		assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(expectedPoolMaxSize);
 	}
 
+	@Test
+	void testWithDefaultTaskExecutorAndMaxInflightMessagesPerQueue() throws Exception {
+		Map<QueueMessageHandler.MappingInformation, HandlerMethod> messageHandlerMethods = Collections
+				.singletonMap(new QueueMessageHandler.MappingInformation(
+						Collections.singleton("testQueue"),
+						SqsMessageDeletionPolicy.ALWAYS), null);
+
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		QueueMessageHandler mockedHandler = mock(QueueMessageHandler.class);
+		AmazonSQSAsync mockedSqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+
+		when(mockedSqs.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+		when(mockedSqs.getQueueUrl(any(GetQueueUrlRequest.class)))
+				.thenReturn(new GetQueueUrlResult().withQueueUrl("testQueueUrl"));
+		when(mockedHandler.getHandlerMethods()).thenReturn(messageHandlerMethods);
+
+		container.setMaxInflightMessagesPerQueue(30);
+		container.setAmazonSqs(mockedSqs);
+		container.setMessageHandler(mockedHandler);
+
+		container.afterPropertiesSet();
+
+		ThreadPoolTaskExecutor taskExecutor = (ThreadPoolTaskExecutor) container
+				.getTaskExecutor();
+		assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(31);
+	}
+
+	@Test
+	void testWithDefaultTaskExecutorAndConcurrencyPerQueue() throws Exception {
+		Map<QueueMessageHandler.MappingInformation, HandlerMethod> messageHandlerMethods = new HashMap<>();
+		messageHandlerMethods.put(new QueueMessageHandler.MappingInformation(
+				Collections.singleton("testQueue"), SqsMessageDeletionPolicy.ALWAYS),
+				null);
+		messageHandlerMethods.put(new QueueMessageHandler.MappingInformation(
+				Collections.singleton("anotherTestQueue"),
+				SqsMessageDeletionPolicy.ALWAYS, false, 40, 5, null, null), null);
+
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		QueueMessageHandler mockedHandler = mock(QueueMessageHandler.class);
+		AmazonSQSAsync mockedSqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+
+		when(mockedSqs.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+		when(mockedSqs.getQueueUrl(any(GetQueueUrlRequest.class)))
+				.thenReturn(new GetQueueUrlResult().withQueueUrl("testQueueUrl"));
+		when(mockedHandler.getHandlerMethods()).thenReturn(messageHandlerMethods);
+
+		container.setAmazonSqs(mockedSqs);
+		container.setMessageHandler(mockedHandler);
+
+		container.afterPropertiesSet();
+
+		// 10 workers and 1 poller for testQueue, 40 workers and 1 poller for
+		// anotherTestQueue
+		ThreadPoolTaskExecutor taskExecutor = (ThreadPoolTaskExecutor) container
+				.getTaskExecutor();
+		assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(52);
+	}
+
+	@Test
+	void testConcurrencyLowerThanMaxMessagesPerPoll() {
+		Map<QueueMessageHandler.MappingInformation, HandlerMethod> messageHandlerMethods = Collections
+				.singletonMap(new QueueMessageHandler.MappingInformation(
+						Collections.singleton("testQueue"),
+						SqsMessageDeletionPolicy.ALWAYS, false, 5, 10, null, null), null);
+
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		QueueMessageHandler mockedHandler = mock(QueueMessageHandler.class);
+		AmazonSQSAsync mockedSqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+
+		when(mockedSqs.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+		when(mockedSqs.getQueueUrl(any(GetQueueUrlRequest.class)))
+				.thenReturn(new GetQueueUrlResult().withQueueUrl("testQueueUrl"));
+		when(mockedHandler.getHandlerMethods()).thenReturn(messageHandlerMethods);
+
+		container.setAmazonSqs(mockedSqs);
+		container.setMessageHandler(mockedHandler);
+
+		assertThatThrownBy(container::afterPropertiesSet)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("testQueue");
+	}
+
+	@Test
+	void testWithDefaultTaskExecutorAndMaxPollersPerQueue() throws Exception {
+		Map<QueueMessageHandler.MappingInformation, HandlerMethod> messageHandlerMethods = Collections
+				.singletonMap(new QueueMessageHandler.MappingInformation(
+						Collections.singleton("testQueue"),
+						SqsMessageDeletionPolicy.ALWAYS), null);
+
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		QueueMessageHandler mockedHandler = mock(QueueMessageHandler.class);
+		AmazonSQSAsync mockedSqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+
+		when(mockedSqs.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+		when(mockedSqs.getQueueUrl(any(GetQueueUrlRequest.class)))
+				.thenReturn(new GetQueueUrlResult().withQueueUrl("testQueueUrl"));
+		when(mockedHandler.getHandlerMethods()).thenReturn(messageHandlerMethods);
+
+		container.setMaxPollersPerQueue(3);
+		container.setAmazonSqs(mockedSqs);
+		container.setMessageHandler(mockedHandler);
+
+		container.afterPropertiesSet();
+
+		ThreadPoolTaskExecutor taskExecutor = (ThreadPoolTaskExecutor) container
+				.getTaskExecutor();
+		assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(33);
+	}
+
+	@Test
+	void testWithDefaultTaskExecutorAndVirtualThreads() throws Exception {
+		assumeTrue(ReflectionUtils.findMethod(Thread.class, "ofVirtual") != null);
+		SimpleMessageListenerContainer container = createContainerWithVirtualThreads();
+
+		container.afterPropertiesSet();
+
+		String[] threadName = new String[1];
+		container.getTaskExecutor()
+				.submit(() -> threadName[0] = Thread.currentThread().getName()).get();
+		assertThat(container.getTaskExecutor())
+				.isInstanceOf(ConcurrentTaskExecutor.class);
+		assertThat(threadName[0]).startsWith("SimpleMessageListenerContainer-");
+
+		container.destroy();
+	}
+
+	@Test
+	void testWithDefaultTaskExecutorAndVirtualThreadsOnUnsupportedJava() {
+		assumeTrue(ReflectionUtils.findMethod(Thread.class, "ofVirtual") == null);
+		SimpleMessageListenerContainer container = createContainerWithVirtualThreads();
+
+		assertThatThrownBy(container::afterPropertiesSet)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Java 21");
+	}
+
+	private SimpleMessageListenerContainer createContainerWithVirtualThreads() {
+		Map<QueueMessageHandler.MappingInformation, HandlerMethod> messageHandlerMethods = Collections
+				.singletonMap(new QueueMessageHandler.MappingInformation(
+						Collections.singleton("testQueue"),
+						SqsMessageDeletionPolicy.ALWAYS), null);
+
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		QueueMessageHandler mockedHandler = mock(QueueMessageHandler.class);
+		AmazonSQSAsync mockedSqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+
+		when(mockedSqs.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+		when(mockedSqs.getQueueUrl(any(GetQueueUrlRequest.class)))
+				.thenReturn(new GetQueueUrlResult().withQueueUrl("testQueueUrl"));
+		when(mockedHandler.getHandlerMethods()).thenReturn(messageHandlerMethods);
+
+		container.setVirtualThreads(true);
+		container.setAmazonSqs(mockedSqs);
+		container.setMessageHandler(mockedHandler);
+		return container;
+	}
+
+	@Test
+	void receiveMessage_withMaxInflightMessagesPerQueue_slowMessageDoesNotBlockPolling()
+			throws Exception {
+		// Arrange
+		CountDownLatch slowMessageLatch = new CountDownLatch(1);
+		CountDownLatch fastMessageLatch = new CountDownLatch(1);
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				if ("slow".equals(stringMessage.getPayload())) {
+					try {
+						slowMessageLatch.await(5, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				else {
+					fastMessageLatch.countDown();
+				}
+			}
+		};
+		container.setMaxInflightMessagesPerQueue(20);
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"http://receiveMessage_withMaxInflightMessagesPerQueue.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://receiveMessage_withMaxInflightMessagesPerQueue.amazonaws.com");
+
+		container.afterPropertiesSet();
+
+		when(sqs.receiveMessage(new ReceiveMessageRequest(
+				"http://receiveMessage_withMaxInflightMessagesPerQueue.amazonaws.com")
+						.withAttributeNames("All").withMessageAttributeNames("All")
+						.withMaxNumberOfMessages(10).withWaitTimeSeconds(20)))
+								.thenReturn(new ReceiveMessageResult().withMessages(
+										new Message().withBody("slow")
+												.withReceiptHandle("slow")))
+								.thenReturn(new ReceiveMessageResult().withMessages(
+										new Message().withBody("fast")
+												.withReceiptHandle("fast")))
+								.thenReturn(new ReceiveMessageResult());
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(fastMessageLatch.await(2L, TimeUnit.SECONDS)).isTrue();
+		assertThat(slowMessageLatch.getCount()).isEqualTo(1);
+		slowMessageLatch.countDown();
+		container.stop();
+	}
+
+	@Test
+	void receiveMessage_withVirtualThreads_slowMessageDoesNotBlockPolling()
+			throws Exception {
+		// Arrange
+		assumeTrue(ReflectionUtils.findMethod(Thread.class, "ofVirtual") != null);
+		CountDownLatch slowMessageLatch = new CountDownLatch(1);
+		CountDownLatch fastMessageLatch = new CountDownLatch(1);
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				if ("slow".equals(stringMessage.getPayload())) {
+					try {
+						slowMessageLatch.await(5, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				else {
+					fastMessageLatch.countDown();
+				}
+			}
+		};
+		container.setVirtualThreads(true);
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"http://receiveMessage_withVirtualThreads.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://receiveMessage_withVirtualThreads.amazonaws.com");
+
+		container.afterPropertiesSet();
+
+		when(sqs.receiveMessage(new ReceiveMessageRequest(
+				"http://receiveMessage_withVirtualThreads.amazonaws.com")
+						.withAttributeNames("All").withMessageAttributeNames("All")
+						.withMaxNumberOfMessages(10).withWaitTimeSeconds(20)))
+								.thenReturn(new ReceiveMessageResult().withMessages(
+										new Message().withBody("slow")
+												.withReceiptHandle("slow")))
+								.thenReturn(new ReceiveMessageResult().withMessages(
+										new Message().withBody("fast")
+												.withReceiptHandle("fast")))
+								.thenReturn(new ReceiveMessageResult());
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(fastMessageLatch.await(2L, TimeUnit.SECONDS)).isTrue();
+		assertThat(slowMessageLatch.getCount()).isEqualTo(1);
+		slowMessageLatch.countDown();
+		container.stop();
+		container.destroy();
+	}
+
+	@Test
+	void receiveMessage_withFifoQueue_executesMessageGroupsInOrderAndInParallel()
+			throws Exception {
+		// Arrange
+		CountDownLatch otherGroupLatch = new CountDownLatch(1);
+		CountDownLatch allMessagesLatch = new CountDownLatch(3);
+		List<String> executedMessages = new CopyOnWriteArrayList<>();
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				String payload = stringMessage.getPayload();
+				try {
+					if ("A1".equals(payload)) {
+						// Only completes if group B is not queued behind group A
+						assertThat(otherGroupLatch.await(2, TimeUnit.SECONDS)).isTrue();
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				executedMessages.add(payload);
+				if ("B1".equals(payload)) {
+					otherGroupLatch.countDown();
+				}
+				allMessagesLatch.countDown();
+			}
+		};
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue", "http://testQueue.amazonaws.com/queue.fifo");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://testQueue.amazonaws.com/queue.fifo");
+
+		container.afterPropertiesSet();
+
+		when(sqs.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(
+				new ReceiveMessageResult().withMessages(
+						createFifoMessage("A1", "A"), createFifoMessage("A2", "A"),
+						createFifoMessage("B1", "B")),
+				new ReceiveMessageResult());
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(allMessagesLatch.await(3, TimeUnit.SECONDS)).isTrue();
+		assertThat(executedMessages).containsExactly("B1", "A1", "A2");
+		container.stop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void receiveMessage_withFifoQueueAndVisibilityHeartbeat_extendsVisibilityOfQueuedMessages()
+			throws Exception {
+		// Arrange
+		CountDownLatch allMessagesLatch = new CountDownLatch(2);
+		List<String> extendedReceiptHandles = new CopyOnWriteArrayList<>();
+		AtomicBoolean queuedMessageExtended = new AtomicBoolean();
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				try {
+					if ("A1".equals(stringMessage.getPayload())) {
+						// Takes longer than the visibility timeout of the queued message
+						Thread.sleep(2500);
+					}
+					else {
+						queuedMessageExtended
+								.set(extendedReceiptHandles.contains("A2"));
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				allMessagesLatch.countDown();
+			}
+		};
+		container.setVisibilityTimeout(1);
+		container.setVisibilityHeartbeatEnabled(true);
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(sqs);
+		when(sqs.changeMessageVisibilityBatchAsync(
+				any(ChangeMessageVisibilityBatchRequest.class), any(AsyncHandler.class)))
+						.thenAnswer(invocation -> {
+							ChangeMessageVisibilityBatchRequest request = invocation
+									.getArgument(0);
+							request.getEntries().forEach(entry -> extendedReceiptHandles
+									.add(entry.getReceiptHandle()));
+							return null;
+						});
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue", "http://testQueue.amazonaws.com/queue.fifo");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://testQueue.amazonaws.com/queue.fifo");
+
+		container.afterPropertiesSet();
+
+		when(sqs.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(
+				new ReceiveMessageResult().withMessages(createFifoMessage("A1", "A"),
+						createFifoMessage("A2", "A")),
+				new ReceiveMessageResult());
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(allMessagesLatch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(queuedMessageExtended.get()).isTrue();
+		container.stop();
+		container.destroy();
+	}
+
+	private static Message createFifoMessage(String body, String messageGroupId) {
+		return new Message().withBody(body).withReceiptHandle(body)
+				.withMessageId(body).addAttributesEntry("MessageGroupId", messageGroupId);
+	}
+
+	@Test
+	void receiveMessage_withMaxPollersPerQueue_scalesPollersWithReceivedMessages()
+			throws Exception {
+		// Arrange
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+			}
+		};
+		container.setMaxPollersPerQueue(3);
+		container.setMaxNumberOfMessages(1);
+		container.setWaitTimeOut(1);
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"http://receiveMessage_withMaxPollersPerQueue.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://receiveMessage_withMaxPollersPerQueue.amazonaws.com");
+
+		container.afterPropertiesSet();
+
+		Message message = new Message().withBody("message").withReceiptHandle("rh");
+		when(sqs.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(
+				new ReceiveMessageResult().withMessages(message),
+				new ReceiveMessageResult().withMessages(message),
+				new ReceiveMessageResult().withMessages(message),
+				new ReceiveMessageResult());
+
+		// Act
+		container.start();
+
+		// Assert
+		verify(sqs, timeout(2000).atLeastOnce()).receiveMessage(
+				argThat(request -> request.getWaitTimeSeconds() == 20));
+		PollerStatistics pollerStatistics = container.getPollerStatistics("testQueue");
+		assertThat(pollerStatistics.getFullReceives()).isEqualTo(3);
+		assertThat(pollerStatistics.getScaleUps()).isGreaterThan(0);
+		for (int i = 0; i < 20 && pollerStatistics.getActivePollers() > 1; i++) {
+			Thread.sleep(100);
+		}
+		assertThat(pollerStatistics.getActivePollers()).isEqualTo(1);
+		assertThat(pollerStatistics.getScaleDowns())
+				.isEqualTo(pollerStatistics.getScaleUps());
+
+		container.stop();
+		assertThat(pollerStatistics.getActivePollers()).isZero();
+	}
+
 	@Test
 	void testCustomTaskExecutor() throws Exception {
 		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
@@ -556,23 +1076,125 @@ class SimpleMessageListenerContainerTest {
 				.getField(simpleMessageListenerContainer, "messageHandler");
 
 		// Assert
-		assertThat(queueMessageHandler.getHandlerMethods().size()).isEqualTo(1);
+		assertThat(queueMessageHandler.getHandlerMethods().size()).isEqualTo(1);
+	}
+
+	@Test
+	void executeMessage_successfulExecution_shouldRemoveMessageFromQueue()
+			throws Exception {
+		// Arrange
+		CountDownLatch countDownLatch = new CountDownLatch(1);
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				countDownLatch.countDown();
+				super.executeMessage(stringMessage);
+			}
+		};
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com");
+
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+		container.afterPropertiesSet();
+
+		mockReceiveMessage(sqs,
+				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com",
+				"messageContent", "ReceiptHandle");
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(countDownLatch.await(2L, TimeUnit.SECONDS)).isTrue();
+		container.stop();
+		verify(sqs, times(1)).deleteMessageAsync(eq(new DeleteMessageRequest(
+				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com",
+				"ReceiptHandle")), any(AsyncHandler.class));
+	}
+
+	@Test
+	void executeMessage_withMappingLookup_shouldNotConvertUnreadHeaders()
+			throws Exception {
+		// Arrange
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler() {
+
+			@Override
+			protected Set<String> getDirectLookupDestinations(
+					MappingInformation mapping) {
+				return Collections.emptySet();
+			}
+		};
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"https://executeMessage_withMappingLookup_shouldNotConvertUnreadHeaders.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"https://executeMessage_withMappingLookup_shouldNotConvertUnreadHeaders.amazonaws.com");
+
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+		container.afterPropertiesSet();
+
+		MessageAttributeValue numberAttribute = spy(
+				new MessageAttributeValue().withDataType("Number").withStringValue("42"));
+		when(sqs.receiveMessage(new ReceiveMessageRequest(
+				"https://executeMessage_withMappingLookup_shouldNotConvertUnreadHeaders.amazonaws.com")
+						.withAttributeNames("All").withMessageAttributeNames("All")
+						.withMaxNumberOfMessages(10).withWaitTimeSeconds(20)))
+								.thenReturn(new ReceiveMessageResult().withMessages(
+										new Message().withBody("messageContent")
+												.withReceiptHandle("ReceiptHandle")
+												.withMessageAttributes(Collections
+														.singletonMap("count",
+																numberAttribute))),
+										new ReceiveMessageResult());
+
+		// Act
+		container.start();
+
+		// Assert
+		TestMessageListener testMessageListener = applicationContext
+				.getBean(TestMessageListener.class);
+		assertThat(testMessageListener.getCountDownLatch().await(2L, TimeUnit.SECONDS))
+				.isTrue();
+		container.stop();
+		assertThat(testMessageListener.getMessage()).isEqualTo("messageContent");
+		verify(numberAttribute, never()).getStringValue();
+		verify(sqs, times(1)).deleteMessageAsync(eq(new DeleteMessageRequest(
+				"https://executeMessage_withMappingLookup_shouldNotConvertUnreadHeaders.amazonaws.com",
+				"ReceiptHandle")), any(AsyncHandler.class));
 	}
 
 	@Test
-	void executeMessage_successfulExecution_shouldRemoveMessageFromQueue()
+	void executeMessageBatch_successfulExecution_shouldRemoveBatchFromQueue()
 			throws Exception {
 		// Arrange
-		CountDownLatch countDownLatch = new CountDownLatch(1);
-		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
-
-			@Override
-			protected void executeMessage(
-					org.springframework.messaging.Message<String> stringMessage) {
-				countDownLatch.countDown();
-				super.executeMessage(stringMessage);
-			}
-		};
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
 
 		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
 		container.setAmazonSqs(sqs);
@@ -582,30 +1204,46 @@ class SimpleMessageListenerContainerTest {
 
 		StaticApplicationContext applicationContext = new StaticApplicationContext();
 		applicationContext.registerSingleton("testMessageListener",
-				TestMessageListener.class);
+				TestBatchMessageListener.class);
 
 		mockGetQueueUrl(sqs, "testQueue",
-				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com");
+				"https://executeMessageBatch_successfulExecution_shouldRemoveBatchFromQueue.amazonaws.com");
 		mockGetQueueAttributesWithEmptyResult(sqs,
-				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com");
+				"https://executeMessageBatch_successfulExecution_shouldRemoveBatchFromQueue.amazonaws.com");
 
 		messageHandler.setApplicationContext(applicationContext);
 		messageHandler.afterPropertiesSet();
 		container.afterPropertiesSet();
 
-		mockReceiveMessage(sqs,
-				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com",
-				"messageContent", "ReceiptHandle");
+		when(sqs.receiveMessage(new ReceiveMessageRequest(
+				"https://executeMessageBatch_successfulExecution_shouldRemoveBatchFromQueue.amazonaws.com")
+						.withAttributeNames("All").withMessageAttributeNames("All")
+						.withMaxNumberOfMessages(10).withWaitTimeSeconds(20)))
+								.thenReturn(new ReceiveMessageResult().withMessages(
+										new Message().withBody("first")
+												.withReceiptHandle("ReceiptHandle1"),
+										new Message().withBody("second")
+												.withReceiptHandle("ReceiptHandle2")),
+										new ReceiveMessageResult());
 
 		// Act
 		container.start();
 
 		// Assert
-		assertThat(countDownLatch.await(2L, TimeUnit.SECONDS)).isTrue();
+		TestBatchMessageListener testMessageListener = applicationContext
+				.getBean(TestBatchMessageListener.class);
+		assertThat(testMessageListener.getCountDownLatch().await(2L, TimeUnit.SECONDS))
+				.isTrue();
 		container.stop();
-		verify(sqs, times(1)).deleteMessageAsync(eq(new DeleteMessageRequest(
-				"https://executeMessage_successfulExecution_shouldRemoveMessageFromQueue.amazonaws.com",
-				"ReceiptHandle")), any(AsyncHandler.class));
+		assertThat(testMessageListener.getMessages()).containsExactly("first",
+				"second");
+		verify(sqs, times(1)).deleteMessageBatchAsync(eq(new DeleteMessageBatchRequest(
+				"https://executeMessageBatch_successfulExecution_shouldRemoveBatchFromQueue.amazonaws.com",
+				Arrays.asList(new DeleteMessageBatchRequestEntry("0", "ReceiptHandle1"),
+						new DeleteMessageBatchRequestEntry("1", "ReceiptHandle2")))),
+				any(AsyncHandler.class));
+		verify(sqs, never()).deleteMessageAsync(any(DeleteMessageRequest.class),
+				any(AsyncHandler.class));
 	}
 
 	@Test
@@ -734,6 +1372,99 @@ class SimpleMessageListenerContainerTest {
 				"ReceiptHandle")), any(AsyncHandler.class));
 	}
 
+	@Test
+	void executeMessage_listenerMethodReturnsFuture_shouldRemoveMessageAfterCompletion()
+			throws Exception {
+		// Arrange
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListenerWithAsyncResult.class);
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"https://executeMessage_listenerMethodReturnsFuture_shouldRemoveMessageAfterCompletion.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"https://executeMessage_listenerMethodReturnsFuture_shouldRemoveMessageAfterCompletion.amazonaws.com");
+
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+		container.afterPropertiesSet();
+
+		mockReceiveMessage(sqs,
+				"https://executeMessage_listenerMethodReturnsFuture_shouldRemoveMessageAfterCompletion.amazonaws.com",
+				"messageContent", "ReceiptHandle");
+		DeleteMessageRequest deleteMessageRequest = new DeleteMessageRequest(
+				"https://executeMessage_listenerMethodReturnsFuture_shouldRemoveMessageAfterCompletion.amazonaws.com",
+				"ReceiptHandle");
+
+		// Act
+		container.start();
+
+		// Assert
+		TestMessageListenerWithAsyncResult testMessageListener = applicationContext
+				.getBean(TestMessageListenerWithAsyncResult.class);
+		assertThat(testMessageListener.getCountDownLatch().await(2L, TimeUnit.SECONDS))
+				.isTrue();
+		verify(sqs, never()).deleteMessageAsync(eq(deleteMessageRequest),
+				any(AsyncHandler.class));
+
+		testMessageListener.getResult().complete(null);
+		verify(sqs, timeout(2000)).deleteMessageAsync(eq(deleteMessageRequest),
+				any(AsyncHandler.class));
+		container.stop();
+	}
+
+	@Test
+	void executeMessage_listenerMethodReturnsFailedFuture_shouldNotRemoveMessageFromQueue()
+			throws Exception {
+		// Arrange
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListenerWithAsyncResult.class);
+
+		mockGetQueueUrl(sqs, "testQueue",
+				"https://executeMessage_listenerMethodReturnsFailedFuture_shouldNotRemoveMessageFromQueue.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"https://executeMessage_listenerMethodReturnsFailedFuture_shouldNotRemoveMessageFromQueue.amazonaws.com");
+
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+		container.afterPropertiesSet();
+
+		mockReceiveMessage(sqs,
+				"https://executeMessage_listenerMethodReturnsFailedFuture_shouldNotRemoveMessageFromQueue.amazonaws.com",
+				"messageContent", "ReceiptHandle");
+
+		// Act
+		container.start();
+
+		// Assert
+		TestMessageListenerWithAsyncResult testMessageListener = applicationContext
+				.getBean(TestMessageListenerWithAsyncResult.class);
+		assertThat(testMessageListener.getCountDownLatch().await(2L, TimeUnit.SECONDS))
+				.isTrue();
+		testMessageListener.getResult()
+				.completeExceptionally(new RuntimeException("BOOM!"));
+		container.stop();
+		verify(sqs, never()).deleteMessageAsync(any(DeleteMessageRequest.class),
+				any(AsyncHandler.class));
+	}
+
 	@Test
 	void doStop_containerNotRunning_shouldNotThrowAnException() throws Exception {
 		// Arrange
@@ -798,6 +1529,58 @@ class SimpleMessageListenerContainerTest {
 		setLogLevel(previous);
 	}
 
+	@Test
+	void receiveMessage_throwsExceptionsWithBackOffPolicy_attemptsAreResetOnSuccess()
+			throws Exception {
+		// Arrange
+		Level previous = disableLogging();
+
+		AmazonSQSAsync amazonSqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		OverLimitException throttlingException = new OverLimitException("Throttled");
+		throttlingException.setErrorCode("Throttling");
+		when(amazonSqs.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenThrow(throttlingException).thenThrow(throttlingException)
+				.thenReturn(new ReceiveMessageResult())
+				.thenThrow(new RuntimeException("Boom!"))
+				.thenReturn(new ReceiveMessageResult());
+
+		List<Integer> attempts = new CopyOnWriteArrayList<>();
+		CountDownLatch countDownLatch = new CountDownLatch(3);
+		BackOffPolicy backOffPolicy = (attempt, exception) -> {
+			attempts.add(attempt);
+			countDownLatch.countDown();
+			return 0;
+		};
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(amazonSqs, "testQueue",
+				"https://receiveMessage_withBackOffPolicy.amazonaws.com");
+		when(amazonSqs.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+				.thenReturn(new GetQueueAttributesResult());
+
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+		container.setBackOffPolicy(backOffPolicy);
+		container.setAmazonSqs(amazonSqs);
+		container.setMessageHandler(messageHandler);
+		container.setAutoStartup(false);
+		container.afterPropertiesSet();
+
+		// Act
+		container.start();
+
+		// Assert
+		assertThat(countDownLatch.await(1, TimeUnit.SECONDS)).isTrue();
+		container.stop();
+		assertThat(attempts).containsExactly(1, 2, 1);
+		setLogLevel(previous);
+	}
+
 	@Test
 	void receiveMessage_withMessageListenerMethodAndNeverDeletionPolicy_waitsForAcknowledgmentBeforeDeletion()
 			throws Exception {
@@ -1276,6 +2059,119 @@ class SimpleMessageListenerContainerTest {
 		container.stop();
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	void stop_withMessagesReceivedWhileStopping_returnsThemToTheQueue()
+			throws Exception {
+		// Arrange
+		CountDownLatch executedLatch = new CountDownLatch(1);
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				executedLatch.countDown();
+			}
+		};
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue", "http://stop_returnsMessages.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://stop_returnsMessages.amazonaws.com");
+
+		container.afterPropertiesSet();
+
+		// The queue is stopped during the long poll
+		when(sqs.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenAnswer((Answer<ReceiveMessageResult>) invocation -> {
+					container.stopQueue("testQueue");
+					return new ReceiveMessageResult().withMessages(
+							new Message().withBody("first").withReceiptHandle("rh1"),
+							new Message().withBody("second").withReceiptHandle("rh2"));
+				});
+
+		// Act
+		container.start();
+
+		// Assert
+		ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(ChangeMessageVisibilityBatchRequest.class);
+		verify(sqs, timeout(1000)).changeMessageVisibilityBatchAsync(
+				requestCaptor.capture(), any(AsyncHandler.class));
+		ChangeMessageVisibilityBatchRequest request = requestCaptor.getValue();
+		assertThat(request.getQueueUrl())
+				.isEqualTo("http://stop_returnsMessages.amazonaws.com");
+		assertThat(request.getEntries()).extracting("receiptHandle")
+				.containsExactly("rh1", "rh2");
+		assertThat(request.getEntries()).extracting("visibilityTimeout")
+				.containsOnly(0);
+		assertThat(executedLatch.getCount()).isEqualTo(1);
+		container.stop();
+	}
+
+	@Test
+	void stop_withMaxInflightMessagesPerQueue_waitsForMessagesInExecution()
+			throws Exception {
+		// Arrange
+		CountDownLatch executionStartedLatch = new CountDownLatch(1);
+		AtomicBoolean executionCompleted = new AtomicBoolean();
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer() {
+
+			@Override
+			protected void executeMessage(
+					org.springframework.messaging.Message<String> stringMessage) {
+				executionStartedLatch.countDown();
+				try {
+					Thread.sleep(300);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				executionCompleted.set(true);
+			}
+		};
+		container.setMaxInflightMessagesPerQueue(10);
+
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class, withSettings().stubOnly());
+		container.setAmazonSqs(sqs);
+
+		QueueMessageHandler messageHandler = new QueueMessageHandler();
+		container.setMessageHandler(messageHandler);
+
+		StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.registerSingleton("testMessageListener",
+				TestMessageListener.class);
+		messageHandler.setApplicationContext(applicationContext);
+		messageHandler.afterPropertiesSet();
+
+		mockGetQueueUrl(sqs, "testQueue", "http://stop_waitsForMessages.amazonaws.com");
+		mockGetQueueAttributesWithEmptyResult(sqs,
+				"http://stop_waitsForMessages.amazonaws.com");
+		mockReceiveMessage(sqs, "http://stop_waitsForMessages.amazonaws.com", "message",
+				"rh");
+
+		container.afterPropertiesSet();
+		container.start();
+		assertThat(executionStartedLatch.await(1, TimeUnit.SECONDS)).isTrue();
+
+		// Act
+		container.stop();
+
+		// Assert
+		assertThat(executionCompleted).isTrue();
+	}
+
 	@Test
 	void stop_withContainerHavingMultipleQueuesRunning_shouldStopQueuesInParallel()
 			throws Exception {
@@ -1427,6 +2323,29 @@ class SimpleMessageListenerContainerTest {
 
 	}
 
+	private static class TestBatchMessageListener {
+
+		private final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+		private List<String> messages;
+
+		@RuntimeUse
+		@SqsListener(value = "testQueue", batch = true)
+		private void handleMessages(List<String> messages) {
+			this.messages = messages;
+			this.countDownLatch.countDown();
+		}
+
+		List<String> getMessages() {
+			return this.messages;
+		}
+
+		CountDownLatch getCountDownLatch() {
+			return this.countDownLatch;
+		}
+
+	}
+
 	private static class AnotherTestMessageListener {
 
 		private String message;
@@ -1498,6 +2417,30 @@ class SimpleMessageListenerContainerTest {
 
 	}
 
+	private static class TestMessageListenerWithAsyncResult {
+
+		private final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		@RuntimeUse
+		@SqsListener(value = "testQueue",
+				deletionPolicy = SqsMessageDeletionPolicy.ON_SUCCESS)
+		private CompletableFuture<Void> handleMessage(String message) {
+			this.countDownLatch.countDown();
+			return this.result;
+		}
+
+		CompletableFuture<Void> getResult() {
+			return this.result;
+		}
+
+		CountDownLatch getCountDownLatch() {
+			return this.countDownLatch;
+		}
+
+	}
+
 	private static class TestMessageListenerWithVisibilityProlong {
 
 		private final CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener;
+
+import java.util.List;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VisibilityHeartbeatTest {
+
+	private static final String QUEUE_URL = "https://queue.amazonaws.com";
+
+	// Half of the visibility timeout of one second used by the tests
+	private static final long HALF_VISIBILITY_TIMEOUT = 500;
+
+	@SuppressWarnings("unchecked")
+	private static AmazonSQSAsync mockChangeMessageVisibilityBatch() {
+		AmazonSQSAsync sqs = mock(AmazonSQSAsync.class);
+		when(sqs.changeMessageVisibilityBatchAsync(
+				any(ChangeMessageVisibilityBatchRequest.class), any(AsyncHandler.class)))
+						.thenAnswer(invocation -> {
+							ChangeMessageVisibilityBatchRequest request = invocation
+									.getArgument(0);
+							invocation
+									.<AsyncHandler<ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult>>getArgument(
+											1)
+									.onSuccess(request, createResult(request));
+							return null;
+						});
+		return sqs;
+	}
+
+	private static ChangeMessageVisibilityBatchResult createResult(
+			ChangeMessageVisibilityBatchRequest request) {
+		ChangeMessageVisibilityBatchResult result = new ChangeMessageVisibilityBatchResult();
+		for (ChangeMessageVisibilityBatchRequestEntry entry : request.getEntries()) {
+			if (entry.getReceiptHandle().startsWith("invalid")) {
+				result.withFailed(new BatchResultErrorEntry().withId(entry.getId())
+						.withCode("ReceiptHandleIsInvalid").withSenderFault(true));
+			}
+			else {
+				result.withSuccessful(new ChangeMessageVisibilityBatchResultEntry()
+						.withId(entry.getId()));
+			}
+		}
+		return result;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void extendVisibility_elevenDueMessages_sendsTwoBatches() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockChangeMessageVisibilityBatch();
+		VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(sqs, null, 60);
+		for (int i = 0; i < 11; i++) {
+			heartbeat.register(QUEUE_URL, "rh" + i, 1, System.currentTimeMillis());
+		}
+		Thread.sleep(HALF_VISIBILITY_TIMEOUT + 100);
+
+		// Act
+		heartbeat.extendVisibility();
+
+		// Assert
+		ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(ChangeMessageVisibilityBatchRequest.class);
+		verify(sqs, times(2)).changeMessageVisibilityBatchAsync(requestCaptor.capture(),
+				any(AsyncHandler.class));
+		List<ChangeMessageVisibilityBatchRequest> requests = requestCaptor
+				.getAllValues();
+		assertThat(requests.get(0).getEntries()).hasSize(10);
+		assertThat(requests.get(1).getEntries()).hasSize(1);
+		assertThat(requests.get(1).getEntries().get(0).getId()).isEqualTo("0");
+		assertThat(requests.get(0).getEntries().get(0).getVisibilityTimeout())
+				.isEqualTo(1);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void extendVisibility_messageNotDueOrUnregistered_sendsNoRequest()
+			throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockChangeMessageVisibilityBatch();
+		VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(sqs, null, 60);
+		heartbeat.register(QUEUE_URL, "notDue", 30, System.currentTimeMillis());
+		heartbeat.register(QUEUE_URL, "unregistered", 1, System.currentTimeMillis());
+		heartbeat.unregister(QUEUE_URL, "unregistered");
+		Thread.sleep(HALF_VISIBILITY_TIMEOUT + 100);
+
+		// Act
+		heartbeat.extendVisibility();
+
+		// Assert
+		verify(sqs, never()).changeMessageVisibilityBatchAsync(
+				any(ChangeMessageVisibilityBatchRequest.class), any(AsyncHandler.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void extendVisibility_maxExtensionReached_stopsExtending() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockChangeMessageVisibilityBatch();
+		VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(sqs, null, 0);
+		heartbeat.register(QUEUE_URL, "rh", 1, System.currentTimeMillis());
+		Thread.sleep(HALF_VISIBILITY_TIMEOUT + 100);
+
+		// Act
+		heartbeat.extendVisibility();
+
+		// Assert
+		verify(sqs, never()).changeMessageVisibilityBatchAsync(
+				any(ChangeMessageVisibilityBatchRequest.class), any(AsyncHandler.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void extendVisibility_failedEntry_stopsExtendingFailedMessage() throws Exception {
+		// Arrange
+		AmazonSQSAsync sqs = mockChangeMessageVisibilityBatch();
+		VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(sqs, null, 60);
+		heartbeat.register(QUEUE_URL, "invalid", 1, System.currentTimeMillis());
+		heartbeat.register(QUEUE_URL, "valid", 1, System.currentTimeMillis());
+		Thread.sleep(HALF_VISIBILITY_TIMEOUT + 100);
+		heartbeat.extendVisibility();
+
+		// Act
+		Thread.sleep(HALF_VISIBILITY_TIMEOUT + 100);
+		heartbeat.extendVisibility();
+
+		// Assert
+		ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(ChangeMessageVisibilityBatchRequest.class);
+		verify(sqs, times(2)).changeMessageVisibilityBatchAsync(requestCaptor.capture(),
+				any(AsyncHandler.class));
+		assertThat(requestCaptor.getAllValues().get(1).getEntries()).hasSize(1);
+		assertThat(requestCaptor.getAllValues().get(1).getEntries().get(0)
+				.getReceiptHandle()).isEqualTo("valid");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void extendVisibility_messageReceivedBeforeRegistration_isExtendedFromReceiveTime() {
+		// Arrange
+		AmazonSQSAsync sqs = mockChangeMessageVisibilityBatch();
+		VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(sqs, null, 600);
+		heartbeat.register(QUEUE_URL, "rh", 30, System.currentTimeMillis() - 20000);
+
+		// Act
+		heartbeat.extendVisibility();
+
+		// Assert
+		ArgumentCaptor<ChangeMessageVisibilityBatchRequest> requestCaptor = ArgumentCaptor
+				.forClass(ChangeMessageVisibilityBatchRequest.class);
+		verify(sqs).changeMessageVisibilityBatchAsync(requestCaptor.capture(),
+				any(AsyncHandler.class));
+		assertThat(requestCaptor.getValue().getEntries().get(0).getVisibilityTimeout())
+				.isEqualTo(30);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void extendVisibility_maxExtensionReachedSinceReceive_stopsExtending() {
+		// Arrange
+		AmazonSQSAsync sqs = mockChangeMessageVisibilityBatch();
+		VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(sqs, null, 60);
+		heartbeat.register(QUEUE_URL, "rh", 30, System.currentTimeMillis() - 89500);
+
+		// Act
+		heartbeat.extendVisibility();
+
+		// Assert
+		verify(sqs, never()).changeMessageVisibilityBatchAsync(
+				any(ChangeMessageVisibilityBatchRequest.class), any(AsyncHandler.class));
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.listener.support;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.aws.core.support.documentation.RuntimeUse;
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BatchPayloadHandlerMethodArgumentResolverTest {
+
+	private static MethodParameter getParameter(String methodName) {
+		Method method = ReflectionUtils.findMethod(BatchListener.class, methodName,
+				List.class);
+		return new MethodParameter(method, 0);
+	}
+
+	private static Message<List<Message<String>>> createBatch() {
+		Message<String> first = MessageBuilder.withPayload("first")
+				.setHeader("ReceiptHandle", "ReceiptHandle1").build();
+		Message<String> second = MessageBuilder.withPayload("second")
+				.setHeader("ReceiptHandle", "ReceiptHandle2").build();
+		return MessageBuilder.withPayload(Arrays.asList(first, second)).build();
+	}
+
+	@Test
+	void supportsParameter_listParameter_returnsTrue() {
+		// Arrange
+		BatchPayloadHandlerMethodArgumentResolver resolver = new BatchPayloadHandlerMethodArgumentResolver(
+				new StringMessageConverter(), mock(HandlerMethodArgumentResolver.class));
+
+		// Act & Assert
+		assertThat(resolver.supportsParameter(getParameter("payloads"))).isTrue();
+		assertThat(resolver.supportsParameter(getParameter("messages"))).isTrue();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void resolveArgument_listOfPayloads_returnsConvertedPayloads() throws Exception {
+		// Arrange
+		BatchPayloadHandlerMethodArgumentResolver resolver = new BatchPayloadHandlerMethodArgumentResolver(
+				new StringMessageConverter(), mock(HandlerMethodArgumentResolver.class));
+
+		// Act
+		List<String> result = (List<String>) resolver
+				.resolveArgument(getParameter("payloads"), createBatch());
+
+		// Assert
+		assertThat(result).containsExactly("first", "second");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void resolveArgument_listOfMessages_returnsMessagesWithOriginalHeaders()
+			throws Exception {
+		// Arrange
+		BatchPayloadHandlerMethodArgumentResolver resolver = new BatchPayloadHandlerMethodArgumentResolver(
+				new StringMessageConverter(), mock(HandlerMethodArgumentResolver.class));
+
+		// Act
+		List<Message<String>> result = (List<Message<String>>) resolver
+				.resolveArgument(getParameter("messages"), createBatch());
+
+		// Assert
+		assertThat(result).hasSize(2);
+		assertThat(result.get(0).getPayload()).isEqualTo("first");
+		assertThat(result.get(0).getHeaders().get("ReceiptHandle"))
+				.isEqualTo("ReceiptHandle1");
+		assertThat(result.get(1).getPayload()).isEqualTo("second");
+		assertThat(result.get(1).getHeaders().get("ReceiptHandle"))
+				.isEqualTo("ReceiptHandle2");
+	}
+
+	@Test
+	void resolveArgument_nonBatchMessage_delegatesToPayloadResolver() throws Exception {
+		// Arrange
+		HandlerMethodArgumentResolver payloadResolver = mock(
+				HandlerMethodArgumentResolver.class);
+		BatchPayloadHandlerMethodArgumentResolver resolver = new BatchPayloadHandlerMethodArgumentResolver(
+				new StringMessageConverter(), payloadResolver);
+		MethodParameter parameter = getParameter("payloads");
+		Message<String> message = MessageBuilder.withPayload("[\"first\"]").build();
+
+		// Act
+		resolver.resolveArgument(parameter, message);
+
+		// Assert
+		verify(payloadResolver).resolveArgument(parameter, message);
+	}
+
+	@Test
+	void resolveArgument_notConvertiblePayload_throwsMessageConversionException() {
+		// Arrange
+		BatchPayloadHandlerMethodArgumentResolver resolver = new BatchPayloadHandlerMethodArgumentResolver(
+				new StringMessageConverter(), mock(HandlerMethodArgumentResolver.class));
+
+		// Act & Assert
+		assertThatThrownBy(() -> resolver.resolveArgument(getParameter("numbers"),
+				createBatch())).isInstanceOf(MessageConversionException.class);
+	}
+
+	private static class BatchListener {
+
+		@RuntimeUse
+		void payloads(List<String> payloads) {
+		}
+
+		@RuntimeUse
+		void messages(List<Message<String>> messages) {
+		}
+
+		@RuntimeUse
+		void numbers(List<Integer> numbers) {
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingMappingJackson2MessageConverterTest {
+
+	@Test
+	void toMessage_object_serializesIntoString() {
+		// Arrange
+		CachingMappingJackson2MessageConverter messageConverter = new CachingMappingJackson2MessageConverter();
+
+		// Act
+		Message<?> message = messageConverter.toMessage(new Item("first", 1), null);
+
+		// Assert
+		assertThat(message.getPayload())
+				.isEqualTo("{\"itemName\":\"first\",\"quantity\":1}");
+	}
+
+	@Test
+	void fromMessage_genericMethodParameter_resolvesElementTypeForEveryMessage() {
+		// Arrange
+		CachingMappingJackson2MessageConverter messageConverter = new CachingMappingJackson2MessageConverter();
+		MethodParameter parameter = new MethodParameter(ReflectionUtils
+				.findMethod(CachingMappingJackson2MessageConverterTest.class,
+						"receive", List.class),
+				0);
+		Message<?> message = messageConverter.toMessage(
+				Arrays.asList(new Item("first", 1), new Item("second", 2)), null);
+
+		// Act
+		Object firstPayload = messageConverter.fromMessage(message, List.class,
+				parameter);
+		Object secondPayload = messageConverter.fromMessage(message, List.class,
+				parameter);
+
+		// Assert
+		assertThat(firstPayload).isEqualTo(secondPayload);
+		assertThat((List<?>) firstPayload).containsExactly(new Item("first", 1),
+				new Item("second", 2));
+	}
+
+	@Test
+	void setObjectMapper_afterConversion_usesNewObjectMapper() {
+		// Arrange
+		CachingMappingJackson2MessageConverter messageConverter = new CachingMappingJackson2MessageConverter();
+		messageConverter.toMessage(new Item("first", 1), null);
+		ObjectMapper objectMapper = new ObjectMapper()
+				.setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE);
+
+		// Act
+		messageConverter.setObjectMapper(objectMapper);
+
+		// Assert
+		assertThat(messageConverter.toMessage(new Item("first", 1), null).getPayload())
+				.isEqualTo("{\"item_name\":\"first\",\"quantity\":1}");
+	}
+
+	void receive(List<Item> items) {
+	}
+
+	static class Item {
+
+		private String itemName;
+
+		private int quantity;
+
+		Item() {
+		}
+
+		Item(String itemName, int quantity) {
+			this.itemName = itemName;
+			this.quantity = quantity;
+		}
+
+		public String getItemName() {
+			return this.itemName;
+		}
+
+		public void setItemName(String itemName) {
+			this.itemName = itemName;
+		}
+
+		public int getQuantity() {
+			return this.quantity;
+		}
+
+		public void setQuantity(int quantity) {
+			this.quantity = quantity;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Item item = (Item) o;
+			return this.quantity == item.quantity
+					&& this.itemName.equals(item.itemName);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.itemName.hashCode() * 31 + this.quantity;
+		}
+
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.StringUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressingMessageConverterTest {
+
+	private static final String LARGE_PAYLOAD = StringUtils
+			.collectionToDelimitedString(Collections.nCopies(200, "{\"key\":\"värde\"}"),
+					",");
+
+	private static List<MessageConverter> createStringMessageConverters() {
+		StringMessageConverter stringMessageConverter = new StringMessageConverter();
+		stringMessageConverter.setSerializedPayloadClass(String.class);
+		return Collections.singletonList(stringMessageConverter);
+	}
+
+	@Test
+	void toMessage_payloadAboveThreshold_compressesPayload() throws Exception {
+		// Arrange
+		CompressingMessageConverter messageConverter = new CompressingMessageConverter(
+				createStringMessageConverters(), PayloadCompression.GZIP);
+
+		// Act
+		Message<?> message = messageConverter.toMessage(LARGE_PAYLOAD,
+				new MessageHeaders(Collections.<String, Object>singletonMap("custom",
+						"value")));
+
+		// Assert
+		assertThat(message.getHeaders().get(
+				CompressingMessageConverter.CONTENT_ENCODING_HEADER)).isEqualTo("gzip");
+		assertThat(message.getHeaders().get("custom")).isEqualTo("value");
+		assertThat((String) message.getPayload()).matches("[A-Za-z0-9+/=]+");
+		assertThat(((String) message.getPayload()).length())
+				.isLessThan(LARGE_PAYLOAD.length());
+	}
+
+	@Test
+	void toMessage_payloadBelowThreshold_doesNotCompressPayload() throws Exception {
+		// Arrange
+		CompressingMessageConverter messageConverter = new CompressingMessageConverter(
+				createStringMessageConverters(), PayloadCompression.GZIP);
+		messageConverter.setThreshold(LARGE_PAYLOAD.length() * 2);
+
+		// Act
+		Message<?> message = messageConverter.toMessage(LARGE_PAYLOAD, null);
+
+		// Assert
+		assertThat(message.getPayload()).isEqualTo(LARGE_PAYLOAD);
+		assertThat(message.getHeaders())
+				.doesNotContainKey(CompressingMessageConverter.CONTENT_ENCODING_HEADER);
+	}
+
+	@Test
+	void fromMessage_compressedPayload_decompressesPayload() throws Exception {
+		for (PayloadCompression compression : PayloadCompression.values()) {
+			// Arrange
+			CompressingMessageConverter sender = new CompressingMessageConverter(
+					createStringMessageConverters(), compression);
+			CompressingMessageConverter receiver = new CompressingMessageConverter(
+					createStringMessageConverters(), PayloadCompression.GZIP);
+			Message<?> message = sender.toMessage(LARGE_PAYLOAD, null);
+
+			// Act
+			Object payload = receiver.fromMessage(message, String.class);
+
+			// Assert
+			assertThat(payload).isEqualTo(LARGE_PAYLOAD);
+		}
+	}
+
+	@Test
+	void fromMessage_compressionNotConfigured_doesNotDecompressPayload()
+			throws Exception {
+		// Arrange
+		CompressingMessageConverter sender = new CompressingMessageConverter(
+				createStringMessageConverters(), PayloadCompression.GZIP);
+		CompressingMessageConverter receiver = new CompressingMessageConverter(
+				createStringMessageConverters());
+		Message<?> message = sender.toMessage(LARGE_PAYLOAD, null);
+
+		// Act
+		Object payload = receiver.fromMessage(message, String.class);
+
+		// Assert
+		assertThat(payload).isEqualTo(message.getPayload());
+	}
+
+	@Test
+	void fromMessage_decompressedPayloadAboveMaxSize_throwsMessageConversionException()
+			throws Exception {
+		// Arrange
+		CompressingMessageConverter sender = new CompressingMessageConverter(
+				createStringMessageConverters(), PayloadCompression.DEFLATE);
+		CompressingMessageConverter receiver = new CompressingMessageConverter(
+				createStringMessageConverters(), PayloadCompression.DEFLATE);
+		receiver.setMaxDecompressedSize(LARGE_PAYLOAD.length() / 2);
+		Message<?> message = sender.toMessage(LARGE_PAYLOAD, null);
+
+		// Act
+		assertThatThrownBy(() -> receiver.fromMessage(message, String.class))
+				.isInstanceOf(MessageConversionException.class)
+				.hasMessageContaining("maximum size");
+	}
+
+	@Test
+	void decompress_unknownContentEncoding_returnsMessageUnchanged() throws Exception {
+		// Arrange
+		CompressingMessageConverter messageConverter = new CompressingMessageConverter(
+				createStringMessageConverters(), PayloadCompression.GZIP);
+		Message<String> message = MessageBuilder.withPayload("content").setHeader(
+				CompressingMessageConverter.CONTENT_ENCODING_HEADER, "br").build();
+
+		// Act
+		Message<?> decompressed = messageConverter.decompress(message);
+
+		// Assert
+		assertThat(decompressed).isSameAs(message);
+	}
+
+}
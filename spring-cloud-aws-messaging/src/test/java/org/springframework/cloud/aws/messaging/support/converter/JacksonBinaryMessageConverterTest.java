@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.aws.messaging.support.converter;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JacksonBinaryMessageConverterTest {
+
+	@Test
+	void toMessage_defaultSettings_sendsPayloadInBinaryMessageAttribute() {
+		// Arrange
+		JacksonBinaryMessageConverter messageConverter = new JacksonBinaryMessageConverter();
+
+		// Act
+		Message<?> message = messageConverter.toMessage(new Order("1", 42), null);
+
+		// Assert
+		assertThat(message.getPayload())
+				.isEqualTo(AbstractBinaryMessageConverter.PAYLOAD_ATTRIBUTE);
+		assertThat(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+				.isEqualTo(JacksonBinaryMessageConverter.CBOR);
+		assertThat(message.getHeaders()
+				.get(AbstractBinaryMessageConverter.PAYLOAD_ATTRIBUTE))
+						.isInstanceOf(ByteBuffer.class);
+
+		Order order = (Order) messageConverter.fromMessage(message, Order.class);
+		assertThat(order.getId()).isEqualTo("1");
+		assertThat(order.getQuantity()).isEqualTo(42);
+	}
+
+	@Test
+	void toMessage_payloadInBody_sendsBase64EncodedPayload() {
+		// Arrange
+		JacksonBinaryMessageConverter messageConverter = new JacksonBinaryMessageConverter();
+		messageConverter.setPayloadInMessageAttribute(false);
+
+		// Act
+		Message<?> message = messageConverter
+				.toMessage(Collections.singletonMap("key", "value"), null);
+
+		// Assert
+		assertThat((String) message.getPayload()).matches("[A-Za-z0-9+/=]+");
+		assertThat(message.getHeaders())
+				.doesNotContainKey(AbstractBinaryMessageConverter.PAYLOAD_ATTRIBUTE);
+		assertThat(messageConverter.fromMessage(message, Map.class))
+				.isEqualTo(Collections.singletonMap("key", "value"));
+	}
+
+	@Test
+	void fromMessage_invalidPayload_throwsMessageConversionException() {
+		// Arrange
+		JacksonBinaryMessageConverter messageConverter = new JacksonBinaryMessageConverter();
+		Message<String> message = MessageBuilder.withPayload("not base64!")
+				.setHeader(MessageHeaders.CONTENT_TYPE,
+						JacksonBinaryMessageConverter.CBOR)
+				.build();
+
+		// Act & Assert
+		assertThatThrownBy(() -> messageConverter.fromMessage(message, Order.class))
+				.isInstanceOf(MessageConversionException.class);
+	}
+
+	static class Order {
+
+		private String id;
+
+		private int quantity;
+
+		Order() {
+		}
+
+		Order(String id, int quantity) {
+			this.id = id;
+			this.quantity = quantity;
+		}
+
+		public String getId() {
+			return this.id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public int getQuantity() {
+			return this.quantity;
+		}
+
+		public void setQuantity(int quantity) {
+			this.quantity = quantity;
+		}
+
+	}
+
+}